@@ -0,0 +1,315 @@
+package com.example.android.covid19guide.adapters;
+
+import android.app.Activity;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.ViewGroup;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.android.covid19guide.activities.MainActivity;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.LatencyHistogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scrolls a feed of 200 cards by a fixed distance on every frame, with the default caches of the RecyclerView and
+ * then with the {@link FeedScrollPolicy}, and measures the time between the frames. The percentiles of the frame
+ * times and the number of dropped frames of both runs are written to logcat. The thumbnails are left out, so that
+ * only the inflating, binding and laying out of the cards is measured. The time of a single bind of a card is
+ * measured on its own as well.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedScrollBenchmark {
+
+    private static final String LOG_TAG = FeedScrollBenchmark.class.getSimpleName();
+
+    private static final int ARTICLE_COUNT = 200;
+
+    /**
+     * The number of frames of a scroll, and the distance scrolled on every frame, about a fling
+     */
+    private static final int FRAME_COUNT = 300;
+
+    private static final int SCROLL_DP_PER_FRAME = 40;
+
+    /**
+     * The number of times that every card is bound when the bind time is measured
+     */
+    private static final int BIND_ROUNDS = 20;
+
+    private ActivityScenario<MainActivity> mScenario;
+
+    @Before
+    public void launchActivity() {
+
+        mScenario = ActivityScenario.launch(MainActivity.class);
+    }
+
+    @After
+    public void closeActivity() {
+
+        mScenario.close();
+    }
+
+    @Test
+    public void benchmarkScrollWithDefaultAndScreenSizedCaches() throws InterruptedException {
+
+        // The first run warms up the code of the cards, it is not reported
+        scroll(false);
+
+        ScrollResult defaults = scroll(false);
+
+        ScrollResult tuned = scroll(true);
+
+        Log.i(LOG_TAG, "Default caches: " + defaults);
+        Log.i(LOG_TAG, "Sized by the screen: " + tuned);
+
+        assertEquals(FRAME_COUNT, defaults.mFrameTimes.getCount());
+        assertEquals(FRAME_COUNT, tuned.mFrameTimes.getCount());
+    }
+
+    @Test
+    public void benchmarkBindTime() throws InterruptedException {
+
+        final CountDownLatch loaded = new CountDownLatch(1);
+
+        final ArticlesAdapter[] adapter = new ArticlesAdapter[1];
+
+        mScenario.onActivity(new ActivityScenario.ActivityAction<MainActivity>() {
+            @Override
+            public void perform(MainActivity activity) {
+
+                RecyclerView recyclerView = new RecyclerView(activity);
+
+                recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+
+                adapter[0] = new ArticlesAdapter(activity, createArticles());
+
+                adapter[0].registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                    @Override
+                    public void onItemRangeInserted(int positionStart, int itemCount) {
+                        loaded.countDown();
+                    }
+                });
+
+                recyclerView.setAdapter(adapter[0]);
+
+                activity.setContentView(recyclerView);
+            }
+        });
+
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+
+        final LatencyHistogram bindTimes = new LatencyHistogram();
+
+        mScenario.onActivity(new ActivityScenario.ActivityAction<MainActivity>() {
+            @Override
+            public void perform(MainActivity activity) {
+
+                RecyclerView recyclerView = findRecyclerView(activity);
+
+                ArticlesAdapter.ArticleViewHolder[] holders = {
+                        adapter[0].createViewHolder(recyclerView, ArticlesAdapter.VIEW_TYPE_WITH_AUTHOR),
+                        adapter[0].createViewHolder(recyclerView, ArticlesAdapter.VIEW_TYPE_WITHOUT_AUTHOR)};
+
+                // The first round warms up the code of the binding, it is not reported
+                for (int round = 0; round <= BIND_ROUNDS; round++) {
+
+                    for (int position = 0; position < adapter[0].getItemCount(); position++) {
+
+                        ArticlesAdapter.ArticleViewHolder holder = holders[adapter[0].getItemViewType(position)];
+
+                        long startNanos = System.nanoTime();
+
+                        adapter[0].bindViewHolder(holder, position);
+
+                        if (round > 0) {
+                            bindTimes.record(System.nanoTime() - startNanos);
+                        }
+                    }
+                }
+            }
+        });
+
+        Log.i(LOG_TAG, String.format(Locale.US, "Binds: count=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                bindTimes.getCount(), bindTimes.getPercentileMillis(50), bindTimes.getPercentileMillis(90),
+                bindTimes.getPercentileMillis(99), bindTimes.getMaxMillis()));
+
+        assertEquals(BIND_ROUNDS * ARTICLE_COUNT, bindTimes.getCount());
+    }
+
+    /**
+     * Displays a new feed in the activity and scrolls it on every frame.
+     *
+     * @param isTuned is true to apply the {@link FeedScrollPolicy}, false for the defaults of the RecyclerView
+     */
+    private ScrollResult scroll(final boolean isTuned) throws InterruptedException {
+
+        final CountDownLatch loaded = new CountDownLatch(1);
+
+        final CountDownLatch scrolled = new CountDownLatch(1);
+
+        final ScrollResult result = new ScrollResult();
+
+        mScenario.onActivity(new ActivityScenario.ActivityAction<MainActivity>() {
+            @Override
+            public void perform(MainActivity activity) {
+
+                RecyclerView recyclerView = new RecyclerView(activity);
+
+                LinearLayoutManager layoutManager = new LinearLayoutManager(activity);
+
+                recyclerView.setLayoutManager(layoutManager);
+                recyclerView.setHasFixedSize(true);
+
+                ArticlesAdapter adapter = new ArticlesAdapter(activity, createArticles());
+
+                adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                    @Override
+                    public void onItemRangeInserted(int positionStart, int itemCount) {
+                        loaded.countDown();
+                    }
+                });
+
+                recyclerView.setAdapter(adapter);
+
+                if (isTuned) {
+
+                    FeedScrollPolicy scrollPolicy = FeedScrollPolicy.forScreen(activity);
+
+                    scrollPolicy.apply(recyclerView);
+
+                    scrollPolicy.prewarm(recyclerView, adapter);
+
+                } else {
+
+                    FeedScrollPolicy.applyDefaults(recyclerView, layoutManager);
+                }
+
+                activity.setContentView(recyclerView);
+
+                result.mFrameNanos = frameNanosOf(activity);
+            }
+        });
+
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+
+        // Leave the main thread idle for the cards that are inflated ahead
+        Thread.sleep(1000);
+
+        mScenario.onActivity(new ActivityScenario.ActivityAction<MainActivity>() {
+            @Override
+            public void perform(MainActivity activity) {
+
+                final RecyclerView feed = findRecyclerView(activity);
+
+                final int scrollPixels = Math.round(SCROLL_DP_PER_FRAME
+                        * activity.getResources().getDisplayMetrics().density);
+
+                Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+
+                    private long mLastFrameNanos;
+
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+
+                        if (mLastFrameNanos != 0) {
+                            result.recordFrame(frameTimeNanos - mLastFrameNanos);
+                        }
+
+                        mLastFrameNanos = frameTimeNanos;
+
+                        if (result.mFrameTimes.getCount() == FRAME_COUNT) {
+
+                            scrolled.countDown();
+
+                            return;
+                        }
+
+                        feed.scrollBy(0, scrollPixels);
+
+                        Choreographer.getInstance().postFrameCallback(this);
+                    }
+                });
+            }
+        });
+
+        assertTrue(scrolled.await(30, TimeUnit.SECONDS));
+
+        return result;
+    }
+
+    private static RecyclerView findRecyclerView(Activity activity) {
+
+        return (RecyclerView) ((ViewGroup) activity.findViewById(android.R.id.content)).getChildAt(0);
+    }
+
+    /**
+     * This method returns the duration of a frame at the refresh rate of the display.
+     */
+    private static long frameNanosOf(Activity activity) {
+
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+
+        return (long) (TimeUnit.SECONDS.toNanos(1) / (refreshRate > 0 ? refreshRate : 60));
+    }
+
+    /**
+     * Creates the articles of the feed, one in four without an author so that both view types are scrolled.
+     */
+    private static List<Article> createArticles() {
+
+        List<Article> articles = new ArrayList<>();
+
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+
+            articles.add(new Article("world/2020/jun/" + i, "Coronavirus live news: article " + i,
+                    "The number of confirmed coronavirus cases continued to rise on Monday, as health officials "
+                            + "urged people to keep washing their hands, article " + i + ".",
+                    i % 3 == 0 ? "World news" : "Life and style", 1591006530000L - i * 60000L,
+                    "https://www.theguardian.com/world/2020/jun/" + i, i % 4 == 0 ? null : "Sarah Boseley", null));
+        }
+
+        return articles;
+    }
+
+    /**
+     * The frame times of a scroll and the number of frames that were dropped.
+     */
+    private static final class ScrollResult {
+
+        private final LatencyHistogram mFrameTimes = new LatencyHistogram();
+
+        private long mFrameNanos;
+
+        private long mDroppedFrameCount;
+
+        void recordFrame(long frameTimeNanos) {
+
+            mFrameTimes.record(frameTimeNanos);
+
+            // A frame that took the time of three vsyncs dropped two frames
+            mDroppedFrameCount += Math.max(0, Math.round((double) frameTimeNanos / mFrameNanos) - 1);
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format(Locale.US, "frames=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms dropped=%d",
+                    mFrameTimes.getCount(), mFrameTimes.getPercentileMillis(50), mFrameTimes.getPercentileMillis(90),
+                    mFrameTimes.getPercentileMillis(99), mFrameTimes.getMaxMillis(), mDroppedFrameCount);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.android.covid19guide.data;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.android.covid19guide.datamodels.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the ranking and the stored bodies of the {@link ArticlesSearchIndex} and measures the time of the searches
+ * typed letter by letter on indexes of 1k and 10k articles, and the size of the index on disk. The results are
+ * written to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticlesSearchIndexBenchmark {
+
+    private static final String LOG_TAG = ArticlesSearchIndexBenchmark.class.getSimpleName();
+
+    private static final String DATABASE_NAME = "articles_search_benchmark.db";
+
+    private static final String[] WORDS = {"coronavirus", "vaccine", "testing", "lockdown", "hospital", "school",
+            "economy", "travel", "masks", "outbreak", "research", "trial", "government", "cases", "deaths", "recovery",
+            "quarantine", "immunity", "variant", "symptoms", "pandemic", "health", "workers", "children", "business"};
+
+    private static final String[] SECTIONS = {"World news", "UK news", "Society", "Science", "Business"};
+
+    private static final String[] TYPED_SEARCHES = {"v", "va", "vac", "vacc", "vaccine", "vaccine t", "vaccine tri",
+            "vaccine trial"};
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private Context mContext;
+
+    private ArticlesSearchIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+        mIndex = new ArticlesSearchIndex(mContext, DATABASE_NAME, Integer.MAX_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        mIndex.close();
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void matchesInTheTitleRankFirstAndPrefixesMatch() {
+
+        List<Article> articles = new ArrayList<>();
+        articles.add(article(1, "Hospitals prepare for winter", "The vaccine rollout continues."));
+        articles.add(article(2, "Vaccine rollout reaches care homes", "Care homes are next."));
+        articles.add(article(3, "Schools reopen", "Pupils return."));
+
+        Map<String, String> bodies = new HashMap<>();
+        bodies.put("id-3", "Teachers ask whether the vaccinations will reach the schools in time.");
+
+        mIndex.index(articles, bodies);
+
+        List<Article> results = mIndex.search("vacc", 10);
+
+        assertEquals(3, results.size());
+        assertEquals("id-2", results.get(0).getId());
+
+        assertEquals(Collections.singletonList(articles.get(2).getUrl()), urlsOf(mIndex.search("vaccinations", 10)));
+        assertTrue(mIndex.search("OR \"*", 10).isEmpty());
+
+        // An article that is downloaded again is updated instead of being indexed twice
+        mIndex.index(Collections.singletonList(articles.get(1)), Collections.<String, String>emptyMap());
+        assertEquals(3, mIndex.getArticleCount());
+    }
+
+    @Test
+    public void onlyFullBodiesAreLoadedForTheReader() {
+
+        List<Article> articles = new ArrayList<>();
+        articles.add(article(1, "Hospitals prepare for winter", "The vaccine rollout continues."));
+        articles.add(article(2, "Schools reopen", "Pupils return."));
+
+        mIndex.index(articles, Collections.singletonMap("id-2", "Teachers welcome the pupils back."));
+
+        // The description is indexed in place of a body that is not known yet
+        assertNull(mIndex.loadBody("id-1"));
+        assertEquals("Teachers welcome the pupils back.", mIndex.loadBody("id-2"));
+        assertNull(mIndex.loadBody("id-3"));
+    }
+
+    @Test
+    public void benchmarkSearchAsYouType() {
+
+        for (int articleCount : new int[]{1000, 10000}) {
+            report(articleCount);
+        }
+    }
+
+    /**
+     * Fills the index up to the given number of articles, and logs the indexing time, the size on disk, and the
+     * mean time of every search of the typed text.
+     */
+    private void report(int articleCount) {
+
+        Random random = new Random(articleCount);
+
+        long indexStartNanos = System.nanoTime();
+
+        for (int start = (int) mIndex.getArticleCount(); start < articleCount; start += BATCH_SIZE) {
+
+            List<Article> articles = new ArrayList<>();
+
+            Map<String, String> bodies = new HashMap<>();
+
+            for (int i = start; i < Math.min(start + BATCH_SIZE, articleCount); i++) {
+
+                Article article = article(i, sentence(random, 8), sentence(random, 30));
+
+                articles.add(article);
+
+                bodies.put(article.getId(), sentence(random, 600));
+            }
+
+            mIndex.index(articles, bodies);
+        }
+
+        long indexMillis = (System.nanoTime() - indexStartNanos) / 1000000;
+
+        Log.i(LOG_TAG, String.format(Locale.US, "%d articles: indexed in %d ms, %d KB on disk", articleCount,
+                indexMillis, mIndex.getSizeOnDiskBytes() / 1024));
+
+        for (String text : TYPED_SEARCHES) {
+
+            // Warm up the page cache of the database
+            int resultCount = mIndex.search(text, 50).size();
+
+            long startNanos = System.nanoTime();
+
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                mIndex.search(text, 50);
+            }
+
+            Log.i(LOG_TAG, String.format(Locale.US, "%d articles, \"%s\": %.2f ms/search, %d results", articleCount,
+                    text, (System.nanoTime() - startNanos) / 1e6 / MEASURED_ITERATIONS, resultCount));
+        }
+    }
+
+    private static Article article(int number, String title, String description) {
+
+        return new Article("id-" + number, title, description, SECTIONS[number % SECTIONS.length],
+                1590000000000L + number * 60000L, "https://www.theguardian.com/article-" + number, "Author " + number % 7,
+                "https://media.guim.co.uk/" + number + "/500.jpg");
+    }
+
+    private static String sentence(Random random, int wordCount) {
+
+        StringBuilder sentence = new StringBuilder();
+
+        for (int i = 0; i < wordCount; i++) {
+            sentence.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return sentence.toString();
+    }
+
+    private static List<String> urlsOf(List<Article> articles) {
+
+        List<String> urls = new ArrayList<>();
+
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+
+        return urls;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.android.covid19guide.data;
+
+import android.content.Context;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.android.covid19guide.datamodels.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link ArticlesStore} gives the same key to the pages of a feed, keeps a feed in its order, replaces
+ * it when it is downloaded again, evicts by size without losing the feed just saved, and counts its hits, misses and
+ * age.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticlesStoreTest {
+
+    private static final String DATABASE_NAME = "articles_store_test.db";
+
+    private static final String QUERY_URL = "https://content.guardianapis.com/search?q=covid&order-by=newest";
+
+    private Context mContext;
+
+    private ArticlesStore mStore;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+        mStore = new ArticlesStore(mContext, DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void pagesOfTheSameFeedHaveTheSameKey() {
+
+        String firstPage = "https://content.guardianapis.com/search?q=covid&api-key=one&page=1&page-size=10"
+                + "&order-by=newest&show-fields=bodyText";
+
+        String secondPage = "https://Content.guardianapis.com/search?page=2&order-by=newest&q=covid&api-key=two";
+
+        assertEquals(ArticlesStore.normalizeQuery(QUERY_URL), ArticlesStore.normalizeQuery(firstPage));
+        assertEquals(ArticlesStore.normalizeQuery(QUERY_URL), ArticlesStore.normalizeQuery(secondPage));
+
+        // Two requests for different pages are never served by the same response
+        assertNotEquals(ArticlesStore.normalizeRequest(firstPage), ArticlesStore.normalizeRequest(secondPage));
+        assertNotEquals(ArticlesStore.normalizeQuery(QUERY_URL),
+                ArticlesStore.normalizeQuery(QUERY_URL + "&section=society"));
+    }
+
+    @Test
+    public void storedFeedIsReadInOrderAndReplacedWhenSavedAgain() {
+
+        String queryKey = ArticlesStore.normalizeQuery(QUERY_URL);
+
+        assertNull(mStore.loadArticles(queryKey));
+        assertEquals(-1, mStore.getFeedAgeMillis(queryKey));
+        assertFalse(mStore.isFeedFresh(queryKey, TimeUnit.HOURS.toMillis(1)));
+
+        mStore.saveArticles(queryKey, articles(0, 5));
+
+        List<Article> stored = mStore.loadArticles(queryKey);
+
+        assertNotNull(stored);
+        assertEquals(5, stored.size());
+
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals("id-" + i, stored.get(i).getId());
+        }
+
+        assertNull(stored.get(0).getAuthorName());
+        assertEquals("Author", stored.get(1).getAuthorName());
+
+        // A feed downloaded again replaces the articles of the previous download instead of adding to them
+        mStore.saveArticles(queryKey, articles(10, 3));
+
+        stored = mStore.loadArticles(queryKey);
+
+        assertEquals(3, stored.size());
+        assertEquals("id-10", stored.get(0).getId());
+
+        assertEquals(2, mStore.getHitCount());
+        assertEquals(1, mStore.getMissCount());
+    }
+
+    @Test
+    public void feedIsFreshUntilItsMaximumAge() throws InterruptedException {
+
+        String queryKey = ArticlesStore.normalizeQuery(QUERY_URL);
+
+        mStore.saveArticles(queryKey, articles(0, 2));
+
+        long ageMillis = mStore.getFeedAgeMillis(queryKey);
+
+        assertTrue(ageMillis >= 0 && ageMillis < TimeUnit.MINUTES.toMillis(1));
+        assertTrue(mStore.isFeedFresh(queryKey, TimeUnit.HOURS.toMillis(1)));
+
+        Thread.sleep(20);
+
+        assertFalse(mStore.isFeedFresh(queryKey, 10));
+
+        // Another feed is not in the store
+        assertEquals(-1, mStore.getFeedAgeMillis(ArticlesStore.normalizeQuery(QUERY_URL + "&section=society")));
+    }
+
+    @Test
+    public void feedTooLargeForTheStoreKeepsItsNewestArticles() {
+
+        mStore.close();
+
+        mStore = new ArticlesStore(mContext, DATABASE_NAME, 2000);
+
+        String queryKey = ArticlesStore.normalizeQuery(QUERY_URL);
+
+        String otherQueryKey = ArticlesStore.normalizeQuery(QUERY_URL + "&section=society");
+
+        mStore.saveArticles(otherQueryKey, articles(100, 2));
+
+        // The feed that is saved is never evicted as a whole, the other feeds go first and then its oldest articles
+        mStore.saveArticles(queryKey, articles(0, 50));
+
+        assertNull(mStore.loadArticles(otherQueryKey));
+
+        List<Article> stored = mStore.loadArticles(queryKey);
+
+        assertNotNull(stored);
+        assertTrue(stored.size() > 1 && stored.size() < 50);
+
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals("id-" + i, stored.get(i).getId());
+        }
+    }
+
+    /**
+     * Creates the articles of a feed, every other one without an author.
+     */
+    private static List<Article> articles(int firstIndex, int count) {
+
+        List<Article> articles = new ArrayList<>();
+
+        for (int i = firstIndex; i < firstIndex + count; i++) {
+
+            articles.add(new Article("id-" + i, "Title " + i, "Description " + i, "World news",
+                    1591006530000L - i * 60000L, "https://www.theguardian.com/" + i, i % 2 == 0 ? null : "Author",
+                    "https://media.guim.co.uk/" + i + ".jpg"));
+        }
+
+        return articles;
+    }
+}
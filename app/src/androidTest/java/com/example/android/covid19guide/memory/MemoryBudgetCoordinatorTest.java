@@ -0,0 +1,137 @@
+package com.example.android.covid19guide.memory;
+
+import android.content.ComponentCallbacks2;
+import android.util.LruCache;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link MemoryBudgetCoordinator} sheds the caches in the order of their priorities as the trim
+ * levels rise, and that an LruCache is trimmed from its least recently used entry.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryBudgetCoordinatorTest {
+
+    /**
+     * A cache of 100 bytes that records the fractions it was trimmed to.
+     */
+    private static final class FakeCache implements MemoryBudgetCoordinator.Cache {
+
+        private final String mName;
+
+        private final List<String> mTrims;
+
+        private long mSizeBytes = 100;
+
+        FakeCache(String name, List<String> trims) {
+            mName = name;
+            mTrims = trims;
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return mSizeBytes;
+        }
+
+        @Override
+        public void trimToFraction(float fraction) {
+
+            mSizeBytes = Math.min(mSizeBytes, (long) (100 * fraction));
+
+            mTrims.add(mName + " " + fraction);
+        }
+    }
+
+    @Test
+    public void theCachesAreShedInTheOrderOfTheirPriorities() {
+
+        MemoryBudgetCoordinator coordinator = new MemoryBudgetCoordinator();
+
+        List<String> trims = new ArrayList<>();
+
+        // Registered in the opposite order of their priorities
+        FakeCache pages = new FakeCache("pages", trims);
+
+        FakeCache bodies = new FakeCache("bodies", trims);
+
+        FakeCache images = new FakeCache("images", trims);
+
+        coordinator.register("pages", MemoryBudgetCoordinator.Priority.NON_VISIBLE, pages);
+        coordinator.register("bodies", MemoryBudgetCoordinator.Priority.OFF_SCREEN_BODIES, bodies);
+        coordinator.register("images", MemoryBudgetCoordinator.Priority.PREFETCHED_IMAGES, images);
+
+        coordinator.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        assertEquals(50, images.getSizeBytes());
+        assertEquals(100, bodies.getSizeBytes());
+        assertEquals(100, pages.getSizeBytes());
+
+        coordinator.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertEquals(0, images.getSizeBytes());
+        assertEquals(50, bodies.getSizeBytes());
+        assertEquals(100, pages.getSizeBytes());
+
+        trims.clear();
+
+        coordinator.onLowMemory();
+
+        assertEquals("[images 0.0, bodies 0.0, pages 0.0]", trims.toString());
+
+        // A cache of a screen that is gone is left alone
+        coordinator.unregister(pages);
+
+        trims.clear();
+
+        coordinator.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        assertEquals("[images 0.0, bodies 0.0]", trims.toString());
+    }
+
+    @Test
+    public void theLevelsOfTheBackgroundAreAsSevereAsTheLevelsOfARunningApp() {
+
+        assertEquals(0, MemoryBudgetCoordinator.severityOf(0));
+
+        assertEquals(MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE),
+                MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+
+        assertEquals(MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW),
+                MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+
+        assertEquals(MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL),
+                MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+
+        assertEquals(MemoryBudgetCoordinator.MAX_SEVERITY,
+                MemoryBudgetCoordinator.severityOf(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+    }
+
+    @Test
+    public void anLruCacheLosesItsLeastRecentlyUsedEntriesFirst() {
+
+        LruCache<String, String> cache = new LruCache<>(4);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.put("d", "4");
+
+        // Used again, so it is kept
+        cache.get("a");
+
+        MemoryBudgetCoordinator.trimToFraction(cache, 0.5f);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("d"));
+
+        MemoryBudgetCoordinator.trimToFraction(cache, 0);
+
+        assertEquals(0, cache.size());
+    }
+}
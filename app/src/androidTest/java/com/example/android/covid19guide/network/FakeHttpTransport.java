@@ -0,0 +1,92 @@
+package com.example.android.covid19guide.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-process {@link HttpTransport} that answers every request from a {@link Responder} instead of the network.
+ * It is used to test and benchmark the loader and the parser on a machine without any network connection, and it
+ * records every request that it receives.
+ */
+public class FakeHttpTransport implements HttpTransport {
+
+    /**
+     * Builds the response of a request
+     */
+    public interface Responder {
+
+        /**
+         * This method returns the response of the request, or throws an IOException to simulate a network failure.
+         */
+        HttpResponse respond(HttpRequest request) throws IOException;
+    }
+
+    /**
+     * The responder that answers the requests
+     */
+    private final Responder mResponder;
+
+    /**
+     * All the requests received so far
+     */
+    private final List<HttpRequest> mRequests = Collections.synchronizedList(new ArrayList<HttpRequest>());
+
+    /**
+     * Constructs a new {@link FakeHttpTransport} that answers the requests with the given responder.
+     */
+    public FakeHttpTransport(Responder responder) {
+
+        mResponder = responder;
+    }
+
+    /**
+     * Constructs a new {@link FakeHttpTransport} that answers every request with the same status, headers and body.
+     */
+    public FakeHttpTransport(final int code, final Map<String, String> headers, final byte[] body) {
+
+        this(new Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+                return new HttpResponse(code, headers, new ByteArrayInputStream(body));
+            }
+        });
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+
+        mRequests.add(request);
+
+        if (request.getCancellationSignal() != null && request.getCancellationSignal().isCanceled()) {
+            throw new InterruptedIOException("Canceled");
+        }
+
+        return mResponder.respond(request);
+    }
+
+    @Override
+    public void preconnect(String url) {
+        // There are no connections to open
+    }
+
+    @Override
+    public String getStatistics() {
+
+        return "requests=" + mRequests.size();
+    }
+
+    /**
+     * This method returns a copy of all the requests received so far.
+     */
+    public List<HttpRequest> getRequests() {
+
+        synchronized (mRequests) {
+            return new ArrayList<>(mRequests);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.android.covid19guide.network;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.android.covid19guide.utils.QueryUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the percentiles of the {@link LatencyHistogram}, and that a fetch through a {@link FakeHttpTransport} records
+ * its stages in the {@link FetchMetrics} only while they are enabled.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FetchMetricsTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?q=covid&show-fields=thumbnail";
+
+    private HttpTransport mPreviousTransport;
+
+    private ConditionalResponseCache mPreviousResponseCache;
+
+    private final List<FetchTimings> mCompletedFetches = new ArrayList<>();
+
+    private final FetchMetrics.Listener mListener = new FetchMetrics.Listener() {
+        @Override
+        public void onFetchCompleted(FetchTimings timings) {
+            mCompletedFetches.add(timings);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mPreviousTransport = QueryUtils.getTransport();
+        mPreviousResponseCache = QueryUtils.getResponseCache();
+        QueryUtils.setResponseCache(null);
+        FetchMetrics.reset();
+        FetchMetrics.addListener(mListener);
+    }
+
+    @After
+    public void tearDown() {
+        FetchMetrics.removeListener(mListener);
+        FetchMetrics.setEnabled(false);
+        QueryUtils.setTransport(mPreviousTransport);
+        QueryUtils.setResponseCache(mPreviousResponseCache);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketPrecision() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getPercentileMillis(50), 50 * 0.07);
+        assertEquals(90, histogram.getPercentileMillis(90), 90 * 0.07);
+        assertEquals(99, histogram.getPercentileMillis(99), 99 * 0.07);
+        assertEquals(100, histogram.getMaxMillis(), 0.001);
+
+        for (long micros = 0; micros < 1L << 20; micros = micros * 3 / 2 + 1) {
+
+            int bucket = LatencyHistogram.bucketOf(micros);
+
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket) <= micros);
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket + 1) > micros);
+        }
+    }
+
+    @Test
+    public void aFetchRecordsItsStagesOnlyWhenEnabled() throws IOException {
+
+        final byte[] body = gzip("{\"response\":{\"results\":[{\"id\":\"world/a\",\"sectionName\":\"World news\","
+                + "\"webPublicationDate\":\"2020-06-01T10:00:00Z\",\"webTitle\":\"A\","
+                + "\"webUrl\":\"https://www.theguardian.com/a\","
+                + "\"fields\":{\"trailText\":\"Trail\",\"thumbnail\":\"t\"}}]}}");
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+
+                return new HttpResponse(200, Collections.singletonMap("Content-Encoding", "gzip"),
+                        new ByteArrayInputStream(body));
+            }
+        }));
+
+        FetchMetrics.setEnabled(false);
+
+        assertEquals(1, QueryUtils.fetchNewsData(URL).size());
+        assertTrue(mCompletedFetches.isEmpty());
+        assertEquals(0, FetchMetrics.getHistogram(FetchMetrics.Stage.TOTAL).getCount());
+
+        FetchMetrics.setEnabled(true);
+
+        assertEquals(1, QueryUtils.fetchNewsData(URL).size());
+        assertEquals(1, mCompletedFetches.size());
+
+        FetchTimings timings = mCompletedFetches.get(0);
+
+        assertTrue(timings.isSuccessful());
+        assertEquals(body.length, timings.getBytes());
+        assertTrue(timings.getDecodedBytes() > body.length);
+        assertEquals(1, timings.getArticleCount());
+
+        for (FetchMetrics.Stage stage : new FetchMetrics.Stage[]{FetchMetrics.Stage.URL_BUILD,
+                FetchMetrics.Stage.TIME_TO_FIRST_BYTE, FetchMetrics.Stage.DOWNLOAD, FetchMetrics.Stage.DECODE,
+                FetchMetrics.Stage.PARSE, FetchMetrics.Stage.TOTAL}) {
+
+            assertTrue(stage.name(), timings.getStageNanos(stage) >= 0);
+            assertEquals(stage.name(), 1, FetchMetrics.getHistogram(stage).getCount());
+        }
+
+        // The fake transport never opens a connection
+        assertEquals(-1, timings.getStageNanos(FetchMetrics.Stage.CONNECT));
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+
+        gzip.write(json.getBytes(Charset.forName("UTF-8")));
+
+        gzip.close();
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.android.covid19guide.network;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link RequestShaper} picks the page size, the fields and the thumbnails of the feed for every
+ * quality class of a fake estimate, that it asks media.guim.co.uk for the rendition of the thumbnail at the picked
+ * width, and that it leaves every other URL as it is.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RequestShaperTest {
+
+    private static final String THUMBNAIL_URL =
+            "https://media.guim.co.uk/4f5b6b2e1b9c/0_0_3000_1800/500.jpg";
+
+    private static final int MAX_PAGE_SIZE = 30;
+
+    private static final long FIRST_ARTICLE_BUDGET_MILLIS = 2000;
+
+    private static final int PHONE_DISPLAY_WIDTH = 1080;
+
+    private static final int SMALL_DISPLAY_WIDTH = 400;
+
+    @Test
+    public void aGoodNetworkGetsTheConfiguredFeed() {
+
+        FakeEstimate estimate = new FakeEstimate(NetworkQualityEstimator.Quality.GOOD, 5000, 80);
+
+        RequestShaper.FeedShape shape = new RequestShaper(estimate, MAX_PAGE_SIZE, false,
+                FIRST_ARTICLE_BUDGET_MILLIS).getFeedShape();
+
+        assertEquals(MAX_PAGE_SIZE, shape.getPageSize());
+        assertFalse(shape.isLightFeed());
+
+        assertTrue(new RequestShaper(estimate, MAX_PAGE_SIZE, true, FIRST_ARTICLE_BUDGET_MILLIS)
+                .getFeedShape().isLightFeed());
+
+        // The large rendition only for a wide display on a network that is not metered
+        RequestShaper shaper = new RequestShaper(estimate, MAX_PAGE_SIZE, false, FIRST_ARTICLE_BUDGET_MILLIS);
+
+        assertEquals(1000, shaper.getThumbnailWidth(PHONE_DISPLAY_WIDTH));
+        assertEquals(500, shaper.getThumbnailWidth(SMALL_DISPLAY_WIDTH));
+
+        estimate.mIsMetered = true;
+
+        assertEquals(500, shaper.getThumbnailWidth(PHONE_DISPLAY_WIDTH));
+    }
+
+    @Test
+    public void aModerateNetworkGetsTheLightFeed() {
+
+        RequestShaper shaper = new RequestShaper(new FakeEstimate(NetworkQualityEstimator.Quality.MODERATE, 300, 400),
+                MAX_PAGE_SIZE, false, FIRST_ARTICLE_BUDGET_MILLIS);
+
+        // 1600 ms left after the first byte at 300 kbps are 60 KB, far more than a page of the light feed
+        RequestShaper.FeedShape shape = shaper.getFeedShape();
+
+        assertEquals(MAX_PAGE_SIZE, shape.getPageSize());
+        assertTrue(shape.isLightFeed());
+        assertEquals(500, shaper.getThumbnailWidth(PHONE_DISPLAY_WIDTH));
+    }
+
+    @Test
+    public void aPoorNetworkGetsAPageThatArrivesWithinTheBudget() {
+
+        FakeEstimate estimate = new FakeEstimate(NetworkQualityEstimator.Quality.POOR, 60, 1500);
+
+        RequestShaper shaper = new RequestShaper(estimate, MAX_PAGE_SIZE, false, FIRST_ARTICLE_BUDGET_MILLIS);
+
+        // The time to the first byte is taken once: 500 ms left at 60 kbps are 3750 bytes, 9 articles of 400 bytes
+        RequestShaper.FeedShape shape = shaper.getFeedShape();
+
+        assertEquals(9, shape.getPageSize());
+        assertTrue(shape.isLightFeed());
+        assertEquals(140, shaper.getThumbnailWidth(PHONE_DISPLAY_WIDTH));
+
+        // A first byte later than the budget still gets the smallest page that fills the screen
+        estimate.mRttMillis = 2500;
+
+        assertEquals(5, shaper.getFeedShape().getPageSize());
+    }
+
+    @Test
+    public void anOfflineNetworkGetsTheConfiguredFeed() {
+
+        RequestShaper.FeedShape shape = new RequestShaper(
+                new FakeEstimate(NetworkQualityEstimator.Quality.OFFLINE, 0, 0), MAX_PAGE_SIZE, false,
+                FIRST_ARTICLE_BUDGET_MILLIS).getFeedShape();
+
+        // The request waits for the network, and is then sent as configured
+        assertEquals(MAX_PAGE_SIZE, shape.getPageSize());
+        assertFalse(shape.isLightFeed());
+    }
+
+    @Test
+    public void theWidthOfTheRenditionIsReplaced() {
+
+        assertEquals("https://media.guim.co.uk/4f5b6b2e1b9c/0_0_3000_1800/140.jpg",
+                RequestShaper.withWidth(THUMBNAIL_URL, 140));
+
+        assertEquals("https://media.guim.co.uk/4f5b6b2e1b9c/0_0_3000_1800/1000.jpg",
+                RequestShaper.withWidth(THUMBNAIL_URL, 1000));
+    }
+
+    @Test
+    public void otherUrlsAreLeftAsTheyAre() {
+
+        assertNull(RequestShaper.withWidth(null, 140));
+
+        assertEquals("https://example.com/images/500.jpg",
+                RequestShaper.withWidth("https://example.com/images/500.jpg", 140));
+
+        assertEquals("https://media.guim.co.uk/4f5b6b2e1b9c/master/picture.jpg",
+                RequestShaper.withWidth("https://media.guim.co.uk/4f5b6b2e1b9c/master/picture.jpg", 140));
+    }
+
+    /**
+     * An estimate of a network whose quality class, throughput and round trip time are set by the test.
+     */
+    private static final class FakeEstimate implements NetworkQualityEstimate {
+
+        private final NetworkQualityEstimator.Quality mQuality;
+
+        private final double mThroughputKbps;
+
+        private long mRttMillis;
+
+        private boolean mIsMetered;
+
+        FakeEstimate(NetworkQualityEstimator.Quality quality, double throughputKbps, long rttMillis) {
+            mQuality = quality;
+            mThroughputKbps = throughputKbps;
+            mRttMillis = rttMillis;
+        }
+
+        @Override
+        public NetworkQualityEstimator.Quality getQuality() {
+            return mQuality;
+        }
+
+        @Override
+        public double getThroughputKbps() {
+            return mThroughputKbps;
+        }
+
+        @Override
+        public long getRttMillis() {
+            return mRttMillis;
+        }
+
+        @Override
+        public boolean isMetered() {
+            return mIsMetered;
+        }
+
+        @Override
+        public String getStatistics() {
+            return "fake quality=" + mQuality;
+        }
+    }
+}
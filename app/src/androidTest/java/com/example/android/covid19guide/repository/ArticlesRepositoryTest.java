@@ -0,0 +1,192 @@
+package com.example.android.covid19guide.repository;
+
+import android.content.Context;
+import android.os.Looper;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.utils.FakeGuardianServer;
+import com.example.android.covid19guide.utils.FeedFanOutFetcher;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import com.example.android.covid19guide.utils.GuardianQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the loads of the {@link ArticlesRepository} against the store of the app, which the prefetch started with
+ * the process has read as well, and against a {@link FakeGuardianServer}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticlesRepositoryTest {
+
+    private Context mContext;
+
+    private ExecutorService mExecutor;
+
+    private ArticlesRepository mRepository;
+
+    private FakeGuardianServer mServer;
+
+    private String mPreviousBaseUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mExecutor = Executors.newSingleThreadExecutor();
+        mRepository = new ArticlesRepository(mContext, mExecutor);
+        mServer = new FakeGuardianServer();
+        mPreviousBaseUrl = GuardianApi.getBaseUrl();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        GuardianApi.setBaseUrl(mPreviousBaseUrl);
+        mExecutor.shutdownNow();
+        mServer.close();
+    }
+
+    @Test
+    public void pageIsDeliveredOnTheMainThread() throws InterruptedException {
+
+        GuardianApi.setBaseUrl(mServer.getBaseUrl());
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        final FeedFanOutFetcher.Page[] result = new FeedFanOutFetcher.Page[1];
+
+        final boolean[] isOnMainThread = new boolean[1];
+
+        mRepository.loadPage(newFeed("delivered"), 2, 10, new ArticlesRepository.Callback<FeedFanOutFetcher.Page>() {
+            @Override
+            public void onResult(FeedFanOutFetcher.Page page) {
+
+                result[0] = page;
+
+                isOnMainThread[0] = Looper.myLooper() == Looper.getMainLooper();
+
+                delivered.countDown();
+            }
+        }, null);
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        assertNotNull(result[0]);
+        assertEquals(10, result[0].getArticles().size());
+        assertTrue(isOnMainThread[0]);
+    }
+
+    @Test
+    public void canceledLoadIsNeverDelivered() throws InterruptedException {
+
+        GuardianApi.setBaseUrl(mServer.getBaseUrl());
+
+        mServer.setLatencyMillis(500);
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        ArticlesRepository.Task task = mRepository.loadPage(newFeed("canceled"), 2, 10,
+                new ArticlesRepository.Callback<FeedFanOutFetcher.Page>() {
+                    @Override
+                    public void onResult(FeedFanOutFetcher.Page page) {
+                        delivered.countDown();
+                    }
+                }, null);
+
+        task.cancel();
+
+        // The screen is gone, neither the page nor its failure reaches it
+        assertFalse(delivered.await(2, TimeUnit.SECONDS));
+        assertTrue(task.isCanceled());
+    }
+
+    @Test
+    public void storedFeedSavedAfterThePrefetchIsReadFromTheStore() throws InterruptedException {
+
+        // The feed that the prefetch of the process read from the store when the app started
+        GuardianFeed feed = GuardianApi.buildFeed(RequestShaper.getInstance(mContext).getFeedShape().isLightFeed());
+
+        ArticlesStore store = ArticlesStore.getInstance(mContext);
+
+        store.saveArticles(ArticlesStore.normalizeFeed(feed), articles("first", 3));
+
+        ArticlesRepository.StoredFeed storedFeed = loadStoredFeed(feed);
+
+        assertNotNull(storedFeed.getArticles());
+        assertEquals(3, storedFeed.getArticles().size());
+        assertEquals("first-0", storedFeed.getArticles().get(0).getId());
+
+        // The articles and the freshness always describe the feed that is in the store now
+        Thread.sleep(5);
+
+        store.saveArticles(ArticlesStore.normalizeFeed(feed), articles("second", 2));
+
+        storedFeed = loadStoredFeed(feed);
+
+        assertEquals(2, storedFeed.getArticles().size());
+        assertEquals("second-0", storedFeed.getArticles().get(0).getId());
+        assertTrue(storedFeed.isFresh());
+    }
+
+    /**
+     * Creates a feed of a single query that no other test downloads, so that it is not served from the caches.
+     */
+    private static GuardianFeed newFeed(String name) {
+
+        return new GuardianFeed(new GuardianQuery().setSearchTerms("covid repository " + name + " "
+                + System.nanoTime()));
+    }
+
+    /**
+     * Loads the stored feed and waits for it to be delivered on the main thread.
+     */
+    private ArticlesRepository.StoredFeed loadStoredFeed(GuardianFeed feed) throws InterruptedException {
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        final ArticlesRepository.StoredFeed[] result = new ArticlesRepository.StoredFeed[1];
+
+        mRepository.loadStoredFeed(feed, new ArticlesRepository.Callback<ArticlesRepository.StoredFeed>() {
+            @Override
+            public void onResult(ArticlesRepository.StoredFeed storedFeed) {
+
+                result[0] = storedFeed;
+
+                delivered.countDown();
+            }
+        });
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+
+        return result[0];
+    }
+
+    /**
+     * Creates the articles of a stored feed.
+     */
+    private static List<Article> articles(String prefix, int count) {
+
+        List<Article> articles = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+
+            articles.add(new Article(prefix + "-" + i, "Title " + i, "Description " + i, "World news",
+                    1591006530000L - i * 60000L, "https://www.theguardian.com/" + prefix + "/" + i, "Author",
+                    "https://media.guim.co.uk/" + i + ".jpg"));
+        }
+
+        return articles;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.covid19guide.sync;
+
+import android.content.Context;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestWorkerBuilder;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.startup.StartupPrefetcher;
+import com.example.android.covid19guide.utils.FakeGuardianServer;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link FeedSyncWorker} against a {@link FakeGuardianServer}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedSyncWorkerTest {
+
+    private Context mContext;
+
+    private FakeGuardianServer mServer;
+
+    private String mPreviousBaseUrl;
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mServer = new FakeGuardianServer();
+        mPreviousBaseUrl = GuardianApi.getBaseUrl();
+        GuardianApi.setBaseUrl(mServer.getBaseUrl());
+        mExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        GuardianApi.setBaseUrl(mPreviousBaseUrl);
+        mExecutor.shutdownNow();
+        mServer.close();
+    }
+
+    @Test
+    public void syncWithAFreshStoredFeedDownloadsTheFeed() {
+
+        GuardianFeed feed = GuardianApi.buildFeed(mContext.getResources().getBoolean(R.bool.feed_light_payload));
+
+        String queryKey = ArticlesStore.normalizeFeed(feed);
+
+        ArticlesStore store = ArticlesStore.getInstance(mContext);
+
+        store.saveArticles(queryKey, Collections.singletonList(new Article("stored", "Title", "Description",
+                "World news", 1591006530000L, "https://www.theguardian.com/stored", null,
+                "https://media.guim.co.uk/stored.jpg")));
+
+        // A prefetch of the fresh stored feed does not download the first page, the sync must not take that as a
+        // failed download
+        StartupPrefetcher.start(mContext);
+
+        FeedSyncWorker worker = TestWorkerBuilder.from(mContext, FeedSyncWorker.class, mExecutor).build();
+
+        assertEquals(ListenableWorker.Result.success(), worker.doWork());
+
+        List<Article> articles = store.loadArticles(queryKey);
+
+        assertNotNull(articles);
+        assertTrue(articles.size() > 1);
+        assertTrue(mServer.getRequestCount() > 0);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.android.covid19guide.utils;
+
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.android.covid19guide.datamodels.Article;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the heap that 1,000 compact {@link Article}s take against 1,000 articles of the previous model, which held
+ * the whole body text and the date as Strings. The results are written to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleMemoryBenchmark {
+
+    private static final String LOG_TAG = ArticleMemoryBenchmark.class.getSimpleName();
+
+    private static final int ARTICLE_COUNT = 1000;
+
+    @Test
+    public void publicationDatesAreReadWithoutLosingTheDate() {
+
+        long time = PublicationDates.parse("2020-06-01T10:15:30Z");
+
+        assertEquals(1591006530000L, time);
+        assertEquals("2020-06-01", PublicationDates.formatDate(time));
+        assertEquals("2020-02-29", PublicationDates.formatDate(PublicationDates.parse("2020-02-29")));
+        assertEquals(PublicationDates.UNKNOWN, PublicationDates.parse("01/06/2020"));
+    }
+
+    @Test
+    public void compactArticlesShareTheRepeatedValues() throws IOException {
+
+        List<Article> articles = ArticlesJsonDecoder.decode(
+                new ByteArrayInputStream(bytesOf(GuardianFixtures.searchResponse(10))));
+
+        assertNotNull(articles);
+        assertSame(articles.get(1).getSection(), articles.get(4).getSection());
+        assertTrue(articles.get(0).getDescription().length() <= Article.MAX_DESCRIPTION_LENGTH);
+    }
+
+    @Test
+    public void benchmarkHeapPerThousandArticles() throws IOException, JSONException {
+
+        String response = GuardianFixtures.searchResponse(ARTICLE_COUNT);
+
+        long baseline = usedHeap();
+
+        List<LegacyArticle> legacyArticles = parseLegacy(response);
+
+        long legacyBytes = usedHeap() - baseline;
+
+        assertEquals(ARTICLE_COUNT, legacyArticles.size());
+
+        legacyArticles = null;
+
+        baseline = usedHeap();
+
+        List<Article> articles = ArticlesJsonDecoder.decode(new ByteArrayInputStream(bytesOf(response)));
+
+        long compactBytes = usedHeap() - baseline;
+
+        assertNotNull(articles);
+        assertEquals(ARTICLE_COUNT, articles.size());
+
+        // The full bodies are not part of the list any more, they are held by the bounded ArticleBodyFetcher cache
+        Log.i(LOG_TAG, String.format(Locale.US, "%d articles: legacy %d KB (%d B/article), compact %d KB (%d B/article)",
+                ARTICLE_COUNT, legacyBytes / 1024, legacyBytes / ARTICLE_COUNT,
+                compactBytes / 1024, compactBytes / ARTICLE_COUNT));
+    }
+
+    /**
+     * Parses the response the way the app used to, into the previous article model.
+     */
+    private static List<LegacyArticle> parseLegacy(String response) throws JSONException {
+
+        JSONArray results = new JSONObject(response).getJSONObject("response").getJSONArray("results");
+
+        List<LegacyArticle> articles = new ArrayList<>();
+
+        for (int i = 0; i < results.length(); i++) {
+
+            JSONObject result = results.getJSONObject(i);
+
+            JSONObject fields = result.getJSONObject("fields");
+
+            JSONArray tags = result.getJSONArray("tags");
+
+            articles.add(new LegacyArticle(result.getString("webTitle"), fields.getString("bodyText"),
+                    result.getString("sectionName"), result.getString("webPublicationDate").split("T")[0],
+                    result.getString("webUrl"), tags.length() == 0 ? null : tags.getJSONObject(0).getString("webTitle"),
+                    fields.getString("thumbnail")));
+        }
+
+        return articles;
+    }
+
+    private static long usedHeap() {
+
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static byte[] bytesOf(String json) {
+
+        return json.getBytes(Charset.forName("UTF-8"));
+    }
+
+    /**
+     * A copy of the article model before it was made compact, seven Strings per article.
+     */
+    private static final class LegacyArticle {
+
+        private final String title;
+
+        private final String description;
+
+        private final String section;
+
+        private final String date;
+
+        private final String url;
+
+        private final String authorName;
+
+        private final String articleImageUrl;
+
+        LegacyArticle(String title, String description, String section, String date, String url, String authorName,
+                      String articleImageUrl) {
+            this.title = title;
+            this.description = description;
+            this.section = section;
+            this.date = date;
+            this.url = url;
+            this.authorName = authorName;
+            this.articleImageUrl = articleImageUrl;
+        }
+    }
+}
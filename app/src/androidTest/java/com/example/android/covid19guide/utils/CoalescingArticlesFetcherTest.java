@@ -0,0 +1,185 @@
+package com.example.android.covid19guide.utils;
+
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.android.covid19guide.datamodels.Article;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link CoalescingArticlesFetcher} downloads a URL once for all the callers that ask for it at the
+ * same time, serves it again until it expires, and only cancels the request once all its callers have canceled.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CoalescingArticlesFetcherTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?q=covid&page=1&api-key=test";
+
+    private static final long FETCH_DELAY_MILLIS = 300;
+
+    private static final int CALLER_COUNT = 8;
+
+    private final AtomicInteger mFetchCount = new AtomicInteger();
+
+    private final List<CancellationSignal> mFetchSignals = Collections.synchronizedList(
+            new ArrayList<CancellationSignal>());
+
+    private final CoalescingArticlesFetcher.Fetcher mSlowFetcher = new CoalescingArticlesFetcher.Fetcher() {
+        @Override
+        public List<Article> fetch(String requestUrl, CancellationSignal cancellationSignal,
+                                   ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+            mFetchCount.incrementAndGet();
+
+            mFetchSignals.add(cancellationSignal);
+
+            // Wait like a download, which stops as soon as it is canceled
+            for (long waited = 0; waited < FETCH_DELAY_MILLIS && !cancellationSignal.isCanceled(); waited += 10) {
+                SystemClock.sleep(10);
+            }
+
+            return cancellationSignal.isCanceled() ? null : Collections.singletonList(new Article("id", "Title",
+                    "Description", "World news", 0, "https://www.theguardian.com/1", null, "t"));
+        }
+    };
+
+    @Test
+    public void concurrentCallersShareOneRequestAndTheResultIsCached() throws Exception {
+
+        final CoalescingArticlesFetcher fetcher = new CoalescingArticlesFetcher(mSlowFetcher,
+                CoalescingArticlesFetcher.PAGE_TTL_POLICY, 4);
+
+        List<Future<List<Article>>> results = callConcurrently(fetcher, CALLER_COUNT, null);
+
+        for (Future<List<Article>> result : results) {
+            assertEquals(1, result.get().size());
+        }
+
+        assertEquals(1, mFetchCount.get());
+        assertEquals(CALLER_COUNT - 1, fetcher.getCoalescedCount());
+
+        // The same query with its parameters in another order is served from the cache
+        assertNotNull(fetcher.fetch("https://content.guardianapis.com/search?page=1&q=covid&api-key=test", null));
+        assertEquals(1, mFetchCount.get());
+        assertEquals(1, fetcher.getCacheHitCount());
+    }
+
+    @Test
+    public void otherPagesAndFieldsAreDownloadedApart() {
+
+        final CoalescingArticlesFetcher fetcher = new CoalescingArticlesFetcher(mSlowFetcher,
+                CoalescingArticlesFetcher.PAGE_TTL_POLICY, 4);
+
+        assertNotNull(fetcher.fetch(URL, null));
+        assertNotNull(fetcher.fetch("https://content.guardianapis.com/search?q=covid&page=2&api-key=test", null));
+        assertNotNull(fetcher.fetch(URL + "&show-fields=trailText", null));
+
+        assertEquals(3, mFetchCount.get());
+        assertEquals(0, fetcher.getCacheHitCount());
+    }
+
+    @Test
+    public void expiredResultsAreDownloadedAgain() {
+
+        final CoalescingArticlesFetcher fetcher = new CoalescingArticlesFetcher(mSlowFetcher,
+                new CoalescingArticlesFetcher.TtlPolicy() {
+                    @Override
+                    public long getTtlMillis(String requestUrl) {
+                        return 0;
+                    }
+                }, 4);
+
+        assertNotNull(fetcher.fetch(URL, null));
+        assertNotNull(fetcher.fetch(URL, null));
+
+        assertEquals(2, mFetchCount.get());
+        assertEquals(0, fetcher.getCacheHitCount());
+    }
+
+    @Test
+    public void theRequestIsOnlyCanceledByItsLastCaller() throws Exception {
+
+        final CoalescingArticlesFetcher fetcher = new CoalescingArticlesFetcher(mSlowFetcher,
+                CoalescingArticlesFetcher.PAGE_TTL_POLICY, 4);
+
+        CancellationSignal canceledCaller = new CancellationSignal();
+
+        List<Future<List<Article>>> results = callConcurrently(fetcher, 2, canceledCaller);
+
+        canceledCaller.cancel();
+
+        assertNull(results.get(0).get());
+        assertNotNull(results.get(1).get());
+        assertFalse(mFetchSignals.get(0).isCanceled());
+
+        // Once every caller has canceled, the request itself is canceled
+        final CancellationSignal onlyCaller = new CancellationSignal();
+
+        fetcher.clear();
+
+        Future<List<Article>> result = Executors.newSingleThreadExecutor().submit(new Callable<List<Article>>() {
+            @Override
+            public List<Article> call() {
+                return fetcher.fetch(URL, onlyCaller);
+            }
+        });
+
+        SystemClock.sleep(FETCH_DELAY_MILLIS / 3);
+
+        onlyCaller.cancel();
+
+        assertNull(result.get(FETCH_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(mFetchSignals.get(1).isCanceled());
+    }
+
+    /**
+     * Calls the fetcher from several threads at once, the first caller with the given signal.
+     */
+    private static List<Future<List<Article>>> callConcurrently(final CoalescingArticlesFetcher fetcher,
+                                                               int callerCount, final CancellationSignal firstSignal)
+            throws InterruptedException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(callerCount);
+
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<Article>>> results = new ArrayList<>();
+
+        for (int i = 0; i < callerCount; i++) {
+
+            final CancellationSignal signal = i == 0 ? firstSignal : null;
+
+            results.add(executor.submit(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() throws InterruptedException {
+
+                    start.await();
+
+                    return fetcher.fetch(URL, signal);
+                }
+            }));
+        }
+
+        start.countDown();
+
+        // Let every caller join the request before it is over
+        SystemClock.sleep(FETCH_DELAY_MILLIS / 3);
+
+        executor.shutdown();
+
+        return results;
+    }
+}
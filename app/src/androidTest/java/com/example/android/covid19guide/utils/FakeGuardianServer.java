@@ -0,0 +1,494 @@
+package com.example.android.covid19guide.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the /search endpoint of the Guardian's Content API, served over plain HTTP/1.1 on the loopback
+ * interface, so that the whole fetch path of the app, the connection pool included, can be run without any network.
+ * The responses are the recorded payloads registered for the search terms of a request, or pages synthesized by
+ * {@link GuardianFixtures} otherwise, and the way they are served can be made slow, throttled, chunked, failed with
+ * an error code or cut partway through. The settings apply to the requests received after they were changed, and
+ * every connection is served on its own thread and kept alive between its requests.
+ */
+final class FakeGuardianServer implements Closeable {
+
+    /**
+     * The number of pages of every synthesized search
+     */
+    private static final int PAGE_COUNT = 5;
+
+    /**
+     * The number of results of a page of a request without a page-size parameter, as the Guardian API
+     */
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    /**
+     * The size of the chunks of a chunked response, and of the writes of a throttled one
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ServerSocket mServerSocket;
+
+    private final ExecutorService mConnectionExecutor = Executors.newCachedThreadPool();
+
+    /**
+     * The open connections, which are closed with the server
+     */
+    private final Set<Socket> mSockets = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+    /**
+     * The recorded payloads, keyed by the search terms of their request
+     */
+    private final Map<String, byte[]> mRecordedResponses = new ConcurrentHashMap<>();
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    private final AtomicInteger mErrorCount = new AtomicInteger();
+
+    private final AtomicInteger mTruncatedCount = new AtomicInteger();
+
+    private volatile long mLatencyMillis;
+
+    private volatile long mBytesPerSecond;
+
+    private volatile boolean mIsChunked;
+
+    private volatile int mErrorCode;
+
+    private volatile int mErrorInterval;
+
+    private volatile float mTruncatedFraction;
+
+    private volatile int mTruncationInterval;
+
+    /**
+     * Constructs a new {@link FakeGuardianServer} and starts it on a free port of the loopback interface.
+     *
+     * @throws IOException if the port could not be opened
+     */
+    FakeGuardianServer() throws IOException {
+
+        mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        }, "FakeGuardianServer");
+
+        acceptThread.setDaemon(true);
+
+        acceptThread.start();
+    }
+
+    /**
+     * This method returns the base URL of the server, which is given to {@link GuardianApi#setBaseUrl(String)}.
+     */
+    String getBaseUrl() {
+
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/";
+    }
+
+    /**
+     * This method delays the headers of every response, like the round trip and the work of a remote server.
+     */
+    FakeGuardianServer setLatencyMillis(long latencyMillis) {
+
+        mLatencyMillis = latencyMillis;
+
+        return this;
+    }
+
+    /**
+     * This method limits the speed at which the bodies are sent, or removes the limit when 0.
+     */
+    FakeGuardianServer setBytesPerSecond(long bytesPerSecond) {
+
+        mBytesPerSecond = bytesPerSecond;
+
+        return this;
+    }
+
+    /**
+     * This method sends the bodies in chunks without a Content-Length, like a server that streams its responses.
+     */
+    FakeGuardianServer setChunked(boolean isChunked) {
+
+        mIsChunked = isChunked;
+
+        return this;
+    }
+
+    /**
+     * This method answers one request in every interval with an error code instead of the payload, or stops the
+     * errors when the interval is 0.
+     *
+     * @param code     is the status code of the errors, such as 503
+     * @param interval is 1 to fail every request, 4 to fail every fourth request
+     */
+    FakeGuardianServer setErrors(int code, int interval) {
+
+        mErrorCode = code;
+
+        mErrorInterval = interval;
+
+        return this;
+    }
+
+    /**
+     * This method closes the connection of one request in every interval after a fraction of its body, or stops
+     * cutting the bodies when the interval is 0. The headers announce the whole body.
+     *
+     * @param fraction is the fraction of the body that is sent
+     * @param interval is 1 to cut every body, 4 to cut every fourth body
+     */
+    FakeGuardianServer setTruncation(float fraction, int interval) {
+
+        mTruncatedFraction = fraction;
+
+        mTruncationInterval = interval;
+
+        return this;
+    }
+
+    /**
+     * This method serves a recorded payload for the requests with the given search terms.
+     */
+    FakeGuardianServer setRecordedResponse(String searchTerms, String json) {
+
+        mRecordedResponses.put(searchTerms, json.getBytes(UTF_8));
+
+        return this;
+    }
+
+    int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    int getErrorCount() {
+        return mErrorCount.get();
+    }
+
+    int getTruncatedCount() {
+        return mTruncatedCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        mServerSocket.close();
+
+        for (Socket socket : mSockets) {
+            socket.close();
+        }
+
+        mConnectionExecutor.shutdownNow();
+    }
+
+    private void acceptConnections() {
+
+        while (!mServerSocket.isClosed()) {
+
+            final Socket socket;
+
+            try {
+                socket = mServerSocket.accept();
+
+            } catch (IOException e) {
+                // Closed
+                return;
+            }
+
+            mConnectionExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    serve(socket);
+                }
+            });
+        }
+    }
+
+    /**
+     * This method answers the requests of a connection until the client or the server closes it.
+     */
+    private void serve(Socket socket) {
+
+        mSockets.add(socket);
+
+        try {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+
+            OutputStream output = socket.getOutputStream();
+
+            String requestLine;
+
+            while ((requestLine = readLine(input)) != null) {
+
+                // The headers of the request are not needed
+                String header;
+
+                do {
+                    header = readLine(input);
+                } while (header != null && !header.isEmpty());
+
+                if (!respond(requestLine, output)) {
+                    break;
+                }
+            }
+
+        } catch (IOException e) {
+            // The client went away
+        } catch (InterruptedException e) {
+            // The server was closed
+        } finally {
+
+            mSockets.remove(socket);
+
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * This method answers a request.
+     *
+     * @return boolean: false if the connection was closed
+     */
+    private boolean respond(String requestLine, OutputStream output) throws IOException, InterruptedException {
+
+        int requestNumber = mRequestCount.incrementAndGet();
+
+        String[] parts = requestLine.split(" ");
+
+        String target = parts.length > 1 ? parts[1] : "/";
+
+        int queryStart = target.indexOf('?');
+
+        String path = queryStart < 0 ? target : target.substring(0, queryStart);
+
+        Map<String, String> parameters = parseQuery(queryStart < 0 ? "" : target.substring(queryStart + 1));
+
+        Thread.sleep(mLatencyMillis);
+
+        if (!"/search".equals(path)) {
+
+            writeError(output, 404, "Not Found");
+
+            return true;
+        }
+
+        int errorInterval = mErrorInterval;
+
+        if (errorInterval > 0 && requestNumber % errorInterval == 0) {
+
+            mErrorCount.incrementAndGet();
+
+            writeError(output, mErrorCode, "Error");
+
+            return true;
+        }
+
+        byte[] body = bodyOf(parameters);
+
+        // Like the API, a page past the last page of a search is a bad request
+        if (body == null) {
+
+            writeError(output, 400, "Bad Request");
+
+            return true;
+        }
+
+        int truncationInterval = mTruncationInterval;
+
+        boolean isTruncated = truncationInterval > 0 && requestNumber % truncationInterval == 0;
+
+        int sentLength = isTruncated ? (int) (body.length * mTruncatedFraction) : body.length;
+
+        boolean isChunked = mIsChunked;
+
+        StringBuilder headers = new StringBuilder("HTTP/1.1 200 OK\r\n")
+                .append("Content-Type: application/json; charset=utf-8\r\n");
+
+        if (isChunked) {
+            headers.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            headers.append("Content-Length: ").append(body.length).append("\r\n");
+        }
+
+        output.write(headers.append("\r\n").toString().getBytes(UTF_8));
+
+        writeBody(output, body, sentLength, isChunked);
+
+        if (isTruncated) {
+
+            mTruncatedCount.incrementAndGet();
+
+            // The rest of the body never comes
+            return false;
+        }
+
+        if (isChunked) {
+            output.write("0\r\n\r\n".getBytes(UTF_8));
+        }
+
+        output.flush();
+
+        return true;
+    }
+
+    /**
+     * This method writes the first bytes of a body, no faster than the limit of the server.
+     */
+    private void writeBody(OutputStream output, byte[] body, int length, boolean isChunked)
+            throws IOException, InterruptedException {
+
+        long bytesPerSecond = mBytesPerSecond;
+
+        long startMillis = System.currentTimeMillis();
+
+        for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+
+            int count = Math.min(CHUNK_SIZE, length - offset);
+
+            if (isChunked) {
+                output.write((Integer.toHexString(count) + "\r\n").getBytes(UTF_8));
+            }
+
+            output.write(body, offset, count);
+
+            if (isChunked) {
+                output.write("\r\n".getBytes(UTF_8));
+            }
+
+            output.flush();
+
+            if (bytesPerSecond > 0) {
+
+                long dueMillis = startMillis + (offset + count) * 1000L / bytesPerSecond;
+
+                long waitMillis = dueMillis - System.currentTimeMillis();
+
+                if (waitMillis > 0) {
+                    Thread.sleep(waitMillis);
+                }
+            }
+        }
+    }
+
+    private void writeError(OutputStream output, int code, String reason) throws IOException {
+
+        byte[] body = String.format(Locale.US, "{\"response\":{\"status\":\"error\",\"message\":\"%s\"}}", reason)
+                .getBytes(UTF_8);
+
+        output.write(("HTTP/1.1 " + code + " " + reason + "\r\nContent-Type: application/json\r\nContent-Length: "
+                + body.length + "\r\n\r\n").getBytes(UTF_8));
+
+        output.write(body);
+
+        output.flush();
+    }
+
+    /**
+     * This method returns the recorded payload of the search terms of a request, or synthesizes the page it asks for.
+     * The results of a synthesized page are numbered after the search terms, the section and the page, so that the
+     * queries of a feed do not repeat each other's articles.
+     *
+     * @return byte[]: the body of the page, or null if the page is past the last page of the search
+     */
+    private byte[] bodyOf(Map<String, String> parameters) {
+
+        String searchTerms = parameters.get("q");
+
+        byte[] recordedResponse = searchTerms == null ? null : mRecordedResponses.get(searchTerms);
+
+        if (recordedResponse != null) {
+            return recordedResponse;
+        }
+
+        int pageSize = parseInt(parameters.get("page-size"), DEFAULT_PAGE_SIZE);
+
+        int page = parseInt(parameters.get("page"), 1);
+
+        if (page > PAGE_COUNT) {
+            return null;
+        }
+
+        int queryIndex = (String.valueOf(searchTerms) + parameters.get("section")).hashCode() & 0xffff;
+
+        return GuardianFixtures.searchResponse(pageSize, (queryIndex * PAGE_COUNT + page - 1) * pageSize, page,
+                PAGE_COUNT).getBytes(UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+
+        Map<String, String> parameters = new HashMap<>();
+
+        for (String parameter : query.split("&")) {
+
+            int separator = parameter.indexOf('=');
+
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+
+        return parameters;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * This method reads a line of the request without its line break, or returns null at the end of the stream.
+     */
+    private static String readLine(InputStream input) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        int b;
+
+        while ((b = input.read()) != -1) {
+
+            if (b == '\n') {
+                return line.toString("UTF-8").trim();
+            }
+
+            line.write(b);
+        }
+
+        return line.size() == 0 ? null : line.toString("UTF-8").trim();
+    }
+}
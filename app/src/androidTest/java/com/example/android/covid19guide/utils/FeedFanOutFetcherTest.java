@@ -0,0 +1,346 @@
+package com.example.android.covid19guide.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.ConditionalResponseCache;
+import com.example.android.covid19guide.network.FakeHttpTransport;
+import com.example.android.covid19guide.network.HttpRequest;
+import com.example.android.covid19guide.network.HttpResponse;
+import com.example.android.covid19guide.network.HttpTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link FeedFanOutFetcher} against a {@link FakeHttpTransport} which answers every query of the feed after
+ * a delay, and checks that the queries are merged newest first and without duplicates, that their articles are
+ * handed on while the responses are still being received, and that the feed ends only with its deepest query.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedFanOutFetcherTest {
+
+    private static final String LOG_TAG = FeedFanOutFetcherTest.class.getSimpleName();
+
+    private static final long QUERY_DELAY_MILLIS = 300;
+
+    private static final GuardianFeed FEED = new GuardianFeed(
+            new GuardianQuery().setSearchTerms("covid").setLightFeed(true),
+            new GuardianQuery().setSearchTerms("vaccine").setLightFeed(true),
+            new GuardianQuery().setSearchTerms("testing").setLightFeed(true));
+
+    private HttpTransport mPreviousTransport;
+
+    private ConditionalResponseCache mPreviousResponseCache;
+
+    @Before
+    public void setUp() {
+        mPreviousTransport = QueryUtils.getTransport();
+        mPreviousResponseCache = QueryUtils.getResponseCache();
+        QueryUtils.setResponseCache(null);
+        CoalescingArticlesFetcher.getInstance().clear();
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setTransport(mPreviousTransport);
+        QueryUtils.setResponseCache(mPreviousResponseCache);
+    }
+
+    @Test
+    public void queriesAreFetchedTogetherAndMergedWithoutDuplicates() {
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+
+                SystemClock.sleep(QUERY_DELAY_MILLIS);
+
+                String url = request.getUrl();
+
+                // Every query has its own article of the day, and all of them have the same older article
+                int day = url.contains("vaccine") ? 3 : (url.contains("testing") ? 2 : 4);
+
+                return response(result("topic-" + day, day), result("shared", 1));
+            }
+        }));
+
+        long startMillis = SystemClock.elapsedRealtime();
+
+        FeedFanOutFetcher.Page page = FeedFanOutFetcher.fetchPage(FEED, 1, 30, null);
+
+        long elapsedMillis = SystemClock.elapsedRealtime() - startMillis;
+
+        Log.i(LOG_TAG, String.format(Locale.US, "%d queries of %d ms: %d ms", FEED.getQueries().size(),
+                QUERY_DELAY_MILLIS, elapsedMillis));
+
+        assertNotNull(page);
+        assertTrue(page.isLastPage());
+        assertEquals(Arrays.asList("topic-4", "topic-3", "topic-2", "shared"), titlesOf(page.getArticles()));
+
+        // The queries ran at the same time, not one after the other
+        assertTrue(elapsedMillis < QUERY_DELAY_MILLIS * FEED.getQueries().size());
+    }
+
+    @Test
+    public void aFailedQueryFailsThePage() {
+
+        final boolean[] isVaccineDown = {true};
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) throws IOException {
+
+                if (request.getUrl().contains("vaccine")) {
+
+                    if (isVaccineDown[0]) {
+                        throw new IOException("Simulated network failure");
+                    }
+                    return response(result("vaccine", 1));
+                }
+                return response(result("topic", 2));
+            }
+        }));
+
+        // A page without the articles of a query would skip them for good, as the next page of the feed is asked for
+        assertNull(FeedFanOutFetcher.fetchPage(FEED, 1, 30, null));
+
+        isVaccineDown[0] = false;
+
+        FeedFanOutFetcher.Page page = FeedFanOutFetcher.fetchPage(FEED, 1, 30, null);
+
+        assertNotNull(page);
+        assertEquals(Arrays.asList("topic", "vaccine"), titlesOf(page.getArticles()));
+    }
+
+    @Test
+    public void exhaustedQueriesAreNotAskedForAndTheFeedEndsWithTheLastOne() {
+
+        // The queries of this feed are not shared with the other tests, whose page counts are remembered
+        GuardianFeed feed = new GuardianFeed(
+                new GuardianQuery().setSearchTerms("short").setLightFeed(true),
+                new GuardianQuery().setSearchTerms("unpaged").setLightFeed(true),
+                new GuardianQuery().setSearchTerms("long").setLightFeed(true));
+
+        final AtomicInteger shortRequestCount = new AtomicInteger();
+
+        final AtomicInteger unpagedRequestCount = new AtomicInteger();
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+
+                String url = request.getUrl();
+
+                int page = url.contains("&page=3") ? 3 : (url.contains("&page=2") ? 2 : 1);
+
+                if (url.contains("long")) {
+                    return response(page, 3, result("long-" + page, 5 - page));
+                }
+
+                // Both short queries have a single page, only one of them tells it, and the API answers a page past
+                // the last one with an error
+                boolean isShort = url.contains("short");
+
+                (isShort ? shortRequestCount : unpagedRequestCount).incrementAndGet();
+
+                if (page > 1) {
+                    return new HttpResponse(400, Collections.<String, String>emptyMap(), new ByteArrayInputStream(
+                            "{\"response\":{\"status\":\"error\"}}".getBytes(Charset.forName("UTF-8"))));
+                }
+
+                // A page shorter than the page size does not tell the last page, the paging of the response does
+                return isShort ? response(1, 1, result("short", 6)) : response(0, 0, result("unpaged", 7));
+            }
+        }));
+
+        FeedFanOutFetcher.Page firstPage = FeedFanOutFetcher.fetchPage(feed, 1, 30, null);
+
+        assertNotNull(firstPage);
+        assertFalse(firstPage.isLastPage());
+        assertEquals(Arrays.asList("unpaged", "short", "long-1"), titlesOf(firstPage.getArticles()));
+
+        // The error past the last page of the unpaged query ends that query, and does not fail the page of the feed
+        FeedFanOutFetcher.Page secondPage = FeedFanOutFetcher.fetchPage(feed, 2, 30, null);
+
+        assertNotNull(secondPage);
+        assertFalse(secondPage.isLastPage());
+        assertEquals(Collections.singletonList("long-2"), titlesOf(secondPage.getArticles()));
+
+        FeedFanOutFetcher.Page thirdPage = FeedFanOutFetcher.fetchPage(feed, 3, 30, null);
+
+        assertNotNull(thirdPage);
+        assertTrue(thirdPage.isLastPage());
+        assertEquals(Collections.singletonList("long-3"), titlesOf(thirdPage.getArticles()));
+
+        // The query that told its last page was never asked past it, the other one only once
+        assertEquals(1, shortRequestCount.get());
+        assertEquals(2, unpagedRequestCount.get());
+    }
+
+    @Test
+    public void decodedArticlesAreHandedOnBeforeThePageIsComplete() {
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+
+                String url = request.getUrl();
+
+                int day = url.contains("vaccine") ? 3 : (url.contains("testing") ? 2 : 4);
+
+                // The first article of every query arrives right away, the rest of the response after a delay
+                String json = json(result("first-" + day, day), result("last-" + day, 1));
+
+                int split = json.indexOf("},{") + 2;
+
+                return new HttpResponse(200, Collections.<String, String>emptyMap(),
+                        new StalledInputStream(json.substring(0, split), json.substring(split)));
+            }
+        }));
+
+        final long startNanos = System.nanoTime();
+
+        final AtomicLong firstArticleNanos = new AtomicLong();
+
+        final AtomicInteger decodedCount = new AtomicInteger();
+
+        FeedFanOutFetcher.Page page = FeedFanOutFetcher.fetchPage(FEED, 1, 30, null,
+                new ArticlesJsonDecoder.OnArticleDecodedListener() {
+                    @Override
+                    public void onArticleDecoded(Article article) {
+
+                        firstArticleNanos.compareAndSet(0, System.nanoTime() - startNanos);
+
+                        decodedCount.incrementAndGet();
+                    }
+                });
+
+        long completeNanos = System.nanoTime() - startNanos;
+
+        Log.i(LOG_TAG, String.format(Locale.US, "First article: %.1f ms, page: %.1f ms",
+                firstArticleNanos.get() / 1e6, completeNanos / 1e6));
+
+        assertNotNull(page);
+        assertEquals(6, page.getArticles().size());
+        assertEquals(6, decodedCount.get());
+
+        // The first articles did not wait for the end of the responses
+        assertTrue(firstArticleNanos.get() < completeNanos - QUERY_DELAY_MILLIS * 1000000 / 2);
+    }
+
+    private static List<String> titlesOf(List<Article> articles) {
+
+        String[] titles = new String[articles.size()];
+
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = articles.get(i).getTitle();
+        }
+
+        return Arrays.asList(titles);
+    }
+
+    private static String result(String title, int day) {
+
+        return "{\"id\":\"world/" + title + "\",\"sectionName\":\"World news\",\"webPublicationDate\":\"2020-06-0" + day
+                + "T10:00:00Z\",\"webTitle\":\"" + title + "\",\"webUrl\":\"https://www.theguardian.com/" + title
+                + "\",\"fields\":{\"trailText\":\"Trail\",\"thumbnail\":\"t\"}}";
+    }
+
+    private static HttpResponse response(String... results) {
+
+        return response(1, 1, results);
+    }
+
+    private static HttpResponse response(int currentPage, int pageCount, String... results) {
+
+        String json = json(results);
+
+        // The unknown paging is left out of the response
+        if (currentPage > 0) {
+            json = json.replace("{\"results\"", String.format(Locale.US,
+                    "{\"currentPage\":%d,\"pages\":%d,\"results\"", currentPage, pageCount));
+        }
+
+        return new HttpResponse(200, Collections.<String, String>emptyMap(),
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    private static String json(String... results) {
+
+        StringBuilder json = new StringBuilder("{\"response\":{\"results\":[");
+
+        for (int i = 0; i < results.length; i++) {
+            json.append(i == 0 ? "" : ",").append(results[i]);
+        }
+
+        json.append("]}}");
+
+        return json.toString();
+    }
+
+    /**
+     * A body that sends its head right away and stalls like a slow network before its tail.
+     */
+    private static final class StalledInputStream extends InputStream {
+
+        private final byte[] mHead;
+
+        private final byte[] mTail;
+
+        private int mPosition;
+
+        StalledInputStream(String head, String tail) {
+            mHead = head.getBytes(Charset.forName("UTF-8"));
+            mTail = tail.getBytes(Charset.forName("UTF-8"));
+        }
+
+        @Override
+        public int read() {
+
+            byte[] oneByte = new byte[1];
+
+            return read(oneByte, 0, 1) == -1 ? -1 : oneByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+
+            if (mPosition == mHead.length) {
+                SystemClock.sleep(QUERY_DELAY_MILLIS);
+            }
+
+            boolean isHead = mPosition < mHead.length;
+
+            byte[] part = isHead ? mHead : mTail;
+
+            int partPosition = isHead ? mPosition : mPosition - mHead.length;
+
+            if (partPosition == part.length) {
+                return -1;
+            }
+
+            int count = Math.min(length, part.length - partPosition);
+
+            System.arraycopy(part, partPosition, buffer, offset, count);
+
+            mPosition += count;
+
+            return count;
+        }
+    }
+}
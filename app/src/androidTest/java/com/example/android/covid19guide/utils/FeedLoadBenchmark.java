@@ -0,0 +1,248 @@
+package com.example.android.covid19guide.utils;
+
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.LatencyHistogram;
+import com.example.android.covid19guide.repository.ArticlesRepository;
+import com.example.android.covid19guide.repository.FeedDeliveryStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the whole path of the feed, from the {@link ArticlesRepository} through the fan-out of the queries, the
+ * coalescing, the transport and the decoder to the delivery on the main thread, against a {@link FakeGuardianServer}
+ * that is fast, slow, flaky, cut short or down. Every scenario loads 40 pages, 8 at a time, and writes the
+ * distribution of the load times, the time to the first cards, and how many pages failed or came partial to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedLoadBenchmark {
+
+    private static final String LOG_TAG = FeedLoadBenchmark.class.getSimpleName();
+
+    private static final int LOAD_COUNT = 40;
+
+    private static final int CONCURRENCY = 8;
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * The time after which a load that was not delivered counts as hung
+     */
+    private static final long LOAD_TIMEOUT_SECONDS = 60;
+
+    private FakeGuardianServer mServer;
+
+    private String mPreviousBaseUrl;
+
+    private ExecutorService mExecutor;
+
+    private ArticlesRepository mRepository;
+
+    @Before
+    public void startServer() throws IOException {
+
+        mServer = new FakeGuardianServer();
+
+        mPreviousBaseUrl = GuardianApi.getBaseUrl();
+
+        GuardianApi.setBaseUrl(mServer.getBaseUrl());
+
+        mExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+
+        mRepository = new ArticlesRepository(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                mExecutor);
+    }
+
+    @After
+    public void stopServer() throws IOException {
+
+        GuardianApi.setBaseUrl(mPreviousBaseUrl);
+
+        mExecutor.shutdownNow();
+
+        mServer.close();
+    }
+
+    @Test
+    public void failedAndTruncatedResponsesAreNotDecodedAsArticles() {
+
+        String url = new GuardianQuery().setSearchTerms("covid truncation").buildPageUrl(1, PAGE_SIZE);
+
+        List<Article> articles = QueryUtils.fetchNewsData(url);
+
+        assertNotNull(articles);
+        assertEquals(PAGE_SIZE, articles.size());
+
+        mServer.setErrors(503, 1);
+
+        assertNull(QueryUtils.fetchNewsData(url));
+
+        // The connection is closed halfway through a body that announced its whole length, or in a chunked body
+        mServer.setErrors(0, 0).setTruncation(0.5f, 1);
+
+        assertNull(QueryUtils.fetchNewsData(url));
+
+        mServer.setChunked(true);
+
+        assertNull(QueryUtils.fetchNewsData(url));
+
+        // A chunked and throttled body arrives whole
+        mServer.setTruncation(0, 0).setBytesPerSecond(256 * 1024);
+
+        articles = QueryUtils.fetchNewsData(url);
+
+        assertNotNull(articles);
+        assertEquals(PAGE_SIZE, articles.size());
+    }
+
+    @Test
+    public void benchmarkConcurrentPageLoads() throws InterruptedException {
+
+        LoadResult fast = loadPages("fast");
+
+        mServer.setLatencyMillis(300).setBytesPerSecond(64 * 1024).setChunked(true);
+
+        LoadResult slow = loadPages("slow");
+
+        mServer.setLatencyMillis(50).setBytesPerSecond(0).setChunked(false).setErrors(503, 4);
+
+        LoadResult flaky = loadPages("flaky");
+
+        mServer.setErrors(0, 0).setTruncation(0.5f, 5);
+
+        LoadResult truncated = loadPages("truncated");
+
+        mServer.setTruncation(0, 0).setErrors(500, 1);
+
+        LoadResult down = loadPages("down");
+
+        Log.i(LOG_TAG, "Server: requests=" + mServer.getRequestCount() + " errors=" + mServer.getErrorCount()
+                + " truncated=" + mServer.getTruncatedCount());
+        Log.i(LOG_TAG, "Transport: " + QueryUtils.getTransport().getStatistics());
+        Log.i(LOG_TAG, "Delivery: " + FeedDeliveryStatistics.getSummary());
+
+        assertEquals(0, fast.mFailedCount.get());
+        assertEquals(0, fast.mPartialCount.get());
+        assertEquals(0, slow.mFailedCount.get());
+
+        // A page with a failed query fails as a whole, it is never delivered without the articles of that query
+        assertTrue(flaky.mFailedCount.get() > 0);
+        assertEquals(0, flaky.mPartialCount.get());
+        assertTrue(truncated.mFailedCount.get() > 0);
+        assertEquals(0, truncated.mPartialCount.get());
+
+        assertEquals(LOAD_COUNT, down.mFailedCount.get());
+    }
+
+    /**
+     * Loads the pages of a scenario, at most {@link #CONCURRENCY} at a time, and waits for all of them. Every page
+     * belongs to a feed of its own, so that none of them is served from the caches of the app.
+     */
+    private LoadResult loadPages(String scenario) throws InterruptedException {
+
+        final LoadResult result = new LoadResult();
+
+        final Semaphore permits = new Semaphore(CONCURRENCY);
+
+        for (int i = 0; i < LOAD_COUNT; i++) {
+
+            assertTrue(permits.tryAcquire(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            GuardianFeed feed = new GuardianFeed(
+                    new GuardianQuery().setSearchTerms("covid " + scenario + " " + i),
+                    new GuardianQuery().setSearchTerms("covid " + scenario + " " + i).setSection("society"));
+
+            final int fullPageSize = feed.getQueryPageSize(PAGE_SIZE) * feed.getQueries().size();
+
+            final long startNanos = System.nanoTime();
+
+            final boolean[] hasFirstCards = new boolean[1];
+
+            // The pages after the first, the first page of a feed may be taken from the prefetch of the process
+            mRepository.loadPage(feed, 2 + i % 3, PAGE_SIZE,
+                    new ArticlesRepository.Callback<FeedFanOutFetcher.Page>() {
+                        @Override
+                        public void onResult(FeedFanOutFetcher.Page page) {
+
+                            result.record(page, fullPageSize, System.nanoTime() - startNanos);
+
+                            permits.release();
+                        }
+                    },
+                    new ArticlesRepository.Callback<List<Article>>() {
+                        @Override
+                        public void onResult(List<Article> articles) {
+
+                            if (!hasFirstCards[0]) {
+
+                                hasFirstCards[0] = true;
+
+                                result.mFirstCardTimes.record(System.nanoTime() - startNanos);
+                            }
+                        }
+                    });
+        }
+
+        // Every load is delivered, successful or not, none of them hangs
+        assertTrue(permits.tryAcquire(CONCURRENCY, LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Log.i(LOG_TAG, scenario + ": " + result);
+
+        return result;
+    }
+
+    /**
+     * The load times of the pages of a scenario, and how many of them failed or came partial.
+     */
+    private static final class LoadResult {
+
+        private final LatencyHistogram mLoadTimes = new LatencyHistogram();
+
+        private final LatencyHistogram mFailureTimes = new LatencyHistogram();
+
+        private final LatencyHistogram mFirstCardTimes = new LatencyHistogram();
+
+        private final AtomicInteger mFailedCount = new AtomicInteger();
+
+        private final AtomicInteger mPartialCount = new AtomicInteger();
+
+        void record(FeedFanOutFetcher.Page page, int fullPageSize, long loadNanos) {
+
+            if (page == null) {
+
+                mFailedCount.incrementAndGet();
+
+                mFailureTimes.record(loadNanos);
+
+                return;
+            }
+
+            if (page.getArticles().size() < fullPageSize) {
+                mPartialCount.incrementAndGet();
+            }
+
+            mLoadTimes.record(loadNanos);
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format(Locale.US, "loaded %s | first cards %s | failed=%d in %s | partial=%d", mLoadTimes,
+                    mFirstCardTimes, mFailedCount.get(), mFailureTimes, mPartialCount.get());
+        }
+    }
+}
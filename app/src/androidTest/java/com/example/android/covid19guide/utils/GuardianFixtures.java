@@ -0,0 +1,88 @@
+package com.example.android.covid19guide.utils;
+
+import java.util.Locale;
+
+/**
+ * Builds synthetic Guardian search responses which have the same shape as the recorded ones, so that the tests on the
+ * device can serve pages with a known number of results. The JMH benchmarks load their own recorded responses, which
+ * the tests on the device cannot depend on, and these are built in code so that every page of every query is new.
+ */
+final class GuardianFixtures {
+
+    /**
+     * A paragraph of body text, repeated to reach the size of a typical article body
+     */
+    private static final String PARAGRAPH = "The number of confirmed coronavirus cases continued to rise on Monday, "
+            + "as health officials urged people to keep washing their hands and to respect \\\"social distancing\\\" rules. ";
+
+    private GuardianFixtures() {
+    }
+
+    /**
+     * Returns a search response with the given number of results, every result carrying about 5 KB of body text.
+     */
+    static String searchResponse(int resultCount) {
+
+        return searchResponse(resultCount, 0, 1, 1);
+    }
+
+    /**
+     * Returns a page of a search response, whose results are numbered from the given index so that the pages and the
+     * queries do not repeat each other's articles.
+     *
+     * @param resultCount is the number of results of the page
+     * @param firstIndex  is the number of the first result
+     * @param page        is the number of the page, starting at 1
+     * @param pageCount   is the number of pages of the search
+     */
+    static String searchResponse(int resultCount, int firstIndex, int page, int pageCount) {
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\",\"total\":")
+                .append(resultCount * pageCount)
+                .append(",\"startIndex\":").append((page - 1) * resultCount + 1)
+                .append(",\"pageSize\":").append(resultCount)
+                .append(",\"currentPage\":").append(page).append(",\"pages\":").append(pageCount)
+                .append(",\"orderBy\":\"relevance\",\"results\":[");
+
+        for (int n = 0; n < resultCount; n++) {
+
+            if (n > 0) {
+                json.append(',');
+            }
+
+            int i = firstIndex + n;
+
+            json.append("{\"id\":\"world/2020/jun/").append(i).append("/coronavirus-live\",")
+                    .append("\"type\":\"article\",\"sectionId\":\"world\",")
+                    .append("\"sectionName\":\"").append(i % 3 == 0 ? "World news" : "Life and style").append("\",")
+                    .append("\"webPublicationDate\":\"2020-06-").append(String.format(Locale.US, "%02d", i % 28 + 1))
+                    .append("T10:15:30Z\",")
+                    .append("\"webTitle\":\"Coronavirus live news number ").append(i).append("\",")
+                    .append("\"webUrl\":\"https://www.theguardian.com/world/2020/jun/").append(i).append("/coronavirus-live\",")
+                    .append("\"apiUrl\":\"https://content.guardianapis.com/world/2020/jun/").append(i).append("/coronavirus-live\",")
+                    .append("\"fields\":{\"thumbnail\":\"https://media.guim.co.uk/").append(i).append("/500.jpg\",")
+                    .append("\"bodyText\":\"");
+
+            for (int p = 0; p < 25; p++) {
+                json.append(PARAGRAPH);
+            }
+
+            json.append("\"},\"tags\":[");
+
+            // Every fourth article has no contributor, just like the articles written by agencies
+            if (i % 4 != 0) {
+                json.append("{\"id\":\"profile/author-").append(i).append("\",\"type\":\"contributor\",")
+                        .append("\"webTitle\":\"Author ").append(i % 7).append("\",")
+                        .append("\"webUrl\":\"https://www.theguardian.com/profile/author-").append(i).append("\"}");
+            }
+
+            json.append("],\"isHosted\":false,\"pillarId\":\"pillar/news\",\"pillarName\":\"News\"}");
+        }
+
+        json.append("]}}");
+
+        return json.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.android.covid19guide.utils;
+
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.ConditionalResponseCache;
+import com.example.android.covid19guide.network.FakeHttpTransport;
+import com.example.android.covid19guide.network.HttpRequest;
+import com.example.android.covid19guide.network.HttpResponse;
+import com.example.android.covid19guide.network.HttpTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the whole fetch path of {@link QueryUtils} against a {@link FakeHttpTransport}, so that it can be tested and
+ * benchmarked without any network.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryUtilsTransportTest {
+
+    private static final String LOG_TAG = QueryUtilsTransportTest.class.getSimpleName();
+
+    private static final String REQUEST_URL = "https://content.guardianapis.com/search?q=covid";
+
+    private HttpTransport mPreviousTransport;
+
+    private ConditionalResponseCache mPreviousResponseCache;
+
+    @Before
+    public void setUp() {
+        mPreviousTransport = QueryUtils.getTransport();
+        mPreviousResponseCache = QueryUtils.getResponseCache();
+        QueryUtils.setResponseCache(null);
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setTransport(mPreviousTransport);
+        QueryUtils.setResponseCache(mPreviousResponseCache);
+    }
+
+    @Test
+    public void fetchDecodesAGzippedResponse() throws IOException {
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Encoding", "gzip");
+
+        FakeHttpTransport transport = new FakeHttpTransport(200, headers, gzip(GuardianFixtures.searchResponse(10)));
+        QueryUtils.setTransport(transport);
+
+        List<Article> articles = QueryUtils.fetchNewsData(REQUEST_URL);
+
+        assertNotNull(articles);
+        assertEquals(10, articles.size());
+
+        HttpRequest request = transport.getRequests().get(0);
+        assertEquals(REQUEST_URL, request.getUrl());
+        assertEquals("gzip", request.getHeaders().get("Accept-Encoding"));
+    }
+
+    @Test
+    public void fetchReturnsNullOnAnErrorResponseOrNetworkFailure() {
+
+        QueryUtils.setTransport(new FakeHttpTransport(500, Collections.<String, String>emptyMap(), new byte[0]));
+        assertNull(QueryUtils.fetchNewsData(REQUEST_URL));
+
+        QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) throws IOException {
+                throw new IOException("Simulated network failure");
+            }
+        }));
+        assertNull(QueryUtils.fetchNewsData(REQUEST_URL));
+
+        // A missing or malformed URL is never sent
+        assertNull(QueryUtils.fetchNewsData(null));
+        assertNull(QueryUtils.fetchNewsData("not a url"));
+    }
+
+    @Test
+    public void truncatedBodyIsNeitherStoredNorRevalidated() {
+
+        File directory = new File(InstrumentationRegistry.getInstrumentation().getTargetContext().getCacheDir(),
+                "truncated_response_test");
+
+        for (File file : directory.exists() ? directory.listFiles() : new File[0]) {
+            file.delete();
+        }
+
+        QueryUtils.setResponseCache(new ConditionalResponseCache(directory, 1024 * 1024));
+
+        final byte[] body = GuardianFixtures.searchResponse(10).getBytes(Charset.forName("UTF-8"));
+
+        // The first response is cut in the middle, the second one is whole, both with the same ETag
+        final boolean[] isTruncated = {true, false};
+
+        final int[] requestCount = new int[1];
+
+        FakeHttpTransport transport = new FakeHttpTransport(new FakeHttpTransport.Responder() {
+            @Override
+            public HttpResponse respond(HttpRequest request) {
+
+                Map<String, String> headers = Collections.singletonMap("ETag", "\"v1\"");
+
+                if ("\"v1\"".equals(request.getHeaders().get("If-None-Match"))) {
+                    return new HttpResponse(304, headers, new ByteArrayInputStream(new byte[0]));
+                }
+
+                int length = isTruncated[requestCount[0]++] ? body.length / 2 : body.length;
+
+                return new HttpResponse(200, headers, new ByteArrayInputStream(body, 0, length));
+            }
+        });
+
+        QueryUtils.setTransport(transport);
+
+        // The cut body is not a short page, and it is not stored to be revalidated
+        assertNull(QueryUtils.fetchNewsData(REQUEST_URL));
+        assertEquals(10, QueryUtils.fetchNewsData(REQUEST_URL).size());
+        assertNull(transport.getRequests().get(1).getHeaders().get("If-None-Match"));
+
+        // The whole body is revalidated and served from the cache
+        assertEquals(10, QueryUtils.fetchNewsData(REQUEST_URL).size());
+        assertEquals("\"v1\"", transport.getRequests().get(2).getHeaders().get("If-None-Match"));
+        assertEquals(1, QueryUtils.getResponseCache().getNotModifiedCount());
+    }
+
+    @Test
+    public void benchmarkFetchWithoutNetwork() {
+
+        for (int resultCount : new int[]{10, 50, 200}) {
+
+            final byte[] body = GuardianFixtures.searchResponse(resultCount).getBytes(Charset.forName("UTF-8"));
+
+            QueryUtils.setTransport(new FakeHttpTransport(new FakeHttpTransport.Responder() {
+                @Override
+                public HttpResponse respond(HttpRequest request) {
+                    return new HttpResponse(200, Collections.<String, String>emptyMap(), new ByteArrayInputStream(body));
+                }
+            }));
+
+            int iterations = 20;
+
+            long startNanos = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                assertEquals(resultCount, QueryUtils.fetchNewsData(REQUEST_URL).size());
+            }
+
+            Log.i(LOG_TAG, String.format(Locale.US, "fetch of %d results: %.2f ms", resultCount,
+                    (System.nanoTime() - startNanos) / 1e6 / iterations));
+        }
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(json.getBytes(Charset.forName("UTF-8")));
+        gzip.close();
+
+        return bytes.toByteArray();
+    }
+}
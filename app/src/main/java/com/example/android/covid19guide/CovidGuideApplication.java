@@ -0,0 +1,111 @@
+package com.example.android.covid19guide;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.util.Log;
+import com.example.android.covid19guide.data.ArticlesSearchIndex;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+import com.example.android.covid19guide.network.ConditionalResponseCache;
+import com.example.android.covid19guide.network.FetchMetrics;
+import com.example.android.covid19guide.network.FetchTimings;
+import com.example.android.covid19guide.network.NetworkQualityEstimator;
+import com.example.android.covid19guide.startup.StartupPrefetcher;
+import com.example.android.covid19guide.startup.StartupTrace;
+import com.example.android.covid19guide.sync.FeedSyncWorker;
+import com.example.android.covid19guide.utils.ArticleBodyFetcher;
+import com.example.android.covid19guide.utils.CoalescingArticlesFetcher;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.QueryUtils;
+import java.io.File;
+
+/**
+ * The Application class of the COVID19 Guide App, which sets up the app wide components when the process starts.
+ */
+public class CovidGuideApplication extends Application {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = CovidGuideApplication.class.getSimpleName();
+
+    /**
+     * The maximum number of bytes that the cached Guardian API responses may take on disk
+     */
+    private static final long RESPONSE_CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        StartupTrace.begin();
+
+        // Send the requests to the Guardian API, or to the stand-in server that a build points the app at
+        GuardianApi.setBaseUrl(getString(R.string.guardian_api_base_url));
+
+        // Time the stages of every fetch of the feed and write them to logcat, so that a slow feed can be explained
+        if (getResources().getBoolean(R.bool.fetch_metrics_enabled)) {
+
+            FetchMetrics.setEnabled(true);
+
+            FetchMetrics.addListener(new FetchMetrics.Listener() {
+                @Override
+                public void onFetchCompleted(FetchTimings timings) {
+
+                    Log.i(LOG_TAG, "Fetch: " + timings);
+
+                    Log.i(LOG_TAG, "Fetch stages: " + FetchMetrics.getSummary());
+                }
+            });
+        }
+
+        // Cache the Guardian API responses on disk so that a refresh can be revalidated instead of downloaded again
+        ConditionalResponseCache responseCache = new ConditionalResponseCache(
+                new File(getCacheDir(), "guardian-responses"), RESPONSE_CACHE_SIZE_BYTES);
+
+        QueryUtils.setResponseCache(responseCache);
+
+        // Shrink the caches in memory in the order of their priority when the system runs low on memory, the
+        // thumbnails register when Glide starts and the screens register their own views
+        MemoryBudgetCoordinator memoryBudgetCoordinator = MemoryBudgetCoordinator.getInstance();
+
+        memoryBudgetCoordinator.register("bodies", MemoryBudgetCoordinator.Priority.OFF_SCREEN_BODIES,
+                ArticleBodyFetcher.getInstance());
+
+        memoryBudgetCoordinator.register("parsed queries", MemoryBudgetCoordinator.Priority.NON_VISIBLE,
+                CoalescingArticlesFetcher.getInstance());
+
+        memoryBudgetCoordinator.register("parsed responses", MemoryBudgetCoordinator.Priority.NON_VISIBLE,
+                responseCache);
+
+        registerComponentCallbacks(memoryBudgetCoordinator);
+
+        // Index every article that is downloaded, so that the articles can be searched without any network
+        QueryUtils.setSearchIndex(ArticlesSearchIndex.getInstance(this));
+
+        // Estimate the quality of the network from every response, the requests of the feed are shaped by it
+        QueryUtils.setNetworkQualityEstimator(NetworkQualityEstimator.getInstance(this));
+
+        // Start loading the feed right away, so that it overlaps the splash screen instead of following it. A process
+        // that is started in the background, for a sync, does not load the feed for a screen that is not displayed
+        if (isForegroundProcess()) {
+            StartupPrefetcher.start(this);
+        }
+
+        // Keep the stored feed fresh in the background, so that most launches need no request to the network
+        FeedSyncWorker.schedule(this);
+
+        StartupTrace.mark(StartupTrace.PHASE_APPLICATION_CREATED);
+    }
+
+    /**
+     * This method returns true if the process was started to display the app, rather than for a job in the background.
+     */
+    private static boolean isForegroundProcess() {
+
+        ActivityManager.RunningAppProcessInfo processInfo = new ActivityManager.RunningAppProcessInfo();
+
+        ActivityManager.getMyMemoryState(processInfo);
+
+        return processInfo.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+    }
+}
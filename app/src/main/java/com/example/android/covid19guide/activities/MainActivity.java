@@ -1,24 +1,40 @@
 package com.example.android.covid19guide.activities;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import android.app.LoaderManager;
+import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Loader;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.graphics.drawable.Drawable;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
-import android.net.Uri;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import com.airbnb.lottie.LottieAnimationView;
+import com.airbnb.lottie.LottieCompositionFactory;
+import com.airbnb.lottie.LottieDrawable;
 import com.example.android.covid19guide.R;
 import com.example.android.covid19guide.adapters.ArticlesAdapter;
+import com.example.android.covid19guide.adapters.FeedScrollPolicy;
 import com.example.android.covid19guide.datamodels.Article;
-import com.example.android.covid19guide.loaders.ArticlesLoader;
+import com.example.android.covid19guide.listeners.PaginationScrollListener;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.reader.ArticleBrowser;
+import com.example.android.covid19guide.startup.StartupTrace;
+import com.example.android.covid19guide.utils.ArticleBodyFetcher;
+import com.example.android.covid19guide.viewmodels.ArticlesViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,18 +42,17 @@ import java.util.List;
  * This activity class displays the Latest News' Articles regarding the Coronavirus from the Guardian API where the
  * user can click on any of the articles and read more on the Guardian's Website.
  */
-public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<Article>> {
+public class MainActivity extends AppCompatActivity {
 
     /**
-     * URL for the News' Articles Data from the Guardian Data Set
+     * The number of cards after the last visible one whose bodies are fetched ahead in the light feed
      */
-    private static final String GUARDIAN_REQUEST_URL = "https://content.guardianapis.com/search";
+    private static final int BODY_PREFETCH_COUNT = 5;
 
     /**
-     * Constant value for the Articles loader ID. We can choose any integer.
-     * This really only comes into play if you're using multiple loaders.
+     * The view model that loads the feed and keeps it across configuration changes
      */
-    private static final int ARTICLES_LOADER_ID = 1;
+    private ArticlesViewModel mViewModel;
 
     /**
      * Adapter for the list of News' Articles
@@ -69,11 +84,75 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
      */
     private RecyclerView mArticlesRecyclerView;
 
+    /**
+     * True once the feed refreshed from the network has been displayed, the stored feed must not replace it
+     */
+    private boolean mHasNetworkArticles;
+
+    /**
+     * True while the results of a search are displayed instead of the feed
+     */
+    private boolean mIsShowingSearchResults;
+
+    /**
+     * The maximum number of articles displayed for a search
+     */
+    private int mSearchResultCount;
+
+    /**
+     * Asks for the next page again once the device is connected, so that a page that failed, or that could not be
+     * asked for while the app was offline, does not leave the feed stuck. It is also called when it is registered,
+     * with the current state of the network
+     */
+    private final BroadcastReceiver mConnectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+
+            if (isConnected() && !mIsShowingSearchResults) {
+                mViewModel.retryNextPage();
+            }
+        }
+    };
+
+    /**
+     * The views of the feed that are not on screen, which are dropped when the system runs low on memory: the
+     * animation of the empty state while it is hidden, and the recycled cards once everything is shed. The system
+     * calls it on the main thread
+     */
+    private final MemoryBudgetCoordinator.Cache mOffScreenViews = new MemoryBudgetCoordinator.Cache() {
+        @Override
+        public long getSizeBytes() {
+            return MemoryBudgetCoordinator.UNKNOWN_SIZE;
+        }
+
+        @Override
+        public void trimToFraction(float fraction) {
+
+            // The animation is loaded again by the next empty state
+            if (mEmptyStateLayout.getVisibility() != View.VISIBLE) {
+
+                Drawable animation = mAnimationView.getDrawable();
+
+                if (animation instanceof LottieDrawable) {
+                    ((LottieDrawable) animation).clearComposition();
+                }
+
+                LottieCompositionFactory.clearCache(MainActivity.this);
+            }
+
+            if (fraction <= 0) {
+                mArticlesRecyclerView.getRecycledViewPool().clear();
+            }
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        StartupTrace.mark(StartupTrace.PHASE_MAIN_CREATED);
+
         //Initializing All Object Variables
         mArticlesRecyclerView = findViewById(R.id.recycler_view);
 
@@ -85,8 +164,18 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
 
         mProgressBar = findViewById(R.id.loading_indicator);
 
+        MemoryBudgetCoordinator.getInstance().register("feed views", MemoryBudgetCoordinator.Priority.NON_VISIBLE,
+                mOffScreenViews);
+
+        //Read the configurable prefetch distance of the feed, the page size and the fields follow the network
+        int prefetchDistance = getResources().getInteger(R.integer.feed_prefetch_distance);
+
+        mSearchResultCount = getResources().getInteger(R.integer.search_result_count);
+
         //Set the layoutManager that the recyclerView will use
-        mArticlesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+
+        mArticlesRecyclerView.setLayoutManager(layoutManager);
 
         //This setting improves performance if the changes in content do not change the layout size of the RecyclerView
         mArticlesRecyclerView.setHasFixedSize(true);
@@ -97,141 +186,417 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
         //Attaching the adapter to the recyclerView with the setAdapter() method.
         mArticlesRecyclerView.setAdapter(mAdapter);
 
-        // If there is a network connection, fetch data
-        if (isConnected()) {
+        //Size the caches of the feed by the number of cards on screen, and inflate the cards of the first scroll ahead
+        if (getResources().getBoolean(R.bool.feed_scroll_tuning_enabled)) {
 
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
+            FeedScrollPolicy scrollPolicy = FeedScrollPolicy.forScreen(this);
 
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(ARTICLES_LOADER_ID, null, this);
+            scrollPolicy.apply(mArticlesRecyclerView);
 
-        } else {
-            // Otherwise, display error
-            // First, hide the progress bar so that the error message will be visible
-            mProgressBar.setVisibility(View.GONE);
+            scrollPolicy.prewarm(mArticlesRecyclerView, mAdapter);
+        }
+
+        //Request the next page in the background once the user scrolls close to the end of the feed
+        mArticlesRecyclerView.addOnScrollListener(new PaginationScrollListener(layoutManager, prefetchDistance) {
+            @Override
+            protected void loadMoreItems() {
+
+                loadNextPage();
+            }
+
+            @Override
+            public boolean isLoading() {
+
+                // The results of a search have no next page. While the stored feed is displayed, the first page is
+                // asked for again if it failed
+                return mViewModel.isLoadingPage() || mIsShowingSearchResults;
+            }
+
+            @Override
+            public boolean isLastPage() {
+
+                return mViewModel.isLastPage();
+            }
+        });
+
+        //Load the thumbnails of the next cards while the user scrolls, so they are ready when the cards are bound
+        mArticlesRecyclerView.addOnScrollListener(
+                mAdapter.createThumbnailPreloader(getResources().getInteger(R.integer.thumbnail_preload_count)));
+
+        //In the light feed, fetch the bodies of the articles that are about to come on screen. They are requested
+        //when other cards come on screen and when the scroll settles, not on every frame. The feed may turn light or
+        //full with the quality of the network, so it is checked every time
+        mArticlesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+
+            private int mFirstPosition = RecyclerView.NO_POSITION;
 
-            // Update the mEmptyStateTextView with no connection error message
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
+            private int mLastPosition = RecyclerView.NO_POSITION;
 
-            // Update the mAnimationView with the no connection animation
-            mAnimationView.setAnimation(R.raw.no_internet);
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
 
-            // Set the visibility of the mArticlesRecyclerView to GONE
-            mArticlesRecyclerView.setVisibility(View.GONE);
+                int firstPosition = layoutManager.findFirstVisibleItemPosition();
 
-            // Set the visibility of the mEmptyStateLayout to VISIBLE
-            mEmptyStateLayout.setVisibility(View.VISIBLE);
+                int lastPosition = layoutManager.findLastVisibleItemPosition();
+
+                if (firstPosition != mFirstPosition || lastPosition != mLastPosition) {
+
+                    mFirstPosition = firstPosition;
+
+                    mLastPosition = lastPosition;
+
+                    requestVisibleBodies(layoutManager);
+                }
+            }
+
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    requestVisibleBodies(layoutManager);
+                }
+            }
+        });
+
+        //Tell the browser about the pages of the cards on screen once the scroll settles, the first of them may be
+        //loaded ahead in case the user opens it
+        mArticlesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    hintVisibleArticles(layoutManager);
+                }
+            }
+        });
+
+        // Get the view model of the feed, which is kept across configuration changes
+        mViewModel = new ViewModelProvider(this,
+                ViewModelProvider.AndroidViewModelFactory.getInstance(getApplication())).get(ArticlesViewModel.class);
+
+        // The stored feed is displayed right away, even before the network round trip has finished, or without any
+        // network connection at all
+        mViewModel.getStoredArticles().observe(this, new Observer<List<Article>>() {
+            @Override
+            public void onChanged(List<Article> articles) {
+                onStoredArticlesLoaded(articles);
+            }
+        });
+
+        // The feed refreshed from the network is applied on top of it, page by page
+        mViewModel.getNetworkArticles().observe(this, new Observer<List<Article>>() {
+            @Override
+            public void onChanged(List<Article> articles) {
+                onNetworkArticlesLoaded(articles);
+            }
+        });
+
+        // The results of a search are displayed instead of the feed while the user is searching
+        mViewModel.getSearchResults().observe(this, new Observer<List<Article>>() {
+            @Override
+            public void onChanged(List<Article> articles) {
+                onSearchResultsLoaded(articles);
+            }
+        });
+
+        // Start loading the feed, this does nothing if the feed was already started before a configuration change
+        mViewModel.start(RequestShaper.getInstance(this).getFeedShape(), isConnected());
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+
+        getMenuInflater().inflate(R.menu.main_menu, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+
+        final SearchView searchView = (SearchView) searchItem.getActionView();
+
+        // Reopen the search that was running before a configuration change
+        String searchText = mViewModel.getSearchText();
+
+        if (searchText != null) {
+
+            searchItem.expandActionView();
+
+            searchView.setQuery(searchText, false);
         }
+
+        // Search the downloaded articles while the user types, every letter replaces the previous search
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+
+                searchView.clearFocus();
+
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+
+                mViewModel.search(newText, mSearchResultCount);
+
+                return true;
+            }
+        });
+
+        // Go back to the feed when the search is closed
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+
+                mViewModel.search(null, mSearchResultCount);
+
+                return true;
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // Warm up the browser while the feed is on screen
+        ArticleBrowser.getInstance(this).bind();
+
+        registerReceiver(mConnectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        ArticleBrowser.getInstance(this).unbind();
+
+        unregisterReceiver(mConnectivityReceiver);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        MemoryBudgetCoordinator.getInstance().unregister(mOffScreenViews);
     }
 
     /**
-     * This method instantiates and return a new Loader for the given ID
-     *
-     * @param id   int: The ID whose loader is to be created.
-     * @param args Bundle: Any arguments supplied by the caller.
-     * @return Return a new Loader instance that is ready to start loading.
+     * This method asks for the bodies of the cards on screen and of the next few cards, in the light feed only.
      */
-    @Override
-    public Loader<List<Article>> onCreateLoader(int id, Bundle args) {
+    private void requestVisibleBodies(LinearLayoutManager layoutManager) {
+
+        int firstPosition = layoutManager.findFirstVisibleItemPosition();
 
-        //Create a Uri object from the GUARDIAN_REQUEST_URL and then get a Uri.Builder from this Uri Object
-        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
+        if (!mViewModel.isLightFeed() || firstPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        ArticleBodyFetcher.getInstance().requestBodies(
+                mAdapter.getArticles(firstPosition, layoutManager.findLastVisibleItemPosition() + BODY_PREFETCH_COUNT));
+    }
 
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+    /**
+     * This method tells the browser about the pages of the cards on screen, the topmost first.
+     */
+    private void hintVisibleArticles(LinearLayoutManager layoutManager) {
 
-        //Append or add all the query parameters to the uriBuilder
-        uriBuilder.appendQueryParameter("q", "covid");
+        int firstPosition = layoutManager.findFirstVisibleItemPosition();
 
-        uriBuilder.appendQueryParameter("format", "json");
+        if (firstPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
 
-        uriBuilder.appendQueryParameter("order-by", "relevance");
+        List<String> urls = new ArrayList<>();
 
-        uriBuilder.appendQueryParameter("from-date", "2020-06-01");
+        for (Article article : mAdapter.getArticles(firstPosition, layoutManager.findLastVisibleItemPosition())) {
+            urls.add(article.getUrl());
+        }
 
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
+        ArticleBrowser.getInstance(this).mayLaunchUrls(urls);
+    }
 
-        uriBuilder.appendQueryParameter("show-fields", "body-text,thumbnail");
+    /**
+     * This method displays the feed that was stored on the device, unless the network refresh has already finished.
+     *
+     * @param data List<Article>: the stored articles, or null if the feed is not stored on the device
+     */
+    private void onStoredArticlesLoaded(List<Article> data) {
 
-        uriBuilder.appendQueryParameter("api-key", "c7393c36-e790-4c7b-8c59-a652141fa8ad");
+        // The network refresh has already delivered a newer feed, or the user is searching
+        if (mHasNetworkArticles || mIsShowingSearchResults) {
+            return;
+        }
 
-        // Create and return a new ArticlesLoader for the given URL
-        return new ArticlesLoader(this, uriBuilder.toString());
+        if (data != null && !data.isEmpty()) {
+
+            StartupTrace.markFirstArticle(StartupTrace.PHASE_FIRST_ARTICLE_FROM_STORE);
+
+            showArticles(data);
+
+        } else if (!isConnected()) {
+
+            // Nothing is stored and nothing can be downloaded, so display the no connection error message
+            showEmptyState(R.string.no_internet_connection, R.raw.no_internet);
+        }
     }
 
     /**
-     * This method is called when a previously created loader has finished its load
+     * This method applies the feed that was refreshed from the network on top of the articles already displayed.
      *
-     * @param loader Loader<List<Article>>: The Loader that has finished.
-     * @param data   List<Article>: The data generated by the Loader.
+     * @param data List<Article>: the downloaded articles of all the pages loaded so far
      */
-    @Override
-    public void onLoadFinished(Loader<List<Article>> loader, List<Article> data) {
+    private void onNetworkArticlesLoaded(List<Article> data) {
 
-        // Hide the progress bar because the data has been loaded
-        mProgressBar.setVisibility(View.GONE);
+        // If there is a valid list of {@link Article}s, then set them as the adapter's
+        // data set so that they will be displayed, a new page is appended to the cards already displayed.
+        if (data != null && !data.isEmpty()) {
 
-        // Set the visibility of the mEmptyStateLayout to GONE
-        mEmptyStateLayout.setVisibility(View.GONE);
+            if (!mHasNetworkArticles) {
 
-        //If there is a network connection, update the mAdapter
-        if (isConnected()) {
+                StartupTrace.markFirstArticle(StartupTrace.PHASE_FIRST_ARTICLE_FROM_NETWORK);
+            }
 
-            // Clear the adapter of previous News' Articles' Data
-            mAdapter.clear();
+            mHasNetworkArticles = true;
+
+            // The feed is kept by the view model and displayed again once the search is closed
+            if (!mIsShowingSearchResults) {
+                showArticles(data);
+            }
 
-            // If there is a valid list of {@link Article}s, then add them to the adapter's
-            // data set so that they will be displayed.
-            if (data != null && !data.isEmpty()) {
+        } else if (mAdapter.getItemCount() == 0 && !mIsShowingSearchResults) {
 
-                mAdapter.addAll(data);
+            // The refresh failed and there are no stored articles to keep displaying
+            if (isConnected()) {
 
-                mArticlesRecyclerView.setVisibility(View.VISIBLE);
+                showEmptyState(R.string.no_news_articles, R.raw.empty_state);
 
             } else {
 
-                // Update the mEmptyStateTextView with no articles are found message
-                mEmptyStateTextView.setText(R.string.no_news_articles);
+                showEmptyState(R.string.no_internet_connection, R.raw.no_internet);
+            }
+        }
+    }
 
-                // Update the mAnimationView with the empty state animation
-                mAnimationView.setAnimation(R.raw.empty_state);
+    /**
+     * This method displays the results of a search instead of the feed, or the feed again once the search is closed.
+     *
+     * @param data List<Article>: the articles found, best matches first, or null when the user is not searching
+     */
+    private void onSearchResultsLoaded(List<Article> data) {
 
-                // Set the visibility of the mArticlesRecyclerView to GONE
-                mArticlesRecyclerView.setVisibility(View.GONE);
+        if (data == null) {
 
-                // Set the visibility of the mEmptyStateLayout to VISIBLE
-                mEmptyStateLayout.setVisibility(View.VISIBLE);
+            if (!mIsShowingSearchResults) {
+                return;
             }
 
+            mIsShowingSearchResults = false;
+
+            showFeed();
+
         } else {
 
-            // Update the mEmptyStateTextView with no connection error message
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
+            mIsShowingSearchResults = true;
 
-            // Update the mAnimationView with the no connection animation
-            mAnimationView.setAnimation(R.raw.no_internet);
+            if (data.isEmpty()) {
 
-            // Set the visibility of the mArticlesRecyclerView to GONE
-            mArticlesRecyclerView.setVisibility(View.GONE);
+                showEmptyState(R.string.no_search_results, R.raw.empty_state);
 
-            // Set the visibility of the mEmptyStateLayout to VISIBLE
-            mEmptyStateLayout.setVisibility(View.VISIBLE);
+            } else {
+
+                showArticles(data);
+
+                mArticlesRecyclerView.scrollToPosition(0);
+            }
+        }
+    }
+
+    /**
+     * This method displays the feed again after a search, the newest feed that the view model holds.
+     */
+    private void showFeed() {
+
+        List<Article> feed = mHasNetworkArticles
+                ? mViewModel.getNetworkArticles().getValue() : mViewModel.getStoredArticles().getValue();
+
+        if (feed != null && !feed.isEmpty()) {
+
+            showArticles(feed);
+
+        } else if (!isConnected()) {
+
+            showEmptyState(R.string.no_internet_connection, R.raw.no_internet);
+
+        } else {
+
+            // The feed is still being downloaded
+            mAdapter.clear();
+
+            mEmptyStateLayout.setVisibility(View.GONE);
+
+            mProgressBar.setVisibility(View.VISIBLE);
         }
     }
 
     /**
-     * This method is called when a previously created loader is being reset, and thus making its data unavailable.
-     * The application should at this point remove any references it has to the Loader's data.
+     * This method displays the given articles in the RecyclerView.
+     */
+    private void showArticles(List<Article> data) {
+
+        // Hide the progress bar because the data has been loaded
+        mProgressBar.setVisibility(View.GONE);
+
+        // Set the visibility of the mEmptyStateLayout to GONE
+        mEmptyStateLayout.setVisibility(View.GONE);
+
+        mAdapter.setArticles(data);
+
+        mArticlesRecyclerView.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * This method hides the RecyclerView and displays the empty state layout with the given message and animation.
      *
-     * @param loader Loader<List<Article>>: The Loader that is being reset.
+     * @param messageResId   is the String resource of the message that is displayed
+     * @param animationResId is the raw resource of the Lottie animation that is displayed
      */
-    @Override
-    public void onLoaderReset(Loader<List<Article>> loader) {
+    private void showEmptyState(int messageResId, int animationResId) {
 
-        // Loader reset, so we can clear out our existing data.
+        // First, hide the progress bar so that the error message will be visible
+        mProgressBar.setVisibility(View.GONE);
+
+        // Clear the adapter of previous News' Articles' Data
         mAdapter.clear();
+
+        // Update the mEmptyStateTextView with the message
+        mEmptyStateTextView.setText(messageResId);
+
+        // Update the mAnimationView with the animation
+        mAnimationView.setAnimation(animationResId);
+
+        // Set the visibility of the mArticlesRecyclerView to GONE
+        mArticlesRecyclerView.setVisibility(View.GONE);
+
+        // Set the visibility of the mEmptyStateLayout to VISIBLE
+        mEmptyStateLayout.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * This method asks the view model to load the next page of the feed in the background. The view model waits a
+     * while after a failed page before it asks for it again.
+     */
+    private void loadNextPage() {
+
+        if (isConnected()) {
+
+            mViewModel.loadNextPage();
+        }
     }
 
     /**
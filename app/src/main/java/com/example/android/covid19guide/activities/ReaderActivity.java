@@ -0,0 +1,301 @@
+package com.example.android.covid19guide.activities;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.adapters.ArticlesAdapter;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.reader.ArticleBrowser;
+import com.example.android.covid19guide.reader.ReaderStatistics;
+import com.example.android.covid19guide.repository.ArticlesRepository;
+import java.util.Collections;
+
+/**
+ * Displays the full body of an article inside of the app. The body was already downloaded with the feed or by the
+ * {@link com.example.android.covid19guide.utils.ArticleBodyFetcher}, so it is read from memory or from the device and
+ * the article opens without any network. While the user reads, the body and the thumbnail of the next article of the
+ * feed are loaded, and the original page of the article can still be opened in the browser from the menu, which is
+ * warmed up while the reader is on screen.
+ */
+public class ReaderActivity extends AppCompatActivity {
+
+    /**
+     * The extras of the intent, the fields of the article and of the next article of the feed
+     */
+    private static final String EXTRA_ARTICLE = "article";
+
+    private static final String EXTRA_NEXT_ARTICLE = "next_article";
+
+    private static final String EXTRA_OPENED_AT_NANOS = "opened_at_nanos";
+
+    private static final String[] ARTICLE_FIELDS = {"id", "title", "description", "section", "published_at", "url",
+            "author_name", "image_url"};
+
+    //Declaring all Object Variables
+    private ScrollView mScrollView;
+
+    private TextView mBodyTextView;
+
+    private ProgressBar mProgressBar;
+
+    private Article mArticle;
+
+    /**
+     * The time at which the user tapped on the card, from {@link System#nanoTime()}
+     */
+    private long mOpenedAtNanos;
+
+    /**
+     * The time at which the user opened the article in the browser, or 0
+     */
+    private long mBrowserOpenedAtNanos;
+
+    /**
+     * The load of the body of the article, which is canceled when the reader is gone. The load of the next article
+     * goes on, it is kept in memory for when the user opens it
+     */
+    private ArticlesRepository.Task mBodyTask;
+
+    /**
+     * This method returns the intent that opens an article in the reader.
+     *
+     * @param context     is the context that starts the reader
+     * @param article     is the article
+     * @param nextArticle is the article after it in the feed, which is loaded while the user reads, or null
+     */
+    public static Intent newIntent(Context context, Article article, Article nextArticle) {
+
+        Intent intent = new Intent(context, ReaderActivity.class);
+
+        intent.putExtra(EXTRA_ARTICLE, toBundle(article));
+
+        if (nextArticle != null) {
+            intent.putExtra(EXTRA_NEXT_ARTICLE, toBundle(nextArticle));
+        }
+
+        intent.putExtra(EXTRA_OPENED_AT_NANOS, System.nanoTime());
+
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_reader);
+
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        //Initializing All Object Variables
+        mScrollView = findViewById(R.id.reader_scroll_view);
+
+        mBodyTextView = findViewById(R.id.reader_body);
+
+        mProgressBar = findViewById(R.id.reader_loading_indicator);
+
+        mArticle = fromBundle(getIntent().getBundleExtra(EXTRA_ARTICLE));
+
+        // A reader that is recreated after a configuration change is not timed again
+        mOpenedAtNanos = savedInstanceState == null
+                ? getIntent().getLongExtra(EXTRA_OPENED_AT_NANOS, System.nanoTime()) : 0;
+
+        TextView titleTextView = findViewById(R.id.reader_title);
+
+        titleTextView.setText(mArticle.getTitle());
+
+        TextView bylineTextView = findViewById(R.id.reader_byline);
+
+        bylineTextView.setText(TextUtils.isEmpty(mArticle.getAuthorName())
+                ? mArticle.getSection() + " · " + mArticle.getDate()
+                : mArticle.getSection() + " · " + mArticle.getAuthorName() + " · " + mArticle.getDate());
+
+        thumbnailRequest(mArticle).into((ImageView) findViewById(R.id.reader_image));
+
+        ArticlesRepository repository = ArticlesRepository.getInstance(this);
+
+        // A body in memory is delivered before the first frame is drawn, a body on the device a few milliseconds later
+        mProgressBar.setVisibility(View.VISIBLE);
+
+        mBodyTask = repository.loadArticleBody(mArticle,
+                new ArticlesRepository.Callback<ArticlesRepository.ArticleBody>() {
+                    @Override
+                    public void onResult(ArticlesRepository.ArticleBody body) {
+                        onBodyLoaded(body);
+                    }
+                });
+
+        // Load the next article of the feed while the user reads this one, so that it opens as fast
+        Bundle nextArticleBundle = getIntent().getBundleExtra(EXTRA_NEXT_ARTICLE);
+
+        if (nextArticleBundle != null) {
+
+            Article nextArticle = fromBundle(nextArticleBundle);
+
+            repository.loadArticleBody(nextArticle, new ArticlesRepository.Callback<ArticlesRepository.ArticleBody>() {
+                @Override
+                public void onResult(ArticlesRepository.ArticleBody body) {
+                }
+            });
+
+            thumbnailRequest(nextArticle).preload();
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+
+        getMenuInflater().inflate(R.menu.reader_menu, menu);
+
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+
+        if (item.getItemId() == R.id.action_open_in_browser) {
+
+            long openedAtNanos = System.nanoTime();
+
+            // Open the page in a Custom Tab of the warmed up browser, or in the default browser
+            if (ArticleBrowser.getInstance(this).open(this, mArticle.getUrl())) {
+                mBrowserOpenedAtNanos = openedAtNanos;
+            }
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // Warm up the browser, and let it load the page of the article ahead in case the user opens it
+        ArticleBrowser articleBrowser = ArticleBrowser.getInstance(this);
+
+        articleBrowser.bind();
+
+        articleBrowser.mayLaunchUrls(Collections.singletonList(mArticle.getUrl()));
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        ArticleBrowser.getInstance(this).unbind();
+
+        // The browser covers the reader, it still has to load the page from the network
+        if (mBrowserOpenedAtNanos != 0) {
+
+            ReaderStatistics.recordBrowser(System.nanoTime() - mBrowserOpenedAtNanos);
+
+            mBrowserOpenedAtNanos = 0;
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        mBodyTask.cancel();
+    }
+
+    /**
+     * This method displays the body of the article, and records the time from the tap on the card to the body drawn
+     * on screen.
+     *
+     * @param body is the body of the article, or null if it is neither on the device nor downloadable
+     */
+    private void onBodyLoaded(final ArticlesRepository.ArticleBody body) {
+
+        mProgressBar.setVisibility(View.GONE);
+
+        if (body == null) {
+
+            mBodyTextView.setText(R.string.article_body_unavailable);
+
+            ReaderStatistics.recordUnavailable();
+
+            return;
+        }
+
+        mBodyTextView.setText(body.getText());
+
+        if (mOpenedAtNanos == 0) {
+            return;
+        }
+
+        mScrollView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+
+                mScrollView.getViewTreeObserver().removeOnPreDrawListener(this);
+
+                ReaderStatistics.recordReader(body.getSource(), System.nanoTime() - mOpenedAtNanos);
+
+                mOpenedAtNanos = 0;
+
+                return true;
+            }
+        });
+    }
+
+    /**
+     * This method builds the request of the thumbnail of an article with the URL and the size of the thumbnail of its
+     * card, so that it is found in the cache of the thumbnails.
+     */
+    private RequestBuilder<Drawable> thumbnailRequest(Article article) {
+
+        int thumbnailWidth = ArticlesAdapter.getThumbnailWidth(getResources());
+
+        return Glide.with(this)
+                .load(RequestShaper.getInstance(this).getThumbnailUrl(article.getArticleImageUrl(), thumbnailWidth))
+                .override(thumbnailWidth, getResources().getDimensionPixelSize(R.dimen.article_image_height));
+    }
+
+    /**
+     * This method writes the fields of an article into a Bundle, so that it can be passed with the intent.
+     */
+    private static Bundle toBundle(Article article) {
+
+        Bundle bundle = new Bundle();
+
+        bundle.putString(ARTICLE_FIELDS[0], article.getId());
+        bundle.putString(ARTICLE_FIELDS[1], article.getTitle());
+        bundle.putString(ARTICLE_FIELDS[2], article.getDescription());
+        bundle.putString(ARTICLE_FIELDS[3], article.getSection());
+        bundle.putLong(ARTICLE_FIELDS[4], article.getPublishedAtMillis());
+        bundle.putString(ARTICLE_FIELDS[5], article.getUrl());
+        bundle.putString(ARTICLE_FIELDS[6], article.getAuthorName());
+        bundle.putString(ARTICLE_FIELDS[7], article.getArticleImageUrl());
+
+        return bundle;
+    }
+
+    /**
+     * This method reads an article that was written by {@link #toBundle(Article)}.
+     */
+    private static Article fromBundle(Bundle bundle) {
+
+        return new Article(bundle.getString(ARTICLE_FIELDS[0]), bundle.getString(ARTICLE_FIELDS[1]),
+                bundle.getString(ARTICLE_FIELDS[2]), bundle.getString(ARTICLE_FIELDS[3]),
+                bundle.getLong(ARTICLE_FIELDS[4]), bundle.getString(ARTICLE_FIELDS[5]),
+                bundle.getString(ARTICLE_FIELDS[6]), bundle.getString(ARTICLE_FIELDS[7]));
+    }
+}
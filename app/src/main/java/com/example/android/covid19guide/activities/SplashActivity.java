@@ -4,38 +4,84 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.ImageView;
 import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.startup.StartupPrefetcher;
+import com.example.android.covid19guide.startup.StartupTrace;
+import com.example.android.covid19guide.sync.FeedSyncStatistics;
 
 /**
  * This activity class displays the first startup screen which appears when the COVID19 Guide App is opened.
- * It is a simple constant screen for a fixed amount of time which is used to display the App Logo
+ * It displays the App Logo while the feed is being loaded in the background, and hands off to the MainActivity as
+ * soon as there is a feed to display, but not before a minimum display time and not after a maximum display time.
  */
 public class SplashActivity extends AppCompatActivity {
 
+    /**
+     * The handler that hands off to the MainActivity
+     */
+    private final Handler mHandler = new Handler();
+
+    /**
+     * Redirects to the MainActivity where the user can view the latest News' Articles regarding the COVID19 Virus.
+     */
+    private final Runnable mHandOff = new Runnable() {
+        @Override
+        public void run() {
+            handOff();
+        }
+    };
+
+    /**
+     * The time at which the splash screen was displayed and the minimum time it is displayed for
+     */
+    private long mDisplayedAtMillis;
+
+    private int mMinDisplayMillis;
+
+    /**
+     * True once the splash screen has handed off to the MainActivity
+     */
+    private boolean mIsHandedOff;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        //Declaring and initializing splashTimeOut variable which represents the amount of time that the splash screen will be displayed.
-        int splashTimeOut = 3000;
+        mDisplayedAtMillis = SystemClock.elapsedRealtime();
+
+        //Read the configurable minimum and maximum amount of time that the splash screen will be displayed.
+        mMinDisplayMillis = getResources().getInteger(R.integer.splash_min_display_millis);
 
-        //Set time to handler and call Handler().postDelayed, it will call run method of runnable after set time and then redirect to
-        //the MainActivity where the user can view the latest News' Articles regarding the COVID19 Virus.
-        new Handler().postDelayed(new Runnable() {
+        int maxDisplayMillis = getResources().getInteger(R.integer.splash_max_display_millis);
+
+        //Hand off after the maximum display time even if the feed is still loading, the MainActivity then displays
+        //its loading indicator until the feed arrives.
+        mHandler.postDelayed(mHandOff, maxDisplayMillis);
+
+        //Start the prefetch if the process was started in the background, by a sync, or if the prefetch of an earlier
+        //launch is over. It was already started by the application otherwise.
+        StartupPrefetcher.start(this);
+
+        //Hand off as soon as the stored or the downloaded feed is ready, once the minimum display time has passed.
+        StartupPrefetcher.setOnFeedReadyListener(new StartupPrefetcher.OnFeedReadyListener() {
             @Override
-            public void run() {
+            public void onFeedReady() {
 
-                Intent homeIntent = new Intent(SplashActivity.this, MainActivity.class);
+                FeedSyncStatistics.recordLaunch(SplashActivity.this, StartupPrefetcher.getFeedAgeMillis(),
+                        StartupPrefetcher.isFeedFresh());
 
-                startActivity(homeIntent);
+                long displayedMillis = SystemClock.elapsedRealtime() - mDisplayedAtMillis;
 
-                finish();
+                mHandler.removeCallbacks(mHandOff);
+
+                mHandler.postDelayed(mHandOff, Math.max(0, mMinDisplayMillis - displayedMillis));
             }
-        }, splashTimeOut);
+        });
 
         // Declaring and initializing the animation and logo object variables
         Animation animation = AnimationUtils.loadAnimation(this, R.anim.transition_animation);
@@ -45,4 +91,34 @@ public class SplashActivity extends AppCompatActivity {
         //setting and assigning the animation object to the logo ImageView object so that the logo is displayed with this animation.
         logo.setAnimation(animation);
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        // Do not hand off from a splash screen that is no longer displayed
+        mHandler.removeCallbacks(mHandOff);
+
+        StartupPrefetcher.setOnFeedReadyListener(null);
+    }
+
+    /**
+     * This method starts the MainActivity and finishes the splash screen, only once.
+     */
+    private void handOff() {
+
+        if (mIsHandedOff) {
+            return;
+        }
+
+        mIsHandedOff = true;
+
+        StartupTrace.mark(StartupTrace.PHASE_SPLASH_HANDED_OFF);
+
+        Intent homeIntent = new Intent(SplashActivity.this, MainActivity.class);
+
+        startActivity(homeIntent);
+
+        finish();
+    }
 }
@@ -0,0 +1,155 @@
+package com.example.android.covid19guide.adapters;
+
+import android.content.Context;
+import androidx.core.text.PrecomputedTextCompat;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.ArticleCard;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the {@link ArticleCard}s of the feed. It formats the texts of every card and lays out the excerpt of the
+ * body text ahead of time, and it must be called on a single background thread. The cards of the last snapshot are
+ * kept, so that a snapshot only builds the cards of the articles that are new or changed.
+ */
+class ArticleCardFactory {
+
+    /**
+     * The maximum number of characters of the body text that are laid out for a card. A card only shows the first
+     * three lines of the body text, so laying out the whole body would be wasted work.
+     */
+    private static final int MAX_EXCERPT_LENGTH = 320;
+
+    /**
+     * The ellipsis that ends an excerpt which is shorter than the body text
+     */
+    private static final String ELLIPSIS = "…";
+
+    /**
+     * The context that is used to format the texts of the cards
+     */
+    private final Context mContext;
+
+    /**
+     * The text metrics of the description view of the cards, used to lay out the excerpts
+     */
+    private final PrecomputedTextCompat.Params mDescriptionParams;
+
+    /**
+     * The cards of the last snapshot, keyed by the URL of their article
+     */
+    private Map<String, ArticleCard> mCards = new HashMap<>();
+
+    /**
+     * Constructs a new {@link ArticleCardFactory}.
+     *
+     * @param context           is the context that is used to format the texts of the cards
+     * @param descriptionParams are the text metrics of the description view of the cards
+     */
+    ArticleCardFactory(Context context, PrecomputedTextCompat.Params descriptionParams) {
+
+        mContext = context.getApplicationContext();
+
+        mDescriptionParams = descriptionParams;
+    }
+
+    /**
+     * This method builds the cards of the given articles, reusing the cards of the last snapshot whose texts did not
+     * change.
+     *
+     * @param articles List<Article>: the articles of the feed
+     * @return List<ArticleCard>: the cards of the articles, in the same order
+     */
+    List<ArticleCard> createCards(List<Article> articles) {
+
+        List<ArticleCard> cards = new ArrayList<>(articles.size());
+
+        Map<String, ArticleCard> cardsByUrl = new HashMap<>();
+
+        for (Article article : articles) {
+
+            ArticleCard card = article.getUrl() == null ? null : mCards.get(article.getUrl());
+
+            card = card == null ? createCard(article) : updateCard(card, article);
+
+            cards.add(card);
+
+            if (article.getUrl() != null) {
+                cardsByUrl.put(article.getUrl(), card);
+            }
+        }
+
+        // Only the cards of this snapshot are kept, so the cards of the articles that are gone are not held on to
+        mCards = cardsByUrl;
+
+        return cards;
+    }
+
+    /**
+     * This method returns the card of an article that was built for an earlier version of the same article. The
+     * laid out excerpt and the formatted texts are kept unless the fields they are made of changed.
+     */
+    private ArticleCard updateCard(ArticleCard card, Article article) {
+
+        Article cardArticle = card.getArticle();
+
+        if (cardArticle == article) {
+            return card;
+        }
+
+        if (!cardArticle.getDescription().equals(article.getDescription())
+                || !cardArticle.getSection().equals(article.getSection())
+                || cardArticle.getPublishedAtMillis() != article.getPublishedAtMillis()
+                || !equalsOrNull(cardArticle.getAuthorName(), article.getAuthorName())) {
+
+            return createCard(article);
+        }
+
+        // The card holds the new article, so that its title and thumbnail are diffed and bound from it
+        return new ArticleCard(article, card.getDescriptionExcerpt(), card.getSectionText(), card.getDateText(),
+                card.getAuthorText());
+    }
+
+    private static boolean equalsOrNull(String first, String second) {
+
+        return first == null ? second == null : first.equals(second);
+    }
+
+    /**
+     * This method builds the card of a single article.
+     */
+    ArticleCard createCard(Article article) {
+
+        PrecomputedTextCompat descriptionExcerpt = PrecomputedTextCompat.create(
+                excerptOf(article.getDescription()), mDescriptionParams);
+
+        String authorText = article.getAuthorName() == null
+                ? null : mContext.getString(R.string.article_author_name, article.getAuthorName());
+
+        return new ArticleCard(article, descriptionExcerpt,
+                mContext.getString(R.string.article_section, article.getSection()),
+                mContext.getString(R.string.article_date, article.getDate()),
+                authorText);
+    }
+
+    /**
+     * This method returns the beginning of the body text, cut at the last word break before the maximum length.
+     */
+    private static String excerptOf(String description) {
+
+        if (description.length() <= MAX_EXCERPT_LENGTH) {
+            return description;
+        }
+
+        int end = description.lastIndexOf(' ', MAX_EXCERPT_LENGTH);
+
+        if (end <= 0) {
+            end = MAX_EXCERPT_LENGTH;
+        }
+
+        return description.substring(0, end) + ELLIPSIS;
+    }
+}
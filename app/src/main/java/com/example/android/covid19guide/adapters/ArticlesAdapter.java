@@ -1,8 +1,10 @@
 package com.example.android.covid19guide.adapters;
 
 import android.content.Context;
-import android.content.Intent;
-import android.net.Uri;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,25 +12,123 @@ import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.constraintlayout.widget.ConstraintLayout;
-import androidx.constraintlayout.widget.ConstraintSet;
+import androidx.annotation.Nullable;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.activities.ReaderActivity;
 import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.ArticleCard;
+import com.example.android.covid19guide.images.ImageLoadStatistics;
+import com.example.android.covid19guide.network.RequestShaper;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * This Class provides the Adapter to populate items/cards inside of the RecyclerView.
+ * The adapter holds immutable snapshots of the list of articles. Every new snapshot is turned into precomputed
+ * {@link ArticleCard}s and diffed against the displayed one on a background thread, keyed by the website URL of the
+ * articles, so that only the cards that were inserted, moved or changed are updated, a changed card only rebinds the
+ * fields that changed, and binding a card only assigns precomputed values to its views.
  */
 public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.ArticleViewHolder> {
 
-    //Declaring the articlesList Object Instance
-    private List<Article> mArticlesList;
+    /**
+     * View types of the cards with and without an author, the {@link FeedScrollPolicy} sizes a pool for each of them
+     */
+    static final int VIEW_TYPE_WITH_AUTHOR = 0;
+
+    static final int VIEW_TYPE_WITHOUT_AUTHOR = 1;
+
+    /**
+     * The background thread that builds the cards of the new snapshots, in the order in which they were submitted
+     */
+    private static final Executor CARD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Flags of the change payloads, one for every field of a card that can be rebound on its own
+     */
+    private static final int PAYLOAD_IMAGE = 1;
+
+    private static final int PAYLOAD_TITLE = 1 << 1;
+
+    private static final int PAYLOAD_DESCRIPTION = 1 << 2;
+
+    private static final int PAYLOAD_DATE = 1 << 3;
+
+    private static final int PAYLOAD_SECTION = 1 << 4;
+
+    private static final int PAYLOAD_AUTHOR = 1 << 5;
+
+    private static final int PAYLOAD_ALL = PAYLOAD_IMAGE | PAYLOAD_TITLE | PAYLOAD_DESCRIPTION | PAYLOAD_DATE
+            | PAYLOAD_SECTION | PAYLOAD_AUTHOR;
+
+    /**
+     * Decides which articles are the same article and which of their fields changed between two snapshots
+     */
+    private static final DiffUtil.ItemCallback<ArticleCard> DIFF_CALLBACK = new DiffUtil.ItemCallback<ArticleCard>() {
+
+        @Override
+        public boolean areItemsTheSame(@NonNull ArticleCard oldCard, @NonNull ArticleCard newCard) {
+
+            return oldCard.getArticle().getUrl().equals(newCard.getArticle().getUrl());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ArticleCard oldCard, @NonNull ArticleCard newCard) {
+
+            return getChangedFields(oldCard.getArticle(), newCard.getArticle()) == 0;
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull ArticleCard oldCard, @NonNull ArticleCard newCard) {
+
+            // A card that gains or loses its author needs the layout of the other view type, so it is rebound fully
+            if (oldCard.hasAuthor() != newCard.hasAuthor()) {
+                return null;
+            }
+
+            return getChangedFields(oldCard.getArticle(), newCard.getArticle());
+        }
+    };
+
+    //Declaring the differ which holds the displayed snapshot of the cards
+    private final AsyncListDiffer<ArticleCard> mDiffer = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     //Declaring an instance of the mContext
     private Context mContext;
 
+    //Declaring the factory that builds the cards off the main thread
+    private final ArticleCardFactory mCardFactory;
+
+    //Declaring the Glide request manager of the thumbnails, and the size at which the thumbnails are decoded
+    private final RequestManager mRequestManager;
+
+    //Declaring the shaper that picks the resolution of the thumbnails downloaded for the quality of the network
+    private final RequestShaper mRequestShaper;
+
+    private final int mThumbnailWidth;
+
+    private final int mThumbnailHeight;
+
+    //Declaring the statistics of the thumbnails loaded for the cards
+    private final ImageLoadStatistics mImageStatistics = new ImageLoadStatistics();
+
+    //Declaring the handler that hands the built cards back to the main thread
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
     /**
      * This constructor is used to create an instance of the ArticlesAdapter using the articlesList as an input
      *
@@ -39,7 +139,27 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
 
         mContext = context;
 
-        mArticlesList = articlesList;
+        // Read the text metrics of the description view from the card layout, the excerpts are laid out with them
+        TextView descriptionTemplate = LayoutInflater.from(context).inflate(R.layout.article_item, null, false)
+                .findViewById(R.id.article_description);
+
+        mCardFactory = new ArticleCardFactory(context, TextViewCompat.getTextMetricsParams(descriptionTemplate));
+
+        // The thumbnails fill the width of the card, so they are decoded at that size instead of their full size
+        Resources resources = context.getResources();
+
+        mThumbnailWidth = getThumbnailWidth(resources);
+
+        mThumbnailHeight = resources.getDimensionPixelSize(R.dimen.article_image_height);
+
+        mRequestManager = Glide.with(context);
+
+        mRequestShaper = RequestShaper.getInstance(context);
+
+        // Every article is identified by its website URL, so the RecyclerView can keep its cards across refreshes
+        setHasStableIds(true);
+
+        setArticles(articlesList);
     }
 
     /**
@@ -53,11 +173,22 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
     @Override
     public ArticleViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
 
-        View itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.article_item, parent, false);
+        int layoutId = viewType == VIEW_TYPE_WITH_AUTHOR ? R.layout.article_item : R.layout.article_item_no_author;
+
+        View itemView = LayoutInflater.from(parent.getContext()).inflate(layoutId, parent, false);
 
         return new ArticleViewHolder(itemView);
     }
 
+    /**
+     * This method returns the view type of the card at the given position, cards without an author use their own layout.
+     */
+    @Override
+    public int getItemViewType(int position) {
+
+        return mDiffer.getCurrentList().get(position).hasAuthor() ? VIEW_TYPE_WITH_AUTHOR : VIEW_TYPE_WITHOUT_AUTHOR;
+    }
+
     /**
      * This method is called by RecyclerView to display the data at the specified position.
      * This method should update the contents of the itemView to reflect the item at the given position.
@@ -68,71 +199,283 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
     @Override
     public void onBindViewHolder(@NonNull ArticleViewHolder holder, int position) {
 
-        Article article = mArticlesList.get(position);
+        bind(holder, mDiffer.getCurrentList().get(position), PAYLOAD_ALL);
+    }
 
-        String articleImageUrl = article.getArticleImageUrl();
+    /**
+     * This method is called by RecyclerView to update a card whose article changed. When the change payloads are
+     * known, only the fields that changed are rebound instead of the whole card.
+     *
+     * @param holder   ArticleViewHolder: The ViewHolder which should be updated.
+     * @param position int: The position of the item within the adapter's data set.
+     * @param payloads List<Object>: The change payloads, or an empty list for a full bind.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ArticleViewHolder holder, int position, @NonNull List<Object> payloads) {
 
-        Glide.with(mContext).load(articleImageUrl).into(holder.articleImage);
+        if (payloads.isEmpty()) {
 
-        holder.title.setText(article.getTitle());
+            onBindViewHolder(holder, position);
 
-        holder.description.setText(article.getDescription());
+            return;
+        }
 
-        holder.publishedDate.setText(mContext.getString(R.string.article_date, article.getDate()));
+        int changedFields = 0;
 
-        holder.section.setText(mContext.getString(R.string.article_section, article.getSection()));
+        for (Object payload : payloads) {
+            changedFields |= (Integer) payload;
+        }
 
-        if (article.getAuthorName() != null) {
+        bind(holder, mDiffer.getCurrentList().get(position), changedFields);
+    }
 
-            holder.authorName.setText(mContext.getString(R.string.article_author_name, article.getAuthorName()));
+    /**
+     * This method binds the given fields of the card to its views. All the texts are precomputed, so binding only
+     * assigns them to the views.
+     *
+     * @param holder ArticleViewHolder: The ViewHolder of the card
+     * @param card   ArticleCard: The precomputed card
+     * @param fields int: The PAYLOAD flags of the fields that are bound
+     */
+    private void bind(ArticleViewHolder holder, ArticleCard card, int fields) {
+
+        if ((fields & PAYLOAD_IMAGE) != 0) {
+
+            String articleImageUrl = card.getArticle().getArticleImageUrl();
+
+            thumbnailRequest(articleImageUrl)
+                    .listener(mImageStatistics.newCardListener())
+                    .into(holder.articleImage);
+        }
+
+        if ((fields & PAYLOAD_TITLE) != 0) {
+
+            holder.title.setText(card.getArticle().getTitle());
+        }
+
+        if ((fields & PAYLOAD_DESCRIPTION) != 0) {
+
+            TextViewCompat.setPrecomputedText(holder.description, card.getDescriptionExcerpt());
+        }
 
-        } else {
-            holder.authorName.setVisibility(View.GONE);
+        if ((fields & PAYLOAD_DATE) != 0) {
 
-            // create a Constraint Set
-            ConstraintSet constraintSet = new ConstraintSet();
+            holder.publishedDate.setText(card.getDateText());
+        }
 
-            // get constraints from layout
-            constraintSet.clone(holder.layout);
+        if ((fields & PAYLOAD_SECTION) != 0) {
 
-            //Centers the widget holder.section horizontally to the left and right side on another widgets sides which is the constraint layout.
-            constraintSet.centerHorizontally(holder.section.getId(), holder.layout.getId());
+            holder.section.setText(card.getSectionText());
+        }
 
-            // set new constraints
-            constraintSet.applyTo(holder.layout);
+        if ((fields & PAYLOAD_AUTHOR) != 0 && holder.authorName != null) {
+
+            holder.authorName.setText(card.getAuthorText());
         }
     }
 
+    /**
+     * This method returns the width of the thumbnails of the cards in pixels, which fill the width of the card.
+     *
+     * @param resources of the app
+     */
+    public static int getThumbnailWidth(Resources resources) {
+
+        return resources.getDisplayMetrics().widthPixels
+                - 2 * resources.getDimensionPixelSize(R.dimen.card_view_layout_margin);
+    }
+
+    /**
+     * This method builds the request of a thumbnail at the size of the card, the preloads use the same request so that
+     * they fill the same cache entries as the cards. The rendition that is downloaded follows the quality of the
+     * network.
+     */
+    private RequestBuilder<Drawable> thumbnailRequest(String articleImageUrl) {
+
+        return mRequestManager.load(mRequestShaper.getThumbnailUrl(articleImageUrl, mThumbnailWidth))
+                .override(mThumbnailWidth, mThumbnailHeight);
+    }
+
+    /**
+     * This method returns a scroll listener which loads the thumbnails of the next cards into the memory cache before
+     * they are bound, in the direction of the scroll.
+     *
+     * @param maxPreload int: the number of cards ahead of the visible ones whose thumbnails are loaded
+     */
+    public RecyclerView.OnScrollListener createThumbnailPreloader(int maxPreload) {
+
+        ListPreloader.PreloadModelProvider<String> modelProvider = new ListPreloader.PreloadModelProvider<String>() {
+            @NonNull
+            @Override
+            public List<String> getPreloadItems(int position) {
+
+                List<ArticleCard> cards = mDiffer.getCurrentList();
+
+                if (position < 0 || position >= cards.size()) {
+                    return Collections.emptyList();
+                }
+
+                return Collections.singletonList(cards.get(position).getArticle().getArticleImageUrl());
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String articleImageUrl) {
+
+                return thumbnailRequest(articleImageUrl);
+            }
+        };
+
+        return new RecyclerViewPreloader<>(mRequestManager, modelProvider,
+                new FixedPreloadSizeProvider<String>(mThumbnailWidth, mThumbnailHeight), maxPreload);
+    }
+
+    /**
+     * This method returns the statistics of the thumbnails loaded for the cards.
+     */
+    public ImageLoadStatistics getImageStatistics() {
+        return mImageStatistics;
+    }
+
     /**
      * This method returns the size of the List that contains the items we want to display.
      *
-     * @return int: the number of articles in the mArticlesList
+     * @return int: the number of articles in the displayed snapshot
      */
     @Override
     public int getItemCount() {
 
-        return mArticlesList.size();
+        return mDiffer.getCurrentList().size();
     }
 
     /**
-     * This method adds the data or the articlesList passed as an input as the data set to the adapter and then notify
-     * the adapter
-     **/
-    public void addAll(List<Article> articlesList) {
+     * This method returns the stable ID of the article at the given position, derived from its website URL.
+     */
+    @Override
+    public long getItemId(int position) {
+
+        return stableIdOf(mDiffer.getCurrentList().get(position).getArticle().getUrl());
+    }
+
+    /**
+     * This method updates the data set of the adapter with a snapshot of the given articles. The cards of the
+     * articles that are new or changed are built, and diffed against the displayed ones, on a background thread, and
+     * only the cards that changed are updated.
+     *
+     * @param articlesList List<Article>: the articles to display, the adapter never changes this list
+     */
+    public void setArticles(List<Article> articlesList) {
 
-        mArticlesList = articlesList;
+        final List<Article> snapshot = new ArrayList<>(articlesList);
 
-        notifyDataSetChanged();
+        CARD_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                final List<ArticleCard> cards = Collections.unmodifiableList(mCardFactory.createCards(snapshot));
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+
+                        mDiffer.submitList(cards);
+                    }
+                });
+            }
+        });
     }
 
     /**
-     * This method clears the data set of the adapter and then notify the adapter
+     * This method returns the displayed articles between the two positions, both included, limited to the size of
+     * the data set.
+     */
+    public List<Article> getArticles(int fromPosition, int toPosition) {
+
+        List<ArticleCard> cards = mDiffer.getCurrentList();
+
+        List<Article> articles = new ArrayList<>();
+
+        for (int position = Math.max(0, fromPosition); position <= toPosition && position < cards.size(); position++) {
+            articles.add(cards.get(position).getArticle());
+        }
+
+        return articles;
+    }
+
+    /**
+     * This method clears the data set of the adapter
      **/
     public void clear() {
 
-        mArticlesList.clear();
+        // Run behind the snapshots that are still being built, so that none of them is displayed after the clear
+        CARD_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+
+                        mDiffer.submitList(Collections.<ArticleCard>emptyList());
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * This method returns the PAYLOAD flags of the fields that differ between two versions of the same article.
+     */
+    private static int getChangedFields(Article oldArticle, Article newArticle) {
+
+        int changedFields = 0;
+
+        if (!equal(oldArticle.getArticleImageUrl(), newArticle.getArticleImageUrl())) {
+            changedFields |= PAYLOAD_IMAGE;
+        }
+
+        if (!equal(oldArticle.getTitle(), newArticle.getTitle())) {
+            changedFields |= PAYLOAD_TITLE;
+        }
+
+        if (!equal(oldArticle.getDescription(), newArticle.getDescription())) {
+            changedFields |= PAYLOAD_DESCRIPTION;
+        }
+
+        if (oldArticle.getPublishedAtMillis() != newArticle.getPublishedAtMillis()) {
+            changedFields |= PAYLOAD_DATE;
+        }
+
+        if (!equal(oldArticle.getSection(), newArticle.getSection())) {
+            changedFields |= PAYLOAD_SECTION;
+        }
+
+        if (!equal(oldArticle.getAuthorName(), newArticle.getAuthorName())) {
+            changedFields |= PAYLOAD_AUTHOR;
+        }
+
+        return changedFields;
+    }
+
+    private static boolean equal(String first, String second) {
+
+        return first == null ? second == null : first.equals(second);
+    }
+
+    /**
+     * This method returns a 64 bit FNV-1a hash of the website URL, which is used as the stable ID of the article.
+     */
+    private static long stableIdOf(String url) {
+
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < url.length(); i++) {
 
-        notifyDataSetChanged();
+            hash ^= url.charAt(i);
+
+            hash *= 0x100000001b3L;
+        }
+        return hash;
     }
 
     /**
@@ -149,14 +492,13 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
 
         TextView section;
 
+        // The author view is null in the cards without an author
         TextView authorName;
 
         TextView publishedDate;
 
         Button readMoreButton;
 
-        ConstraintLayout layout;
-
         public ArticleViewHolder(@NonNull View itemView) {
             super(itemView);
 
@@ -173,8 +515,6 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
 
             publishedDate = itemView.findViewById(R.id.article_date);
 
-            layout = itemView.findViewById(R.id.constraint_layout);
-
             readMoreButton = itemView.findViewById(R.id.read_more_button);
 
             readMoreButton.setOnClickListener(new View.OnClickListener() {
@@ -184,19 +524,19 @@ public class ArticlesAdapter extends RecyclerView.Adapter<ArticlesAdapter.Articl
                     // Get the Adapter position of the item represented by this ViewHolder
                     int position = getAdapterPosition();
 
-                    // Find the current article that was clicked on
-                    Article article = mArticlesList.get(position);
+                    if (position == RecyclerView.NO_POSITION) {
+                        return;
+                    }
 
-                    // Convert the String URL into a URI object (to pass into the Intent constructor)
-                    Uri articleUri = Uri.parse(article.getUrl());
+                    // Find the current article that was clicked on, and the next one which the reader loads ahead
+                    List<ArticleCard> cards = mDiffer.getCurrentList();
 
-                    // Create a new intent to view the article URI
-                    Intent websiteIntent = new Intent(Intent.ACTION_VIEW, articleUri);
+                    Article article = cards.get(position).getArticle();
 
-                    // Send the intent to launch a new activity
-                    if (websiteIntent.resolveActivity(mContext.getPackageManager()) != null) {
-                        mContext.startActivity(websiteIntent);
-                    }
+                    Article nextArticle = position + 1 < cards.size() ? cards.get(position + 1).getArticle() : null;
+
+                    // Open the article in the reader of the app, which reads the body already downloaded
+                    mContext.startActivity(ReaderActivity.newIntent(mContext, article, nextArticle));
                 }
             });
         }
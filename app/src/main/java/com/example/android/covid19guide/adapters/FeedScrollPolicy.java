@@ -0,0 +1,156 @@
+package com.example.android.covid19guide.adapters;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.android.covid19guide.R;
+
+/**
+ * Sizes the caches of the RecyclerView of the feed by the number of cards that fit on the screen, instead of the
+ * defaults of the RecyclerView, which are made for small rows. A card of the feed is about half a screen high, so a
+ * fling binds a new card every few frames. The cards that just left the screen are kept bound, so that scrolling back
+ * shows them without binding them again, the pool of every view type holds a screen of cards, so that a fling through
+ * cards of the same type never inflates, and the cards that the first scroll needs are inflated ahead while the main
+ * thread is idle. The layout prefetch of the RecyclerView, which creates and binds the next card between the frames,
+ * is on by default and is left as it is.
+ */
+public final class FeedScrollPolicy {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedScrollPolicy.class.getSimpleName();
+
+    /**
+     * The defaults of the RecyclerView, which are never lowered
+     */
+    static final int DEFAULT_ITEM_VIEW_CACHE_SIZE = 2;
+
+    static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    /**
+     * The number of cards that are on the screen at the same time, counting the cards cut by its edges
+     */
+    private final int mCardsOnScreen;
+
+    /**
+     * Constructs a new {@link FeedScrollPolicy}.
+     *
+     * @param screenHeightPixels is the height of the screen
+     * @param cardHeightPixels   is the height of a short card
+     */
+    FeedScrollPolicy(int screenHeightPixels, int cardHeightPixels) {
+
+        // A card cut at the top and one cut at the bottom
+        mCardsOnScreen = (screenHeightPixels + cardHeightPixels - 1) / Math.max(1, cardHeightPixels) + 1;
+    }
+
+    /**
+     * This method returns the policy for the screen of the device.
+     *
+     * @param context is the context of the app
+     */
+    public static FeedScrollPolicy forScreen(Context context) {
+
+        Resources resources = context.getResources();
+
+        return new FeedScrollPolicy(resources.getDisplayMetrics().heightPixels,
+                resources.getDimensionPixelSize(R.dimen.article_card_estimated_height));
+    }
+
+    public int getCardsOnScreen() {
+        return mCardsOnScreen;
+    }
+
+    /**
+     * This method returns the number of cards that are kept bound after they leave the screen: half a screen, which
+     * covers the usual scroll back to a card that was just read.
+     */
+    public int getItemViewCacheSize() {
+
+        return Math.max(DEFAULT_ITEM_VIEW_CACHE_SIZE, (mCardsOnScreen + 1) / 2);
+    }
+
+    /**
+     * This method returns the number of recycled cards of each view type that are kept: a screen of cards, and the
+     * one that the layout prefetch creates ahead.
+     */
+    public int getMaxRecycledViews() {
+
+        return Math.max(DEFAULT_MAX_RECYCLED_VIEWS, mCardsOnScreen + 1);
+    }
+
+    /**
+     * This method applies the policy to the RecyclerView of the feed.
+     *
+     * @param recyclerView is the RecyclerView of the feed
+     */
+    public void apply(RecyclerView recyclerView) {
+
+        recyclerView.setItemViewCacheSize(getItemViewCacheSize());
+
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+
+        pool.setMaxRecycledViews(ArticlesAdapter.VIEW_TYPE_WITH_AUTHOR, getMaxRecycledViews());
+        pool.setMaxRecycledViews(ArticlesAdapter.VIEW_TYPE_WITHOUT_AUTHOR, getMaxRecycledViews());
+
+        Log.i(LOG_TAG, "Cards on screen=" + mCardsOnScreen + " cached=" + getItemViewCacheSize() + " pooled="
+                + getMaxRecycledViews());
+    }
+
+    /**
+     * This method resets the caches of a RecyclerView to the defaults of the RecyclerView, which the benchmarks
+     * compare the policy against. The layout prefetch is turned back on, in case a test turned it off.
+     */
+    public static void applyDefaults(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+
+        recyclerView.setItemViewCacheSize(DEFAULT_ITEM_VIEW_CACHE_SIZE);
+
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+
+        pool.setMaxRecycledViews(ArticlesAdapter.VIEW_TYPE_WITH_AUTHOR, DEFAULT_MAX_RECYCLED_VIEWS);
+        pool.setMaxRecycledViews(ArticlesAdapter.VIEW_TYPE_WITHOUT_AUTHOR, DEFAULT_MAX_RECYCLED_VIEWS);
+
+        layoutManager.setItemPrefetchEnabled(true);
+    }
+
+    /**
+     * This method inflates the cards that the first scroll of the feed needs into the pool of the RecyclerView, one
+     * card every time the main thread is idle. The cards that leave the screen first go to the cache of bound cards
+     * instead of the pool, so the first scroll would otherwise inflate that many cards, and one more.
+     *
+     * @param recyclerView is the RecyclerView of the feed
+     * @param adapter      is its adapter, the inflation stops if the RecyclerView is given another adapter
+     */
+    public void prewarm(final RecyclerView recyclerView, final ArticlesAdapter adapter) {
+
+        final int countPerViewType = getItemViewCacheSize() + 1;
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            private int mCreatedCount;
+
+            @Override
+            public boolean queueIdle() {
+
+                if (recyclerView.getAdapter() != adapter) {
+                    return false;
+                }
+
+                // The cards with an author first, most of the articles have one
+                int viewType = mCreatedCount < countPerViewType
+                        ? ArticlesAdapter.VIEW_TYPE_WITH_AUTHOR : ArticlesAdapter.VIEW_TYPE_WITHOUT_AUTHOR;
+
+                recyclerView.getRecycledViewPool().putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+
+                mCreatedCount++;
+
+                return mCreatedCount < 2 * countPerViewType;
+            }
+        });
+    }
+}
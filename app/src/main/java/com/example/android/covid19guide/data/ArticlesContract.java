@@ -0,0 +1,168 @@
+package com.example.android.covid19guide.data;
+
+import android.provider.BaseColumns;
+
+/**
+ * API Contract for the on-device store of the News' Articles that were downloaded from the Guardian API.
+ */
+public final class ArticlesContract {
+
+    /**
+     * Create a private constructor because we don't want to create a {@link ArticlesContract} object.
+     */
+    private ArticlesContract() {
+    }
+
+    /**
+     * Inner class that defines constant values for the articles database table.
+     * Each entry in the table represents a single News Article of the feed of one query.
+     */
+    public static final class ArticleEntry implements BaseColumns {
+
+        /**
+         * Name of the database table for the articles
+         */
+        public static final String TABLE_NAME = "articles";
+
+        /**
+         * The normalized query that the article was downloaded for. Type: TEXT
+         */
+        public static final String COLUMN_QUERY_KEY = "query_key";
+
+        /**
+         * The position of the article in the feed of its query. Type: INTEGER
+         */
+        public static final String COLUMN_POSITION = "position";
+
+        /**
+         * Guardian content id of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_ARTICLE_ID = "article_id";
+
+        /**
+         * Title of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_TITLE = "title";
+
+        /**
+         * Beginning of the Body Text of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_DESCRIPTION = "description";
+
+        /**
+         * Section of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_SECTION = "section";
+
+        /**
+         * Publishing time of the News Article in milliseconds since the epoch. Type: INTEGER
+         */
+        public static final String COLUMN_PUBLISHED_AT = "published_at";
+
+        /**
+         * Website URL of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_URL = "url";
+
+        /**
+         * Author of the News Article, null if the article has no author. Type: TEXT
+         */
+        public static final String COLUMN_AUTHOR_NAME = "author_name";
+
+        /**
+         * Thumbnail of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_IMAGE_URL = "image_url";
+
+        /**
+         * The time at which the article was downloaded in milliseconds since the epoch. Type: INTEGER
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * The approximate number of bytes the article takes in the store. Type: INTEGER
+         */
+        public static final String COLUMN_SIZE_BYTES = "size_bytes";
+    }
+
+    /**
+     * Inner class that defines constant values for the table of the articles that can be searched.
+     * Each entry in the table represents a single News Article that was downloaded, whatever its feed.
+     */
+    public static final class SearchArticleEntry implements BaseColumns {
+
+        /**
+         * Name of the database table for the articles that can be searched
+         */
+        public static final String TABLE_NAME = "search_articles";
+
+        /**
+         * Guardian content id of the News Article, which its body is matched with. Type: TEXT
+         */
+        public static final String COLUMN_ARTICLE_ID = "article_id";
+
+        /**
+         * Title of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_TITLE = "title";
+
+        /**
+         * Beginning of the Body Text of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_DESCRIPTION = "description";
+
+        /**
+         * Section of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_SECTION = "section";
+
+        /**
+         * Publishing time of the News Article in milliseconds since the epoch. Type: INTEGER
+         */
+        public static final String COLUMN_PUBLISHED_AT = "published_at";
+
+        /**
+         * Website URL of the News Article, which tells the articles apart. Type: TEXT
+         */
+        public static final String COLUMN_URL = "url";
+
+        /**
+         * Author of the News Article, null if the article has no author. Type: TEXT
+         */
+        public static final String COLUMN_AUTHOR_NAME = "author_name";
+
+        /**
+         * Thumbnail of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_IMAGE_URL = "image_url";
+    }
+
+    /**
+     * Inner class that defines constant values for the full-text index of the articles that can be searched.
+     * The docid of each entry is the _ID of its article in the {@link SearchArticleEntry} table.
+     */
+    public static final class SearchIndexEntry {
+
+        /**
+         * Name of the FTS4 virtual table of the full-text index
+         */
+        public static final String TABLE_NAME = "search_index";
+
+        /**
+         * The indexed texts of the News Article. Type: TEXT
+         */
+        public static final String COLUMN_TITLE = "title";
+
+        public static final String COLUMN_BODY = "body";
+
+        public static final String COLUMN_SECTION = "section";
+
+        public static final String COLUMN_AUTHOR_NAME = "author_name";
+
+        /**
+         * Create a private constructor because we don't want to create a {@link SearchIndexEntry} object.
+         */
+        private SearchIndexEntry() {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.android.covid19guide.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import com.example.android.covid19guide.data.ArticlesContract.ArticleEntry;
+
+/**
+ * Database helper for the on-device articles store. Manages database creation and version management.
+ */
+public class ArticlesDbHelper extends SQLiteOpenHelper {
+
+    /**
+     * Name of the database file
+     */
+    static final String DATABASE_NAME = "articles.db";
+
+    /**
+     * Database version. If you change the database schema, you must increment the database version.
+     */
+    private static final int DATABASE_VERSION = 3;
+
+    /**
+     * Constructs a new instance of {@link ArticlesDbHelper}.
+     *
+     * @param context      of the app
+     * @param databaseName is the name of the database file
+     */
+    public ArticlesDbHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    /**
+     * This is called when the database is created for the first time.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+
+        // Create a String that contains the SQL statement to create the articles table
+        String createArticlesTable = "CREATE TABLE " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleEntry.COLUMN_QUERY_KEY + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_POSITION + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_ARTICLE_ID + " TEXT, "
+                + ArticleEntry.COLUMN_TITLE + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_DESCRIPTION + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_SECTION + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_PUBLISHED_AT + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_URL + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_AUTHOR_NAME + " TEXT, "
+                + ArticleEntry.COLUMN_IMAGE_URL + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_SIZE_BYTES + " INTEGER NOT NULL);";
+
+        // The feed of a query is always read in order of position
+        String createQueryIndex = "CREATE INDEX articles_query_position ON " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry.COLUMN_QUERY_KEY + ", " + ArticleEntry.COLUMN_POSITION + ");";
+
+        db.execSQL(createArticlesTable);
+
+        db.execSQL(createQueryIndex);
+    }
+
+    /**
+     * This is called when the database needs to be upgraded.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+
+        // The store only holds downloaded data, so it is simply recreated
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleEntry.TABLE_NAME);
+
+        onCreate(db);
+    }
+}
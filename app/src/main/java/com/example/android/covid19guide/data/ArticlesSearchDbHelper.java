@@ -0,0 +1,92 @@
+package com.example.android.covid19guide.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import com.example.android.covid19guide.data.ArticlesContract.SearchArticleEntry;
+import com.example.android.covid19guide.data.ArticlesContract.SearchIndexEntry;
+
+/**
+ * Database helper for the full-text search index of the downloaded articles. The index is kept in its own database
+ * file, so that its size on disk can be reported and it outlives the evictions of the articles store.
+ */
+public class ArticlesSearchDbHelper extends SQLiteOpenHelper {
+
+    /**
+     * Name of the database file of the app
+     */
+    static final String DATABASE_NAME = "articles_search.db";
+
+    /**
+     * Database version. If you change the database schema, you must increment the database version.
+     */
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * Constructs a new instance of {@link ArticlesSearchDbHelper}.
+     *
+     * @param context      of the app
+     * @param databaseName is the name of the database file
+     */
+    public ArticlesSearchDbHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    /**
+     * This is called when the database is created for the first time.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+
+        // Create a String that contains the SQL statement to create the table of the articles that can be searched
+        String createArticlesTable = "CREATE TABLE " + SearchArticleEntry.TABLE_NAME + " ("
+                + SearchArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + SearchArticleEntry.COLUMN_ARTICLE_ID + " TEXT, "
+                + SearchArticleEntry.COLUMN_TITLE + " TEXT NOT NULL, "
+                + SearchArticleEntry.COLUMN_DESCRIPTION + " TEXT NOT NULL, "
+                + SearchArticleEntry.COLUMN_SECTION + " TEXT NOT NULL, "
+                + SearchArticleEntry.COLUMN_PUBLISHED_AT + " INTEGER NOT NULL, "
+                + SearchArticleEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + SearchArticleEntry.COLUMN_AUTHOR_NAME + " TEXT, "
+                + SearchArticleEntry.COLUMN_IMAGE_URL + " TEXT NOT NULL);";
+
+        // The bodies that are fetched later are matched with their article by its id
+        String createArticleIdIndex = "CREATE INDEX search_articles_article_id ON " + SearchArticleEntry.TABLE_NAME
+                + " (" + SearchArticleEntry.COLUMN_ARTICLE_ID + ");";
+
+        // The oldest articles are evicted first once the index is full
+        String createPublishedAtIndex = "CREATE INDEX search_articles_published_at ON " + SearchArticleEntry.TABLE_NAME
+                + " (" + SearchArticleEntry.COLUMN_PUBLISHED_AT + ");";
+
+        // The full-text index keeps prefix indexes of 2 and 3 characters, so that the words being typed are found
+        // without scanning all the terms of the index
+        String createSearchIndex = "CREATE VIRTUAL TABLE " + SearchIndexEntry.TABLE_NAME + " USING fts4("
+                + SearchIndexEntry.COLUMN_TITLE + ", "
+                + SearchIndexEntry.COLUMN_BODY + ", "
+                + SearchIndexEntry.COLUMN_SECTION + ", "
+                + SearchIndexEntry.COLUMN_AUTHOR_NAME + ", "
+                + "prefix=\"2,3\");";
+
+        db.execSQL(createArticlesTable);
+
+        db.execSQL(createArticleIdIndex);
+
+        db.execSQL(createPublishedAtIndex);
+
+        db.execSQL(createSearchIndex);
+    }
+
+    /**
+     * This is called when the database needs to be upgraded.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+
+        // The index only holds downloaded data, so it is simply recreated
+        db.execSQL("DROP TABLE IF EXISTS " + SearchIndexEntry.TABLE_NAME);
+
+        db.execSQL("DROP TABLE IF EXISTS " + SearchArticleEntry.TABLE_NAME);
+
+        onCreate(db);
+    }
+}
@@ -0,0 +1,643 @@
+package com.example.android.covid19guide.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import com.example.android.covid19guide.data.ArticlesContract.SearchArticleEntry;
+import com.example.android.covid19guide.data.ArticlesContract.SearchIndexEntry;
+import com.example.android.covid19guide.datamodels.Article;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The on-device full-text index of every article that the app has downloaded, whatever its feed. The title, the body,
+ * the section and the author of the articles are indexed in an SQLite FTS4 table, so that they can be searched while
+ * the user types, without any network. The articles and the bodies are handed to the index while they are parsed and
+ * are written in batches on a background thread, and the oldest articles are evicted once the index is full.
+ */
+public final class ArticlesSearchIndex {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticlesSearchIndex.class.getSimpleName();
+
+    /**
+     * The oldest articles are evicted once the index of the app holds more than this number of articles
+     */
+    private static final int MAX_INDEXED_ARTICLES = 5000;
+
+    /**
+     * The time during which the articles and the bodies handed to the index are collected into a single write
+     */
+    private static final long FLUSH_DELAY_MILLIS = 500;
+
+    /**
+     * The maximum number of bodies that wait for their article to be indexed
+     */
+    private static final int MAX_PENDING_BODIES = 200;
+
+    /**
+     * The maximum number of matches that are ranked for a search, the most recently indexed ones
+     */
+    private static final int MAX_RANKED_MATCHES = 2000;
+
+    /**
+     * The weights of the title, body, section and author columns in the rank of a match
+     */
+    private static final double[] COLUMN_WEIGHTS = {4.0, 1.0, 1.5, 2.0};
+
+    /**
+     * The single instance of the index that is shared by the whole app
+     */
+    private static ArticlesSearchIndex sInstance;
+
+    /**
+     * The helper that opens the index database, and the file of the database
+     */
+    private final ArticlesSearchDbHelper mDbHelper;
+
+    private final File mDatabaseFile;
+
+    /**
+     * The maximum number of articles of this index
+     */
+    private final int mMaxArticles;
+
+    /**
+     * The articles and the bodies waiting for the next write, the bodies keyed by the article id
+     */
+    private final List<Article> mPendingArticles = new ArrayList<>();
+
+    private final Map<String, String> mPendingBodies = new LinkedHashMap<>();
+
+    /**
+     * True while a write is scheduled or running
+     */
+    private boolean mIsFlushScheduled;
+
+    /**
+     * The background thread that writes the index
+     */
+    private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Constructs a new {@link ArticlesSearchIndex} which is kept in the given database file.
+     *
+     * @param context      of the app
+     * @param databaseName is the name of the database file
+     * @param maxArticles  is the number of articles above which the oldest articles are evicted
+     */
+    ArticlesSearchIndex(Context context, String databaseName, int maxArticles) {
+
+        mDbHelper = new ArticlesSearchDbHelper(context, databaseName);
+
+        mDatabaseFile = context.getDatabasePath(databaseName);
+
+        mMaxArticles = maxArticles;
+    }
+
+    /**
+     * This method returns the single instance of the {@link ArticlesSearchIndex}.
+     *
+     * @param context of the app
+     */
+    public static synchronized ArticlesSearchIndex getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new ArticlesSearchIndex(context.getApplicationContext(), ArticlesSearchDbHelper.DATABASE_NAME,
+                    MAX_INDEXED_ARTICLES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method hands articles that have just been parsed to the index, they are written in the background.
+     */
+    public synchronized void addArticles(List<Article> articles) {
+
+        mPendingArticles.addAll(articles);
+
+        scheduleFlush();
+    }
+
+    /**
+     * This method hands the body of an article that has just been parsed to the index, it is written in the
+     * background once the article is in the index.
+     */
+    public synchronized void addBody(String id, String body) {
+
+        if (id != null && body != null) {
+
+            mPendingBodies.put(id, body);
+
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * This method hands the bodies of articles that have just been parsed to the index, keyed by the article id.
+     */
+    public synchronized void addBodies(Map<String, String> bodies) {
+
+        mPendingBodies.putAll(bodies);
+
+        scheduleFlush();
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private void scheduleFlush() {
+
+        if (!mIsFlushScheduled) {
+
+            mIsFlushScheduled = true;
+
+            mExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushPendingChanges();
+                }
+            }, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This is on the background thread. This method writes all the pending articles and bodies in a single
+     * transaction, the bodies whose article is not indexed yet wait for the next write.
+     */
+    private void flushPendingChanges() {
+
+        List<Article> articles;
+
+        Map<String, String> bodies;
+
+        synchronized (this) {
+
+            articles = new ArrayList<>(mPendingArticles);
+
+            bodies = new LinkedHashMap<>(mPendingBodies);
+
+            mPendingArticles.clear();
+
+            mPendingBodies.clear();
+
+            mIsFlushScheduled = false;
+        }
+
+        Map<String, String> unmatchedBodies;
+
+        try {
+            unmatchedBodies = write(articles, bodies);
+
+        } catch (RuntimeException e) {
+
+            // The index is only a convenience, a failed write must not take the app down
+            Log.e(LOG_TAG, "Problem writing the search index", e);
+
+            return;
+        }
+
+        synchronized (this) {
+
+            // The bodies that wait for their article go before the bodies handed over during the write
+            Map<String, String> waitingBodies = new LinkedHashMap<>(unmatchedBodies);
+
+            waitingBodies.putAll(mPendingBodies);
+
+            mPendingBodies.clear();
+
+            mPendingBodies.putAll(waitingBodies);
+
+            // Keep only the most recent bodies, the others are dropped
+            Iterator<String> ids = mPendingBodies.keySet().iterator();
+
+            while (mPendingBodies.size() > MAX_PENDING_BODIES && ids.hasNext()) {
+
+                ids.next();
+
+                ids.remove();
+            }
+        }
+    }
+
+    /**
+     * This method writes articles and bodies into the index right away. It must be called on a background thread.
+     *
+     * @param articles are the articles to add, an article that is already indexed is updated
+     * @param bodies   are the bodies of the articles, keyed by the article id
+     */
+    public void index(List<Article> articles, Map<String, String> bodies) {
+
+        write(articles, bodies);
+    }
+
+    /**
+     * This method writes articles and bodies into the index in a single transaction, and then evicts the oldest
+     * articles once the index is full.
+     *
+     * @return Map<String, String>: the bodies whose article is not indexed
+     */
+    private Map<String, String> write(List<Article> articles, Map<String, String> bodies) {
+
+        Map<String, String> unmatchedBodies = new LinkedHashMap<>();
+
+        if (articles.isEmpty() && bodies.isEmpty()) {
+            return unmatchedBodies;
+        }
+
+        SQLiteDatabase database = mDbHelper.getWritableDatabase();
+
+        database.beginTransaction();
+
+        try {
+            for (Article article : articles) {
+                writeArticle(database, article, bodies.get(article.getId()));
+            }
+
+            for (Map.Entry<String, String> body : bodies.entrySet()) {
+
+                if (!writeBody(database, body.getKey(), body.getValue())) {
+                    unmatchedBodies.put(body.getKey(), body.getValue());
+                }
+            }
+
+            evict(database);
+
+            database.setTransactionSuccessful();
+
+        } finally {
+            database.endTransaction();
+        }
+
+        return unmatchedBodies;
+    }
+
+    /**
+     * This method adds an article to the index, or updates it if it is already indexed. The description of the
+     * article is indexed as its body until its full body is known.
+     */
+    private static void writeArticle(SQLiteDatabase database, Article article, String body) {
+
+        ContentValues values = new ContentValues();
+
+        values.put(SearchArticleEntry.COLUMN_ARTICLE_ID, article.getId());
+        values.put(SearchArticleEntry.COLUMN_TITLE, article.getTitle());
+        values.put(SearchArticleEntry.COLUMN_DESCRIPTION, article.getDescription());
+        values.put(SearchArticleEntry.COLUMN_SECTION, article.getSection());
+        values.put(SearchArticleEntry.COLUMN_PUBLISHED_AT, article.getPublishedAtMillis());
+        values.put(SearchArticleEntry.COLUMN_URL, article.getUrl());
+        values.put(SearchArticleEntry.COLUMN_AUTHOR_NAME, article.getAuthorName());
+        values.put(SearchArticleEntry.COLUMN_IMAGE_URL, article.getArticleImageUrl());
+
+        ContentValues indexValues = new ContentValues();
+
+        indexValues.put(SearchIndexEntry.COLUMN_TITLE, article.getTitle());
+        indexValues.put(SearchIndexEntry.COLUMN_SECTION, article.getSection());
+        indexValues.put(SearchIndexEntry.COLUMN_AUTHOR_NAME, article.getAuthorName());
+
+        long rowId = rowIdOf(database, SearchArticleEntry.COLUMN_URL, article.getUrl());
+
+        if (rowId == -1) {
+
+            rowId = database.insert(SearchArticleEntry.TABLE_NAME, null, values);
+
+            indexValues.put("docid", rowId);
+            indexValues.put(SearchIndexEntry.COLUMN_BODY, body != null ? body : article.getDescription());
+
+            database.insert(SearchIndexEntry.TABLE_NAME, null, indexValues);
+
+        } else {
+
+            String[] rowIdArgs = {String.valueOf(rowId)};
+
+            // An article that is downloaded again keeps the body that was indexed for it
+            if (body != null) {
+                indexValues.put(SearchIndexEntry.COLUMN_BODY, body);
+            }
+
+            database.update(SearchArticleEntry.TABLE_NAME, values, SearchArticleEntry._ID + "=?", rowIdArgs);
+
+            database.update(SearchIndexEntry.TABLE_NAME, indexValues, "docid=?", rowIdArgs);
+        }
+    }
+
+    /**
+     * This method indexes the full body of an article.
+     *
+     * @return boolean: true if the article is in the index
+     */
+    private static boolean writeBody(SQLiteDatabase database, String id, String body) {
+
+        long rowId = rowIdOf(database, SearchArticleEntry.COLUMN_ARTICLE_ID, id);
+
+        if (rowId == -1) {
+            return false;
+        }
+
+        ContentValues indexValues = new ContentValues();
+
+        indexValues.put(SearchIndexEntry.COLUMN_BODY, body);
+
+        database.update(SearchIndexEntry.TABLE_NAME, indexValues, "docid=?", new String[]{String.valueOf(rowId)});
+
+        return true;
+    }
+
+    /**
+     * This method returns the _ID of the indexed article whose column has the given value, or -1.
+     */
+    private static long rowIdOf(SQLiteDatabase database, String column, String value) {
+
+        if (value == null) {
+            return -1;
+        }
+
+        Cursor cursor = database.query(SearchArticleEntry.TABLE_NAME, new String[]{SearchArticleEntry._ID},
+                column + "=?", new String[]{value}, null, null, null, "1");
+
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This method evicts the articles with the oldest publication time until the index is no longer over its
+     * maximum number of articles.
+     */
+    private void evict(SQLiteDatabase database) {
+
+        long excess = DatabaseUtils.queryNumEntries(database, SearchArticleEntry.TABLE_NAME) - mMaxArticles;
+
+        if (excess <= 0) {
+            return;
+        }
+
+        String oldestRowIds = "SELECT " + SearchArticleEntry._ID + " FROM " + SearchArticleEntry.TABLE_NAME
+                + " ORDER BY " + SearchArticleEntry.COLUMN_PUBLISHED_AT + " ASC LIMIT " + excess;
+
+        database.execSQL("DELETE FROM " + SearchIndexEntry.TABLE_NAME + " WHERE docid IN (" + oldestRowIds + ")");
+
+        database.execSQL("DELETE FROM " + SearchArticleEntry.TABLE_NAME + " WHERE " + SearchArticleEntry._ID
+                + " IN (" + oldestRowIds + ")");
+
+        Log.i(LOG_TAG, "Evicted " + excess + " articles from the search index");
+    }
+
+    /**
+     * This method searches the index for the articles that match all the words of the text, the last word also
+     * matching as the beginning of a longer word so that the results follow the user while they type. The matches
+     * are ranked by how often and in which columns the words appear, a word in the title counting the most, and by
+     * how rare the words are. It must be called on a background thread.
+     *
+     * @param text  is the text typed by the user
+     * @param limit is the maximum number of articles returned
+     * @return List<Article>: the best matches first, an empty list if nothing matches
+     */
+    public List<Article> search(String text, int limit) {
+
+        String matchQuery = buildMatchQuery(text);
+
+        if (matchQuery == null) {
+            return Collections.emptyList();
+        }
+
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        Cursor cursor = database.rawQuery("SELECT docid, matchinfo(" + SearchIndexEntry.TABLE_NAME + ", 'pcnx') FROM "
+                + SearchIndexEntry.TABLE_NAME + " WHERE " + SearchIndexEntry.TABLE_NAME + " MATCH ? ORDER BY docid DESC"
+                + " LIMIT " + MAX_RANKED_MATCHES, new String[]{matchQuery});
+
+        final Map<Long, Double> scores = new HashMap<>();
+
+        try {
+            while (cursor.moveToNext()) {
+                scores.put(cursor.getLong(0), score(cursor.getBlob(1)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        List<Long> rowIds = new ArrayList<>(scores.keySet());
+
+        Collections.sort(rowIds, new Comparator<Long>() {
+            @Override
+            public int compare(Long first, Long second) {
+                return Double.compare(scores.get(second), scores.get(first));
+            }
+        });
+
+        return loadArticles(database, rowIds.subList(0, Math.min(limit, rowIds.size())));
+    }
+
+    /**
+     * This method builds the FTS query of a text: every word of the text must match, the last one as a prefix.
+     * Only the letters and digits are kept, so that the text cannot use the FTS query syntax.
+     *
+     * @return String: the FTS query, or null if the text has no word
+     */
+    static String buildMatchQuery(String text) {
+
+        if (text == null) {
+            return null;
+        }
+
+        String[] words = text.toLowerCase(Locale.US).split("[^\\p{L}\\p{Nd}]+");
+
+        StringBuilder matchQuery = new StringBuilder();
+
+        for (String word : words) {
+
+            if (!word.isEmpty()) {
+                matchQuery.append(matchQuery.length() == 0 ? "" : " ").append(word);
+            }
+        }
+
+        return matchQuery.length() == 0 ? null : matchQuery.append('*').toString();
+    }
+
+    /**
+     * This method computes the rank of a match from its FTS4 matchinfo 'pcnx' blob: the number of phrases, the
+     * number of columns, the number of indexed articles, and then for every phrase and column the number of hits in
+     * this article, the number of hits in all the articles and the number of articles with a hit.
+     */
+    private static double score(byte[] matchInfo) {
+
+        IntBuffer values = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+
+        int phraseCount = values.get(0);
+
+        int columnCount = values.get(1);
+
+        int articleCount = values.get(2);
+
+        double score = 0;
+
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+
+            for (int column = 0; column < columnCount && column < COLUMN_WEIGHTS.length; column++) {
+
+                int offset = 3 + 3 * (phrase * columnCount + column);
+
+                int hits = values.get(offset);
+
+                if (hits == 0) {
+                    continue;
+                }
+
+                int articlesWithHits = values.get(offset + 2);
+
+                // A rare word counts more than a word that most articles have, and further hits count less and less
+                double rarity = Math.log(1 + (articleCount - articlesWithHits + 0.5) / (articlesWithHits + 0.5));
+
+                score += COLUMN_WEIGHTS[column] * rarity * hits / (hits + 1.2);
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * This method reads the articles with the given _IDs, in the same order.
+     */
+    private static List<Article> loadArticles(SQLiteDatabase database, List<Long> rowIds) {
+
+        if (rowIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder selection = new StringBuilder(SearchArticleEntry._ID + " IN (");
+
+        for (int i = 0; i < rowIds.size(); i++) {
+            selection.append(i == 0 ? "" : ",").append(rowIds.get(i));
+        }
+
+        selection.append(')');
+
+        String[] projection = {
+                SearchArticleEntry._ID,
+                SearchArticleEntry.COLUMN_ARTICLE_ID,
+                SearchArticleEntry.COLUMN_TITLE,
+                SearchArticleEntry.COLUMN_DESCRIPTION,
+                SearchArticleEntry.COLUMN_SECTION,
+                SearchArticleEntry.COLUMN_PUBLISHED_AT,
+                SearchArticleEntry.COLUMN_URL,
+                SearchArticleEntry.COLUMN_AUTHOR_NAME,
+                SearchArticleEntry.COLUMN_IMAGE_URL};
+
+        Cursor cursor = database.query(SearchArticleEntry.TABLE_NAME, projection, selection.toString(), null, null,
+                null, null);
+
+        Article[] articles = new Article[rowIds.size()];
+
+        try {
+            while (cursor.moveToNext()) {
+
+                Article article = new Article(cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                        cursor.getString(4), cursor.getLong(5), cursor.getString(6), cursor.getString(7),
+                        cursor.getString(8));
+
+                articles[rowIds.indexOf(cursor.getLong(0))] = article;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        List<Article> rankedArticles = new ArrayList<>(Arrays.asList(articles));
+
+        rankedArticles.removeAll(Collections.singleton(null));
+
+        return rankedArticles;
+    }
+
+    /**
+     * This method reads the full body of a downloaded article, so that it can be read without any network. A body
+     * that is still waiting for the next write is returned too. It must be called on a background thread.
+     *
+     * @param id is the id of the article
+     * @return String: the body, or null if the full body of the article is not known
+     */
+    public String loadBody(String id) {
+
+        if (id == null) {
+            return null;
+        }
+
+        synchronized (this) {
+
+            String pendingBody = mPendingBodies.get(id);
+
+            if (pendingBody != null) {
+                return pendingBody;
+            }
+        }
+
+        String query = "SELECT i." + SearchIndexEntry.COLUMN_BODY + ", a." + SearchArticleEntry.COLUMN_DESCRIPTION
+                + " FROM " + SearchArticleEntry.TABLE_NAME + " a JOIN " + SearchIndexEntry.TABLE_NAME
+                + " i ON i.docid = a." + SearchArticleEntry._ID + " WHERE a." + SearchArticleEntry.COLUMN_ARTICLE_ID
+                + "=? LIMIT 1";
+
+        Cursor cursor = mDbHelper.getReadableDatabase().rawQuery(query, new String[]{id});
+
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+
+            String body = cursor.getString(0);
+
+            // The description is indexed as the body until the full body is known
+            return body == null || body.equals(cursor.getString(1)) ? null : body;
+
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This method returns the number of articles in the index. It must be called on a background thread.
+     */
+    public long getArticleCount() {
+
+        return DatabaseUtils.queryNumEntries(mDbHelper.getReadableDatabase(), SearchArticleEntry.TABLE_NAME);
+    }
+
+    /**
+     * This method returns the number of bytes that the index takes on disk, with its journal.
+     */
+    public long getSizeOnDiskBytes() {
+
+        return mDatabaseFile.length() + new File(mDatabaseFile.getPath() + "-journal").length()
+                + new File(mDatabaseFile.getPath() + "-wal").length();
+    }
+
+    /**
+     * This method closes the database of the index.
+     */
+    void close() {
+
+        mDbHelper.close();
+    }
+}
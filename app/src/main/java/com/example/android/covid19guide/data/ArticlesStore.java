@@ -0,0 +1,495 @@
+package com.example.android.covid19guide.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.util.Log;
+import com.example.android.covid19guide.data.ArticlesContract.ArticleEntry;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The on-device store of the parsed {@link Article}s, keyed by the normalized query that they were downloaded for.
+ * The feed of a query is rendered from this store right away when the app starts, while the network refresh runs in
+ * the background. Old feeds are evicted by age and by the total size of the store.
+ * All the methods that touch the database must be called on a background thread.
+ */
+public final class ArticlesStore {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticlesStore.class.getSimpleName();
+
+    /**
+     * Feeds that were downloaded longer ago than this are evicted from the store
+     */
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(3);
+
+    /**
+     * The oldest feeds are evicted once the articles in the store take more than this number of bytes
+     */
+    private static final long DEFAULT_MAX_SIZE_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * The query parameters which do not change the articles of a feed and are left out of the query key. The fields
+     * and the tags change with the quality of the network, the feed stays the same
+     */
+    private static final String[] IGNORED_QUERY_PARAMETERS = {"api-key", "page", "page-size", "show-fields",
+            "show-tags"};
+
+    /**
+     * The query parameters which do not change the response of a request and are left out of the request key
+     */
+    private static final String[] IGNORED_REQUEST_PARAMETERS = {"api-key"};
+
+    /**
+     * The single instance of the store that is shared by the whole app
+     */
+    private static ArticlesStore sInstance;
+
+    /**
+     * The helper that opens the articles database
+     */
+    private final ArticlesDbHelper mDbHelper;
+
+    /**
+     * The maximum number of bytes that the articles in the store may take
+     */
+    private final long mMaxSizeBytes;
+
+    /**
+     * Hit/miss and age statistics of the reads from the store
+     */
+    private long mHitCount;
+
+    private long mMissCount;
+
+    private long mTotalHitAgeMillis;
+
+    private long mLastHitAgeMillis = -1;
+
+    /**
+     * Constructs a new {@link ArticlesStore} which is kept in the given database file.
+     *
+     * @param context      of the app
+     * @param databaseName is the name of the database file
+     */
+    ArticlesStore(Context context, String databaseName) {
+
+        this(context, databaseName, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    /**
+     * Constructs a new {@link ArticlesStore} which is kept in the given database file and evicts its articles once
+     * they take more than the given number of bytes.
+     *
+     * @param context      of the app
+     * @param databaseName is the name of the database file
+     * @param maxSizeBytes is the maximum number of bytes that the articles in the store may take
+     */
+    ArticlesStore(Context context, String databaseName, long maxSizeBytes) {
+
+        mDbHelper = new ArticlesDbHelper(context, databaseName);
+
+        mMaxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * This method returns the single instance of the {@link ArticlesStore}.
+     *
+     * @param context of the app
+     */
+    public static synchronized ArticlesStore getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new ArticlesStore(context.getApplicationContext(), ArticlesDbHelper.DATABASE_NAME);
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method builds the key of the store for a query URL. The key leaves out the API key and the page parameters
+     * and sorts the remaining query parameters, so the same feed always gets the same key.
+     *
+     * @param requestUrl is the query URL of the feed
+     * @return String: the normalized query key
+     */
+    public static String normalizeQuery(String requestUrl) {
+
+        return normalize(requestUrl, IGNORED_QUERY_PARAMETERS);
+    }
+
+    /**
+     * This method builds the key of a single request, which leaves out the API key only, so that two requests for
+     * different pages, page sizes or fields never get the same key.
+     *
+     * @param requestUrl is the URL of the request
+     * @return String: the normalized request key
+     */
+    public static String normalizeRequest(String requestUrl) {
+
+        return normalize(requestUrl, IGNORED_REQUEST_PARAMETERS);
+    }
+
+    private static String normalize(String requestUrl, String[] ignoredNames) {
+
+        Uri uri = Uri.parse(requestUrl);
+
+        List<String> parameters = new ArrayList<>();
+
+        for (String name : uri.getQueryParameterNames()) {
+
+            boolean isIgnored = false;
+
+            for (String ignoredName : ignoredNames) {
+                isIgnored |= ignoredName.equals(name);
+            }
+
+            if (!isIgnored) {
+                parameters.add(name + "=" + uri.getQueryParameter(name));
+            }
+        }
+
+        Collections.sort(parameters);
+
+        StringBuilder key = new StringBuilder();
+
+        key.append(uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.US)).append(uri.getPath());
+
+        for (int i = 0; i < parameters.size(); i++) {
+            key.append(i == 0 ? '?' : '&').append(parameters.get(i));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * This method builds the key of the store for a feed merged from several queries, from the keys of its queries.
+     *
+     * @param feed is the feed
+     * @return String: the normalized key of the feed
+     */
+    public static String normalizeFeed(GuardianFeed feed) {
+
+        StringBuilder key = new StringBuilder();
+
+        for (String queryUrl : feed.getQueryUrls()) {
+
+            if (key.length() > 0) {
+                key.append('|');
+            }
+            key.append(normalizeQuery(queryUrl));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * This method reads the stored feed of a query.
+     *
+     * @param queryKey is the normalized query key of the feed
+     * @return List<Article>: the stored articles in the order of the feed, or null if the feed is not in the store
+     */
+    public List<Article> loadArticles(String queryKey) {
+
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        String[] projection = {
+                ArticleEntry.COLUMN_ARTICLE_ID,
+                ArticleEntry.COLUMN_TITLE,
+                ArticleEntry.COLUMN_DESCRIPTION,
+                ArticleEntry.COLUMN_SECTION,
+                ArticleEntry.COLUMN_PUBLISHED_AT,
+                ArticleEntry.COLUMN_URL,
+                ArticleEntry.COLUMN_AUTHOR_NAME,
+                ArticleEntry.COLUMN_IMAGE_URL,
+                ArticleEntry.COLUMN_FETCHED_AT};
+
+        List<Article> articles = new ArrayList<>();
+
+        long fetchedAt = 0;
+
+        Cursor cursor = database.query(ArticleEntry.TABLE_NAME, projection, ArticleEntry.COLUMN_QUERY_KEY + "=?",
+                new String[]{queryKey}, null, null, ArticleEntry.COLUMN_POSITION + " ASC");
+
+        try {
+            while (cursor.moveToNext()) {
+
+                articles.add(new Article(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), cursor.getLong(4), cursor.getString(5), cursor.getString(6),
+                        cursor.getString(7)));
+
+                fetchedAt = cursor.getLong(8);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        synchronized (this) {
+
+            if (articles.isEmpty()) {
+
+                mMissCount++;
+
+                return null;
+            }
+
+            mHitCount++;
+
+            mLastHitAgeMillis = System.currentTimeMillis() - fetchedAt;
+
+            mTotalHitAgeMillis += mLastHitAgeMillis;
+        }
+
+        return articles;
+    }
+
+    /**
+     * This method returns how long ago the stored feed of a query was downloaded, without reading its articles.
+     *
+     * @param queryKey is the normalized query key of the feed
+     * @return long: the age of the feed in milliseconds, or -1 if the feed is not in the store
+     */
+    public long getFeedAgeMillis(String queryKey) {
+
+        long fetchedAt = getFeedFetchedAtMillis(queryKey);
+
+        return fetchedAt < 0 ? -1 : System.currentTimeMillis() - fetchedAt;
+    }
+
+    /**
+     * This method returns when the stored feed of a query was downloaded, which changes every time it is saved.
+     *
+     * @param queryKey is the normalized query key of the feed
+     * @return long: the download time of the feed in milliseconds since the epoch, or -1 if it is not in the store
+     */
+    public long getFeedFetchedAtMillis(String queryKey) {
+
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        return DatabaseUtils.longForQuery(database, "SELECT IFNULL(MAX(" + ArticleEntry.COLUMN_FETCHED_AT
+                + "), -1) FROM " + ArticleEntry.TABLE_NAME + " WHERE " + ArticleEntry.COLUMN_QUERY_KEY + "=?",
+                new String[]{queryKey});
+    }
+
+    /**
+     * This method returns true if the feed of a query is in the store and was downloaded less than maxAgeMillis ago,
+     * in which case it is displayed without any request to the network.
+     */
+    public boolean isFeedFresh(String queryKey, long maxAgeMillis) {
+
+        long ageMillis = getFeedAgeMillis(queryKey);
+
+        return ageMillis >= 0 && ageMillis < maxAgeMillis;
+    }
+
+    /**
+     * This method replaces the stored feed of a query with the given articles and then evicts old feeds. The feed
+     * that is saved is never evicted, if it does not fit in the store on its own its oldest articles are left out.
+     *
+     * @param queryKey is the normalized query key of the feed
+     * @param articles is the list of articles of the feed
+     */
+    public void saveArticles(String queryKey, List<Article> articles) {
+
+        SQLiteDatabase database = mDbHelper.getWritableDatabase();
+
+        long fetchedAt = System.currentTimeMillis();
+
+        database.beginTransaction();
+
+        try {
+            database.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_KEY + "=?", new String[]{queryKey});
+
+            ContentValues values = new ContentValues();
+
+            for (int position = 0; position < articles.size(); position++) {
+
+                Article article = articles.get(position);
+
+                values.put(ArticleEntry.COLUMN_QUERY_KEY, queryKey);
+                values.put(ArticleEntry.COLUMN_POSITION, position);
+                values.put(ArticleEntry.COLUMN_ARTICLE_ID, article.getId());
+                values.put(ArticleEntry.COLUMN_TITLE, article.getTitle());
+                values.put(ArticleEntry.COLUMN_DESCRIPTION, article.getDescription());
+                values.put(ArticleEntry.COLUMN_SECTION, article.getSection());
+                values.put(ArticleEntry.COLUMN_PUBLISHED_AT, article.getPublishedAtMillis());
+                values.put(ArticleEntry.COLUMN_URL, article.getUrl());
+                values.put(ArticleEntry.COLUMN_AUTHOR_NAME, article.getAuthorName());
+                values.put(ArticleEntry.COLUMN_IMAGE_URL, article.getArticleImageUrl());
+                values.put(ArticleEntry.COLUMN_FETCHED_AT, fetchedAt);
+                values.put(ArticleEntry.COLUMN_SIZE_BYTES, sizeOf(article));
+
+                database.insert(ArticleEntry.TABLE_NAME, null, values);
+            }
+
+            evict(database, queryKey, fetchedAt);
+
+            database.setTransactionSuccessful();
+
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * This method evicts the feeds that are older than the maximum age, and then the oldest other feeds until the
+     * store is smaller than its maximum size. If the feed that was just saved is still too large, the articles at the
+     * end of it, which are the oldest ones, are evicted.
+     */
+    private void evict(SQLiteDatabase database, String savedQueryKey, long now) {
+
+        int evictedByAge = database.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_FETCHED_AT + "<?",
+                new String[]{String.valueOf(now - MAX_AGE_MILLIS)});
+
+        int evictedBySize = 0;
+
+        long totalSize = totalSizeBytes(database);
+
+        while (totalSize > mMaxSizeBytes) {
+
+            String oldestQueryKey = findOldestQueryKey(database, savedQueryKey);
+
+            if (oldestQueryKey == null) {
+
+                evictedBySize += trimFeed(database, savedQueryKey, totalSize - mMaxSizeBytes);
+
+                break;
+            }
+
+            evictedBySize += database.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_KEY + "=?",
+                    new String[]{oldestQueryKey});
+
+            totalSize = totalSizeBytes(database);
+        }
+
+        if (evictedByAge > 0 || evictedBySize > 0) {
+
+            Log.i(LOG_TAG, "Evicted " + evictedByAge + " articles by age and " + evictedBySize + " articles by size");
+        }
+    }
+
+    /**
+     * This method returns the query key of the oldest feed in the store other than the given one, or null if the store
+     * has no other feed.
+     */
+    private static String findOldestQueryKey(SQLiteDatabase database, String excludedQueryKey) {
+
+        Cursor cursor = database.query(ArticleEntry.TABLE_NAME, new String[]{ArticleEntry.COLUMN_QUERY_KEY},
+                ArticleEntry.COLUMN_QUERY_KEY + "<>?", new String[]{excludedQueryKey}, null, null,
+                ArticleEntry.COLUMN_FETCHED_AT + " ASC", "1");
+
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This method evicts the articles at the end of a feed until at least the given number of bytes is freed.
+     *
+     * @return int: the number of evicted articles
+     */
+    private static int trimFeed(SQLiteDatabase database, String queryKey, long excessBytes) {
+
+        int firstEvictedPosition = -1;
+
+        long freedBytes = 0;
+
+        Cursor cursor = database.query(ArticleEntry.TABLE_NAME,
+                new String[]{ArticleEntry.COLUMN_POSITION, ArticleEntry.COLUMN_SIZE_BYTES},
+                ArticleEntry.COLUMN_QUERY_KEY + "=?", new String[]{queryKey}, null, null,
+                ArticleEntry.COLUMN_POSITION + " DESC");
+
+        try {
+            while (freedBytes < excessBytes && cursor.moveToNext()) {
+
+                firstEvictedPosition = cursor.getInt(0);
+
+                freedBytes += cursor.getLong(1);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (firstEvictedPosition < 0) {
+            return 0;
+        }
+
+        return database.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_KEY + "=? AND "
+                + ArticleEntry.COLUMN_POSITION + ">=?", new String[]{queryKey, String.valueOf(firstEvictedPosition)});
+    }
+
+    /**
+     * This method returns the approximate number of bytes that all the articles take in the store.
+     */
+    private static long totalSizeBytes(SQLiteDatabase database) {
+
+        return DatabaseUtils.longForQuery(database, "SELECT IFNULL(SUM(" + ArticleEntry.COLUMN_SIZE_BYTES + "), 0) FROM "
+                + ArticleEntry.TABLE_NAME, null);
+    }
+
+    /**
+     * This method returns the approximate number of bytes that an article takes in the store.
+     */
+    private static long sizeOf(Article article) {
+
+        long characters = article.getTitle().length() + article.getDescription().length() + article.getSection().length()
+                + article.getUrl().length() + article.getArticleImageUrl().length()
+                + (article.getAuthorName() == null ? 0 : article.getAuthorName().length());
+
+        // Most of the characters of the Guardian's articles take a single byte in UTF-8, and the time takes 8 bytes
+        return characters + 8;
+    }
+
+    /**
+     * This method returns the hit/miss and age statistics of the reads from the store as a readable String.
+     */
+    public synchronized String getStatistics() {
+
+        long averageHitAgeMillis = mHitCount == 0 ? -1 : mTotalHitAgeMillis / mHitCount;
+
+        return String.format(Locale.US, "hits=%d misses=%d lastHitAge=%ds averageHitAge=%ds",
+                mHitCount, mMissCount, mLastHitAgeMillis / 1000, averageHitAgeMillis / 1000);
+    }
+
+    /**
+     * This method returns the number of reads that found the feed in the store.
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * This method returns the number of reads that did not find the feed in the store.
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * This method returns the age in milliseconds of the feed returned by the last hit, or -1 if there was no hit.
+     */
+    public synchronized long getLastHitAgeMillis() {
+        return mLastHitAgeMillis;
+    }
+
+    /**
+     * This method closes the database of the store.
+     */
+    void close() {
+
+        mDbHelper.close();
+    }
+}
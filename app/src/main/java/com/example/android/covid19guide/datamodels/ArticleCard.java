@@ -0,0 +1,90 @@
+package com.example.android.covid19guide.datamodels;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+/**
+ * An {@link ArticleCard} object holds everything that a card of the feed displays for a single {@link Article},
+ * already formatted and laid out, so that binding a card only assigns these values to its views.
+ * The cards are built off the main thread when new articles arrive.
+ */
+public class ArticleCard {
+
+    /**
+     * The article displayed by the card
+     */
+    private final Article article;
+
+    /**
+     * The laid out excerpt of the body text of the article
+     */
+    private final PrecomputedTextCompat descriptionExcerpt;
+
+    /**
+     * The formatted section, date and author texts of the card, the author text is null if the article has no author
+     */
+    private final String sectionText;
+
+    private final String dateText;
+
+    private final String authorText;
+
+    /**
+     * Constructs a new {@link ArticleCard} object.
+     *
+     * @param article            is the article displayed by the card
+     * @param descriptionExcerpt is the laid out excerpt of the body text of the article
+     * @param sectionText        is the formatted section of the article
+     * @param dateText           is the formatted publishing date of the article
+     * @param authorText         is the formatted author name of the article, or null if it has no author
+     */
+    public ArticleCard(Article article, PrecomputedTextCompat descriptionExcerpt, String sectionText, String dateText,
+                       String authorText) {
+        this.article = article;
+        this.descriptionExcerpt = descriptionExcerpt;
+        this.sectionText = sectionText;
+        this.dateText = dateText;
+        this.authorText = authorText;
+    }
+
+    /**
+     * This method returns the article displayed by the card
+     */
+    public Article getArticle() {
+        return article;
+    }
+
+    /**
+     * This method returns the laid out excerpt of the body text of the article
+     */
+    public PrecomputedTextCompat getDescriptionExcerpt() {
+        return descriptionExcerpt;
+    }
+
+    /**
+     * This method returns the formatted section of the article
+     */
+    public String getSectionText() {
+        return sectionText;
+    }
+
+    /**
+     * This method returns the formatted publishing date of the article
+     */
+    public String getDateText() {
+        return dateText;
+    }
+
+    /**
+     * This method returns the formatted author name of the article, or null if the article has no author
+     */
+    public String getAuthorText() {
+        return authorText;
+    }
+
+    /**
+     * This method returns true if the card displays the author of the article
+     */
+    public boolean hasAuthor() {
+        return authorText != null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.android.covid19guide.images;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.core.app.ActivityManagerCompat;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+
+/**
+ * The Glide configuration of the app. The memory cache, the bitmap pool and the disk cache of the thumbnails are
+ * sized by the class of the device, and the thumbnails are decoded in RGB_565, which takes half the memory of
+ * ARGB_8888 and is enough for the opaque photos of the Guardian's articles. The memory cache and the bitmap pool are
+ * shrunk by the {@link MemoryBudgetCoordinator} when the system runs low on memory, before any other cache.
+ */
+@GlideModule
+public final class CovidGlideModule extends AppGlideModule {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = CovidGlideModule.class.getSimpleName();
+
+    /**
+     * Name of the directory of the disk cache of the thumbnails, inside of the cache directory of the app
+     */
+    private static final String DISK_CACHE_NAME = "thumbnails";
+
+    /**
+     * The largest memory class of the devices that are treated as mid range, in megabytes
+     */
+    private static final int MID_RANGE_MAX_MEMORY_CLASS = 192;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+
+        boolean isLowRam = activityManager == null || ActivityManagerCompat.isLowRamDevice(activityManager);
+
+        int memoryClass = activityManager == null ? 0 : activityManager.getMemoryClass();
+
+        // The number of screens of thumbnails kept in the memory cache and in the bitmap pool, and the disk cache size
+        float memoryCacheScreens;
+
+        float bitmapPoolScreens;
+
+        long diskCacheBytes;
+
+        if (isLowRam) {
+
+            memoryCacheScreens = 1;
+            bitmapPoolScreens = 1;
+            diskCacheBytes = 20 * 1024 * 1024;
+
+        } else if (memoryClass <= MID_RANGE_MAX_MEMORY_CLASS) {
+
+            memoryCacheScreens = 2;
+            bitmapPoolScreens = 2;
+            diskCacheBytes = 50 * 1024 * 1024;
+
+        } else {
+
+            memoryCacheScreens = 3;
+            bitmapPoolScreens = 3;
+            diskCacheBytes = 100 * 1024 * 1024;
+        }
+
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(memoryCacheScreens)
+                .setBitmapPoolScreens(bitmapPoolScreens)
+                .build();
+
+        builder.setMemorySizeCalculator(calculator);
+
+        ImageMemoryCache imageMemoryCache = new ImageMemoryCache(calculator.getMemoryCacheSize(),
+                calculator.getBitmapPoolSize());
+
+        builder.setMemoryCache(imageMemoryCache.getMemoryCache());
+
+        builder.setBitmapPool(imageMemoryCache.getBitmapPool());
+
+        MemoryBudgetCoordinator.getInstance().register("thumbnails",
+                MemoryBudgetCoordinator.Priority.PREFETCHED_IMAGES, imageMemoryCache);
+
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_NAME, diskCacheBytes));
+
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+
+        builder.setLogLevel(Log.ERROR);
+
+        Log.i(LOG_TAG, "Image caches for memoryClass=" + memoryClass + "MB lowRam=" + isLowRam + ": memory="
+                + calculator.getMemoryCacheSize() / 1024 + "KB pool=" + calculator.getBitmapPoolSize() / 1024
+                + "KB disk=" + diskCacheBytes / 1024 + "KB");
+    }
+
+    /**
+     * The app does not use the Glide modules of the old manifest based configuration, so the manifest is not parsed.
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.android.covid19guide.images;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import java.util.Locale;
+
+/**
+ * Counts where the thumbnails of the cards were loaded from and how long every card waited for its thumbnail, from
+ * the bind of the card to the thumbnail being ready, and writes the statistics to logcat from time to time.
+ * All the methods are called on the main thread.
+ */
+public final class ImageLoadStatistics {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ImageLoadStatistics.class.getSimpleName();
+
+    /**
+     * The statistics are logged every time this number of thumbnails have been loaded
+     */
+    private static final int LOG_INTERVAL = 50;
+
+    /**
+     * The number of thumbnails loaded from the memory cache, from the disk cache and from the network
+     */
+    private long mMemoryHits;
+
+    private long mDiskHits;
+
+    private long mNetworkLoads;
+
+    private long mFailures;
+
+    /**
+     * The total time that the cards waited for their thumbnails
+     */
+    private long mTotalTimeToImageNanos;
+
+    /**
+     * This method returns a listener for the thumbnail of a card which is being bound now.
+     */
+    public RequestListener<Drawable> newCardListener() {
+
+        final long boundAtNanos = System.nanoTime();
+
+        return new RequestListener<Drawable>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target,
+                                        boolean isFirstResource) {
+                mFailures++;
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target,
+                                           DataSource dataSource, boolean isFirstResource) {
+
+                onImageReady(dataSource, System.nanoTime() - boundAtNanos);
+                return false;
+            }
+        };
+    }
+
+    private void onImageReady(DataSource dataSource, long timeToImageNanos) {
+
+        if (dataSource == DataSource.MEMORY_CACHE) {
+            mMemoryHits++;
+        } else if (dataSource == DataSource.REMOTE) {
+            mNetworkLoads++;
+        } else {
+            mDiskHits++;
+        }
+
+        mTotalTimeToImageNanos += timeToImageNanos;
+
+        if (getLoadCount() % LOG_INTERVAL == 0) {
+            Log.d(LOG_TAG, getSummary());
+        }
+    }
+
+    private long getLoadCount() {
+        return mMemoryHits + mDiskHits + mNetworkLoads;
+    }
+
+    /**
+     * This method returns the share of the thumbnails that were loaded from the memory or the disk cache.
+     */
+    public double getCacheHitRate() {
+
+        long loads = getLoadCount();
+
+        return loads == 0 ? 0 : (mMemoryHits + mDiskHits) / (double) loads;
+    }
+
+    /**
+     * This method returns the average time from the bind of a card to its thumbnail being ready, in milliseconds.
+     */
+    public double getAverageTimeToImageMillis() {
+
+        long loads = getLoadCount();
+
+        return loads == 0 ? 0 : mTotalTimeToImageNanos / 1e6 / loads;
+    }
+
+    /**
+     * This method returns the statistics as a readable String.
+     */
+    public String getSummary() {
+
+        return String.format(Locale.US, "thumbnails=%d memory=%d disk=%d network=%d failed=%d hitRate=%.0f%% "
+                        + "timeToImage=%.1fms", getLoadCount(), mMemoryHits, mDiskHits, mNetworkLoads, mFailures,
+                getCacheHitRate() * 100, getAverageTimeToImageMillis());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.covid19guide.images;
+
+import android.content.ComponentCallbacks2;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+
+/**
+ * The memory cache and the bitmap pool of Glide, which are shrunk by the {@link MemoryBudgetCoordinator} instead of
+ * by Glide itself, so that the thumbnails are shed before the other caches of the app. Glide keeps the thumbnails on
+ * screen apart as active resources, so the memory cache only holds thumbnails that are off screen, most of them
+ * loaded ahead of the scrolling or of the reader.
+ */
+final class ImageMemoryCache implements MemoryBudgetCoordinator.Cache {
+
+    private final CoordinatedResourceCache mResourceCache;
+
+    private final CoordinatedBitmapPool mBitmapPool;
+
+    /**
+     * Constructs a new {@link ImageMemoryCache}.
+     *
+     * @param memoryCacheBytes is the maximum size of the memory cache
+     * @param bitmapPoolBytes  is the maximum size of the bitmap pool
+     */
+    ImageMemoryCache(long memoryCacheBytes, long bitmapPoolBytes) {
+
+        mResourceCache = new CoordinatedResourceCache(memoryCacheBytes);
+
+        mBitmapPool = new CoordinatedBitmapPool(bitmapPoolBytes);
+    }
+
+    MemoryCache getMemoryCache() {
+        return mResourceCache;
+    }
+
+    BitmapPool getBitmapPool() {
+        return mBitmapPool;
+    }
+
+    @Override
+    public long getSizeBytes() {
+
+        return mResourceCache.getCurrentSize() + mBitmapPool.getCurrentSize();
+    }
+
+    @Override
+    public void trimToFraction(float fraction) {
+
+        mResourceCache.trimToFraction(fraction);
+
+        mBitmapPool.trimToFraction(fraction);
+    }
+
+    /**
+     * The memory cache, which ignores the trim levels that Glide hands on.
+     */
+    private static final class CoordinatedResourceCache extends LruResourceCache {
+
+        CoordinatedResourceCache(long size) {
+            super(size);
+        }
+
+        @Override
+        public void trimMemory(int level) {
+            // Shrunk by the coordinator
+        }
+
+        void trimToFraction(float fraction) {
+
+            trimToSize((long) (getMaxSize() * fraction));
+        }
+    }
+
+    /**
+     * The bitmap pool, which ignores the trim levels that Glide hands on.
+     */
+    private static final class CoordinatedBitmapPool extends LruBitmapPool {
+
+        CoordinatedBitmapPool(long maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        public void trimMemory(int level) {
+            // Shrunk by the coordinator
+        }
+
+        void trimToFraction(float fraction) {
+
+            if (fraction <= 0) {
+
+                clearMemory();
+
+            } else if (fraction < 1) {
+
+                // The pool halves itself at this level
+                super.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+            }
+        }
+    }
+}
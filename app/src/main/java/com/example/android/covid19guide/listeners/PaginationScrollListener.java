@@ -0,0 +1,71 @@
+package com.example.android.covid19guide.listeners;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * This scroll listener asks for the next page of the feed once the user scrolls within a set distance of the end of
+ * the list, so that the next page is already being downloaded before the user reaches the last card.
+ */
+public abstract class PaginationScrollListener extends RecyclerView.OnScrollListener {
+
+    /**
+     * The LayoutManager of the RecyclerView that this listener is attached to
+     */
+    private final LinearLayoutManager mLayoutManager;
+
+    /**
+     * The number of cards from the end of the list at which the next page is requested
+     */
+    private final int mPrefetchDistance;
+
+    /**
+     * Constructs a new {@link PaginationScrollListener}.
+     *
+     * @param layoutManager    is the LayoutManager of the RecyclerView
+     * @param prefetchDistance is the number of cards from the end of the list at which the next page is requested
+     */
+    public PaginationScrollListener(LinearLayoutManager layoutManager, int prefetchDistance) {
+
+        mLayoutManager = layoutManager;
+
+        mPrefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * This method is called by the RecyclerView after every scroll and requests the next page when it is needed.
+     */
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+
+        // Only scrolling down towards the end of the list can bring the next page closer
+        if (dy <= 0 || isLoading() || isLastPage()) {
+            return;
+        }
+
+        int totalItemCount = mLayoutManager.getItemCount();
+
+        int lastVisiblePosition = mLayoutManager.findLastVisibleItemPosition();
+
+        if (totalItemCount > 0 && lastVisiblePosition + mPrefetchDistance >= totalItemCount - 1) {
+
+            loadMoreItems();
+        }
+    }
+
+    /**
+     * This method starts loading the next page of the feed.
+     */
+    protected abstract void loadMoreItems();
+
+    /**
+     * This method returns true while a page of the feed is being loaded.
+     */
+    public abstract boolean isLoading();
+
+    /**
+     * This method returns true once the last page of the feed has been loaded.
+     */
+    public abstract boolean isLastPage();
+}
@@ -0,0 +1,341 @@
+package com.example.android.covid19guide.memory;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.Log;
+import android.util.LruCache;
+import com.example.android.covid19guide.datamodels.Article;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shrinks the in-memory caches of the app when the system runs low on memory. Every cache registers with a priority,
+ * and the trim levels of {@link ComponentCallbacks2} shed memory in the order of the priorities: first the images
+ * that are not on screen, most of which were loaded ahead of the scrolling, then the bodies of the articles that are
+ * not being read, and last everything else that is not on screen. A cache is first halved and then emptied, before
+ * the next priority is touched. The sizes of the caches and every trim are written to logcat, so that the caches can
+ * be tuned for the devices with 1 or 2 GB of memory, where the process is killed first.
+ */
+public final class MemoryBudgetCoordinator implements ComponentCallbacks2 {
+
+    /**
+     * The priorities of the caches, in the order in which they are shed.
+     */
+    public enum Priority {
+
+        /**
+         * The images in memory that are not on screen, which are downloaded again from the disk cache
+         */
+        PREFETCHED_IMAGES,
+
+        /**
+         * The bodies of the articles that are not being read, which are read again from the device
+         */
+        OFF_SCREEN_BODIES,
+
+        /**
+         * Everything else that is not on screen: the parsed pages, the recycled views and the animations
+         */
+        NON_VISIBLE
+    }
+
+    /**
+     * A cache that tells how much memory it takes and can be shrunk.
+     */
+    public interface Cache {
+
+        /**
+         * @return long: the bytes that the cache takes, or {@link #UNKNOWN_SIZE} if it cannot tell
+         */
+        long getSizeBytes();
+
+        /**
+         * This method shrinks the cache to a fraction of its maximum size, the least recently used entries first.
+         *
+         * @param fraction is 0.5 to halve the cache, or 0 to empty it
+         */
+        void trimToFraction(float fraction);
+    }
+
+    /**
+     * The size of a cache that cannot tell how much memory it takes
+     */
+    public static final long UNKNOWN_SIZE = -1;
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = MemoryBudgetCoordinator.class.getSimpleName();
+
+    /**
+     * The highest severity of a trim, at which every cache is emptied
+     */
+    static final int MAX_SEVERITY = Priority.values().length + 1;
+
+    /**
+     * The memory taken by an article besides the characters of its texts: the object, its Strings and their arrays
+     */
+    private static final int ARTICLE_OVERHEAD_BYTES = 160;
+
+    /**
+     * The single instance of the coordinator that is shared by the whole app
+     */
+    private static MemoryBudgetCoordinator sInstance;
+
+    /**
+     * A registered cache.
+     */
+    private static final class Registration {
+
+        private final String mName;
+
+        private final Priority mPriority;
+
+        private final Cache mCache;
+
+        Registration(String name, Priority priority, Cache cache) {
+            mName = name;
+            mPriority = priority;
+            mCache = cache;
+        }
+    }
+
+    private final List<Registration> mRegistrations = new ArrayList<>();
+
+    /**
+     * The number of trims of every severity
+     */
+    private final long[] mTrimCounts = new long[MAX_SEVERITY + 1];
+
+    MemoryBudgetCoordinator() {
+    }
+
+    /**
+     * This method returns the single instance of the {@link MemoryBudgetCoordinator}, which the Application registers
+     * for the callbacks of the system.
+     */
+    public static synchronized MemoryBudgetCoordinator getInstance() {
+
+        if (sInstance == null) {
+            sInstance = new MemoryBudgetCoordinator();
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method registers a cache, so that it is shrunk when the system runs low on memory.
+     *
+     * @param name     is the name of the cache in the log messages
+     * @param priority is the priority of the cache
+     * @param cache    is the cache
+     */
+    public synchronized void register(String name, Priority priority, Cache cache) {
+
+        mRegistrations.add(new Registration(name, priority, cache));
+    }
+
+    /**
+     * This method unregisters a cache, for example a cache of a screen that is destroyed.
+     */
+    public synchronized void unregister(Cache cache) {
+
+        for (int i = mRegistrations.size() - 1; i >= 0; i--) {
+
+            if (mRegistrations.get(i).mCache == cache) {
+                mRegistrations.remove(i);
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+
+        trim(severityOf(level), "level " + level);
+    }
+
+    @Override
+    public void onLowMemory() {
+
+        trim(MAX_SEVERITY, "low memory");
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * This method returns the severity of a trim level, from 0 for nothing to shed to {@link #MAX_SEVERITY}. The
+     * levels of a running app and the levels of an app in the background rise apart from each other: the higher the
+     * level, the more likely the process is killed next.
+     */
+    static int severityOf(int level) {
+
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            return MAX_SEVERITY;
+        }
+
+        if (level >= TRIM_MEMORY_MODERATE) {
+            return 3;
+        }
+
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            return 2;
+        }
+
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return 1;
+        }
+
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 3;
+        }
+
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return 2;
+        }
+
+        return level >= TRIM_MEMORY_RUNNING_MODERATE ? 1 : 0;
+    }
+
+    /**
+     * This method returns the fraction of a cache that is kept by a trim. Every step of severity halves the caches
+     * of the next priority and empties the caches that were halved by the step before.
+     *
+     * @return float: 1 to keep the whole cache, 0.5 to halve it or 0 to empty it
+     */
+    static float keptFraction(Priority priority, int severity) {
+
+        int halvedOrdinal = severity - 1;
+
+        if (priority.ordinal() < halvedOrdinal) {
+            return 0;
+        }
+
+        return priority.ordinal() == halvedOrdinal ? 0.5f : 1;
+    }
+
+    /**
+     * This method shrinks the caches for a severity, in the order of their priorities, and logs what was shed.
+     */
+    private void trim(int severity, String reason) {
+
+        if (severity == 0) {
+            return;
+        }
+
+        List<Registration> registrations;
+
+        synchronized (this) {
+
+            mTrimCounts[severity]++;
+
+            registrations = new ArrayList<>(mRegistrations);
+        }
+
+        StringBuilder report = new StringBuilder();
+
+        for (Priority priority : Priority.values()) {
+
+            float fraction = keptFraction(priority, severity);
+
+            if (fraction >= 1) {
+                continue;
+            }
+
+            for (Registration registration : registrations) {
+
+                if (registration.mPriority != priority) {
+                    continue;
+                }
+
+                long sizeBefore = registration.mCache.getSizeBytes();
+
+                registration.mCache.trimToFraction(fraction);
+
+                report.append(String.format(Locale.US, " %s %s->%s", registration.mName, formatSize(sizeBefore),
+                        formatSize(registration.mCache.getSizeBytes())));
+            }
+        }
+
+        Log.i(LOG_TAG, "Trim for " + reason + " (severity " + severity + "):" + report);
+
+        Log.i(LOG_TAG, "Memory caches: " + getStatistics());
+    }
+
+    /**
+     * This method returns the sizes of the caches and the number of trims of every severity as a readable String.
+     */
+    public synchronized String getStatistics() {
+
+        StringBuilder statistics = new StringBuilder();
+
+        for (Registration registration : mRegistrations) {
+
+            statistics.append(registration.mName).append('=').append(formatSize(registration.mCache.getSizeBytes()))
+                    .append(' ');
+        }
+
+        statistics.append("trims=");
+
+        for (int severity = 1; severity <= MAX_SEVERITY; severity++) {
+            statistics.append(severity == 1 ? "" : "/").append(mTrimCounts[severity]);
+        }
+
+        return statistics.toString();
+    }
+
+    private static String formatSize(long bytes) {
+
+        return bytes == UNKNOWN_SIZE ? "?" : bytes / 1024 + "KB";
+    }
+
+    /**
+     * This method shrinks an LruCache to a fraction of its maximum size, the least recently used entries first. The
+     * LruCache of the platform can only be trimmed directly from API 17.
+     */
+    public static <K, V> void trimToFraction(LruCache<K, V> cache, float fraction) {
+
+        if (fraction <= 0) {
+
+            cache.evictAll();
+
+            return;
+        }
+
+        int maxSize = (int) (cache.maxSize() * fraction);
+
+        // The snapshot is ordered from the least recently used entry to the most recently used one
+        for (K key : cache.snapshot().keySet()) {
+
+            if (cache.size() <= maxSize) {
+                break;
+            }
+
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * This method estimates the memory taken by a list of articles. The section and the author are shared by many
+     * articles, so they are not counted.
+     */
+    public static long estimateBytes(List<Article> articles) {
+
+        long bytes = 0;
+
+        for (Article article : articles) {
+
+            bytes += ARTICLE_OVERHEAD_BYTES + 2L * (length(article.getId()) + length(article.getTitle())
+                    + length(article.getDescription()) + length(article.getUrl())
+                    + length(article.getArticleImageUrl()));
+        }
+
+        return bytes;
+    }
+
+    private static int length(String text) {
+
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,602 @@
+package com.example.android.covid19guide.network;
+
+import android.util.Log;
+import android.util.LruCache;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A bounded on-disk cache of the Guardian API responses which supports conditional requests. Every response that
+ * carries an ETag or a Last-Modified validator is stored as it was received on the wire (gzip compressed when the
+ * server compressed it), together with its validators. The next request for the same URL is revalidated, and a
+ * 304 Not Modified response is served from the parsed articles kept in memory without parsing anything, or from
+ * the stored body when the app was restarted in the meantime.
+ */
+public class ConditionalResponseCache implements MemoryBudgetCoordinator.Cache {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ConditionalResponseCache.class.getSimpleName();
+
+    /**
+     * Suffix of the files that hold the validators of a response
+     */
+    private static final String META_SUFFIX = ".meta";
+
+    /**
+     * Suffix of the files that hold the body of a response
+     */
+    private static final String BODY_SUFFIX = ".body";
+
+    /**
+     * Suffix of the body and validator files that are still being written
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * The number of parsed responses that are kept in memory
+     */
+    private static final int PARSED_RESPONSES_IN_MEMORY = 8;
+
+    /**
+     * The directory that holds the cached responses
+     */
+    private final File mDirectory;
+
+    /**
+     * The maximum number of bytes that the cached bodies may take on disk
+     */
+    private final long mMaxSizeBytes;
+
+    /**
+     * The articles parsed from the cached responses, keyed by the cache key of the URL
+     */
+    private final LruCache<String, List<Article>> mParsedResponses = new LruCache<>(PARSED_RESPONSES_IN_MEMORY);
+
+    /**
+     * Statistics of the bytes transferred and of the revalidations
+     */
+    private long mNetworkBytes;
+
+    private long mCachedBytes;
+
+    private long mRevalidationCount;
+
+    private long mNotModifiedCount;
+
+    /**
+     * Constructs a new {@link ConditionalResponseCache}.
+     *
+     * @param directory    is the directory that holds the cached responses
+     * @param maxSizeBytes is the maximum number of bytes that the cached bodies may take on disk
+     */
+    public ConditionalResponseCache(File directory, long maxSizeBytes) {
+
+        mDirectory = directory;
+
+        mMaxSizeBytes = maxSizeBytes;
+
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.e(LOG_TAG, "Problem creating the cache directory " + directory);
+        }
+
+        deleteTempFiles();
+    }
+
+    /**
+     * This method returns the validators of the cached response of a URL.
+     *
+     * @param url is the request URL
+     * @return Entry: the cached entry, or null if there is no cached response for the URL
+     */
+    public Entry get(String url) {
+
+        String key = keyOf(url);
+
+        File metaFile = new File(mDirectory, key + META_SUFFIX);
+
+        File bodyFile = new File(mDirectory, key + BODY_SUFFIX);
+
+        if (!metaFile.isFile() || !bodyFile.isFile()) {
+            return null;
+        }
+
+        DataInputStream input = null;
+
+        try {
+            input = new DataInputStream(new FileInputStream(metaFile));
+
+            // A different URL with the same key is not a hit
+            if (!url.equals(input.readUTF())) {
+                return null;
+            }
+
+            String etag = emptyToNull(input.readUTF());
+
+            String lastModified = emptyToNull(input.readUTF());
+
+            boolean isGzipped = input.readBoolean();
+
+            return new Entry(key, etag, lastModified, isGzipped, bodyFile.length());
+
+        } catch (IOException e) {
+
+            Log.e(LOG_TAG, "Problem reading the cached response of " + url, e);
+
+            return null;
+
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    /**
+     * This method is called when the server answered a conditional request with 304 Not Modified. It returns the
+     * articles of the cached response, parsing the stored body only if they are no longer kept in memory.
+     *
+     * @param entry   is the entry that was revalidated
+     * @param decoder is used to parse the stored body when the parsed articles are not in memory
+     * @return List<Article>: the articles of the cached response
+     */
+    public List<Article> onNotModified(Entry entry, BodyDecoder decoder) throws IOException {
+
+        synchronized (this) {
+            mNotModifiedCount++;
+            mCachedBytes += entry.mBodyLength;
+        }
+
+        // Mark the entry as recently used, so that the eviction keeps it
+        long now = System.currentTimeMillis();
+
+        new File(mDirectory, entry.mKey + BODY_SUFFIX).setLastModified(now);
+
+        List<Article> articles = mParsedResponses.get(entry.mKey);
+
+        if (articles != null) {
+            return articles;
+        }
+
+        InputStream body = new BufferedInputStream(new FileInputStream(new File(mDirectory, entry.mKey + BODY_SUFFIX)));
+
+        try {
+            articles = decoder.decode(entry.mIsGzipped ? new GZIPInputStream(body) : body);
+
+        } finally {
+            closeQuietly(body);
+        }
+
+        if (articles != null) {
+            mParsedResponses.put(entry.mKey, articles);
+        }
+
+        return articles;
+    }
+
+    /**
+     * This method counts a request that was sent with the validators of a cached entry.
+     */
+    public synchronized void onRevalidation() {
+        mRevalidationCount++;
+    }
+
+    /**
+     * This method counts the bytes of a response that were received from the network.
+     */
+    public synchronized void onNetworkBytes(long byteCount) {
+        mNetworkBytes += byteCount;
+    }
+
+    /**
+     * This method starts storing a new response of a URL.
+     *
+     * @param url          is the request URL
+     * @param etag         is the ETag header of the response, or null
+     * @param lastModified is the Last-Modified header of the response, or null
+     * @param isGzipped    is true if the body of the response is gzip compressed
+     * @return Editor: the editor that writes the body, or null if the response has no validator and cannot be revalidated
+     */
+    public Editor edit(String url, String etag, String lastModified, boolean isGzipped) {
+
+        if (etag == null && lastModified == null) {
+            return null;
+        }
+
+        return new Editor(url, keyOf(url), etag, lastModified, isGzipped);
+    }
+
+    /**
+     * This method deletes the least recently used bodies until the cache is smaller than its maximum size.
+     */
+    private synchronized void trimToSize() {
+
+        File[] bodies = mDirectory.listFiles();
+
+        if (bodies == null) {
+            return;
+        }
+
+        long totalSize = 0;
+
+        for (File file : bodies) {
+            totalSize += file.length();
+        }
+
+        if (totalSize <= mMaxSizeBytes) {
+            return;
+        }
+
+        Arrays.sort(bodies, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(first.lastModified(), second.lastModified());
+            }
+        });
+
+        for (File file : bodies) {
+
+            if (totalSize <= mMaxSizeBytes) {
+                break;
+            }
+
+            String name = file.getName();
+
+            if (!name.endsWith(BODY_SUFFIX)) {
+                continue;
+            }
+
+            String key = name.substring(0, name.length() - BODY_SUFFIX.length());
+
+            File metaFile = new File(mDirectory, key + META_SUFFIX);
+
+            totalSize -= file.length() + metaFile.length();
+
+            file.delete();
+
+            metaFile.delete();
+
+            mParsedResponses.remove(key);
+        }
+    }
+
+    /**
+     * This method deletes the files left behind by the editors of a previous process, which was killed before they
+     * were committed or aborted.
+     */
+    private void deleteTempFiles() {
+
+        File[] files = mDirectory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * This method returns the memory taken by the parsed articles kept in memory, the stored bodies are on disk.
+     */
+    @Override
+    public long getSizeBytes() {
+
+        long bytes = 0;
+
+        for (List<Article> articles : mParsedResponses.snapshot().values()) {
+            bytes += MemoryBudgetCoordinator.estimateBytes(articles);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * This method drops parsed articles from memory, a revalidated response is then parsed again from the disk.
+     */
+    @Override
+    public void trimToFraction(float fraction) {
+
+        MemoryBudgetCoordinator.trimToFraction(mParsedResponses, fraction);
+    }
+
+    /**
+     * This method returns the bandwidth and revalidation statistics of the cache as a readable String.
+     */
+    public synchronized String getStatistics() {
+
+        return String.format(Locale.US, "networkBytes=%d cachedBytes=%d revalidations=%d notModified=%d",
+                mNetworkBytes, mCachedBytes, mRevalidationCount, mNotModifiedCount);
+    }
+
+    /**
+     * This method returns the number of response bytes that were received from the network.
+     */
+    public synchronized long getNetworkBytes() {
+        return mNetworkBytes;
+    }
+
+    /**
+     * This method returns the number of response bytes that were served from the cache instead of the network.
+     */
+    public synchronized long getCachedBytes() {
+        return mCachedBytes;
+    }
+
+    /**
+     * This method returns the number of requests that were sent with the validators of a cached response.
+     */
+    public synchronized long getRevalidationCount() {
+        return mRevalidationCount;
+    }
+
+    /**
+     * This method returns the number of revalidations that were answered with 304 Not Modified.
+     */
+    public synchronized long getNotModifiedCount() {
+        return mNotModifiedCount;
+    }
+
+    /**
+     * This method returns the name of the cache files of a URL, which is the MD5 hash of the URL.
+     */
+    private static String keyOf(String url) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes(Charset.forName("UTF-8")));
+
+            StringBuilder key = new StringBuilder();
+
+            for (byte b : digest) {
+                key.append(String.format(Locale.US, "%02x", b));
+            }
+
+            return key.toString();
+
+        } catch (NoSuchAlgorithmException e) {
+
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // There is nothing to do when closing a cache file fails
+            }
+        }
+    }
+
+    /**
+     * Parses a response body into articles, used when a not modified response has to be parsed from disk.
+     */
+    public interface BodyDecoder {
+
+        List<Article> decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * The validators of a cached response.
+     */
+    public static final class Entry {
+
+        private final String mKey;
+
+        private final String mEtag;
+
+        private final String mLastModified;
+
+        private final boolean mIsGzipped;
+
+        private final long mBodyLength;
+
+        private Entry(String key, String etag, String lastModified, boolean isGzipped, long bodyLength) {
+            mKey = key;
+            mEtag = etag;
+            mLastModified = lastModified;
+            mIsGzipped = isGzipped;
+            mBodyLength = bodyLength;
+        }
+
+        /**
+         * This method returns the ETag of the cached response, to be sent as If-None-Match, or null.
+         */
+        public String getEtag() {
+            return mEtag;
+        }
+
+        /**
+         * This method returns the Last-Modified date of the cached response, to be sent as If-Modified-Since, or null.
+         */
+        public String getLastModified() {
+            return mLastModified;
+        }
+    }
+
+    /**
+     * Writes the body of a new response to the cache while the response is being decoded. The body only replaces
+     * the cached response of the URL once it has been received and decoded completely. Every editor writes to a
+     * temporary file of its own, so two responses of the same URL that arrive at the same time never mix.
+     */
+    public final class Editor {
+
+        private final String mUrl;
+
+        private final String mKey;
+
+        private final String mEtag;
+
+        private final String mLastModified;
+
+        private final boolean mIsGzipped;
+
+        private File mTempFile;
+
+        private OutputStream mOutput;
+
+        private Editor(String url, String key, String etag, String lastModified, boolean isGzipped) {
+            mUrl = url;
+            mKey = key;
+            mEtag = etag;
+            mLastModified = lastModified;
+            mIsGzipped = isGzipped;
+        }
+
+        /**
+         * This method returns a stream that copies every byte read from the wire stream into the cache.
+         *
+         * @param wireStream is the stream of the response as it is received from the network
+         */
+        public InputStream wrap(InputStream wireStream) throws IOException {
+
+            mTempFile = File.createTempFile(mKey, TEMP_SUFFIX, mDirectory);
+
+            mOutput = new FileOutputStream(mTempFile);
+
+            return new FilterInputStream(wireStream) {
+
+                @Override
+                public int read() throws IOException {
+
+                    int result = super.read();
+
+                    if (result != -1 && mOutput != null) {
+                        mOutput.write(result);
+                    }
+                    return result;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+
+                    int result = super.read(buffer, offset, length);
+
+                    if (result > 0 && mOutput != null) {
+                        mOutput.write(buffer, offset, result);
+                    }
+                    return result;
+                }
+            };
+        }
+
+        /**
+         * This method makes the written body the cached response of the URL and keeps its parsed articles in memory.
+         * It must only be called once the whole body has been read and decoded, a body without articles is thrown
+         * away. The validators of the previous body are deleted first, then the body and its new validators are moved
+         * in place with a rename each, so that the validators on disk never describe another body.
+         *
+         * @param articles are the articles parsed from the body
+         */
+        public void commit(List<Article> articles) {
+
+            if (articles == null || mOutput == null) {
+
+                abort();
+
+                return;
+            }
+
+            File metaFile = new File(mDirectory, mKey + META_SUFFIX);
+
+            File metaTempFile = null;
+
+            DataOutputStream meta = null;
+
+            try {
+                mOutput.close();
+
+                mOutput = null;
+
+                // The validators of the replaced body must never revalidate the new one, even if the process dies
+                // before the new validators are written, an entry without validators is simply not used
+                mParsedResponses.remove(mKey);
+
+                if (metaFile.exists() && !metaFile.delete()) {
+                    throw new IOException("Problem deleting " + metaFile);
+                }
+
+                if (!mTempFile.renameTo(new File(mDirectory, mKey + BODY_SUFFIX))) {
+                    throw new IOException("Problem renaming " + mTempFile);
+                }
+
+                metaTempFile = File.createTempFile(mKey, TEMP_SUFFIX, mDirectory);
+
+                meta = new DataOutputStream(new FileOutputStream(metaTempFile));
+
+                meta.writeUTF(mUrl);
+                meta.writeUTF(mEtag == null ? "" : mEtag);
+                meta.writeUTF(mLastModified == null ? "" : mLastModified);
+                meta.writeBoolean(mIsGzipped);
+
+                meta.close();
+
+                meta = null;
+
+                if (!metaTempFile.renameTo(metaFile)) {
+                    throw new IOException("Problem renaming " + metaTempFile);
+                }
+
+                mParsedResponses.put(mKey, articles);
+
+            } catch (IOException e) {
+
+                Log.e(LOG_TAG, "Problem storing the response of " + mUrl, e);
+
+                abort();
+
+            } finally {
+
+                closeQuietly(meta);
+
+                if (metaTempFile != null) {
+                    metaTempFile.delete();
+                }
+            }
+
+            trimToSize();
+        }
+
+        /**
+         * This method throws away the written body, the cached response of the URL stays as it was.
+         */
+        public void abort() {
+
+            closeQuietly(mOutput);
+
+            mOutput = null;
+
+            if (mTempFile != null) {
+                mTempFile.delete();
+            }
+        }
+    }
+}
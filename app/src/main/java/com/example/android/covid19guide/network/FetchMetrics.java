@@ -0,0 +1,272 @@
+package com.example.android.covid19guide.network;
+
+import androidx.core.os.TraceCompat;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the durations of the stages of the fetches of the feed, from building the URL to delivering the articles
+ * on the main thread, into a {@link LatencyHistogram} per stage, and tells the registered {@link Listener}s about every
+ * fetch. The stages are also written as trace sections, so that they can be seen in a system trace.
+ * <p>
+ * When the metrics are disabled, the fetch path asks {@link #startFetch(String)} for a {@link FetchTimings} and gets
+ * null back, so nothing is timed, allocated or traced.
+ */
+public final class FetchMetrics {
+
+    /**
+     * The stages of a fetch, in the order in which they happen.
+     */
+    public enum Stage {
+
+        /**
+         * The time from the submission of the load to the repository until a thread of the repository runs it
+         */
+        QUEUE_DELAY("queue_delay"),
+
+        URL_BUILD("url_build"),
+
+        /**
+         * The time to open a new connection, including the TLS handshake. A request that reuses a pooled
+         * connection has no connect stage
+         */
+        CONNECT("connect"),
+
+        /**
+         * The time from sending the request to receiving the status line and the headers of the response
+         */
+        TIME_TO_FIRST_BYTE("ttfb"),
+
+        /**
+         * The time spent waiting for the bytes of the body from the network
+         */
+        DOWNLOAD("download"),
+
+        /**
+         * The time spent decompressing the body
+         */
+        DECODE("decode"),
+
+        /**
+         * The time spent reading the articles out of the JSON, without the time waiting for the network
+         */
+        PARSE("parse"),
+
+        TOTAL("total"),
+
+        /**
+         * The time from the articles being ready on the background thread until the screen is told about them on
+         * the main thread
+         */
+        DELIVERY("delivery");
+
+        private final String mTraceName;
+
+        Stage(String traceName) {
+            mTraceName = traceName;
+        }
+
+        /**
+         * This method returns the name of the trace section of the stage.
+         */
+        public String getTraceName() {
+            return mTraceName;
+        }
+    }
+
+    /**
+     * Listener that is told about every fetch once it is over, on the thread that ran the fetch.
+     */
+    public interface Listener {
+
+        void onFetchCompleted(FetchTimings timings);
+    }
+
+    /**
+     * The prefix of the trace sections, so that they can be found in a system trace
+     */
+    private static final String TRACE_PREFIX = "covid19guide:";
+
+    private static volatile boolean sIsEnabled;
+
+    private static final LatencyHistogram[] sHistograms = new LatencyHistogram[Stage.values().length];
+
+    static {
+        for (int i = 0; i < sHistograms.length; i++) {
+            sHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    private static final CopyOnWriteArrayList<Listener> sListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The counters of the fetches
+     */
+    private static final AtomicLong sFetchCount = new AtomicLong();
+
+    private static final AtomicLong sFailedFetchCount = new AtomicLong();
+
+    private static final AtomicLong sOpenedConnectionCount = new AtomicLong();
+
+    private static final AtomicLong sBytes = new AtomicLong();
+
+    private static final AtomicLong sArticleCount = new AtomicLong();
+
+    /**
+     * Create a private constructor because we don't want to create a {@link FetchMetrics} object.
+     */
+    private FetchMetrics() {
+    }
+
+    /**
+     * This method turns the collection of the metrics on or off, they are off until it is called.
+     */
+    public static void setEnabled(boolean isEnabled) {
+        sIsEnabled = isEnabled;
+    }
+
+    public static boolean isEnabled() {
+        return sIsEnabled;
+    }
+
+    public static void addListener(Listener listener) {
+        sListeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+
+    /**
+     * This method starts timing a fetch.
+     *
+     * @param kind is the kind of request
+     * @return FetchTimings: the timings that the stages of the fetch are recorded in, or null if the metrics are
+     * disabled
+     */
+    public static FetchTimings startFetch(String kind) {
+
+        return sIsEnabled ? new FetchTimings(kind) : null;
+    }
+
+    /**
+     * This method ends a fetch, adds its stages to the histograms and tells the listeners about it.
+     *
+     * @param timings are the timings returned by {@link #startFetch(String)}, nothing is done if they are null
+     */
+    public static void finishFetch(FetchTimings timings) {
+
+        if (timings == null) {
+            return;
+        }
+
+        timings.finish();
+
+        for (Stage stage : Stage.values()) {
+
+            long nanos = timings.getStageNanos(stage);
+
+            if (nanos >= 0) {
+                sHistograms[stage.ordinal()].record(nanos);
+            }
+        }
+
+        sFetchCount.incrementAndGet();
+
+        if (!timings.isSuccessful()) {
+            sFailedFetchCount.incrementAndGet();
+        }
+
+        if (timings.hasOpenedConnection()) {
+            sOpenedConnectionCount.incrementAndGet();
+        }
+
+        sBytes.addAndGet(timings.getBytes());
+
+        sArticleCount.addAndGet(timings.getArticleCount());
+
+        for (Listener listener : sListeners) {
+            listener.onFetchCompleted(timings);
+        }
+    }
+
+    /**
+     * This method records the duration of a stage that happens outside of a single fetch, like the queue delay and
+     * the delivery of a page that was fetched by several requests.
+     */
+    public static void recordStage(Stage stage, long nanos) {
+
+        if (sIsEnabled) {
+            sHistograms[stage.ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * This method returns the histogram of the durations of a stage.
+     */
+    public static LatencyHistogram getHistogram(Stage stage) {
+        return sHistograms[stage.ordinal()];
+    }
+
+    /**
+     * This method begins a trace section for a stage on the current thread, if the metrics are enabled. Every call
+     * must be followed by a call to {@link #endSection()} on the same thread.
+     */
+    public static void beginSection(Stage stage) {
+
+        if (sIsEnabled) {
+            TraceCompat.beginSection(TRACE_PREFIX + stage.getTraceName());
+        }
+    }
+
+    /**
+     * This method ends the trace section begun last on the current thread, if the metrics are enabled.
+     */
+    public static void endSection() {
+
+        if (sIsEnabled) {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * This method removes all the recorded durations and counters.
+     */
+    public static void reset() {
+
+        for (LatencyHistogram histogram : sHistograms) {
+            histogram.reset();
+        }
+
+        sFetchCount.set(0);
+        sFailedFetchCount.set(0);
+        sOpenedConnectionCount.set(0);
+        sBytes.set(0);
+        sArticleCount.set(0);
+    }
+
+    /**
+     * This method returns the counters and the percentiles of every stage that happened as a readable String.
+     */
+    public static String getSummary() {
+
+        long fetchCount = sFetchCount.get();
+
+        StringBuilder summary = new StringBuilder(String.format(Locale.US,
+                "fetches=%d failed=%d connections=%d bytes/fetch=%d articles/fetch=%d", fetchCount,
+                sFailedFetchCount.get(), sOpenedConnectionCount.get(), fetchCount == 0 ? 0 : sBytes.get() / fetchCount,
+                fetchCount == 0 ? 0 : sArticleCount.get() / fetchCount));
+
+        for (Stage stage : Stage.values()) {
+
+            LatencyHistogram histogram = sHistograms[stage.ordinal()];
+
+            if (histogram.getCount() > 0) {
+                summary.append(" [").append(stage.getTraceName()).append("] ").append(histogram);
+            }
+        }
+
+        return summary.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.android.covid19guide.network;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The durations of the stages of a single fetch of the feed, with the number of bytes received and the number of
+ * articles decoded. It is filled in by the thread that runs the fetch and handed to the {@link FetchMetrics.Listener}s
+ * once the fetch is over.
+ */
+public final class FetchTimings {
+
+    /**
+     * The kind of request, for example the fields that were requested
+     */
+    private final String mKind;
+
+    /**
+     * The time at which the fetch started, from {@link System#nanoTime()}
+     */
+    private final long mStartNanos;
+
+    /**
+     * The duration of every stage in nanoseconds, or -1 if the stage did not happen during the fetch
+     */
+    private final long[] mStageNanos = new long[FetchMetrics.Stage.values().length];
+
+    /**
+     * The time at which the transport started to open a new connection, or 0 if no connection is being opened
+     */
+    private long mConnectStartNanos;
+
+    private boolean mHasOpenedConnection;
+
+    private boolean mIsFromCache;
+
+    private boolean mIsSuccessful;
+
+    private long mBytes;
+
+    private long mDecodedBytes;
+
+    private int mArticleCount;
+
+    /**
+     * Constructs a new {@link FetchTimings}, the fetch starts now.
+     *
+     * @param kind is the kind of request
+     */
+    FetchTimings(String kind) {
+
+        mKind = kind;
+
+        mStartNanos = System.nanoTime();
+
+        Arrays.fill(mStageNanos, -1);
+    }
+
+    /**
+     * This method sets the duration of a stage of the fetch.
+     */
+    public void setStageNanos(FetchMetrics.Stage stage, long nanos) {
+        mStageNanos[stage.ordinal()] = nanos;
+    }
+
+    /**
+     * This method returns the duration of a stage in nanoseconds, or -1 if the stage did not happen during the fetch.
+     */
+    public long getStageNanos(FetchMetrics.Stage stage) {
+        return mStageNanos[stage.ordinal()];
+    }
+
+    /**
+     * This method is called by the transport when it starts to open a new connection for the request.
+     */
+    void onConnectStart() {
+
+        mConnectStartNanos = System.nanoTime();
+
+        mHasOpenedConnection = true;
+    }
+
+    /**
+     * This method is called by the transport when the connection is open or could not be opened. The attempts to
+     * reach the other addresses of the host add up.
+     */
+    void onConnectEnd() {
+
+        if (mConnectStartNanos == 0) {
+            return;
+        }
+
+        long nanos = System.nanoTime() - mConnectStartNanos;
+
+        long previousNanos = getStageNanos(FetchMetrics.Stage.CONNECT);
+
+        setStageNanos(FetchMetrics.Stage.CONNECT, previousNanos < 0 ? nanos : previousNanos + nanos);
+
+        mConnectStartNanos = 0;
+    }
+
+    /**
+     * This method records the outcome of the fetch.
+     *
+     * @param bytes        is the number of bytes received from the network
+     * @param decodedBytes is the number of bytes of the decompressed response
+     * @param articleCount is the number of articles decoded
+     * @param isFromCache  is true if the response was served from the cache after a 304 Not Modified
+     */
+    public void setResult(long bytes, long decodedBytes, int articleCount, boolean isFromCache) {
+
+        mBytes = bytes;
+
+        mDecodedBytes = decodedBytes;
+
+        mArticleCount = articleCount;
+
+        mIsFromCache = isFromCache;
+
+        mIsSuccessful = true;
+    }
+
+    /**
+     * This method ends the fetch, the total stage is the time since the fetch started.
+     */
+    void finish() {
+        setStageNanos(FetchMetrics.Stage.TOTAL, System.nanoTime() - mStartNanos);
+    }
+
+    public String getKind() {
+        return mKind;
+    }
+
+    /**
+     * This method returns true if the request opened a new connection instead of reusing a pooled one.
+     */
+    public boolean hasOpenedConnection() {
+        return mHasOpenedConnection;
+    }
+
+    public boolean isFromCache() {
+        return mIsFromCache;
+    }
+
+    /**
+     * This method returns true if the articles were decoded, false if the fetch failed or was canceled.
+     */
+    public boolean isSuccessful() {
+        return mIsSuccessful;
+    }
+
+    public long getBytes() {
+        return mBytes;
+    }
+
+    public long getDecodedBytes() {
+        return mDecodedBytes;
+    }
+
+    public int getArticleCount() {
+        return mArticleCount;
+    }
+
+    /**
+     * This method returns the stages that happened during the fetch and the counters as a readable String.
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder summary = new StringBuilder("[" + mKind + "]");
+
+        for (FetchMetrics.Stage stage : FetchMetrics.Stage.values()) {
+
+            long nanos = getStageNanos(stage);
+
+            if (nanos >= 0) {
+                summary.append(String.format(Locale.US, " %s=%.1fms", stage.getTraceName(), nanos / 1e6));
+            }
+        }
+
+        return summary.append(String.format(Locale.US, " bytes=%d decoded=%d articles=%d%s%s", mBytes, mDecodedBytes,
+                mArticleCount, mIsFromCache ? " cached" : "", mIsSuccessful ? "" : " failed")).toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.android.covid19guide.network;
+
+import android.os.CancellationSignal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An {@link HttpRequest} object describes a single GET request that is sent through an {@link HttpTransport}.
+ */
+public class HttpRequest {
+
+    /**
+     * The URL of the request
+     */
+    private final String url;
+
+    /**
+     * The headers of the request, in the order in which they were added
+     */
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    /**
+     * The signal that cancels the request while it is running, or null
+     */
+    private CancellationSignal cancellationSignal;
+
+    /**
+     * The timings of the fetch that the transport records the connect stage in, or null
+     */
+    private FetchTimings timings;
+
+    /**
+     * Constructs a new {@link HttpRequest} object.
+     *
+     * @param url is the URL of the request
+     */
+    public HttpRequest(String url) {
+        this.url = url;
+    }
+
+    /**
+     * This method adds a header to the request, replacing a header with the same name.
+     *
+     * @return HttpRequest: this request, so that the calls can be chained
+     */
+    public HttpRequest setHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * This method sets the signal that cancels the request, the transport then stops the request as soon as the signal
+     * is canceled and the reads of its response fail. The transport owns the single listener of the signal until the
+     * request fails or its response is closed.
+     *
+     * @return HttpRequest: this request, so that the calls can be chained
+     */
+    public HttpRequest setCancellationSignal(CancellationSignal cancellationSignal) {
+        this.cancellationSignal = cancellationSignal;
+        return this;
+    }
+
+    /**
+     * This method sets the timings of the fetch, the transport then records the time to open a new connection in them.
+     *
+     * @return HttpRequest: this request, so that the calls can be chained
+     */
+    public HttpRequest setTimings(FetchTimings timings) {
+        this.timings = timings;
+        return this;
+    }
+
+    /**
+     * This method returns the URL of the request
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * This method returns the headers of the request
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * This method returns the signal that cancels the request, or null
+     */
+    public CancellationSignal getCancellationSignal() {
+        return cancellationSignal;
+    }
+
+    /**
+     * This method returns the timings of the fetch, or null
+     */
+    public FetchTimings getTimings() {
+        return timings;
+    }
+}
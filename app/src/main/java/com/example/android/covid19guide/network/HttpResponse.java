@@ -0,0 +1,76 @@
+package com.example.android.covid19guide.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An {@link HttpResponse} object holds the status, the headers and the body stream of the answer to an
+ * {@link HttpRequest}. It must be closed once the body has been read, so that the transport can reuse its connection.
+ */
+public class HttpResponse implements Closeable {
+
+    /**
+     * The HTTP status code of the response
+     */
+    private final int code;
+
+    /**
+     * The headers of the response, keyed by their lower case names
+     */
+    private final Map<String, String> headers = new TreeMap<>();
+
+    /**
+     * The body of the response
+     */
+    private final InputStream body;
+
+    /**
+     * Constructs a new {@link HttpResponse} object.
+     *
+     * @param code    is the HTTP status code of the response
+     * @param headers are the headers of the response
+     * @param body    is the stream of the body of the response
+     */
+    public HttpResponse(int code, Map<String, String> headers, InputStream body) {
+        this.code = code;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            this.headers.put(header.getKey().toLowerCase(Locale.US), header.getValue());
+        }
+        this.body = body;
+    }
+
+    /**
+     * This method returns the HTTP status code of the response
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * This method returns the value of a header of the response, or null if the response does not have it.
+     *
+     * @param name is the case insensitive name of the header
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.US));
+    }
+
+    /**
+     * This method returns the stream of the body of the response
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * This method closes the body of the response and releases its connection back to the transport.
+     */
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
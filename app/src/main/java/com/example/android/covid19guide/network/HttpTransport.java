@@ -0,0 +1,35 @@
+package com.example.android.covid19guide.network;
+
+import java.io.IOException;
+
+/**
+ * The transport that {@link com.example.android.covid19guide.utils.QueryUtils} sends its requests through.
+ * The app uses the {@link PooledHttpTransport}, while the tests and the benchmarks use a fake transport so that they
+ * can run without any network.
+ */
+public interface HttpTransport {
+
+    /**
+     * This method sends the request and returns the response as soon as its headers have been received.
+     * The caller must close the response once it has read the body.
+     *
+     * @param request is the request to send
+     * @return HttpResponse: the response of the server
+     * @throws IOException if the request could not be sent or the response could not be received
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+
+    /**
+     * This method opens a connection to the host of the URL ahead of the requests to it, so that the handshakes do
+     * not delay the first request. Transports without a connection pool do nothing.
+     *
+     * @param url is a URL on the host to connect to
+     * @throws IOException if the connection could not be opened
+     */
+    void preconnect(String url) throws IOException;
+
+    /**
+     * This method returns the connection statistics of the transport as a readable String.
+     */
+    String getStatistics();
+}
@@ -0,0 +1,180 @@
+package com.example.android.covid19guide.network;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with buckets that grow with the durations, so that the percentiles can be reported within
+ * about 6% whether a stage takes microseconds or seconds. Recording a duration takes no lock and allocates nothing.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Every power of two of microseconds is split in this number of buckets
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest power of two of microseconds that has its own buckets, about 25 days
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + 2 * SUB_BUCKET_COUNT;
+
+    /**
+     * The number of durations recorded in every bucket
+     */
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong mTotalCount = new AtomicLong();
+
+    private final AtomicLong mTotalMicros = new AtomicLong();
+
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    /**
+     * This method adds a duration to the histogram.
+     *
+     * @param nanos is the duration in nanoseconds, a negative duration is ignored
+     */
+    public void record(long nanos) {
+
+        if (nanos < 0) {
+            return;
+        }
+
+        long micros = nanos / 1000;
+
+        mCounts.incrementAndGet(bucketOf(micros));
+
+        mTotalCount.incrementAndGet();
+
+        mTotalMicros.addAndGet(micros);
+
+        long max = mMaxMicros.get();
+
+        while (micros > max && !mMaxMicros.compareAndSet(max, micros)) {
+            max = mMaxMicros.get();
+        }
+    }
+
+    /**
+     * This method returns the number of durations recorded.
+     */
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    /**
+     * This method returns the mean of the durations recorded in milliseconds, or 0 if none was recorded.
+     */
+    public double getMeanMillis() {
+
+        long count = mTotalCount.get();
+
+        return count == 0 ? 0 : mTotalMicros.get() / 1000.0 / count;
+    }
+
+    /**
+     * This method returns the longest duration recorded in milliseconds.
+     */
+    public double getMaxMillis() {
+        return mMaxMicros.get() / 1000.0;
+    }
+
+    /**
+     * This method returns the duration below which the given share of the durations fall, in milliseconds.
+     *
+     * @param percentile is the share of the durations, between 0 and 100
+     * @return double: the middle of the bucket of the percentile, or 0 if no duration was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+
+        long count = mTotalCount.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+
+            seen += mCounts.get(bucket);
+
+            if (seen >= rank) {
+
+                long lower = lowerBoundOf(bucket);
+
+                long upper = bucket + 1 < BUCKET_COUNT ? lowerBoundOf(bucket + 1) : lower;
+
+                // The bucket of the longest duration is not reported above it
+                return Math.min((lower + upper) / 2.0, mMaxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * This method removes all the recorded durations.
+     */
+    public void reset() {
+
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            mCounts.set(bucket, 0);
+        }
+
+        mTotalCount.set(0);
+        mTotalMicros.set(0);
+        mMaxMicros.set(0);
+    }
+
+    /**
+     * This method returns the count, the median, the 90th and 99th percentiles and the maximum as a readable String.
+     */
+    @Override
+    public String toString() {
+
+        return String.format(Locale.US, "n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", getCount(),
+                getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99), getMaxMillis());
+    }
+
+    /**
+     * This method returns the bucket of a duration. The durations below SUB_BUCKET_COUNT microseconds have a bucket
+     * each, the longer ones share their power of two with SUB_BUCKET_COUNT - 1 others.
+     */
+    static int bucketOf(long micros) {
+
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+
+        // The highest bits of the duration, between SUB_BUCKET_COUNT and 2 * SUB_BUCKET_COUNT - 1
+        long mantissa = Math.min(micros >> (exponent - SUB_BUCKET_BITS), 2 * SUB_BUCKET_COUNT - 1);
+
+        return (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + (int) mantissa;
+    }
+
+    /**
+     * This method returns the shortest duration of a bucket in microseconds.
+     */
+    static long lowerBoundOf(int bucket) {
+
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKET_COUNT - 1 + SUB_BUCKET_BITS;
+
+        long mantissa = bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return mantissa << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.android.covid19guide.network;
+
+/**
+ * The estimate of the quality of the current network that the {@link RequestShaper} picks the requests of the feed
+ * by. The app uses the {@link NetworkQualityEstimator}, while the tests use a fake estimate so that they can go
+ * through every quality class without changing the network of the device.
+ */
+public interface NetworkQualityEstimate {
+
+    /**
+     * This method returns the quality class of the current network.
+     */
+    NetworkQualityEstimator.Quality getQuality();
+
+    /**
+     * This method returns the estimated throughput of the current network in kilobits per second.
+     */
+    double getThroughputKbps();
+
+    /**
+     * This method returns the estimated time from sending a request to receiving the headers of its response, in
+     * milliseconds. It includes the handshakes of the requests that open a new connection.
+     */
+    long getRttMillis();
+
+    /**
+     * This method returns true if the current network is metered, such as a mobile network.
+     */
+    boolean isMetered();
+
+    /**
+     * This method returns the estimate and where it comes from as a readable String.
+     */
+    String getStatistics();
+}
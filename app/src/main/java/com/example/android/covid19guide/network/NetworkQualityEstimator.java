@@ -0,0 +1,324 @@
+package com.example.android.covid19guide.network;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.SystemClock;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+import java.util.Locale;
+
+/**
+ * Estimates the quality of the current network from the responses of the app itself: the time to the first byte of
+ * every response gives the round trip time, and the bytes of every larger response over the time they took give the
+ * throughput. Until the first responses arrive, and again whenever the device moves to another network, the estimate
+ * starts from the hints of the platform: the type of the network, the generation of the mobile network and the
+ * bandwidth that the platform reports for the link.
+ */
+public final class NetworkQualityEstimator implements NetworkQualityEstimate {
+
+    /**
+     * The quality classes of a network, which the {@link RequestShaper} picks the requests of the feed by.
+     */
+    public enum Quality {
+
+        /**
+         * No network
+         */
+        OFFLINE,
+
+        /**
+         * 2G or a congested link, where a page of the feed takes several seconds
+         */
+        POOR,
+
+        /**
+         * 3G or a busy Wi-Fi
+         */
+        MODERATE,
+
+        GOOD
+    }
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NetworkQualityEstimator.class.getSimpleName();
+
+    /**
+     * The weight of a new observation in the moving averages
+     */
+    private static final double OBSERVATION_WEIGHT = 0.3;
+
+    /**
+     * A response smaller than this is dominated by the round trip, so it does not tell the throughput
+     */
+    private static final long MIN_THROUGHPUT_SAMPLE_BYTES = 8 * 1024;
+
+    /**
+     * The type of the network is read again at most this often, to notice a move to another network
+     */
+    private static final long NETWORK_CHECK_INTERVAL_MILLIS = 5000;
+
+    /**
+     * The limits of the quality classes
+     */
+    private static final double POOR_THROUGHPUT_KBPS = 150;
+
+    private static final long POOR_RTT_MILLIS = 1200;
+
+    private static final double MODERATE_THROUGHPUT_KBPS = 1000;
+
+    private static final long MODERATE_RTT_MILLIS = 400;
+
+    /**
+     * The single instance of the estimator that is shared by the whole app
+     */
+    private static NetworkQualityEstimator sInstance;
+
+    private final ConnectivityManager mConnectivityManager;
+
+    /**
+     * The network that the estimate belongs to, for example "MOBILE/13", or null when there is no network
+     */
+    private String mNetworkKey;
+
+    private boolean mIsMetered;
+
+    private long mNetworkCheckedAtMillis = -1;
+
+    /**
+     * The moving averages of the throughput in kilobits per second and of the round trip time in milliseconds
+     */
+    private double mThroughputKbps;
+
+    private double mRttMillis;
+
+    /**
+     * The number of responses observed on the current network
+     */
+    private int mThroughputSampleCount;
+
+    private int mRttSampleCount;
+
+    private NetworkQualityEstimator(Context context) {
+
+        mConnectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    /**
+     * This method returns the single instance of the {@link NetworkQualityEstimator}.
+     *
+     * @param context of the app
+     */
+    public static synchronized NetworkQualityEstimator getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new NetworkQualityEstimator(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method adds a response of the app to the estimate. It is called on the thread of the request.
+     *
+     * @param timeToFirstByteNanos is the time from sending the request to receiving the headers of the response
+     * @param bytes                is the number of bytes of the body received from the network
+     * @param transferNanos        is the time that receiving the body took
+     */
+    public synchronized void onResponse(long timeToFirstByteNanos, long bytes, long transferNanos) {
+
+        checkNetwork();
+
+        if (timeToFirstByteNanos > 0) {
+
+            mRttMillis = average(mRttMillis, timeToFirstByteNanos / 1e6, mRttSampleCount++);
+        }
+
+        if (bytes >= MIN_THROUGHPUT_SAMPLE_BYTES && transferNanos > 0) {
+
+            // Kilobits per second are bits per millisecond
+            mThroughputKbps = average(mThroughputKbps, bytes * 8 / (transferNanos / 1e6), mThroughputSampleCount++);
+        }
+    }
+
+    /**
+     * This method returns the quality class of the current network.
+     */
+    @Override
+    public synchronized Quality getQuality() {
+
+        checkNetwork();
+
+        if (mNetworkKey == null) {
+            return Quality.OFFLINE;
+        }
+
+        if (mThroughputKbps < POOR_THROUGHPUT_KBPS || mRttMillis > POOR_RTT_MILLIS) {
+            return Quality.POOR;
+        }
+
+        if (mThroughputKbps < MODERATE_THROUGHPUT_KBPS || mRttMillis > MODERATE_RTT_MILLIS) {
+            return Quality.MODERATE;
+        }
+
+        return Quality.GOOD;
+    }
+
+    /**
+     * This method returns the estimated throughput of the current network in kilobits per second.
+     */
+    @Override
+    public synchronized double getThroughputKbps() {
+
+        checkNetwork();
+
+        return mThroughputKbps;
+    }
+
+    /**
+     * This method returns the estimated round trip time of the current network in milliseconds, which is measured as
+     * the time to the first byte of the responses and so includes the handshakes of the new connections.
+     */
+    @Override
+    public synchronized long getRttMillis() {
+
+        checkNetwork();
+
+        return Math.round(mRttMillis);
+    }
+
+    /**
+     * This method returns true if the current network is metered, such as a mobile network.
+     */
+    @Override
+    public synchronized boolean isMetered() {
+
+        checkNetwork();
+
+        return mIsMetered;
+    }
+
+    /**
+     * This method returns the estimate and where it comes from as a readable String.
+     */
+    @Override
+    public synchronized String getStatistics() {
+
+        return String.format(Locale.US, "network=%s metered=%b quality=%s throughput=%.0fkbps rtt=%dms samples=%d/%d",
+                mNetworkKey, mIsMetered, getQuality(), mThroughputKbps, Math.round(mRttMillis),
+                mThroughputSampleCount, mRttSampleCount);
+    }
+
+    /**
+     * This method reads the current network from time to time, and starts the estimate again from the hints of the
+     * platform when the device has moved to another network.
+     */
+    private void checkNetwork() {
+
+        long now = SystemClock.elapsedRealtime();
+
+        if (mNetworkCheckedAtMillis >= 0 && now - mNetworkCheckedAtMillis < NETWORK_CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+
+        mNetworkCheckedAtMillis = now;
+
+        NetworkInfo networkInfo = mConnectivityManager == null ? null : mConnectivityManager.getActiveNetworkInfo();
+
+        String networkKey = networkInfo == null || !networkInfo.isConnected()
+                ? null : networkInfo.getType() + "/" + networkInfo.getSubtype();
+
+        if (networkKey == null ? mNetworkKey == null : networkKey.equals(mNetworkKey)) {
+            return;
+        }
+
+        mNetworkKey = networkKey;
+
+        mIsMetered = mConnectivityManager != null && mConnectivityManager.isActiveNetworkMetered();
+
+        mThroughputSampleCount = 0;
+
+        mRttSampleCount = 0;
+
+        if (networkInfo != null) {
+            setPlatformHints(networkInfo);
+        }
+
+        Log.i(LOG_TAG, "Network changed: " + getStatistics());
+    }
+
+    /**
+     * This method starts the estimate from the typical throughput and round trip time of the type of the network,
+     * capped by the bandwidth that the platform reports for the link.
+     */
+    private void setPlatformHints(NetworkInfo networkInfo) {
+
+        if (networkInfo.getType() != ConnectivityManager.TYPE_MOBILE) {
+
+            mThroughputKbps = 5000;
+            mRttMillis = 80;
+
+        } else {
+
+            switch (networkInfo.getSubtype()) {
+
+                case TelephonyManager.NETWORK_TYPE_GPRS:
+                case TelephonyManager.NETWORK_TYPE_EDGE:
+                case TelephonyManager.NETWORK_TYPE_CDMA:
+                case TelephonyManager.NETWORK_TYPE_1xRTT:
+                case TelephonyManager.NETWORK_TYPE_IDEN:
+                    mThroughputKbps = 60;
+                    mRttMillis = 1500;
+                    break;
+
+                case TelephonyManager.NETWORK_TYPE_LTE:
+                case TelephonyManager.NETWORK_TYPE_NR:
+                    mThroughputKbps = 5000;
+                    mRttMillis = 100;
+                    break;
+
+                default:
+                    // UMTS, EVDO, HSPA and the unknown mobile networks
+                    mThroughputKbps = 700;
+                    mRttMillis = 300;
+                    break;
+            }
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+
+            int downstreamKbps = getLinkDownstreamBandwidthKbps();
+
+            if (downstreamKbps > 0) {
+                mThroughputKbps = Math.min(mThroughputKbps, downstreamKbps);
+            }
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private int getLinkDownstreamBandwidthKbps() {
+
+        Network network = mConnectivityManager.getActiveNetwork();
+
+        NetworkCapabilities capabilities = network == null ? null : mConnectivityManager.getNetworkCapabilities(network);
+
+        return capabilities == null ? 0 : capabilities.getLinkDownstreamBandwidthKbps();
+    }
+
+    /**
+     * This method adds an observation to a moving average. The first observations of a network weigh more, so that
+     * the estimate leaves the hints of the platform quickly.
+     */
+    private static double average(double average, double observation, int previousSampleCount) {
+
+        double weight = Math.max(OBSERVATION_WEIGHT, 1.0 / (previousSampleCount + 2));
+
+        return average + weight * (observation - average);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.android.covid19guide.network;
+
+import android.os.CancellationSignal;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The default {@link HttpTransport} of the app. It keeps a bounded pool of keep-alive connections, so that the
+ * requests to content.guardianapis.com reuse an open TCP+TLS connection instead of paying a new handshake every time.
+ * It also counts how many requests were served by a reused connection.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    /**
+     * The client that owns the connection pool
+     */
+    private final OkHttpClient mClient;
+
+    /**
+     * The number of connections acquired by the requests, and the number of them which had to be opened. A
+     * connection is counted as opened once its connect succeeded, so the routes that were tried and failed are not
+     */
+    private final AtomicLong mAcquiredConnections = new AtomicLong();
+
+    private final AtomicLong mOpenedConnections = new AtomicLong();
+
+    /**
+     * Constructs a new {@link PooledHttpTransport}.
+     *
+     * @param connectTimeoutMillis is the timeout for opening a new connection
+     * @param readTimeoutMillis    is the timeout for every read of the response
+     * @param maxIdleConnections   is the maximum number of idle connections kept in the pool
+     * @param keepAliveMillis      is the time after which an idle connection is closed
+     */
+    public PooledHttpTransport(long connectTimeoutMillis, long readTimeoutMillis, int maxIdleConnections,
+                               long keepAliveMillis) {
+
+        mClient = new OkHttpClient.Builder()
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+                .eventListener(new EventListener() {
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+
+                        FetchTimings timings = call.request().tag(FetchTimings.class);
+
+                        if (timings != null) {
+
+                            timings.onConnectStart();
+
+                            FetchMetrics.beginSection(FetchMetrics.Stage.CONNECT);
+                        }
+                    }
+
+                    @Override
+                    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+
+                        mOpenedConnections.incrementAndGet();
+
+                        onConnectEnd(call);
+                    }
+
+                    @Override
+                    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol,
+                                              IOException e) {
+                        onConnectEnd(call);
+                    }
+
+                    @Override
+                    public void connectionAcquired(Call call, Connection connection) {
+                        mAcquiredConnections.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * This method sends the request on a pooled connection. Closing the response returns the connection to the pool.
+     * The transport sets the listener of the signal of the request, which replaces any listener of the caller, until
+     * the request fails or its response is closed, and then clears it.
+     */
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+
+        Request.Builder builder = new Request.Builder().url(request.getUrl()).get();
+
+        // The listener of the client finds the timings of the fetch in the tag of the call
+        if (request.getTimings() != null) {
+            builder.tag(FetchTimings.class, request.getTimings());
+        }
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        final Call call = mClient.newCall(builder.build());
+
+        // Canceling the call stops the request, and the reads of the response that is being received fail
+        final CancellationSignal cancellationSignal = request.getCancellationSignal();
+
+        if (cancellationSignal != null) {
+
+            if (cancellationSignal.isCanceled()) {
+                throw new InterruptedIOException("Canceled");
+            }
+
+            cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    call.cancel();
+                }
+            });
+        }
+
+        Response response;
+
+        try {
+            response = call.execute();
+
+        } catch (IOException e) {
+
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(null);
+            }
+            throw e;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+
+        Headers responseHeaders = response.headers();
+
+        for (int i = 0; i < responseHeaders.size(); i++) {
+            headers.put(responseHeaders.name(i), responseHeaders.value(i));
+        }
+
+        ResponseBody body = response.body();
+
+        InputStream bodyStream = body.byteStream();
+
+        if (cancellationSignal != null) {
+
+            // The signal of the request is left without a listener once the response is closed
+            bodyStream = new FilterInputStream(bodyStream) {
+                @Override
+                public void close() throws IOException {
+
+                    cancellationSignal.setOnCancelListener(null);
+
+                    super.close();
+                }
+            };
+        }
+
+        return new HttpResponse(response.code(), headers, bodyStream);
+    }
+
+    /**
+     * This method sends a HEAD request to the URL and closes its response right away, which leaves an open
+     * connection to the host in the pool.
+     */
+    @Override
+    public void preconnect(String url) throws IOException {
+
+        Response response = mClient.newCall(new Request.Builder().url(url).head().build()).execute();
+
+        response.close();
+    }
+
+    /**
+     * This method returns the number of connections opened, acquired and reused by the requests.
+     */
+    @Override
+    public String getStatistics() {
+
+        long acquired = mAcquiredConnections.get();
+
+        long opened = mOpenedConnections.get();
+
+        return String.format(Locale.US, "acquired=%d opened=%d reused=%d pooled=%d idle=%d",
+                acquired, opened, Math.max(0, acquired - opened),
+                mClient.connectionPool().connectionCount(), mClient.connectionPool().idleConnectionCount());
+    }
+
+    /**
+     * This method ends the connect stage of the fetch of a call that opened a new connection.
+     */
+    private static void onConnectEnd(Call call) {
+
+        FetchTimings timings = call.request().tag(FetchTimings.class);
+
+        if (timings != null) {
+
+            timings.onConnectEnd();
+
+            FetchMetrics.endSection();
+        }
+    }
+
+    /**
+     * This method returns the number of requests that were served by a connection taken from the pool.
+     */
+    public long getReusedConnectionCount() {
+
+        return Math.max(0, mAcquiredConnections.get() - mOpenedConnections.get());
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.android.covid19guide.network;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+import com.example.android.covid19guide.R;
+
+/**
+ * Picks the shape of every request of the feed from the {@link NetworkQualityEstimator}: the number of articles of a
+ * page, whether the body texts are asked for, and the resolution of the thumbnails. On a good network the feed is
+ * requested as configured, on a slower network the light feed is requested, and the page is made small enough for
+ * the first articles to arrive within the time budget.
+ */
+public final class RequestShaper {
+
+    /**
+     * The number of articles and the fields of a request of the feed.
+     */
+    public static final class FeedShape {
+
+        private final int mPageSize;
+
+        private final boolean mIsLightFeed;
+
+        FeedShape(int pageSize, boolean isLightFeed) {
+            mPageSize = pageSize;
+            mIsLightFeed = isLightFeed;
+        }
+
+        public int getPageSize() {
+            return mPageSize;
+        }
+
+        /**
+         * This method returns true if the request asks for the small fields only, without the body texts
+         */
+        public boolean isLightFeed() {
+            return mIsLightFeed;
+        }
+
+        @Override
+        public String toString() {
+            return "pageSize=" + mPageSize + " light=" + mIsLightFeed;
+        }
+    }
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = RequestShaper.class.getSimpleName();
+
+    /**
+     * The smallest page of the feed, which still fills the screen
+     */
+    private static final int MIN_PAGE_SIZE = 5;
+
+    /**
+     * The typical number of gzip compressed bytes of an article of the light feed
+     */
+    private static final int LIGHT_FEED_ARTICLE_BYTES = 400;
+
+    /**
+     * The widths of the renditions of the thumbnails on media.guim.co.uk
+     */
+    private static final int SMALL_THUMBNAIL_WIDTH = 140;
+
+    private static final int MEDIUM_THUMBNAIL_WIDTH = 500;
+
+    private static final int LARGE_THUMBNAIL_WIDTH = 1000;
+
+    /**
+     * The host of the thumbnails, whose URLs end with the width of the rendition
+     */
+    private static final String THUMBNAIL_HOST = "media.guim.co.uk/";
+
+    /**
+     * The single instance of the shaper that is shared by the whole app
+     */
+    private static RequestShaper sInstance;
+
+    private final NetworkQualityEstimate mEstimator;
+
+    /**
+     * The page size and the fields of the feed as configured, which a good network gets
+     */
+    private final int mMaxPageSize;
+
+    private final boolean mIsLightFeedPreferred;
+
+    /**
+     * The time in which the first articles should arrive, however slow the network
+     */
+    private final long mFirstArticleBudgetMillis;
+
+    /**
+     * The quality of the last request that was shaped, to log the changes of the policy
+     */
+    private NetworkQualityEstimator.Quality mLastQuality;
+
+    /**
+     * Constructs a new {@link RequestShaper}.
+     *
+     * @param estimator                estimates the quality of the network
+     * @param maxPageSize              is the number of articles of a page on a good network
+     * @param isLightFeedPreferred     is true if the light feed is requested even on a good network
+     * @param firstArticleBudgetMillis is the time in which the first articles should arrive
+     */
+    public RequestShaper(NetworkQualityEstimate estimator, int maxPageSize, boolean isLightFeedPreferred,
+                         long firstArticleBudgetMillis) {
+
+        mEstimator = estimator;
+
+        mMaxPageSize = maxPageSize;
+
+        mIsLightFeedPreferred = isLightFeedPreferred;
+
+        mFirstArticleBudgetMillis = firstArticleBudgetMillis;
+    }
+
+    /**
+     * This method returns the single instance of the {@link RequestShaper}, configured by the resources of the app.
+     *
+     * @param context of the app
+     */
+    public static synchronized RequestShaper getInstance(Context context) {
+
+        if (sInstance == null) {
+
+            Resources resources = context.getResources();
+
+            sInstance = new RequestShaper(NetworkQualityEstimator.getInstance(context),
+                    resources.getInteger(R.integer.feed_page_size),
+                    resources.getBoolean(R.bool.feed_light_payload),
+                    resources.getInteger(R.integer.first_article_budget_millis));
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method returns the shape of the next request of the feed for the current quality of the network.
+     */
+    public synchronized FeedShape getFeedShape() {
+
+        NetworkQualityEstimator.Quality quality = mEstimator.getQuality();
+
+        FeedShape shape;
+
+        if (quality == NetworkQualityEstimator.Quality.GOOD || quality == NetworkQualityEstimator.Quality.OFFLINE) {
+
+            shape = new FeedShape(mMaxPageSize, mIsLightFeedPreferred);
+
+        } else {
+
+            // The queries of the feed are downloaded at the same time, so the page shares the throughput. The round
+            // trip time is measured to the first byte of the responses, the handshakes are already in it
+            double transferBudgetMillis = mFirstArticleBudgetMillis - mEstimator.getRttMillis();
+
+            int pageSize = (int) (transferBudgetMillis * mEstimator.getThroughputKbps() / 8 / LIGHT_FEED_ARTICLE_BYTES);
+
+            shape = new FeedShape(Math.max(MIN_PAGE_SIZE, Math.min(mMaxPageSize, pageSize)), true);
+        }
+
+        if (quality != mLastQuality) {
+
+            mLastQuality = quality;
+
+            Log.i(LOG_TAG, "Feed requests for a " + quality + " network: " + shape + " thumbnails="
+                    + getThumbnailWidth(Integer.MAX_VALUE) + ", " + mEstimator.getStatistics());
+        }
+
+        return shape;
+    }
+
+    /**
+     * This method returns the width of the thumbnail rendition to download for the current quality of the network.
+     *
+     * @param displayWidth is the width at which the thumbnail is displayed
+     */
+    public int getThumbnailWidth(int displayWidth) {
+
+        switch (mEstimator.getQuality()) {
+
+            case POOR:
+                return SMALL_THUMBNAIL_WIDTH;
+
+            case GOOD:
+                return displayWidth > MEDIUM_THUMBNAIL_WIDTH && !mEstimator.isMetered()
+                        ? LARGE_THUMBNAIL_WIDTH : MEDIUM_THUMBNAIL_WIDTH;
+
+            default:
+                return MEDIUM_THUMBNAIL_WIDTH;
+        }
+    }
+
+    /**
+     * This method returns the widths of all the thumbnail renditions that {@link #getThumbnailWidth(int)} may return
+     * for a display width, whatever the quality of the network, smallest first.
+     *
+     * @param displayWidth is the width at which the thumbnail is displayed
+     */
+    public static int[] getThumbnailWidths(int displayWidth) {
+
+        return displayWidth > MEDIUM_THUMBNAIL_WIDTH
+                ? new int[]{SMALL_THUMBNAIL_WIDTH, MEDIUM_THUMBNAIL_WIDTH, LARGE_THUMBNAIL_WIDTH}
+                : new int[]{SMALL_THUMBNAIL_WIDTH, MEDIUM_THUMBNAIL_WIDTH};
+    }
+
+    /**
+     * This method returns the URL of the rendition of a thumbnail for the current quality of the network.
+     *
+     * @param thumbnailUrl is the URL of the thumbnail from the Guardian API, such as .../0_0_3000_1800/500.jpg
+     * @param displayWidth is the width at which the thumbnail is displayed
+     * @return String: the URL of the rendition, or the URL itself if it is not a rendition of media.guim.co.uk
+     */
+    public String getThumbnailUrl(String thumbnailUrl, int displayWidth) {
+
+        return withWidth(thumbnailUrl, getThumbnailWidth(displayWidth));
+    }
+
+    /**
+     * This method replaces the width at the end of the URL of a rendition of media.guim.co.uk.
+     */
+    public static String withWidth(String thumbnailUrl, int width) {
+
+        if (thumbnailUrl == null || !thumbnailUrl.contains(THUMBNAIL_HOST)) {
+            return thumbnailUrl;
+        }
+
+        int nameStart = thumbnailUrl.lastIndexOf('/') + 1;
+
+        int extensionStart = thumbnailUrl.indexOf('.', nameStart);
+
+        if (extensionStart <= nameStart) {
+            return thumbnailUrl;
+        }
+
+        for (int i = nameStart; i < extensionStart; i++) {
+
+            if (!Character.isDigit(thumbnailUrl.charAt(i))) {
+                return thumbnailUrl;
+            }
+        }
+
+        return thumbnailUrl.substring(0, nameStart) + width + thumbnailUrl.substring(extensionStart);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.android.covid19guide.network;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts the bytes transferred and the time spent parsing for every kind of request, so that the light and the full
+ * feed, and the batch requests for the bodies, can be compared.
+ */
+public class TransferStatistics {
+
+    /**
+     * The totals of every kind of request, keyed by the name of the kind
+     */
+    private final Map<String, long[]> mTotals = new TreeMap<>();
+
+    /**
+     * Indexes of the totals of a kind of request
+     */
+    private static final int REQUESTS = 0;
+
+    private static final int BYTES = 1;
+
+    private static final int PARSE_NANOS = 2;
+
+    private static final int ARTICLES = 3;
+
+    /**
+     * This method adds a response to the totals of its kind of request.
+     *
+     * @param kind        is the kind of request, for example the fields that were requested
+     * @param wireBytes   is the number of bytes received from the network
+     * @param parseNanos  is the time spent parsing the response
+     * @param resultCount is the number of results parsed from the response
+     */
+    public synchronized void record(String kind, long wireBytes, long parseNanos, int resultCount) {
+
+        long[] totals = mTotals.get(kind);
+
+        if (totals == null) {
+
+            totals = new long[4];
+
+            mTotals.put(kind, totals);
+        }
+
+        totals[REQUESTS]++;
+        totals[BYTES] += wireBytes;
+        totals[PARSE_NANOS] += parseNanos;
+        totals[ARTICLES] += resultCount;
+    }
+
+    /**
+     * This method returns the average number of bytes per request of a kind, or 0 if there was no such request.
+     */
+    public synchronized long getAverageBytes(String kind) {
+
+        long[] totals = mTotals.get(kind);
+
+        return totals == null ? 0 : totals[BYTES] / totals[REQUESTS];
+    }
+
+    /**
+     * This method returns the average bytes, parse time and results per request of every kind as a readable String.
+     */
+    public synchronized String getSummary() {
+
+        StringBuilder summary = new StringBuilder();
+
+        for (Map.Entry<String, long[]> entry : mTotals.entrySet()) {
+
+            long[] totals = entry.getValue();
+
+            summary.append(String.format(Locale.US, "[%s] requests=%d bytes/request=%d parse/request=%.1fms results/request=%d ",
+                    entry.getKey(), totals[REQUESTS], totals[BYTES] / totals[REQUESTS],
+                    totals[PARSE_NANOS] / 1e6 / totals[REQUESTS], totals[ARTICLES] / totals[REQUESTS]));
+        }
+
+        return summary.toString().trim();
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.android.covid19guide.reader;
+
+import android.content.ActivityNotFoundException;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.browser.customtabs.CustomTabsCallback;
+import androidx.browser.customtabs.CustomTabsClient;
+import androidx.browser.customtabs.CustomTabsIntent;
+import androidx.browser.customtabs.CustomTabsService;
+import androidx.browser.customtabs.CustomTabsServiceConnection;
+import androidx.browser.customtabs.CustomTabsSession;
+import androidx.core.content.ContextCompat;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.network.NetworkQualityEstimator;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens the original pages of the articles in a Custom Tab. While the feed or the reader is on screen, the browser
+ * service is bound and warmed up, and the browser is told which pages the user is likely to open next, the first one
+ * of which it may load ahead. When no browser provides Custom Tabs, the pages are opened with a plain
+ * {@link Intent#ACTION_VIEW}. All the methods are called on the main thread.
+ */
+public final class ArticleBrowser {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleBrowser.class.getSimpleName();
+
+    /**
+     * The number of pages that the browser is told about on a metered network, where a page loaded ahead for nothing
+     * costs the user
+     */
+    private static final int METERED_MAX_LIKELY_URLS = 1;
+
+    /**
+     * The single instance of the browser that is shared by the whole app
+     */
+    private static ArticleBrowser sInstance;
+
+    private final Context mContext;
+
+    /**
+     * The number of pages that the browser is told about at most
+     */
+    private final int mMaxLikelyUrls;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The number of screens that use the browser, the service is bound while it is above 0
+     */
+    private int mBindCount;
+
+    private CustomTabsServiceConnection mConnection;
+
+    /**
+     * The session of the warmed up browser, or null while the service is not connected
+     */
+    private CustomTabsSession mSession;
+
+    /**
+     * The pages that the browser was last told about, so that it is not told about the same pages again
+     */
+    private List<String> mLikelyUrls = new ArrayList<>();
+
+    /**
+     * The time at which the user opened the last page, from {@link System#nanoTime()}, or 0 once it has loaded
+     */
+    private long mOpenedAtNanos;
+
+    private ArticleBrowser(Context context) {
+
+        mContext = context.getApplicationContext();
+
+        mMaxLikelyUrls = mContext.getResources().getInteger(R.integer.browser_likely_url_count);
+    }
+
+    /**
+     * This method returns the single instance of the {@link ArticleBrowser}.
+     *
+     * @param context of the app
+     */
+    public static synchronized ArticleBrowser getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new ArticleBrowser(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method binds and warms up the browser service, when a screen that opens pages comes on screen. Every call
+     * must be followed by a call to {@link #unbind()}.
+     */
+    public void bind() {
+
+        if (mBindCount++ > 0) {
+            return;
+        }
+
+        String packageName = CustomTabsClient.getPackageName(mContext, null);
+
+        if (packageName == null) {
+
+            Log.i(LOG_TAG, "No browser provides Custom Tabs, the pages are opened in the default browser");
+
+            return;
+        }
+
+        mConnection = new CustomTabsServiceConnection() {
+            @Override
+            public void onCustomTabsServiceConnected(ComponentName name, CustomTabsClient client) {
+
+                client.warmup(0);
+
+                mSession = client.newSession(new NavigationCallback());
+
+                // The browser is told again about the pages of the cards on screen
+                List<String> likelyUrls = mLikelyUrls;
+
+                mLikelyUrls = new ArrayList<>();
+
+                mayLaunchUrls(likelyUrls);
+            }
+
+            @Override
+            public void onServiceDisconnected(ComponentName name) {
+
+                mSession = null;
+            }
+        };
+
+        if (!CustomTabsClient.bindCustomTabsService(mContext, packageName, mConnection)) {
+            mConnection = null;
+        }
+    }
+
+    /**
+     * This method unbinds the browser service once no screen that opens pages is on screen.
+     */
+    public void unbind() {
+
+        if (--mBindCount > 0 || mConnection == null) {
+            return;
+        }
+
+        mContext.unbindService(mConnection);
+
+        mConnection = null;
+
+        mSession = null;
+    }
+
+    /**
+     * This method tells the browser which pages the user is likely to open next, the most likely first. Only the first
+     * pages within the budget are told, a single one on a metered network, and the browser may load the first one
+     * ahead.
+     *
+     * @param urls are the URLs of the pages, for example of the cards on screen
+     */
+    public void mayLaunchUrls(List<String> urls) {
+
+        int maxLikelyUrls = NetworkQualityEstimator.getInstance(mContext).isMetered()
+                ? METERED_MAX_LIKELY_URLS : mMaxLikelyUrls;
+
+        List<String> likelyUrls = new ArrayList<>(urls.subList(0, Math.min(urls.size(), maxLikelyUrls)));
+
+        if (likelyUrls.isEmpty() || likelyUrls.equals(mLikelyUrls)) {
+            return;
+        }
+
+        mLikelyUrls = likelyUrls;
+
+        if (mSession == null) {
+            return;
+        }
+
+        List<Bundle> otherLikelyBundles = new ArrayList<>();
+
+        for (String url : likelyUrls.subList(1, likelyUrls.size())) {
+
+            Bundle bundle = new Bundle();
+
+            bundle.putParcelable(CustomTabsService.KEY_URL, Uri.parse(url));
+
+            otherLikelyBundles.add(bundle);
+        }
+
+        mSession.mayLaunchUrl(Uri.parse(likelyUrls.get(0)), null, otherLikelyBundles);
+    }
+
+    /**
+     * This method opens a page in a Custom Tab of the warmed up browser, or in the default browser when no browser
+     * provides Custom Tabs.
+     *
+     * @param context is the activity that opens the page
+     * @param url     is the URL of the page
+     * @return boolean: true if a browser was found to open the page
+     */
+    public boolean open(Context context, String url) {
+
+        Uri uri = Uri.parse(url);
+
+        mOpenedAtNanos = System.nanoTime();
+
+        if (mSession != null) {
+
+            CustomTabsIntent customTabsIntent = new CustomTabsIntent.Builder(mSession)
+                    .setToolbarColor(ContextCompat.getColor(context, R.color.colorPrimary))
+                    .setShowTitle(true)
+                    .build();
+
+            try {
+                customTabsIntent.launchUrl(context, uri);
+
+                return true;
+
+            } catch (ActivityNotFoundException e) {
+
+                Log.e(LOG_TAG, "Problem opening the page in a Custom Tab ", e);
+            }
+        }
+
+        // Create a new intent to view the article URI
+        Intent websiteIntent = new Intent(Intent.ACTION_VIEW, uri);
+
+        // Send the intent to launch a new activity
+        if (websiteIntent.resolveActivity(context.getPackageManager()) != null) {
+
+            context.startActivity(websiteIntent);
+
+            return true;
+        }
+
+        mOpenedAtNanos = 0;
+
+        return false;
+    }
+
+    /**
+     * Records the time from the tap to the page loaded in the Custom Tab. The browser calls it on one of its binder
+     * threads.
+     */
+    private final class NavigationCallback extends CustomTabsCallback {
+
+        @Override
+        public void onNavigationEvent(final int navigationEvent, Bundle extras) {
+
+            final long eventNanos = System.nanoTime();
+
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+
+                    if (mOpenedAtNanos == 0) {
+                        return;
+                    }
+
+                    if (navigationEvent == NAVIGATION_FINISHED) {
+
+                        ReaderStatistics.recordCustomTabLoaded(eventNanos - mOpenedAtNanos);
+
+                        mOpenedAtNanos = 0;
+
+                    } else if (navigationEvent == NAVIGATION_FAILED || navigationEvent == NAVIGATION_ABORTED) {
+
+                        mOpenedAtNanos = 0;
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.android.covid19guide.reader;
+
+import android.util.Log;
+import com.example.android.covid19guide.network.LatencyHistogram;
+import java.util.Locale;
+
+/**
+ * Times how long an article takes to become readable: in the reader of the app, from the tap on the card to the body
+ * drawn on screen, and in the browser, from the tap on the link to the browser covering the app. The browser still
+ * has to load and lay out the page after that, which the app can only see in a Custom Tab, where the time to the page
+ * loaded is recorded too. The times are written to logcat from time to time. All the methods are called on the main
+ * thread.
+ */
+public final class ReaderStatistics {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ReaderStatistics.class.getSimpleName();
+
+    /**
+     * The statistics are logged every time this number of articles have been opened
+     */
+    private static final int LOG_INTERVAL = 10;
+
+    /**
+     * The names of the sources of the bodies, in the order of their constants
+     */
+    private static final String[] SOURCE_NAMES = {"memory", "device", "network"};
+
+    /**
+     * The times to readable of the reader by the source of the body, and of the browser
+     */
+    private static final LatencyHistogram[] sReaderHistograms = {
+            new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+
+    private static final LatencyHistogram sBrowserHistogram = new LatencyHistogram();
+
+    private static final LatencyHistogram sCustomTabLoadedHistogram = new LatencyHistogram();
+
+    /**
+     * The number of articles that could not be read because their body is neither on the device nor downloadable
+     */
+    private static long sUnavailableCount;
+
+    /**
+     * Create a private constructor because we don't want to create a {@link ReaderStatistics} object.
+     */
+    private ReaderStatistics() {
+    }
+
+    /**
+     * This method records the time from the tap on a card to its body drawn in the reader.
+     *
+     * @param source is where the body was read from, one of the SOURCE constants of
+     *               {@link com.example.android.covid19guide.repository.ArticlesRepository.ArticleBody}
+     */
+    public static void recordReader(int source, long nanos) {
+
+        sReaderHistograms[source].record(nanos);
+
+        logFromTimeToTime();
+    }
+
+    /**
+     * This method records the time from the tap on the link of an article to the browser covering the app.
+     */
+    public static void recordBrowser(long nanos) {
+
+        sBrowserHistogram.record(nanos);
+
+        logFromTimeToTime();
+    }
+
+    /**
+     * This method records the time from the tap on the link of an article to its page loaded in a Custom Tab.
+     */
+    public static void recordCustomTabLoaded(long nanos) {
+
+        sCustomTabLoadedHistogram.record(nanos);
+    }
+
+    /**
+     * This method counts an article whose body could not be read, offline and not on the device.
+     */
+    public static void recordUnavailable() {
+
+        sUnavailableCount++;
+    }
+
+    private static void logFromTimeToTime() {
+
+        long count = sBrowserHistogram.getCount();
+
+        for (LatencyHistogram histogram : sReaderHistograms) {
+            count += histogram.getCount();
+        }
+
+        if (count % LOG_INTERVAL == 0) {
+            Log.i(LOG_TAG, getSummary());
+        }
+    }
+
+    /**
+     * This method returns the median and the 90th percentile of the times to readable as a readable String.
+     */
+    public static String getSummary() {
+
+        StringBuilder summary = new StringBuilder();
+
+        for (int source = 0; source < sReaderHistograms.length; source++) {
+            append(summary, "reader/" + SOURCE_NAMES[source], sReaderHistograms[source]);
+        }
+
+        append(summary, "browser", sBrowserHistogram);
+
+        append(summary, "customTab/loaded", sCustomTabLoadedHistogram);
+
+        return summary.append("unavailable=").append(sUnavailableCount).toString();
+    }
+
+    private static void append(StringBuilder summary, String name, LatencyHistogram histogram) {
+
+        if (histogram.getCount() > 0) {
+            summary.append(String.format(Locale.US, "%s: n=%d p50=%.0fms p90=%.0fms ", name, histogram.getCount(),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(90)));
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.android.covid19guide.repository;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.data.ArticlesSearchIndex;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.FetchMetrics;
+import com.example.android.covid19guide.startup.StartupPrefetcher;
+import com.example.android.covid19guide.utils.ArticleBodyFetcher;
+import com.example.android.covid19guide.utils.FeedFanOutFetcher;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import com.example.android.covid19guide.utils.QueryUtils;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single source of the News' Articles of the app. It reads the stored feed and downloads the pages of the feed
+ * on its executor, with {@link QueryUtils} doing the network I/O underneath, and delivers the results on the main
+ * thread. Every load returns a {@link Task} which cancels the download and the parsing when the screen that asked
+ * for it is gone.
+ */
+public final class ArticlesRepository {
+
+    /**
+     * Callback that receives the result of a load on the main thread, unless the load was canceled.
+     */
+    public interface Callback<T> {
+
+        void onResult(T result);
+    }
+
+    /**
+     * The feed that is stored on the device for a query.
+     */
+    public static final class StoredFeed {
+
+        private final List<Article> mArticles;
+
+        private final boolean mIsFresh;
+
+        StoredFeed(List<Article> articles, boolean isFresh) {
+            mArticles = articles;
+            mIsFresh = isFresh;
+        }
+
+        /**
+         * This method returns the stored articles, or null if the feed is not stored on the device
+         */
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        /**
+         * This method returns true if the feed is young enough to be displayed without a refresh from the network
+         */
+        public boolean isFresh() {
+            return mIsFresh;
+        }
+    }
+
+    /**
+     * The full body of an article together with where it was read from.
+     */
+    public static final class ArticleBody {
+
+        /**
+         * Where a body is read from
+         */
+        public static final int SOURCE_MEMORY = 0;
+
+        public static final int SOURCE_DEVICE = 1;
+
+        public static final int SOURCE_NETWORK = 2;
+
+        private final String mText;
+
+        private final int mSource;
+
+        ArticleBody(String text, int source) {
+            mText = text;
+            mSource = source;
+        }
+
+        public String getText() {
+            return mText;
+        }
+
+        /**
+         * This method returns where the body was read from, one of the SOURCE constants
+         */
+        public int getSource() {
+            return mSource;
+        }
+    }
+
+    /**
+     * A load that is running in the background, which can be canceled.
+     */
+    public static final class Task {
+
+        private final CancellationSignal mCancellationSignal = new CancellationSignal();
+
+        /**
+         * This method cancels the load, its download and parsing are stopped and its callback is not called.
+         */
+        public void cancel() {
+            mCancellationSignal.cancel();
+        }
+
+        /**
+         * This method returns true once the load has been canceled.
+         */
+        public boolean isCanceled() {
+            return mCancellationSignal.isCanceled();
+        }
+    }
+
+    /**
+     * The number of threads of the default executor, so that a page can be downloaded while the store is written
+     */
+    private static final int DEFAULT_THREAD_COUNT = 2;
+
+    /**
+     * The single instance of the repository that is shared by the whole app
+     */
+    private static ArticlesRepository sInstance;
+
+    private final Context mContext;
+
+    /**
+     * The executor that the loads run on
+     */
+    private final Executor mExecutor;
+
+    /**
+     * The thread that searches the downloaded articles, so that a search never waits behind a download
+     */
+    private final Executor mSearchExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The handler that delivers the results on the main thread
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructs a new {@link ArticlesRepository} which runs its loads on the given executor.
+     *
+     * @param context  of the app
+     * @param executor is the executor that the loads run on
+     */
+    public ArticlesRepository(Context context, Executor executor) {
+
+        mContext = context.getApplicationContext();
+
+        mExecutor = executor;
+    }
+
+    /**
+     * This method returns the single instance of the {@link ArticlesRepository}, which runs its loads on a small
+     * pool of background threads.
+     *
+     * @param context of the app
+     */
+    public static synchronized ArticlesRepository getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new ArticlesRepository(context, Executors.newFixedThreadPool(DEFAULT_THREAD_COUNT));
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method reads the stored feed, and whether it is fresh enough to be displayed without a refresh.
+     *
+     * @param feed     is the feed
+     * @param callback is told the stored feed on the main thread
+     * @return Task: the load, which can be canceled
+     */
+    public Task loadStoredFeed(final GuardianFeed feed, final Callback<StoredFeed> callback) {
+
+        final Task task = new Task();
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (task.isCanceled()) {
+                    return;
+                }
+
+                ArticlesStore store = ArticlesStore.getInstance(mContext);
+
+                String queryKey = ArticlesStore.normalizeFeed(feed);
+
+                long maxAgeMillis = TimeUnit.MINUTES.toMillis(
+                        mContext.getResources().getInteger(R.integer.feed_max_age_minutes));
+
+                long fetchedAtMillis = store.getFeedFetchedAtMillis(queryKey);
+
+                boolean isFresh = fetchedAtMillis >= 0 && System.currentTimeMillis() - fetchedAtMillis < maxAgeMillis;
+
+                // The stored feed may already be read, or being read, by the prefetch started with the process, which
+                // is only taken if it read the same feed that the freshness was computed from
+                List<Article> articles = StartupPrefetcher.takeStoredArticles(feed, fetchedAtMillis);
+
+                if (articles == null) {
+                    articles = store.loadArticles(queryKey);
+                }
+
+                deliver(task, callback, new StoredFeed(articles, isFresh && articles != null && !articles.isEmpty()));
+            }
+        });
+
+        return task;
+    }
+
+    /**
+     * This method loads a page of the feed. The first page may already be downloaded by the prefetch started with the
+     * process, otherwise the queries of the feed are downloaded together by the {@link FeedFanOutFetcher}. While they
+     * are downloaded, their articles are delivered ahead of the page as soon as they are decoded, the first few one by
+     * one and the next ones at most once a frame.
+     *
+     * @param feed             is the feed
+     * @param page             is the number of the page, starting at 1
+     * @param pageSize         is the number of articles of every page
+     * @param callback         is told the page on the main thread, or null if the download failed
+     * @param progressCallback is told the articles decoded since it was last told on the main thread, in the order of
+     *                         their queries and with the duplicates of the queries, until the page is delivered. It
+     *                         may be null
+     * @return Task: the load, which can be canceled
+     */
+    public Task loadPage(final GuardianFeed feed, final int page, final int pageSize,
+                         final Callback<FeedFanOutFetcher.Page> callback,
+                         Callback<List<Article>> progressCallback) {
+
+        final Task task = new Task();
+
+        final boolean isTimed = FetchMetrics.isEnabled();
+
+        final long submittedNanos = System.nanoTime();
+
+        final ProgressivePageDelivery progressiveDelivery = progressCallback == null
+                ? null : new ProgressivePageDelivery(task, progressCallback, mMainHandler, submittedNanos);
+
+        // The articles delivered ahead are dropped once the whole page is delivered
+        final Callback<FeedFanOutFetcher.Page> pageCallback = progressiveDelivery == null
+                ? callback : new Callback<FeedFanOutFetcher.Page>() {
+            @Override
+            public void onResult(FeedFanOutFetcher.Page feedPage) {
+
+                progressiveDelivery.finish(feedPage == null ? 0 : feedPage.getArticles().size());
+
+                callback.onResult(feedPage);
+            }
+        };
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (isTimed) {
+                    FetchMetrics.recordStage(FetchMetrics.Stage.QUEUE_DELAY, System.nanoTime() - submittedNanos);
+                }
+
+                if (task.isCanceled()) {
+                    return;
+                }
+
+                Future<FeedFanOutFetcher.Page> prefetchedPage = page == 1
+                        ? StartupPrefetcher.takeFirstPage(feed, pageSize) : null;
+
+                FeedFanOutFetcher.Page feedPage = prefetchedPage != null
+                        ? StartupPrefetcher.getResult(prefetchedPage) : null;
+
+                // The prefetch does not download the first page when the stored feed is fresh, and its download may
+                // fail
+                if (feedPage == null && !task.isCanceled()) {
+                    feedPage = FeedFanOutFetcher.fetchPage(feed, page, pageSize, task.mCancellationSignal,
+                            progressiveDelivery);
+                }
+
+                deliver(task, pageCallback, feedPage, isTimed);
+            }
+        });
+
+        return task;
+    }
+
+    /**
+     * This method keeps the whole feed on the device in the background, so that the next start of the app can
+     * display it right away.
+     *
+     * @param feed     is the feed
+     * @param articles is the list of articles of all the pages loaded so far
+     */
+    public void saveFeed(final GuardianFeed feed, final List<Article> articles) {
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                ArticlesStore.getInstance(mContext).saveArticles(ArticlesStore.normalizeFeed(feed), articles);
+            }
+        });
+    }
+
+    /**
+     * This method searches the articles downloaded so far in the on-device full-text index, without any network.
+     *
+     * @param text     is the text typed by the user
+     * @param limit    is the maximum number of articles delivered
+     * @param callback is told the best matches first on the main thread
+     * @return Task: the search, which can be canceled
+     */
+    public Task search(final String text, final int limit, final Callback<List<Article>> callback) {
+
+        final Task task = new Task();
+
+        mSearchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                // A search that was replaced by the next letters typed is not run at all
+                if (task.isCanceled()) {
+                    return;
+                }
+
+                deliver(task, callback, ArticlesSearchIndex.getInstance(mContext).search(text, limit));
+            }
+        });
+
+        return task;
+    }
+
+    /**
+     * This method loads the full body of an article for the reader: from memory, then from the on-device index of
+     * the downloaded articles, and only when neither holds it from the network.
+     *
+     * @param article  is the article
+     * @param callback is told the body on the main thread, or null if it is not on the device and could not be
+     *                 downloaded
+     * @return Task: the load, which can be canceled
+     */
+    public Task loadArticleBody(final Article article, final Callback<ArticleBody> callback) {
+
+        final Task task = new Task();
+
+        final ArticleBodyFetcher bodyFetcher = ArticleBodyFetcher.getInstance();
+
+        String cachedBody = bodyFetcher.getBody(article.getId());
+
+        if (cachedBody != null) {
+
+            deliver(task, callback, new ArticleBody(cachedBody, ArticleBody.SOURCE_MEMORY));
+
+            return task;
+        }
+
+        // The index is read on the thread of the searches, so that an offline article does not wait behind a
+        // download of the feed, and only a body that is not on the device is downloaded with the feed
+        mSearchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (task.isCanceled()) {
+                    return;
+                }
+
+                String body = ArticlesSearchIndex.getInstance(mContext).loadBody(article.getId());
+
+                if (body != null) {
+
+                    bodyFetcher.putBody(article.getId(), body);
+
+                    deliver(task, callback, new ArticleBody(body, ArticleBody.SOURCE_DEVICE));
+
+                    return;
+                }
+
+                mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+
+                        if (task.isCanceled()) {
+                            return;
+                        }
+
+                        String downloadedBody = bodyFetcher.fetchBody(article.getId());
+
+                        deliver(task, callback, downloadedBody == null
+                                ? null : new ArticleBody(downloadedBody, ArticleBody.SOURCE_NETWORK));
+                    }
+                });
+            }
+        });
+
+        return task;
+    }
+
+    /**
+     * This method delivers a result on the main thread, unless the task has been canceled by then.
+     */
+    private <T> void deliver(Task task, Callback<T> callback, T result) {
+
+        deliver(task, callback, result, false);
+    }
+
+    /**
+     * This method delivers a result on the main thread like {@link #deliver(Task, Callback, Object)}, and records the
+     * time until the callback returns as the delivery stage of the {@link FetchMetrics} if the delivery is timed.
+     */
+    private <T> void deliver(final Task task, final Callback<T> callback, final T result, final boolean isTimed) {
+
+        final long postedNanos = isTimed ? System.nanoTime() : 0;
+
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+
+                if (task.isCanceled()) {
+                    return;
+                }
+
+                if (!isTimed) {
+
+                    callback.onResult(result);
+
+                    return;
+                }
+
+                FetchMetrics.beginSection(FetchMetrics.Stage.DELIVERY);
+
+                try {
+                    callback.onResult(result);
+
+                } finally {
+
+                    FetchMetrics.endSection();
+                }
+
+                FetchMetrics.recordStage(FetchMetrics.Stage.DELIVERY, System.nanoTime() - postedNanos);
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.android.covid19guide.repository;
+
+import android.util.Log;
+import com.example.android.covid19guide.network.LatencyHistogram;
+import java.util.Locale;
+
+/**
+ * Times how long the pages of the feed take to reach the screen: from asking for a page to its first cards handed to
+ * the screen, and to the whole page. The first cards of a page that is downloaded are delivered while the rest of it
+ * is still being received, so the time to the first card should stay the same however large the pages are. The times
+ * are written to logcat from time to time. All the methods are called on the main thread.
+ */
+public final class FeedDeliveryStatistics {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedDeliveryStatistics.class.getSimpleName();
+
+    /**
+     * The statistics are logged every time this number of pages have been delivered
+     */
+    private static final int LOG_INTERVAL = 5;
+
+    private static final LatencyHistogram sFirstCardHistogram = new LatencyHistogram();
+
+    private static final LatencyHistogram sCompleteHistogram = new LatencyHistogram();
+
+    /**
+     * The number of articles delivered ahead of their page, and of all the pages
+     */
+    private static long sEarlyArticleCount;
+
+    private static long sArticleCount;
+
+    /**
+     * Create a private constructor because we don't want to create a {@link FeedDeliveryStatistics} object.
+     */
+    private FeedDeliveryStatistics() {
+    }
+
+    /**
+     * This method records the delivery of a page of the feed.
+     *
+     * @param firstCardNanos    is the time from asking for the page to its first cards delivered
+     * @param completeNanos     is the time from asking for the page to the whole page delivered
+     * @param earlyArticleCount is the number of articles that were delivered before the whole page
+     * @param articleCount      is the number of articles of the page
+     */
+    public static void recordPage(long firstCardNanos, long completeNanos, int earlyArticleCount, int articleCount) {
+
+        sFirstCardHistogram.record(firstCardNanos);
+
+        sCompleteHistogram.record(completeNanos);
+
+        sEarlyArticleCount += earlyArticleCount;
+
+        sArticleCount += articleCount;
+
+        if (sCompleteHistogram.getCount() % LOG_INTERVAL == 0) {
+            Log.i(LOG_TAG, getSummary());
+        }
+    }
+
+    public static LatencyHistogram getFirstCardHistogram() {
+        return sFirstCardHistogram;
+    }
+
+    public static LatencyHistogram getCompleteHistogram() {
+        return sCompleteHistogram;
+    }
+
+    /**
+     * This method returns the times of all the pages as a readable String.
+     */
+    public static String getSummary() {
+
+        return String.format(Locale.US, "first card: %s | complete: %s | early articles=%d/%d", sFirstCardHistogram,
+                sCompleteHistogram, sEarlyArticleCount, sArticleCount);
+    }
+}
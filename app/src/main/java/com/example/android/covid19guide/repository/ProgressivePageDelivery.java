@@ -0,0 +1,189 @@
+package com.example.android.covid19guide.repository;
+
+import android.os.Handler;
+import android.view.Choreographer;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.utils.ArticlesJsonDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the articles of a page to the screen while the page is still being downloaded. The first cards are delivered
+ * as soon as they are decoded, so that the time to the first card does not depend on the size of the page, and the
+ * later articles are collected and delivered in batches of at most one per frame, so that appending the cards never
+ * adds to a frame that is already late. The articles are told about on the threads of the queries, and delivered on
+ * the main thread.
+ */
+final class ProgressivePageDelivery
+        implements ArticlesJsonDecoder.OnArticleDecodedListener, Choreographer.FrameCallback {
+
+    /**
+     * The number of cards that are delivered one by one as soon as they are decoded, about a screen full
+     */
+    private static final int FIRST_CARD_COUNT = 3;
+
+    /**
+     * The duration of a frame at 60 frames per second. A frame that starts later than half a frame after its vsync
+     * is busy enough, the batch waits for the next one
+     */
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private final ArticlesRepository.Task mTask;
+
+    private final ArticlesRepository.Callback<List<Article>> mCallback;
+
+    private final Handler mMainHandler;
+
+    /**
+     * The time at which the page was asked for, from {@link System#nanoTime()}
+     */
+    private final long mStartNanos;
+
+    /**
+     * The articles decoded since the last batch, and whether a batch is scheduled, guarded by the delivery
+     */
+    private List<Article> mPendingArticles = new ArrayList<>();
+
+    private boolean mIsScheduled;
+
+    /**
+     * The state of the deliveries on the main thread
+     */
+    private int mDeliveredCount;
+
+    private long mFirstCardNanos;
+
+    private boolean mIsDeferred;
+
+    private boolean mIsFinished;
+
+    /**
+     * Schedules the next batch on the main thread, the Choreographer of a thread can only be used on it
+     */
+    private final Runnable mScheduleRunnable = new Runnable() {
+        @Override
+        public void run() {
+
+            if (mIsFinished || mTask.isCanceled()) {
+                return;
+            }
+
+            if (mDeliveredCount < FIRST_CARD_COUNT) {
+
+                deliverPendingArticles();
+
+            } else {
+
+                Choreographer.getInstance().postFrameCallback(ProgressivePageDelivery.this);
+            }
+        }
+    };
+
+    /**
+     * Constructs a new {@link ProgressivePageDelivery}.
+     *
+     * @param task        is the load of the page, nothing is delivered once it is canceled
+     * @param callback    is told about every batch of new articles on the main thread
+     * @param mainHandler is the handler of the main thread
+     * @param startNanos  is the time at which the page was asked for
+     */
+    ProgressivePageDelivery(ArticlesRepository.Task task, ArticlesRepository.Callback<List<Article>> callback,
+                            Handler mainHandler, long startNanos) {
+
+        mTask = task;
+
+        mCallback = callback;
+
+        mMainHandler = mainHandler;
+
+        mStartNanos = startNanos;
+    }
+
+    @Override
+    public void onArticleDecoded(Article article) {
+
+        boolean isScheduled;
+
+        synchronized (this) {
+
+            mPendingArticles.add(article);
+
+            isScheduled = mIsScheduled;
+
+            mIsScheduled = true;
+        }
+
+        if (!isScheduled) {
+            mMainHandler.post(mScheduleRunnable);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+
+        if (mIsFinished || mTask.isCanceled()) {
+            return;
+        }
+
+        // A frame that is already late is left to the scrolling and the cards on screen, once
+        if (!mIsDeferred && System.nanoTime() - frameTimeNanos > FRAME_NANOS / 2) {
+
+            mIsDeferred = true;
+
+            Choreographer.getInstance().postFrameCallback(this);
+
+            return;
+        }
+
+        mIsDeferred = false;
+
+        deliverPendingArticles();
+    }
+
+    /**
+     * This method is called on the main thread right before the whole page is delivered. The batches that are still
+     * pending are dropped, the page has all their articles, and the times to the first card and to the whole page are
+     * recorded.
+     *
+     * @param articleCount is the number of articles of the whole page
+     */
+    void finish(int articleCount) {
+
+        mIsFinished = true;
+
+        Choreographer.getInstance().removeFrameCallback(this);
+
+        long completeNanos = System.nanoTime() - mStartNanos;
+
+        // A page that was already downloaded comes whole, its first card comes with it
+        FeedDeliveryStatistics.recordPage(mFirstCardNanos == 0 ? completeNanos : mFirstCardNanos, completeNanos,
+                mDeliveredCount, articleCount);
+    }
+
+    private void deliverPendingArticles() {
+
+        List<Article> articles;
+
+        synchronized (this) {
+
+            articles = mPendingArticles;
+
+            mPendingArticles = new ArrayList<>();
+
+            mIsScheduled = false;
+        }
+
+        if (articles.isEmpty()) {
+            return;
+        }
+
+        if (mDeliveredCount == 0) {
+            mFirstCardNanos = System.nanoTime() - mStartNanos;
+        }
+
+        mDeliveredCount += articles.size();
+
+        mCallback.onResult(articles);
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.android.covid19guide.startup;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.utils.FeedFanOutFetcher;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import com.example.android.covid19guide.utils.QueryUtils;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts loading the feed as soon as the process starts, so that the stored feed is read and the first page is
+ * downloaded while the splash screen is still animating. The first page is not downloaded when the stored feed is
+ * fresh, for example after a background sync, so that such a launch makes no request to the network. The view model
+ * of the MainActivity then takes these results instead of starting its own requests, and the splash screen is told
+ * as soon as there is a feed to display. The results are only handed out during the launch, a result that is taken
+ * later, or a stored feed that was saved again since the prefetch read it, is read or downloaded again by the caller.
+ */
+public final class StartupPrefetcher {
+
+    /**
+     * Callback that is told on the main thread as soon as there is a feed to display, or nothing more to wait for.
+     */
+    public interface OnFeedReadyListener {
+
+        void onFeedReady();
+    }
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = StartupPrefetcher.class.getSimpleName();
+
+    /**
+     * The results of the prefetch are dropped once this time has passed since the process started it
+     */
+    private static final long MAX_RESULT_AGE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The single prefetch of the process, or null if it was not started
+     */
+    private static StartupPrefetcher sInstance;
+
+    /**
+     * Reads the store, downloads the first page and preconnects to the API in parallel
+     */
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(3);
+
+    /**
+     * The handler that tells the listener on the main thread
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The prefetched feed and the size of its first page
+     */
+    private final GuardianFeed mFeed;
+
+    private final int mPageSize;
+
+    /**
+     * The time at which the prefetch was started
+     */
+    private final long mStartedAtMillis = SystemClock.elapsedRealtime();
+
+    /**
+     * The results of the prefetch, which are set to null once they have been taken by a loader
+     */
+    private Future<List<Article>> mStoredArticles;
+
+    private Future<FeedFanOutFetcher.Page> mFirstPage;
+
+    /**
+     * The state of the prefetch, used to tell when the feed is ready
+     */
+    private boolean mIsStoredDone;
+
+    private boolean mHasStoredArticles;
+
+    private boolean mIsNetworkDone;
+
+    private final boolean mIsFetchingNetwork;
+
+    /**
+     * The download time and the age of the stored feed that was read, and whether it is fresh enough to be displayed
+     * without a refresh, all known once the feed is ready
+     */
+    private volatile long mFeedFetchedAtMillis = -1;
+
+    private volatile long mFeedAgeMillis = -1;
+
+    private volatile boolean mIsFeedFresh;
+
+    /**
+     * The listener that is told when the feed is ready, or null
+     */
+    private OnFeedReadyListener mListener;
+
+    private StartupPrefetcher(Context context) {
+
+        final Context appContext = context.getApplicationContext();
+
+        // The same shape as the one the MainActivity starts the feed with, unless the network changes in between
+        RequestShaper.FeedShape feedShape = RequestShaper.getInstance(appContext).getFeedShape();
+
+        mFeed = GuardianApi.buildFeed(feedShape.isLightFeed());
+
+        mPageSize = feedShape.getPageSize();
+
+        mIsFetchingNetwork = isConnected(appContext);
+
+        final long maxFeedAgeMillis = TimeUnit.MINUTES.toMillis(
+                appContext.getResources().getInteger(R.integer.feed_max_age_minutes));
+
+        mStoredArticles = mExecutor.submit(new Callable<List<Article>>() {
+            @Override
+            public List<Article> call() {
+
+                ArticlesStore store = ArticlesStore.getInstance(appContext);
+
+                String queryKey = ArticlesStore.normalizeFeed(mFeed);
+
+                mFeedFetchedAtMillis = store.getFeedFetchedAtMillis(queryKey);
+
+                mFeedAgeMillis = mFeedFetchedAtMillis < 0 ? -1 : System.currentTimeMillis() - mFeedFetchedAtMillis;
+
+                mIsFeedFresh = mFeedAgeMillis >= 0 && mFeedAgeMillis < maxFeedAgeMillis;
+
+                List<Article> articles = store.loadArticles(queryKey);
+
+                StartupTrace.mark(StartupTrace.PHASE_STORED_ARTICLES_READY);
+
+                onStoredDone(articles != null && !articles.isEmpty());
+
+                return articles;
+            }
+        });
+
+        if (mIsFetchingNetwork) {
+
+            mFirstPage = mExecutor.submit(new Callable<FeedFanOutFetcher.Page>() {
+                @Override
+                public FeedFanOutFetcher.Page call() {
+
+                    boolean isFeedFresh = ArticlesStore.getInstance(appContext)
+                            .isFeedFresh(ArticlesStore.normalizeFeed(mFeed), maxFeedAgeMillis);
+
+                    // A fresh stored feed is displayed as it is, the view model does not take this page then
+                    FeedFanOutFetcher.Page page = isFeedFresh
+                            ? null : FeedFanOutFetcher.fetchPage(mFeed, 1, mPageSize, null);
+
+                    StartupTrace.mark(StartupTrace.PHASE_NETWORK_ARTICLES_READY);
+
+                    onNetworkDone();
+
+                    return page;
+                }
+            });
+
+            // Open a second pooled connection to the API while the first page is downloaded, which the requests
+            // that follow the first page (the bodies of the light feed, the next page) are then sent on
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+
+                    QueryUtils.preconnect(GuardianApi.getBaseUrl());
+
+                    StartupTrace.mark(StartupTrace.PHASE_API_PRECONNECTED);
+                }
+            });
+        }
+
+        // The threads are no longer needed once the prefetch is done
+        mExecutor.shutdown();
+    }
+
+    /**
+     * This method starts the prefetch of the feed when the app is about to be displayed. It is only called from a
+     * process that shows the app, a process started for a background sync downloads the feed itself. It does nothing
+     * while the prefetch of the current launch is running.
+     *
+     * @param context of the app
+     */
+    public static synchronized void start(Context context) {
+
+        if (getLiveInstance() == null) {
+            sInstance = new StartupPrefetcher(context);
+        }
+    }
+
+    /**
+     * This method takes the stored feed that was read by the prefetch. It waits for the read if it is still running.
+     *
+     * @param feed            is the feed
+     * @param fetchedAtMillis is the download time of the feed that is in the store now, as read by the caller
+     * @return List<Article>: the stored articles, or null if the prefetch did not read this feed, its result was
+     * already taken or is too old, or the feed was saved again since it was read, in which case the caller reads the
+     * store itself
+     */
+    public static List<Article> takeStoredArticles(GuardianFeed feed, long fetchedAtMillis) {
+
+        StartupPrefetcher prefetcher;
+
+        Future<List<Article>> storedArticles;
+
+        synchronized (StartupPrefetcher.class) {
+
+            prefetcher = getLiveInstance();
+
+            if (prefetcher == null || !prefetcher.mFeed.equals(feed)) {
+                return null;
+            }
+
+            storedArticles = prefetcher.mStoredArticles;
+
+            prefetcher.mStoredArticles = null;
+        }
+
+        if (storedArticles == null) {
+            return null;
+        }
+
+        // The read is waited for without the lock, which it takes when it is done
+        List<Article> articles = getResult(storedArticles);
+
+        // A background sync or the feed itself may have saved a newer feed since the prefetch read it
+        return prefetcher.mFeedFetchedAtMillis == fetchedAtMillis ? articles : null;
+    }
+
+    /**
+     * This method takes the first page that was downloaded by the prefetch.
+     *
+     * @param feed     is the feed
+     * @param pageSize is the number of articles of a page of the feed
+     * @return Future<FeedFanOutFetcher.Page>: the download of the page, or null if the prefetch did not download this
+     * page or its result was already taken, in which case the caller downloads the page itself
+     */
+    public static synchronized Future<FeedFanOutFetcher.Page> takeFirstPage(GuardianFeed feed, int pageSize) {
+
+        StartupPrefetcher prefetcher = getLiveInstance();
+
+        if (prefetcher == null || !prefetcher.mFeed.equals(feed) || prefetcher.mPageSize != pageSize) {
+            return null;
+        }
+
+        Future<FeedFanOutFetcher.Page> firstPage = prefetcher.mFirstPage;
+
+        prefetcher.mFirstPage = null;
+
+        return firstPage;
+    }
+
+    /**
+     * This method returns the age of the stored feed in milliseconds, or -1 if nothing is stored, if it is not known
+     * yet or if the launch is over. It is known once the feed is ready.
+     */
+    public static synchronized long getFeedAgeMillis() {
+
+        StartupPrefetcher prefetcher = getLiveInstance();
+
+        return prefetcher == null ? -1 : prefetcher.mFeedAgeMillis;
+    }
+
+    /**
+     * This method returns true if the stored feed was fresh enough to be displayed without a refresh, as long as the
+     * launch is not over.
+     */
+    public static synchronized boolean isFeedFresh() {
+
+        StartupPrefetcher prefetcher = getLiveInstance();
+
+        return prefetcher != null && prefetcher.mIsFeedFresh;
+    }
+
+    /**
+     * This method returns the prefetch of the process while its results may still be used, or null once they are too
+     * old to describe the launch. Must be called with the class lock held.
+     */
+    private static StartupPrefetcher getLiveInstance() {
+
+        if (sInstance == null || SystemClock.elapsedRealtime() - sInstance.mStartedAtMillis > MAX_RESULT_AGE_MILLIS) {
+            return null;
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method waits for a prefetched result.
+     *
+     * @return T: the result, or null if the prefetch failed
+     */
+    public static <T> T getResult(Future<T> result) {
+
+        try {
+            return result.get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+            return null;
+
+        } catch (ExecutionException e) {
+
+            Log.e(LOG_TAG, "Problem prefetching the feed", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * This method sets the listener that is told on the main thread once there is a feed to display, or removes it.
+     * The listener is told right away if the feed is already ready, or if no prefetch was started.
+     */
+    public static synchronized void setOnFeedReadyListener(OnFeedReadyListener listener) {
+
+        if (sInstance == null) {
+
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(notifier(listener));
+            }
+            return;
+        }
+
+        sInstance.mListener = listener;
+
+        sInstance.notifyIfReady();
+    }
+
+    private void onStoredDone(boolean hasArticles) {
+
+        synchronized (StartupPrefetcher.class) {
+
+            mIsStoredDone = true;
+
+            mHasStoredArticles = hasArticles;
+
+            notifyIfReady();
+        }
+    }
+
+    private void onNetworkDone() {
+
+        synchronized (StartupPrefetcher.class) {
+
+            mIsNetworkDone = true;
+
+            notifyIfReady();
+        }
+    }
+
+    /**
+     * The feed is ready once there are stored articles to display, or once the first page has been downloaded,
+     * or once there is nothing more to wait for. Must be called with the class lock held.
+     */
+    private void notifyIfReady() {
+
+        boolean isReady = (mIsStoredDone && (mHasStoredArticles || !mIsFetchingNetwork)) || mIsNetworkDone;
+
+        if (isReady && mListener != null) {
+
+            mMainHandler.post(notifier(mListener));
+
+            mListener = null;
+        }
+    }
+
+    private static Runnable notifier(final OnFeedReadyListener listener) {
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                listener.onFeedReady();
+            }
+        };
+    }
+
+    /**
+     * This method checks whether there is a network connection.
+     */
+    private static boolean isConnected(Context context) {
+
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        NetworkInfo activeNetwork = connectivityManager == null ? null : connectivityManager.getActiveNetworkInfo();
+
+        return activeNetwork != null && activeNetwork.isConnected();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.android.covid19guide.startup;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Times the phases of the startup of the app, from the creation of the process to the first article displayed on
+ * screen, and writes them to logcat once the first article has been displayed.
+ */
+public final class StartupTrace {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = StartupTrace.class.getSimpleName();
+
+    /**
+     * The phases of the startup
+     */
+    public static final String PHASE_APPLICATION_CREATED = "application_created";
+
+    public static final String PHASE_API_PRECONNECTED = "api_preconnected";
+
+    public static final String PHASE_STORED_ARTICLES_READY = "stored_articles_ready";
+
+    public static final String PHASE_NETWORK_ARTICLES_READY = "network_articles_ready";
+
+    public static final String PHASE_SPLASH_HANDED_OFF = "splash_handed_off";
+
+    public static final String PHASE_MAIN_CREATED = "main_created";
+
+    public static final String PHASE_FIRST_ARTICLE_FROM_STORE = "first_article_from_store";
+
+    public static final String PHASE_FIRST_ARTICLE_FROM_NETWORK = "first_article_from_network";
+
+    /**
+     * The time at which the startup began, in milliseconds of the elapsed realtime clock
+     */
+    private static long sStartMillis = -1;
+
+    /**
+     * The time of every phase since the startup began, in the order in which the phases happened
+     */
+    private static final Map<String, Long> sPhases = new LinkedHashMap<>();
+
+    /**
+     * The time from the startup to the first article displayed, or -1 until it has been displayed
+     */
+    private static long sTimeToFirstArticleMillis = -1;
+
+    /**
+     * Create a private constructor because we don't want to create a {@link StartupTrace} object.
+     */
+    private StartupTrace() {
+    }
+
+    /**
+     * This method starts the trace, it is called as early as possible when the process starts.
+     */
+    public static synchronized void begin() {
+
+        sStartMillis = SystemClock.elapsedRealtime();
+
+        sPhases.clear();
+
+        sTimeToFirstArticleMillis = -1;
+    }
+
+    /**
+     * This method records the time of a phase, only the first time of every phase is kept.
+     *
+     * @param phase is one of the PHASE constants
+     */
+    public static synchronized void mark(String phase) {
+
+        if (sStartMillis < 0 || sPhases.containsKey(phase)) {
+            return;
+        }
+
+        sPhases.put(phase, SystemClock.elapsedRealtime() - sStartMillis);
+    }
+
+    /**
+     * This method records the phase in which the first article was displayed and writes all the phases to logcat.
+     * The later calls are ignored, so only the first article displayed after the startup is reported.
+     *
+     * @param phase is PHASE_FIRST_ARTICLE_FROM_STORE or PHASE_FIRST_ARTICLE_FROM_NETWORK
+     */
+    public static synchronized void markFirstArticle(String phase) {
+
+        if (sStartMillis < 0 || sTimeToFirstArticleMillis >= 0) {
+            return;
+        }
+
+        mark(phase);
+
+        sTimeToFirstArticleMillis = sPhases.get(phase);
+
+        StringBuilder summary = new StringBuilder();
+
+        for (Map.Entry<String, Long> entry : sPhases.entrySet()) {
+            summary.append(String.format(Locale.US, " %s=%dms", entry.getKey(), entry.getValue()));
+        }
+
+        Log.i(LOG_TAG, "Time to first article " + sTimeToFirstArticleMillis + " ms," + summary);
+    }
+
+    /**
+     * This method returns the time from the startup to the first article displayed, or -1 until it has been displayed.
+     */
+    public static synchronized long getTimeToFirstArticleMillis() {
+        return sTimeToFirstArticleMillis;
+    }
+}
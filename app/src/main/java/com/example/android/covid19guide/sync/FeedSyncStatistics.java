@@ -0,0 +1,104 @@
+package com.example.android.covid19guide.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import java.util.Locale;
+
+/**
+ * Records the duration, the transferred bytes and the size of the background syncs, and how fresh the stored feed
+ * was at every launch, in the shared preferences of the app so that they survive the process.
+ */
+public final class FeedSyncStatistics {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedSyncStatistics.class.getSimpleName();
+
+    /**
+     * Name of the shared preferences file and the keys of the statistics
+     */
+    private static final String PREFERENCES_NAME = "feed_sync_statistics";
+
+    private static final String KEY_SYNC_COUNT = "sync_count";
+
+    private static final String KEY_LAST_SYNC_AT = "last_sync_at";
+
+    private static final String KEY_LAST_SYNC_DURATION = "last_sync_duration_ms";
+
+    private static final String KEY_LAST_SYNC_BYTES = "last_sync_bytes";
+
+    private static final String KEY_LAST_SYNC_ARTICLES = "last_sync_articles";
+
+    private static final String KEY_LAST_SYNC_THUMBNAILS = "last_sync_thumbnails";
+
+    private static final String KEY_LAUNCH_COUNT = "launch_count";
+
+    private static final String KEY_FRESH_LAUNCH_COUNT = "fresh_launch_count";
+
+    private static final String KEY_LAST_LAUNCH_FEED_AGE = "last_launch_feed_age_ms";
+
+    /**
+     * Create a private constructor because we don't want to create a {@link FeedSyncStatistics} object.
+     */
+    private FeedSyncStatistics() {
+    }
+
+    /**
+     * This method records a successful background sync.
+     *
+     * @param durationMillis is the time that the sync took
+     * @param bytes          is the number of bytes that the app transferred during the sync, or -1 if unknown
+     * @param articleCount   is the number of articles stored by the sync
+     * @param thumbnailCount is the number of thumbnail renditions downloaded into the disk cache
+     */
+    static void recordSync(Context context, long durationMillis, long bytes, int articleCount, int thumbnailCount) {
+
+        SharedPreferences preferences = getPreferences(context);
+
+        preferences.edit()
+                .putInt(KEY_SYNC_COUNT, preferences.getInt(KEY_SYNC_COUNT, 0) + 1)
+                .putLong(KEY_LAST_SYNC_AT, System.currentTimeMillis())
+                .putLong(KEY_LAST_SYNC_DURATION, durationMillis)
+                .putLong(KEY_LAST_SYNC_BYTES, bytes)
+                .putInt(KEY_LAST_SYNC_ARTICLES, articleCount)
+                .putInt(KEY_LAST_SYNC_THUMBNAILS, thumbnailCount)
+                .apply();
+
+        Log.i(LOG_TAG, String.format(Locale.US, "Sync took %d ms, %d KB, %d articles, %d thumbnails",
+                durationMillis, bytes / 1024, articleCount, thumbnailCount));
+    }
+
+    /**
+     * This method records how fresh the stored feed was when the app was launched.
+     *
+     * @param feedAgeMillis is the age of the stored feed, or -1 if nothing was stored
+     * @param isFresh       is true if the feed was displayed without any request to the network
+     */
+    public static void recordLaunch(Context context, long feedAgeMillis, boolean isFresh) {
+
+        SharedPreferences preferences = getPreferences(context);
+
+        int launchCount = preferences.getInt(KEY_LAUNCH_COUNT, 0) + 1;
+
+        int freshLaunchCount = preferences.getInt(KEY_FRESH_LAUNCH_COUNT, 0) + (isFresh ? 1 : 0);
+
+        preferences.edit()
+                .putInt(KEY_LAUNCH_COUNT, launchCount)
+                .putInt(KEY_FRESH_LAUNCH_COUNT, freshLaunchCount)
+                .putLong(KEY_LAST_LAUNCH_FEED_AGE, feedAgeMillis)
+                .apply();
+
+        long lastSyncAt = preferences.getLong(KEY_LAST_SYNC_AT, -1);
+
+        Log.i(LOG_TAG, String.format(Locale.US, "Launch with a feed age of %d s (%s), %d of %d launches fresh, "
+                        + "last sync %s", feedAgeMillis / 1000, isFresh ? "fresh" : "refreshing", freshLaunchCount,
+                launchCount, lastSyncAt < 0 ? "never" : (System.currentTimeMillis() - lastSyncAt) / 1000 + " s ago"));
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
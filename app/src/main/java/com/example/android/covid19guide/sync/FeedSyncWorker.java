@@ -0,0 +1,214 @@
+package com.example.android.covid19guide.sync;
+
+import android.content.Context;
+import android.net.TrafficStats;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.FutureTarget;
+import com.example.android.covid19guide.R;
+import com.example.android.covid19guide.adapters.ArticlesAdapter;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.startup.StartupPrefetcher;
+import com.example.android.covid19guide.utils.FeedFanOutFetcher;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Downloads the latest pages of the feed and the thumbnails of their articles in the background, when the device is
+ * idle on an unmetered network, so that the next launch displays a fresh feed without any request to the network.
+ * All the downloads of a sync run back to back in a single wake-up of the radio.
+ */
+public class FeedSyncWorker extends Worker {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedSyncWorker.class.getSimpleName();
+
+    /**
+     * The unique name of the periodic sync
+     */
+    private static final String WORK_NAME = "feed-sync";
+
+    /**
+     * The maximum time that a sync waits for a single thumbnail
+     */
+    private static final long THUMBNAIL_TIMEOUT_SECONDS = 30;
+
+    public FeedSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * This method schedules the periodic sync, keeping the schedule if it is already scheduled.
+     *
+     * @param context of the app
+     */
+    public static void schedule(Context context) {
+
+        Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true);
+
+        // The idle state of the device is only known from Android 6.0
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+
+        long intervalMinutes = context.getResources().getInteger(R.integer.feed_sync_interval_minutes);
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(FeedSyncWorker.class,
+                intervalMinutes, TimeUnit.MINUTES)
+                .setConstraints(constraints.build())
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * This is on a background thread. This method downloads the pages of the feed, stores them, and downloads the
+     * thumbnails of their articles into the disk cache of Glide.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+
+        Context context = getApplicationContext();
+
+        long startMillis = SystemClock.elapsedRealtime();
+
+        long startBytes = getTransferredBytes();
+
+        GuardianFeed feed = GuardianApi.buildFeed(context.getResources().getBoolean(R.bool.feed_light_payload));
+
+        int pageSize = context.getResources().getInteger(R.integer.feed_page_size);
+
+        int pageCount = context.getResources().getInteger(R.integer.feed_sync_page_count);
+
+        List<Article> articles = new ArrayList<>();
+
+        for (int page = 1; page <= pageCount && !isStopped(); page++) {
+
+            // The process may have been started for this sync, and then the prefetch is already downloading page 1
+            Future<FeedFanOutFetcher.Page> prefetchedPage = page == 1
+                    ? StartupPrefetcher.takeFirstPage(feed, pageSize) : null;
+
+            FeedFanOutFetcher.Page feedPage = prefetchedPage != null ? StartupPrefetcher.getResult(prefetchedPage) : null;
+
+            // The prefetch does not download the first page when the stored feed is fresh, and its download may fail
+            if (feedPage == null) {
+                feedPage = FeedFanOutFetcher.fetchPage(feed, page, pageSize, null);
+            }
+
+            if (feedPage == null) {
+                break;
+            }
+
+            articles = FeedFanOutFetcher.merge(articles, feedPage.getArticles());
+
+            if (feedPage.isLastPage()) {
+                break;
+            }
+        }
+
+        if (articles.isEmpty()) {
+
+            Log.i(LOG_TAG, "Sync failed, it will be retried");
+
+            return Result.retry();
+        }
+
+        ArticlesStore.getInstance(context).saveArticles(ArticlesStore.normalizeFeed(feed), articles);
+
+        int thumbnailCount = downloadThumbnails(context, articles);
+
+        long bytes = startBytes < 0 ? -1 : getTransferredBytes() - startBytes;
+
+        FeedSyncStatistics.recordSync(context, SystemClock.elapsedRealtime() - startMillis, bytes, articles.size(),
+                thumbnailCount);
+
+        return Result.success();
+    }
+
+    /**
+     * This method downloads the thumbnails of the articles into the disk cache, all at the same time.
+     *
+     * @return int: the number of thumbnail renditions that were downloaded
+     */
+    private int downloadThumbnails(Context context, List<Article> articles) {
+
+        List<FutureTarget<File>> downloads = new ArrayList<>();
+
+        // The cards ask for the rendition of the network at the launch, not of the unmetered network of the sync, so
+        // every rendition that they may ask for is downloaded and found in the disk cache
+        int[] thumbnailWidths = RequestShaper.getThumbnailWidths(
+                ArticlesAdapter.getThumbnailWidth(context.getResources()));
+
+        for (Article article : articles) {
+
+            for (int thumbnailWidth : thumbnailWidths) {
+                downloads.add(Glide.with(context).downloadOnly()
+                        .load(RequestShaper.withWidth(article.getArticleImageUrl(), thumbnailWidth)).submit());
+            }
+        }
+
+        int downloadedCount = 0;
+
+        for (FutureTarget<File> download : downloads) {
+
+            try {
+                if (!isStopped()) {
+
+                    download.get(THUMBNAIL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                    downloadedCount++;
+                }
+            } catch (ExecutionException | TimeoutException e) {
+
+                Log.e(LOG_TAG, "Problem downloading a thumbnail", e);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            } finally {
+                Glide.with(context).clear(download);
+            }
+        }
+
+        return downloadedCount;
+    }
+
+    /**
+     * This method returns the number of bytes that the app has sent and received, or -1 if the device does not count
+     * them.
+     */
+    private static long getTransferredBytes() {
+
+        long received = TrafficStats.getUidRxBytes(Process.myUid());
+
+        long sent = TrafficStats.getUidTxBytes(Process.myUid());
+
+        return received == TrafficStats.UNSUPPORTED || sent == TrafficStats.UNSUPPORTED ? -1 : received + sent;
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.android.covid19guide.utils;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.LruCache;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the full body texts of the articles, which the {@link Article}s themselves do not keep, and fetches the
+ * bodies that it does not hold on demand. The requests of the articles that the user opens or that are about to
+ * come on screen are collected for a short moment and then sent as batched requests with the Guardian {@code ids}
+ * parameter, and the bodies are kept in a bounded memory cache, which is shrunk when the system runs low on memory.
+ * The ids whose bodies could not be fetched are not requested again until a backoff delay, which doubles with every
+ * failure, has passed.
+ */
+public final class ArticleBodyFetcher implements MemoryBudgetCoordinator.Cache {
+
+    /**
+     * Callback that is told on the main thread when bodies have been fetched.
+     */
+    public interface OnBodiesFetchedListener {
+
+        void onBodiesFetched(Map<String, String> bodies);
+    }
+
+    /**
+     * The maximum number of ids in a single batch request
+     */
+    private static final int MAX_BATCH_SIZE = 50;
+
+    /**
+     * The time during which the requests are collected into a single batch
+     */
+    private static final long BATCH_DELAY_MILLIS = 150;
+
+    /**
+     * The maximum number of characters of the bodies kept in memory
+     */
+    private static final int MAX_CACHED_CHARACTERS = 2 * 1024 * 1024;
+
+    /**
+     * The delay before the body of an article is requested again after the first failure, and its upper bound
+     */
+    private static final long INITIAL_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * The maximum number of ids whose failures are remembered
+     */
+    private static final int MAX_FAILED_IDS = 500;
+
+    /**
+     * The single instance of the fetcher that is shared by the whole app
+     */
+    private static ArticleBodyFetcher sInstance;
+
+    /**
+     * The fetched bodies keyed by the article id, sized by their number of characters
+     */
+    private final LruCache<String, String> mBodies = new LruCache<String, String>(MAX_CACHED_CHARACTERS) {
+        @Override
+        protected int sizeOf(String id, String body) {
+            return body.length();
+        }
+    };
+
+    /**
+     * The ids that are waiting for the next batch, and the ids of the batch that is being fetched
+     */
+    private final Set<String> mPendingIds = new LinkedHashSet<>();
+
+    private final Set<String> mInFlightIds = new LinkedHashSet<>();
+
+    /**
+     * The ids whose bodies could not be fetched, or were not in the response, with the time of their next request
+     */
+    private final LruCache<String, Backoff> mFailedIds = new LruCache<>(MAX_FAILED_IDS);
+
+    /**
+     * True while a batch is scheduled or being fetched
+     */
+    private boolean mIsBatchScheduled;
+
+    /**
+     * The background thread that sends the batch requests
+     */
+    private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * The handler that tells the listener on the main thread
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The listener that is told when bodies have been fetched
+     */
+    private volatile OnBodiesFetchedListener mListener;
+
+    private ArticleBodyFetcher() {
+    }
+
+    /**
+     * This method returns the single instance of the {@link ArticleBodyFetcher}.
+     */
+    public static synchronized ArticleBodyFetcher getInstance() {
+
+        if (sInstance == null) {
+            sInstance = new ArticleBodyFetcher();
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method sets the listener that is told on the main thread when bodies have been fetched, or removes it.
+     */
+    public void setOnBodiesFetchedListener(OnBodiesFetchedListener listener) {
+
+        mListener = listener;
+    }
+
+    /**
+     * This method returns the fetched body of an article, or null if it has not been fetched yet.
+     */
+    public String getBody(String id) {
+
+        return id == null ? null : mBodies.get(id);
+    }
+
+    /**
+     * This method keeps a body that has been received with the feed, so that it does not have to be fetched again.
+     */
+    public void putBody(String id, String body) {
+
+        mBodies.put(id, body);
+    }
+
+    /**
+     * This method returns the memory taken by the bodies kept in memory, two bytes for every character.
+     */
+    @Override
+    public long getSizeBytes() {
+
+        return mBodies.size() * 2L;
+    }
+
+    @Override
+    public void trimToFraction(float fraction) {
+
+        MemoryBudgetCoordinator.trimToFraction(mBodies, fraction);
+    }
+
+    /**
+     * This method asks for the bodies of the given articles. The bodies that are not cached, not already requested
+     * and not waiting for the backoff of a failure are fetched in batches in the background.
+     *
+     * @param articles List<Article>: the articles whose bodies will be needed soon
+     */
+    public synchronized void requestBodies(List<Article> articles) {
+
+        long now = SystemClock.elapsedRealtime();
+
+        for (Article article : articles) {
+
+            String id = article.getId();
+
+            if (id == null || mBodies.get(id) != null || mInFlightIds.contains(id)) {
+                continue;
+            }
+
+            Backoff backoff = mFailedIds.get(id);
+
+            if (backoff == null || backoff.mRetryAtMillis <= now) {
+                mPendingIds.add(id);
+            }
+        }
+
+        if (!mPendingIds.isEmpty() && !mIsBatchScheduled) {
+
+            mIsBatchScheduled = true;
+
+            mExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    fetchPendingBodies();
+                }
+            }, BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This method fetches the body of a single article right away, without waiting for a batch or for the backoff of
+     * a previous failure, since the user is waiting for it. It must be called on a background thread.
+     *
+     * @param id is the id of the article
+     * @return String: the body, or null if it could not be fetched
+     */
+    public String fetchBody(String id) {
+
+        String body = getBody(id);
+
+        if (body != null || id == null) {
+            return body;
+        }
+
+        Map<String, String> bodies = QueryUtils.fetchArticleBodies(buildBodiesUrl(Collections.singletonList(id)));
+
+        body = bodies == null ? null : bodies.get(id);
+
+        synchronized (this) {
+
+            if (body != null) {
+
+                mBodies.put(id, body);
+
+                mFailedIds.remove(id);
+
+            } else {
+                onFetchFailed(id, SystemClock.elapsedRealtime());
+            }
+        }
+
+        return body;
+    }
+
+    /**
+     * This method delays the next request of the body of an article, twice as long as after its previous failure.
+     */
+    private void onFetchFailed(String id, long now) {
+
+        Backoff backoff = mFailedIds.get(id);
+
+        long delayMillis = backoff == null ? INITIAL_RETRY_DELAY_MILLIS
+                : Math.min(backoff.mDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+
+        mFailedIds.put(id, new Backoff(delayMillis, now + delayMillis));
+    }
+
+    /**
+     * This method builds the URL of the request of the bodies of the given articles.
+     */
+    private static String buildBodiesUrl(List<String> ids) {
+
+        return Uri.parse(GuardianApi.getSearchUrl()).buildUpon()
+                .appendQueryParameter("ids", TextUtils.join(",", ids))
+                .appendQueryParameter("show-fields", GuardianApi.BODY_FIELDS)
+                .appendQueryParameter("page-size", String.valueOf(ids.size()))
+                .appendQueryParameter("api-key", GuardianApi.API_KEY)
+                .build()
+                .toString();
+    }
+
+    /**
+     * This is on the background thread. This method fetches all the pending bodies, in batches of at most
+     * MAX_BATCH_SIZE ids.
+     */
+    private void fetchPendingBodies() {
+
+        while (true) {
+
+            List<String> batch = new ArrayList<>();
+
+            synchronized (this) {
+
+                for (String id : mPendingIds) {
+
+                    if (batch.size() == MAX_BATCH_SIZE) {
+                        break;
+                    }
+                    batch.add(id);
+                }
+
+                if (batch.isEmpty()) {
+
+                    mIsBatchScheduled = false;
+
+                    return;
+                }
+
+                mPendingIds.removeAll(batch);
+
+                mInFlightIds.addAll(batch);
+            }
+
+            final Map<String, String> bodies = QueryUtils.fetchArticleBodies(buildBodiesUrl(batch));
+
+            synchronized (this) {
+
+                mInFlightIds.removeAll(batch);
+
+                if (bodies != null) {
+                    for (Map.Entry<String, String> body : bodies.entrySet()) {
+
+                        mBodies.put(body.getKey(), body.getValue());
+
+                        mFailedIds.remove(body.getKey());
+                    }
+                }
+
+                long now = SystemClock.elapsedRealtime();
+
+                // An id that is not in the response, or whose request failed, is not requested again on every scroll
+                for (String id : batch) {
+
+                    if (bodies == null || !bodies.containsKey(id)) {
+                        onFetchFailed(id, now);
+                    }
+                }
+            }
+
+            final OnBodiesFetchedListener listener = mListener;
+
+            if (bodies != null && !bodies.isEmpty() && listener != null) {
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onBodiesFetched(bodies);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * The delay after the last failure to fetch the body of an article, and the time at which it may be requested
+     * again.
+     */
+    private static final class Backoff {
+
+        private final long mDelayMillis;
+
+        private final long mRetryAtMillis;
+
+        private Backoff(long delayMillis, long retryAtMillis) {
+            mDelayMillis = delayMillis;
+            mRetryAtMillis = retryAtMillis;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.example.android.covid19guide.utils;
+
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.LruCache;
+import com.example.android.covid19guide.data.ArticlesStore;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.SearchPage;
+import com.example.android.covid19guide.memory.MemoryBudgetCoordinator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A layer in front of {@link QueryUtils#fetchNewsData(String, CancellationSignal)} which downloads a Guardian URL only
+ * once however many callers ask for it at the same time: the first caller runs the request, and the callers that ask
+ * for the same normalized URL while it runs wait for it and get its articles too. The parsed articles are then kept in
+ * a bounded LRU for a time that depends on the query, so that a URL asked for again within seconds is not downloaded
+ * again at all. The articles of a running request are also handed to all its callers one by one as soon as they are
+ * decoded, a caller that comes later first gets the articles decoded so far.
+ */
+public class CoalescingArticlesFetcher implements MemoryBudgetCoordinator.Cache {
+
+    /**
+     * Downloads and parses the articles of a URL.
+     */
+    public interface Fetcher {
+
+        /**
+         * @param listener is told about every article as soon as it is decoded
+         * @return List<Article>: the articles, or null if the request failed or was canceled
+         */
+        List<Article> fetch(String requestUrl, CancellationSignal cancellationSignal,
+                            ArticlesJsonDecoder.OnArticleDecodedListener listener);
+    }
+
+    /**
+     * Tells how long the articles of a URL are served again without any request to the network.
+     */
+    public interface TtlPolicy {
+
+        long getTtlMillis(String requestUrl);
+    }
+
+    /**
+     * The articles of the newest page change quickly, the older pages much less
+     */
+    private static final long FIRST_PAGE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private static final long OLDER_PAGE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The number of parsed lists of articles kept by the default instance, enough for a few pages of every query of
+     * the feed
+     */
+    private static final int DEFAULT_MAX_RESULTS = 32;
+
+    /**
+     * The default policy, which keeps the first page of a query for a minute and the later pages for five minutes.
+     */
+    public static final TtlPolicy PAGE_TTL_POLICY = new TtlPolicy() {
+        @Override
+        public long getTtlMillis(String requestUrl) {
+
+            String page = Uri.parse(requestUrl).getQueryParameter("page");
+
+            return page == null || "1".equals(page) ? FIRST_PAGE_TTL_MILLIS : OLDER_PAGE_TTL_MILLIS;
+        }
+    };
+
+    /**
+     * The single instance that is shared by the whole app
+     */
+    private static CoalescingArticlesFetcher sInstance;
+
+    /**
+     * Parsed articles of a URL together with the time at which they expire.
+     */
+    private static final class CachedResult {
+
+        private final List<Article> mArticles;
+
+        private final long mExpiresAtMillis;
+
+        CachedResult(List<Article> articles, long expiresAtMillis) {
+            mArticles = articles;
+            mExpiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * A request that is running, and the callers that wait for it. The fields are guarded by the fetcher, except for
+     * the decoded articles and their listeners, which are guarded by the flight.
+     */
+    private static final class Flight implements ArticlesJsonDecoder.OnArticleDecodedListener {
+
+        /**
+         * The signal of the request itself, which is only canceled once every caller has canceled
+         */
+        private final CancellationSignal mCancellationSignal = new CancellationSignal();
+
+        /**
+         * The latches that wake up the callers once the request is over
+         */
+        private final List<CountDownLatch> mWakeUps = new ArrayList<>();
+
+        private int mCallerCount;
+
+        private List<Article> mArticles;
+
+        /**
+         * The articles decoded so far, and the listeners of the callers that are told about the next ones
+         */
+        private final List<Article> mDecodedArticles = new ArrayList<>();
+
+        private final List<ArticlesJsonDecoder.OnArticleDecodedListener> mListeners = new ArrayList<>();
+
+        @Override
+        public synchronized void onArticleDecoded(Article article) {
+
+            mDecodedArticles.add(article);
+
+            for (ArticlesJsonDecoder.OnArticleDecodedListener listener : mListeners) {
+                listener.onArticleDecoded(article);
+            }
+        }
+
+        /**
+         * This method tells a caller that joins the flight about the articles decoded so far, and about the next ones.
+         */
+        synchronized void addListener(ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+            for (Article article : mDecodedArticles) {
+                listener.onArticleDecoded(article);
+            }
+
+            mListeners.add(listener);
+        }
+
+        synchronized void removeListener(ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+            mListeners.remove(listener);
+        }
+    }
+
+    private final Fetcher mFetcher;
+
+    private final TtlPolicy mTtlPolicy;
+
+    /**
+     * The requests that are running, keyed by their normalized URL
+     */
+    private final Map<String, Flight> mFlights = new HashMap<>();
+
+    /**
+     * The parsed articles, keyed by their normalized URL
+     */
+    private final LruCache<String, CachedResult> mResults;
+
+    /**
+     * The counters of the calls, guarded by the fetcher
+     */
+    private long mRequestCount;
+
+    private long mCacheHitCount;
+
+    private long mCoalescedCount;
+
+    private long mFetchCount;
+
+    private long mFailedFetchCount;
+
+    /**
+     * Constructs a new {@link CoalescingArticlesFetcher}.
+     *
+     * @param fetcher    downloads and parses the articles
+     * @param ttlPolicy  tells how long the articles of a URL are kept
+     * @param maxResults is the maximum number of parsed lists of articles that are kept
+     */
+    public CoalescingArticlesFetcher(Fetcher fetcher, TtlPolicy ttlPolicy, int maxResults) {
+
+        mFetcher = fetcher;
+
+        mTtlPolicy = ttlPolicy;
+
+        mResults = new LruCache<>(maxResults);
+    }
+
+    /**
+     * This method returns the single instance, which downloads the articles with {@link QueryUtils}.
+     */
+    public static synchronized CoalescingArticlesFetcher getInstance() {
+
+        if (sInstance == null) {
+
+            sInstance = new CoalescingArticlesFetcher(new Fetcher() {
+                @Override
+                public List<Article> fetch(String requestUrl, CancellationSignal cancellationSignal,
+                                           ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+                    return QueryUtils.fetchNewsData(requestUrl, cancellationSignal, listener);
+                }
+            }, PAGE_TTL_POLICY, DEFAULT_MAX_RESULTS);
+        }
+        return sInstance;
+    }
+
+    /**
+     * This method returns the articles of the URL, from the cache if they were parsed recently enough, from the
+     * request for the same URL if one is running, or from a new request otherwise.
+     *
+     * @param requestUrl         is the URL of the Guardian API
+     * @param cancellationSignal is the signal that stops waiting for the articles, or null. The request itself is only
+     *                           canceled once every caller waiting for it has canceled
+     * @return List<Article>: the articles, which must not be modified, or null if the request failed or was canceled
+     */
+    public List<Article> fetch(String requestUrl, CancellationSignal cancellationSignal) {
+
+        return fetch(requestUrl, cancellationSignal, null);
+    }
+
+    /**
+     * This method returns the articles of the URL like {@link #fetch(String, CancellationSignal)}, and tells the
+     * listener about the articles of the request as soon as they are decoded. The articles served from the cache are
+     * only returned.
+     *
+     * @param requestUrl         is the URL of the Guardian API
+     * @param cancellationSignal is the signal that stops waiting for the articles, or null
+     * @param listener           is told about the articles on the thread of the request, or null
+     * @return List<Article>: the articles, which must not be modified, or null if the request failed or was canceled
+     */
+    public List<Article> fetch(String requestUrl, CancellationSignal cancellationSignal,
+                               final ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+        final String key = ArticlesStore.normalizeRequest(requestUrl);
+
+        final Flight flight;
+
+        final CountDownLatch wakeUp = new CountDownLatch(1);
+
+        boolean isFirstCaller = false;
+
+        synchronized (this) {
+
+            mRequestCount++;
+
+            CachedResult cachedResult = mResults.get(key);
+
+            if (cachedResult != null) {
+
+                if (SystemClock.elapsedRealtime() < cachedResult.mExpiresAtMillis) {
+
+                    mCacheHitCount++;
+
+                    return cachedResult.mArticles;
+                }
+
+                mResults.remove(key);
+            }
+
+            Flight runningFlight = mFlights.get(key);
+
+            if (runningFlight == null) {
+
+                runningFlight = new Flight();
+
+                mFlights.put(key, runningFlight);
+
+                isFirstCaller = true;
+
+                mFetchCount++;
+
+            } else {
+
+                mCoalescedCount++;
+            }
+
+            flight = runningFlight;
+
+            flight.mCallerCount++;
+
+            flight.mWakeUps.add(wakeUp);
+        }
+
+        if (listener != null) {
+            flight.addListener(listener);
+        }
+
+        if (cancellationSignal != null) {
+
+            cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+
+                    if (listener != null) {
+                        flight.removeListener(listener);
+                    }
+
+                    leave(key, flight);
+
+                    wakeUp.countDown();
+                }
+            });
+        }
+
+        if (isFirstCaller) {
+            run(key, requestUrl, flight);
+        } else {
+            awaitUninterruptibly(wakeUp);
+        }
+
+        if (cancellationSignal != null) {
+
+            cancellationSignal.setOnCancelListener(null);
+
+            if (cancellationSignal.isCanceled()) {
+                return null;
+            }
+        }
+
+        synchronized (this) {
+            return flight.mArticles;
+        }
+    }
+
+    /**
+     * This method runs the request of the flight, keeps its articles and wakes up all its callers.
+     */
+    private void run(String key, String requestUrl, Flight flight) {
+
+        List<Article> articles = null;
+
+        List<CountDownLatch> wakeUps;
+
+        try {
+            articles = mFetcher.fetch(requestUrl, flight.mCancellationSignal, flight);
+
+        } finally {
+
+            synchronized (this) {
+
+                if (mFlights.get(key) == flight) {
+                    mFlights.remove(key);
+                }
+
+                if (articles != null && !flight.mCancellationSignal.isCanceled()) {
+
+                    // A search page is read-only already, and keeps telling whether the search has more pages
+                    flight.mArticles = articles instanceof SearchPage
+                            ? articles : Collections.unmodifiableList(articles);
+
+                    mResults.put(key, new CachedResult(flight.mArticles,
+                            SystemClock.elapsedRealtime() + mTtlPolicy.getTtlMillis(requestUrl)));
+
+                } else {
+
+                    mFailedFetchCount++;
+                }
+
+                wakeUps = new ArrayList<>(flight.mWakeUps);
+            }
+        }
+
+        for (CountDownLatch wakeUp : wakeUps) {
+            wakeUp.countDown();
+        }
+    }
+
+    /**
+     * This method is called when a caller cancels. The request is canceled once its last caller has left, and a
+     * caller that comes after that starts a new request.
+     */
+    private void leave(String key, Flight flight) {
+
+        boolean isAbandoned;
+
+        synchronized (this) {
+
+            isAbandoned = --flight.mCallerCount == 0;
+
+            if (isAbandoned && mFlights.get(key) == flight) {
+                mFlights.remove(key);
+            }
+        }
+
+        if (isAbandoned) {
+            flight.mCancellationSignal.cancel();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+
+        boolean isInterrupted = false;
+
+        while (true) {
+            try {
+                latch.await();
+
+                break;
+
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method removes all the parsed articles, so that the next calls download them again.
+     */
+    public synchronized void clear() {
+        mResults.evictAll();
+    }
+
+    /**
+     * This method returns the memory taken by the parsed articles. The articles on screen are shared with the cache,
+     * so this is the most that shrinking the cache can free.
+     */
+    @Override
+    public synchronized long getSizeBytes() {
+
+        long bytes = 0;
+
+        for (CachedResult result : mResults.snapshot().values()) {
+            bytes += MemoryBudgetCoordinator.estimateBytes(result.mArticles);
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public synchronized void trimToFraction(float fraction) {
+
+        MemoryBudgetCoordinator.trimToFraction(mResults, fraction);
+    }
+
+    public synchronized long getCacheHitCount() {
+        return mCacheHitCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    public synchronized long getFetchCount() {
+        return mFetchCount;
+    }
+
+    /**
+     * This method returns the counters of the calls as a readable String, to tune the size and the times to live.
+     */
+    public synchronized String getStatistics() {
+
+        return String.format(Locale.US, "requests=%d hits=%d coalesced=%d fetches=%d failed=%d cached=%d/%d",
+                mRequestCount, mCacheHitCount, mCoalescedCount, mFetchCount, mFailedFetchCount, mResults.size(),
+                mResults.maxSize());
+    }
+}
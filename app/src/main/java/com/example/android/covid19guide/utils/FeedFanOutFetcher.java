@@ -0,0 +1,317 @@
+package com.example.android.covid19guide.utils;
+
+import android.os.CancellationSignal;
+import android.util.Log;
+import android.util.LruCache;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.SearchPage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads a page of a {@link GuardianFeed} by sending the page of every query of the feed at the same time, on a
+ * small bounded pool of threads. The results of the queries are merged into one list as soon as each of them
+ * arrives, newest article first and without the articles that several queries returned, so that a page takes about
+ * as long as its slowest query instead of the sum of all of them. The articles of every query can also be handed on
+ * one by one while they are decoded, long before the whole page is there.
+ * The queries of a feed run out of pages at different depths. The number of pages of every query is remembered from
+ * its responses, a query is no longer asked for the pages past its last one, and the feed ends with its last query.
+ */
+public final class FeedFanOutFetcher {
+
+    /**
+     * A page of a feed, merged from the pages of its queries.
+     */
+    public static final class Page {
+
+        private final List<Article> mArticles;
+
+        private final boolean mIsLastPage;
+
+        Page(List<Article> articles, boolean isLastPage) {
+            mArticles = articles;
+            mIsLastPage = isLastPage;
+        }
+
+        /**
+         * This method returns the articles of the page, newest first
+         */
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        /**
+         * This method returns true if none of the queries has a next page
+         */
+        public boolean isLastPage() {
+            return mIsLastPage;
+        }
+    }
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedFanOutFetcher.class.getSimpleName();
+
+    /**
+     * The maximum number of queries that are downloaded at the same time, by all the feeds together
+     */
+    private static final int MAX_CONCURRENT_QUERIES = 4;
+
+    /**
+     * The threads that download the queries, which stop when they have been idle for a while
+     */
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_QUERIES,
+            MAX_CONCURRENT_QUERIES, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The number of queries whose number of pages is remembered
+     */
+    private static final int PAGE_COUNTS_IN_MEMORY = 32;
+
+    /**
+     * The number of pages of every query, keyed by the URL of the first page of the query, which holds the page size
+     */
+    private static final LruCache<String, Integer> sPageCounts = new LruCache<>(PAGE_COUNTS_IN_MEMORY);
+
+    /**
+     * Sorts the articles newest first, the articles without a publication date last
+     */
+    private static final Comparator<Article> NEWEST_FIRST = new Comparator<Article>() {
+        @Override
+        public int compare(Article first, Article second) {
+            long firstMillis = first.getPublishedAtMillis();
+            long secondMillis = second.getPublishedAtMillis();
+            return firstMillis > secondMillis ? -1 : (firstMillis == secondMillis ? 0 : 1);
+        }
+    };
+
+    /**
+     * Create a private constructor because we don't want to create a {@link FeedFanOutFetcher} object.
+     */
+    private FeedFanOutFetcher() {
+    }
+
+    /**
+     * This method downloads a page of the feed. It waits for all the queries, and a query that fails fails the whole
+     * page, so that the page can be asked for again without skipping the articles of that query. The queries that
+     * did not fail are then served again from the {@link CoalescingArticlesFetcher}. The queries that have no page
+     * left are not asked for, and the page is the last one when none of the queries has a page after it.
+     *
+     * @param feed               is the feed whose page is downloaded
+     * @param page               is the number of the page, starting at 1
+     * @param pageSize           is the number of articles of a page of the whole feed
+     * @param cancellationSignal is the signal that cancels all the queries, or null
+     * @return Page: the merged page, or null if a query failed or the download was canceled
+     */
+    public static Page fetchPage(GuardianFeed feed, int page, int pageSize,
+                                 CancellationSignal cancellationSignal) {
+
+        return fetchPage(feed, page, pageSize, cancellationSignal, null);
+    }
+
+    /**
+     * This method downloads a page of the feed like {@link #fetchPage(GuardianFeed, int, int, CancellationSignal)},
+     * and hands every article of every query to the listener as soon as it is decoded. The articles come from several
+     * threads at the same time, in the order of their query and not newest first, and some of them may be in several
+     * queries.
+     *
+     * @param feed               is the feed whose page is downloaded
+     * @param page               is the number of the page, starting at 1
+     * @param pageSize           is the number of articles of a page of the whole feed
+     * @param cancellationSignal is the signal that cancels all the queries, or null
+     * @param listener           is told about the decoded articles, or null
+     * @return Page: the merged page, or null if a query failed or the download was canceled
+     */
+    public static Page fetchPage(GuardianFeed feed, int page, int pageSize, CancellationSignal cancellationSignal,
+                                 final ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+        int queryPageSize = feed.getQueryPageSize(pageSize);
+
+        CompletionService<List<Article>> completionService = new ExecutorCompletionService<>(sExecutor);
+
+        // A signal only has a single listener, so every query gets its own signal which the signal of the page cancels
+        final List<CancellationSignal> querySignals = new ArrayList<>();
+
+        for (GuardianQuery query : feed.getQueries()) {
+
+            final String firstPageUrl = query.buildPageUrl(1, queryPageSize);
+
+            // The API answers a page past the last page of a query with an error, the query has nothing to add
+            Integer pageCount = sPageCounts.get(firstPageUrl);
+
+            if (pageCount != null && pageCount < page) {
+                continue;
+            }
+
+            final String pageUrl = query.buildPageUrl(page, queryPageSize);
+
+            final CancellationSignal querySignal = new CancellationSignal();
+
+            querySignals.add(querySignal);
+
+            // The same page of a query that is being downloaded for another caller, or was downloaded seconds ago,
+            // is not downloaded again
+            completionService.submit(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() {
+
+                    List<Article> queryArticles = CoalescingArticlesFetcher.getInstance()
+                            .fetch(pageUrl, querySignal, listener);
+
+                    if (queryArticles instanceof SearchPage
+                            && ((SearchPage) queryArticles).getPageCount() != SearchPage.UNKNOWN) {
+                        sPageCounts.put(firstPageUrl, ((SearchPage) queryArticles).getPageCount());
+                    }
+
+                    return queryArticles;
+                }
+            });
+        }
+
+        if (cancellationSignal != null) {
+
+            cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+
+                    for (CancellationSignal querySignal : querySignals) {
+                        querySignal.cancel();
+                    }
+                }
+            });
+        }
+
+        List<Article> articles = Collections.emptyList();
+
+        boolean isLastPage = true;
+
+        boolean hasFailedQuery = false;
+
+        // Merge every query into the page as soon as it arrives, in the order in which the queries finish
+        for (int i = 0; i < querySignals.size(); i++) {
+
+            List<Article> queryArticles = takeResult(completionService);
+
+            if (queryArticles == null) {
+
+                // The other queries are still waited for, so that they are in the cache when the page is asked for
+                // again
+                hasFailedQuery = true;
+
+                continue;
+            }
+
+            // The number of articles does not tell the last page, the results that cannot be displayed are left out
+            isLastPage &= queryArticles instanceof SearchPage
+                    ? ((SearchPage) queryArticles).isLastPage() : queryArticles.isEmpty();
+
+            articles = merge(articles, queryArticles);
+        }
+
+        if (cancellationSignal != null) {
+            cancellationSignal.setOnCancelListener(null);
+        }
+
+        if (hasFailedQuery || (cancellationSignal != null && cancellationSignal.isCanceled())) {
+            return null;
+        }
+
+        return new Page(articles, isLastPage);
+    }
+
+    /**
+     * This method merges two lists of articles into a new list, newest article first. An article whose URL is
+     * already in the merged list is left out, also within the same list.
+     *
+     * @param articles     are the articles merged so far, newest first
+     * @param moreArticles are the articles to merge into them, in any order
+     * @return List<Article>: the merged articles
+     */
+    public static List<Article> merge(List<Article> articles, List<Article> moreArticles) {
+
+        List<Article> sortedMoreArticles = sortNewestFirst(moreArticles);
+
+        List<Article> merged = new ArrayList<>(articles.size() + sortedMoreArticles.size());
+
+        Set<String> urls = new HashSet<>();
+
+        int i = 0;
+
+        int j = 0;
+
+        while (i < articles.size() || j < sortedMoreArticles.size()) {
+
+            Article next;
+
+            if (j == sortedMoreArticles.size()
+                    || (i < articles.size() && NEWEST_FIRST.compare(articles.get(i), sortedMoreArticles.get(j)) <= 0)) {
+
+                next = articles.get(i++);
+
+            } else {
+
+                next = sortedMoreArticles.get(j++);
+            }
+
+            // The articles without a URL cannot be told apart, so they are all kept
+            if (next.getUrl() == null || urls.add(next.getUrl())) {
+                merged.add(next);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * This method returns a copy of the articles sorted newest first. The results of the queries ordered by
+     * "newest" are already sorted, which the sort checks in a single pass.
+     */
+    private static List<Article> sortNewestFirst(List<Article> articles) {
+
+        List<Article> sorted = new ArrayList<>(articles);
+
+        Collections.sort(sorted, NEWEST_FIRST);
+
+        return sorted;
+    }
+
+    /**
+     * This method waits for the next query to finish.
+     *
+     * @return List<Article>: the articles of the query, or null if it failed
+     */
+    private static List<Article> takeResult(CompletionService<List<Article>> completionService) {
+
+        try {
+            return completionService.take().get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+            return null;
+
+        } catch (ExecutionException e) {
+
+            Log.e(LOG_TAG, "Problem fetching a query of the feed", e);
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.covid19guide.utils;
+
+/**
+ * Constants of the Guardian's Content API that the app queries, and the feed of the app built from them.
+ */
+public final class GuardianApi {
+
+    /**
+     * The base URL of the Guardian's Content API, which the app connects to unless it is given another one
+     */
+    public static final String DEFAULT_BASE_URL = "https://content.guardianapis.com/";
+
+    /**
+     * The path of the News' Articles Data from the Guardian Data Set
+     */
+    private static final String SEARCH_PATH = "search";
+
+    /**
+     * The API key of the app
+     */
+    public static final String API_KEY = "c7393c36-e790-4c7b-8c59-a652141fa8ad";
+
+    /**
+     * The fields of the full feed, whose cards show the beginning of the body text of every article
+     */
+    public static final String FULL_FEED_FIELDS = "body-text,thumbnail";
+
+    /**
+     * The fields of the light feed, whose cards show the trail text while the bodies are fetched later on demand
+     */
+    public static final String LIGHT_FEED_FIELDS = "trailText,thumbnail,byline";
+
+    /**
+     * The fields of a batch request for the bodies of articles
+     */
+    public static final String BODY_FIELDS = "body-text";
+
+    /**
+     * The first publication date of the articles of the feed
+     */
+    private static final String FEED_FROM_DATE = "2020-06-01";
+
+    /**
+     * The base URL of the API that the requests are sent to, ending with a slash
+     */
+    private static volatile String sBaseUrl = DEFAULT_BASE_URL;
+
+    /**
+     * Create a private constructor because we don't want to create a {@link GuardianApi} object.
+     */
+    private GuardianApi() {
+    }
+
+    /**
+     * This method sends all the following requests to another server with the same API, for example a local stand-in
+     * server of the tests. The queries that were already built keep their URLs.
+     *
+     * @param baseUrl is the base URL of the API, such as {@link #DEFAULT_BASE_URL}
+     */
+    public static void setBaseUrl(String baseUrl) {
+
+        sBaseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
+    /**
+     * This method returns the base URL of the API, the host that the app connects to ahead of its first request.
+     */
+    public static String getBaseUrl() {
+
+        return sBaseUrl;
+    }
+
+    /**
+     * This method returns the URL of the News' Articles Data from the Guardian Data Set.
+     */
+    public static String getSearchUrl() {
+
+        return sBaseUrl + SEARCH_PATH;
+    }
+
+    /**
+     * This method builds the COVID19 feed of the app, which is merged from the general news about the virus, the news
+     * about the vaccines and the testing, and the health news of the society section.
+     *
+     * @param isLightFeed is true to ask for the small fields only, false to ask for the body texts too
+     * @return GuardianFeed: the feed
+     */
+    public static GuardianFeed buildFeed(boolean isLightFeed) {
+
+        return new GuardianFeed(
+                newFeedQuery(isLightFeed).setSearchTerms("covid"),
+                newFeedQuery(isLightFeed).setSearchTerms("covid AND vaccine"),
+                newFeedQuery(isLightFeed).setSearchTerms("covid AND testing"),
+                newFeedQuery(isLightFeed).setSearchTerms("covid").setSection("society"));
+    }
+
+    /**
+     * This method returns a query with the parameters that all the queries of the feed share.
+     */
+    private static GuardianQuery newFeedQuery(boolean isLightFeed) {
+
+        return new GuardianQuery()
+                .setFromDate(FEED_FROM_DATE)
+                .setLightFeed(isLightFeed);
+    }
+}
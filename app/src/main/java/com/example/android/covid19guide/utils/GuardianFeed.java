@@ -0,0 +1,82 @@
+package com.example.android.covid19guide.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link GuardianFeed} object describes the feed that the app displays, built from several {@link GuardianQuery}s
+ * whose pages are downloaded together by the {@link FeedFanOutFetcher} and merged into one list.
+ */
+public final class GuardianFeed {
+
+    /**
+     * The queries of the feed
+     */
+    private final List<GuardianQuery> mQueries;
+
+    /**
+     * The URLs of the queries, which tell two feeds apart
+     */
+    private final List<String> mQueryUrls;
+
+    /**
+     * Constructs a new {@link GuardianFeed} object.
+     *
+     * @param queries are the queries of the feed, at least one
+     */
+    public GuardianFeed(GuardianQuery... queries) {
+
+        if (queries.length == 0) {
+            throw new IllegalArgumentException("A feed needs at least one query");
+        }
+
+        mQueries = Collections.unmodifiableList(Arrays.asList(queries));
+
+        List<String> queryUrls = new ArrayList<>();
+
+        for (GuardianQuery query : queries) {
+            queryUrls.add(query.buildUrl());
+        }
+
+        mQueryUrls = Collections.unmodifiableList(queryUrls);
+    }
+
+    /**
+     * This method returns the queries of the feed
+     */
+    public List<GuardianQuery> getQueries() {
+        return mQueries;
+    }
+
+    /**
+     * This method returns the URLs of the queries of the feed, without the page parameters
+     */
+    public List<String> getQueryUrls() {
+        return mQueryUrls;
+    }
+
+    /**
+     * This method returns the number of articles that every query asks for, so that a page of the whole feed has
+     * about the given number of articles.
+     *
+     * @param pageSize is the number of articles of a page of the feed
+     */
+    public int getQueryPageSize(int pageSize) {
+
+        return Math.max(1, (pageSize + mQueries.size() - 1) / mQueries.size());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        return other instanceof GuardianFeed && mQueryUrls.equals(((GuardianFeed) other).mQueryUrls);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return mQueryUrls.hashCode();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.android.covid19guide.utils;
+
+import android.net.Uri;
+import android.text.TextUtils;
+
+/**
+ * A {@link GuardianQuery} object describes one query of the Guardian's Content API: the search terms, the section,
+ * the order and the first publication date of its results, and whether it asks for the light or the full fields.
+ * The queries of a {@link GuardianFeed} are all sent together and their results are merged into one feed.
+ */
+public class GuardianQuery {
+
+    /**
+     * The order of the results that the merge of a feed relies on, the newest article first
+     */
+    public static final String ORDER_BY_NEWEST = "newest";
+
+    /**
+     * The search terms, or null to search the whole section
+     */
+    private String searchTerms;
+
+    /**
+     * The id of the section that the results come from, or null for all the sections
+     */
+    private String section;
+
+    /**
+     * The order of the results
+     */
+    private String orderBy = ORDER_BY_NEWEST;
+
+    /**
+     * The first publication date of the results in the yyyy-MM-dd format, or null
+     */
+    private String fromDate;
+
+    /**
+     * True to ask for the small fields only, false to ask for the body texts too
+     */
+    private boolean isLightFeed;
+
+    /**
+     * This method sets the search terms of the query.
+     *
+     * @return GuardianQuery: this query, so that the calls can be chained
+     */
+    public GuardianQuery setSearchTerms(String searchTerms) {
+        this.searchTerms = searchTerms;
+        return this;
+    }
+
+    /**
+     * This method limits the results to a section, for example "society" or "world".
+     *
+     * @return GuardianQuery: this query, so that the calls can be chained
+     */
+    public GuardianQuery setSection(String section) {
+        this.section = section;
+        return this;
+    }
+
+    /**
+     * This method sets the order of the results, "newest" by default.
+     *
+     * @return GuardianQuery: this query, so that the calls can be chained
+     */
+    public GuardianQuery setOrderBy(String orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+
+    /**
+     * This method limits the results to the articles published on or after the date, in the yyyy-MM-dd format.
+     *
+     * @return GuardianQuery: this query, so that the calls can be chained
+     */
+    public GuardianQuery setFromDate(String fromDate) {
+        this.fromDate = fromDate;
+        return this;
+    }
+
+    /**
+     * This method chooses between the light fields, whose bodies are fetched later on demand, and the full fields.
+     *
+     * @return GuardianQuery: this query, so that the calls can be chained
+     */
+    public GuardianQuery setLightFeed(boolean isLightFeed) {
+        this.isLightFeed = isLightFeed;
+        return this;
+    }
+
+    /**
+     * This method builds the URL of the query, without the page parameters.
+     *
+     * @return String: the query URL
+     */
+    public String buildUrl() {
+
+        //Create a Uri object from the Guardian search URL and then get a Uri.Builder from this Uri Object
+        Uri.Builder uriBuilder = Uri.parse(GuardianApi.getSearchUrl()).buildUpon();
+
+        //Append the query parameters
+        if (!TextUtils.isEmpty(searchTerms)) {
+            uriBuilder.appendQueryParameter("q", searchTerms);
+        }
+
+        if (!TextUtils.isEmpty(section)) {
+            uriBuilder.appendQueryParameter("section", section);
+        }
+
+        uriBuilder.appendQueryParameter("format", "json");
+
+        uriBuilder.appendQueryParameter("order-by", orderBy);
+
+        if (!TextUtils.isEmpty(fromDate)) {
+            uriBuilder.appendQueryParameter("from-date", fromDate);
+        }
+
+        //The light feed only asks for the small fields and gets the author from the byline,
+        //while the full feed asks for the body texts and the contributor tags
+        if (isLightFeed) {
+
+            uriBuilder.appendQueryParameter("show-fields", GuardianApi.LIGHT_FEED_FIELDS);
+
+        } else {
+
+            uriBuilder.appendQueryParameter("show-tags", "contributor");
+
+            uriBuilder.appendQueryParameter("show-fields", GuardianApi.FULL_FEED_FIELDS);
+        }
+
+        uriBuilder.appendQueryParameter("api-key", GuardianApi.API_KEY);
+
+        return uriBuilder.build().toString();
+    }
+
+    /**
+     * This method builds the URL of a page of the query.
+     *
+     * @param page     is the number of the page, starting at 1
+     * @param pageSize is the number of articles of every page
+     * @return String: the URL of the page
+     */
+    public String buildPageUrl(int page, int pageSize) {
+
+        return Uri.parse(buildUrl()).buildUpon()
+                .appendQueryParameter("page", String.valueOf(page))
+                .appendQueryParameter("page-size", String.valueOf(pageSize))
+                .build()
+                .toString();
+    }
+}
@@ -1,21 +1,29 @@
 package com.example.android.covid19guide.utils;
 
-import android.text.TextUtils;
+import android.os.CancellationSignal;
 import android.util.Log;
+import com.example.android.covid19guide.data.ArticlesSearchIndex;
 import com.example.android.covid19guide.datamodels.Article;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import java.io.BufferedReader;
+import com.example.android.covid19guide.datamodels.SearchPage;
+import com.example.android.covid19guide.network.ConditionalResponseCache;
+import com.example.android.covid19guide.network.CountingInputStream;
+import com.example.android.covid19guide.network.FetchMetrics;
+import com.example.android.covid19guide.network.FetchTimings;
+import com.example.android.covid19guide.network.HttpRequest;
+import com.example.android.covid19guide.network.HttpResponse;
+import com.example.android.covid19guide.network.HttpTransport;
+import com.example.android.covid19guide.network.NetworkQualityEstimator;
+import com.example.android.covid19guide.network.PooledHttpTransport;
+import com.example.android.covid19guide.network.TransferStatistics;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Helper methods related to requesting and receiving News' Articles Data from the Guardian's Data Set.
@@ -27,6 +35,64 @@ public class QueryUtils {
      */
     private static final String LOG_TAG = QueryUtils.class.getSimpleName();
 
+    /**
+     * The cache of the Guardian API responses, or null if the responses are not cached
+     */
+    private static volatile ConditionalResponseCache sResponseCache;
+
+    /**
+     * The full-text index that the parsed articles and bodies are added to, or null if they are not indexed
+     */
+    private static volatile ArticlesSearchIndex sSearchIndex;
+
+    /**
+     * The estimator of the network quality that every response is reported to, or null
+     */
+    private static volatile NetworkQualityEstimator sNetworkQualityEstimator;
+
+    /**
+     * Default timeouts of the requests in milliseconds
+     */
+    private static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 15000;
+
+    private static final long DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Default number of idle connections kept in the pool and the time after which an idle connection is closed
+     */
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 4;
+
+    private static final long DEFAULT_KEEP_ALIVE_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * The bytes transferred and the parse time of every kind of request
+     */
+    private static final TransferStatistics sTransferStatistics = new TransferStatistics();
+
+    /**
+     * The transport that the requests are sent through
+     */
+    private static volatile HttpTransport sTransport = new PooledHttpTransport(DEFAULT_CONNECT_TIMEOUT_MILLIS,
+            DEFAULT_READ_TIMEOUT_MILLIS, DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_MILLIS);
+
+    /**
+     * Keeps the full bodies of the full feed outside of the articles, where they are loaded from when they are needed
+     */
+    private static final ArticlesJsonDecoder.OnBodyDecodedListener BODY_LISTENER =
+            new ArticlesJsonDecoder.OnBodyDecodedListener() {
+                @Override
+                public void onBodyDecoded(String id, String body) {
+
+                    ArticleBodyFetcher.getInstance().putBody(id, body);
+
+                    ArticlesSearchIndex searchIndex = sSearchIndex;
+
+                    if (searchIndex != null) {
+                        searchIndex.addBody(id, body);
+                    }
+                }
+            };
+
     /**
      * Create a private constructor because we don't want to create a {@link QueryUtils} object.
      * This class is only meant to hold static variables and methods, which can be accessed
@@ -43,22 +109,65 @@ public class QueryUtils {
      */
     public static List<Article> fetchNewsData(String requestUrl) {
 
+        return fetchNewsData(requestUrl, null);
+    }
+
+    /**
+     * This method queries the Guardian's Data Set like {@link #fetchNewsData(String)}, and stops the download and
+     * the parsing of the response as soon as the cancellation signal is canceled.
+     *
+     * @param requestUrl         is the url that we use to make a request to the server for the data resources needed
+     * @param cancellationSignal is the signal that cancels the request, or null if the request cannot be canceled
+     * @return List<Article>: the News' Articles, or null if the request failed or was canceled
+     */
+    public static List<Article> fetchNewsData(String requestUrl, CancellationSignal cancellationSignal) {
+
+        return fetchNewsData(requestUrl, cancellationSignal, null);
+    }
+
+    /**
+     * This method queries the Guardian's Data Set like {@link #fetchNewsData(String, CancellationSignal)}, and hands
+     * every article to the listener as soon as it is decoded, while the rest of the response is still being received.
+     *
+     * @param requestUrl         is the url that we use to make a request to the server for the data resources needed
+     * @param cancellationSignal is the signal that cancels the request, or null if the request cannot be canceled
+     * @param listener           is told about every article on the thread of the request, or null. The articles of a
+     *                           request that fails or is canceled partway through have been told about as well
+     * @return List<Article>: the News' Articles, or null if the request failed or was canceled
+     */
+    public static List<Article> fetchNewsData(String requestUrl, CancellationSignal cancellationSignal,
+                                              ArticlesJsonDecoder.OnArticleDecodedListener listener) {
+
+        // Time the stages of the fetch, the timings are null when the metrics are disabled
+        FetchTimings timings = FetchMetrics.startFetch(requestKindOf(requestUrl));
+
+        FetchMetrics.beginSection(FetchMetrics.Stage.TOTAL);
+
         // Create URL object
+        long urlBuildStartNanos = timings == null ? 0 : System.nanoTime();
+
         URL url = createUrl(requestUrl);
 
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = null;
+        if (timings != null) {
+            timings.setStageNanos(FetchMetrics.Stage.URL_BUILD, System.nanoTime() - urlBuildStartNanos);
+        }
+
+        // Perform HTTP request to the URL and decode the JSON response while it is being received
+        List<Article> articlesList = null;
 
         try {
-            jsonResponse = makeHttpRequest(url);
+            articlesList = makeHttpRequest(url, cancellationSignal, timings, listener);
 
         } catch (IOException e) {
 
             Log.e(LOG_TAG, "Problem making the HTTP request.", e);
-        }
 
-        // Extract relevant fields from the JSON response and create a list of {@link Article}
-        List<Article> articlesList = extractFeatureFromJson(jsonResponse);
+        } finally {
+
+            FetchMetrics.endSection();
+
+            FetchMetrics.finishFetch(timings);
+        }
 
         // Return the list of {@link Article}
         return articlesList;
@@ -85,53 +194,310 @@ public class QueryUtils {
     }
 
     /**
-     * Make an HTTP request to the given URL and return a String as the response.
+     * This method installs the response cache that is used by all the following requests, or removes it when null.
+     *
+     * @param responseCache is the cache of the Guardian API responses
+     */
+    public static void setResponseCache(ConditionalResponseCache responseCache) {
+
+        sResponseCache = responseCache;
+    }
+
+    /**
+     * This method installs the full-text index that the articles and the bodies are added to while they are parsed,
+     * or removes it when null.
+     *
+     * @param searchIndex is the index of the downloaded articles
+     */
+    public static void setSearchIndex(ArticlesSearchIndex searchIndex) {
+
+        sSearchIndex = searchIndex;
+    }
+
+    /**
+     * This method installs the estimator of the network quality that the time to the first byte and the throughput of
+     * every response are reported to, or removes it when null.
+     *
+     * @param networkQualityEstimator is the estimator that the requests of the feed are shaped by
+     */
+    public static void setNetworkQualityEstimator(NetworkQualityEstimator networkQualityEstimator) {
+
+        sNetworkQualityEstimator = networkQualityEstimator;
+    }
+
+    /**
+     * This method replaces the transport that all the following requests are sent through.
+     *
+     * @param transport is the transport of the requests, a {@link PooledHttpTransport} by default
+     */
+    public static void setTransport(HttpTransport transport) {
+
+        sTransport = transport;
+    }
+
+    /**
+     * This method returns the transport that the requests are sent through.
+     */
+    public static HttpTransport getTransport() {
+
+        return sTransport;
+    }
+
+    /**
+     * This method returns the installed response cache, or null if the responses are not cached.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
+    public static ConditionalResponseCache getResponseCache() {
 
-        String jsonResponse = "";
+        return sResponseCache;
+    }
+
+    /**
+     * Make an HTTP request to the given URL and return the list of {@link Article}s streamed out of the response.
+     * The request asks for a gzip compressed response and revalidates a cached response with its validators, so that
+     * a 304 Not Modified answer is served from the cache without downloading or parsing the body again.
+     * The stages of the request are recorded in the timings, unless they are null, and every article is handed to the
+     * listener as soon as it is decoded, unless it is null.
+     */
+    private static List<Article> makeHttpRequest(URL url, CancellationSignal cancellationSignal, FetchTimings timings,
+                                                 final ArticlesJsonDecoder.OnArticleDecodedListener listener)
+            throws IOException {
+
+        List<Article> articles = null;
 
         // If the URL is null, then return early.
         if (url == null) {
 
-            return jsonResponse;
+            return articles;
         }
 
-        HttpURLConnection urlConnection = null;
+        ConditionalResponseCache responseCache = sResponseCache;
+
+        ConditionalResponseCache.Entry cacheEntry = responseCache == null ? null : responseCache.get(url.toString());
+
+        ConditionalResponseCache.Editor cacheEditor = null;
+
+        HttpTransport transport = sTransport;
+
+        HttpResponse response = null;
+
+        CountingInputStream wireStream = null;
+
+        CountingInputStream decodedStream = null;
 
         InputStream inputStream = null;
 
+        boolean isTimed = timings != null;
+
+        NetworkQualityEstimator networkQualityEstimator = sNetworkQualityEstimator;
+
         try {
-            urlConnection = (HttpURLConnection) url.openConnection();
+            // Setting the header explicitly turns off any transparent decompression, the body is decompressed below
+            HttpRequest request = new HttpRequest(url.toString())
+                    .setHeader("Accept-Encoding", "gzip")
+                    .setCancellationSignal(cancellationSignal)
+                    .setTimings(timings);
+
+            // Send the validators of the cached response so that the server can answer with 304 Not Modified
+            if (cacheEntry != null) {
+
+                if (cacheEntry.getEtag() != null) {
+                    request.setHeader("If-None-Match", cacheEntry.getEtag());
+                }
+
+                if (cacheEntry.getLastModified() != null) {
+                    request.setHeader("If-Modified-Since", cacheEntry.getLastModified());
+                }
+
+                responseCache.onRevalidation();
+            }
+
+            // The time to the first byte includes the time to open a new connection, which is also recorded apart
+            long requestStartNanos = System.nanoTime();
+
+            FetchMetrics.beginSection(FetchMetrics.Stage.TIME_TO_FIRST_BYTE);
+
+            try {
+                response = transport.execute(request);
+
+            } finally {
+
+                FetchMetrics.endSection();
+            }
+
+            long timeToFirstByteNanos = System.nanoTime() - requestStartNanos;
+
+            if (isTimed) {
+                timings.setStageNanos(FetchMetrics.Stage.TIME_TO_FIRST_BYTE, timeToFirstByteNanos);
+            }
+
+            int responseCode = response.getCode();
+
+            // A response without a body to decode only tells the round trip time
+            if (networkQualityEstimator != null && responseCode != HttpURLConnection.HTTP_OK) {
+                networkQualityEstimator.onResponse(timeToFirstByteNanos, 0, 0);
+            }
+
+            // If the cached response is still valid, serve it from the cache without parsing it again
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cacheEntry != null) {
+
+                long parseStartNanos = isTimed ? System.nanoTime() : 0;
+
+                FetchMetrics.beginSection(FetchMetrics.Stage.PARSE);
+
+                try {
+                    articles = responseCache.onNotModified(cacheEntry, new ConditionalResponseCache.BodyDecoder() {
+                        @Override
+                        public List<Article> decode(InputStream body) throws IOException {
+
+                            return decodeArticles(body, listener);
+                        }
+                    });
 
-            urlConnection.setReadTimeout(10000 /* milliseconds */);
+                } finally {
 
-            urlConnection.setConnectTimeout(15000 /* milliseconds */);
+                    FetchMetrics.endSection();
+                }
+
+                if (isTimed && articles != null) {
+
+                    timings.setStageNanos(FetchMetrics.Stage.PARSE, System.nanoTime() - parseStartNanos);
+
+                    timings.setResult(0, 0, articles.size(), true);
+                }
+
+            // If the request was successful (response code 200), then decode the articles straight off the input stream.
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+
+                boolean isGzipped = "gzip".equalsIgnoreCase(response.getHeader("Content-Encoding"));
+
+                // The timed reads of the body tell the time waiting for the network apart from the time parsing
+                wireStream = new CountingInputStream(response.getBody(),
+                        isTimed || networkQualityEstimator != null);
+
+                inputStream = wireStream;
+
+                // Copy the response into the cache while it is being decoded
+                if (responseCache != null) {
+
+                    cacheEditor = responseCache.edit(url.toString(), response.getHeader("ETag"),
+                            response.getHeader("Last-Modified"), isGzipped);
+
+                    if (cacheEditor != null) {
+                        inputStream = cacheEditor.wrap(inputStream);
+                    }
+                }
+
+                if (isGzipped) {
+                    inputStream = new GZIPInputStream(inputStream);
+                }
 
-            urlConnection.setRequestMethod("GET");
+                if (isTimed) {
 
-            urlConnection.connect();
+                    decodedStream = new CountingInputStream(inputStream, true);
 
-            // If the request was successful (response code 200), then read the input stream and parse the response.
-            if (urlConnection.getResponseCode() == 200) {
+                    inputStream = decodedStream;
+                }
+
+                long decodeStartNanos = System.nanoTime();
+
+                FetchMetrics.beginSection(FetchMetrics.Stage.PARSE);
+
+                try {
+                    articles = decodeArticles(inputStream, listener);
+
+                } finally {
+
+                    FetchMetrics.endSection();
+                }
+
+                long decodeNanos = System.nanoTime() - decodeStartNanos;
 
-                inputStream = urlConnection.getInputStream();
+                // A canceled request stops the decoding partway through, its articles are incomplete
+                if (isCanceled(cancellationSignal)) {
+
+                    Log.i(LOG_TAG, "Request canceled: " + url);
+
+                    return null;
+                }
+
+                // Read what is left after the JSON document, so that the whole body is stored and the
+                // connection can go back to the pool
+                drain(inputStream);
+
+                // The decoding time includes the download, because the articles are decoded while they arrive
+                sTransferStatistics.record(requestKindOf(url.toString()), wireStream.getCount(),
+                        decodeNanos, articles == null ? 0 : articles.size());
+
+                // The time in the reads of the decompressed stream is the download plus the decompression, the rest
+                // of the decoding time is the parsing
+                if (networkQualityEstimator != null) {
+                    networkQualityEstimator.onResponse(timeToFirstByteNanos, wireStream.getCount(),
+                            wireStream.getReadNanos());
+                }
 
-                jsonResponse = readFromStream(inputStream);
+                if (isTimed && articles != null) {
+
+                    timings.setStageNanos(FetchMetrics.Stage.DOWNLOAD, wireStream.getReadNanos());
+
+                    timings.setStageNanos(FetchMetrics.Stage.DECODE,
+                            Math.max(0, decodedStream.getReadNanos() - wireStream.getReadNanos()));
+
+                    timings.setStageNanos(FetchMetrics.Stage.PARSE,
+                            Math.max(0, decodeNanos - decodedStream.getReadNanos()));
+
+                    timings.setResult(wireStream.getCount(), decodedStream.getCount(), articles.size(), false);
+                }
+
+                // Only a body that was read and decoded completely is stored, anything else is aborted below
+                if (cacheEditor != null && articles != null) {
+
+                    cacheEditor.commit(articles);
+
+                    cacheEditor = null;
+                }
+
+                // A response served from the cache was already indexed when it was downloaded
+                ArticlesSearchIndex searchIndex = sSearchIndex;
+
+                if (searchIndex != null && articles != null) {
+                    searchIndex.addArticles(articles);
+                }
+
+            // The API answers a page past the last page of the search with 400 Bad Request, which only tells that
+            // the search has no more pages since an earlier page of the same request was answered
+            } else if (responseCode == HttpURLConnection.HTTP_BAD_REQUEST && pageOf(url.toString()) > 1) {
+
+                int page = pageOf(url.toString());
+
+                Log.i(LOG_TAG, "Page " + page + " is past the last page of " + url);
+
+                articles = new SearchPage(Collections.<Article>emptyList(), page, page - 1);
 
             } else {
 
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
+                Log.e(LOG_TAG, "Error response code: " + responseCode);
             }
         } catch (IOException e) {
 
-            Log.e(LOG_TAG, "Problem retrieving the News Articles JSON results.", e);
+            // A body that was cut short is not a whole page, its shorter length would end the pagination of the query
+            articles = null;
+
+            if (isCanceled(cancellationSignal)) {
+                Log.i(LOG_TAG, "Request canceled: " + url);
+            } else {
+                Log.e(LOG_TAG, "Problem retrieving the News Articles JSON results.", e);
+            }
 
         } finally {
 
-            if (urlConnection != null) {
+            if (cacheEditor != null) {
+
+                cacheEditor.abort();
+            }
+
+            if (responseCache != null && wireStream != null) {
 
-                urlConnection.disconnect();
+                responseCache.onNetworkBytes(wireStream.getCount());
             }
 
             if (inputStream != null) {
@@ -140,121 +506,201 @@ public class QueryUtils {
                 // could be thrown.
                 inputStream.close();
             }
+
+            // Closing the response releases its connection back to the pool of the transport
+            if (response != null) {
+
+                response.close();
+            }
         }
-        return jsonResponse;
+        return isCanceled(cancellationSignal) ? null : articles;
     }
 
     /**
-     * Convert the {@link InputStream} into a String which contains the whole JSON response from the server.
+     * This method decodes the articles of a response into a {@link SearchPage}, which also tells whether the search
+     * has more pages, and hands every article to the listener as soon as it is decoded, unless the listener is null.
+     *
+     * @return List<Article>: the decoded page, or null if the stream is null or empty
+     * @throws IOException if the response is cut short or malformed, the articles already handed to the listener
+     *                     are not a whole page
      */
-    private static String readFromStream(InputStream inputStream) throws IOException {
+    private static List<Article> decodeArticles(InputStream inputStream,
+                                                ArticlesJsonDecoder.OnArticleDecodedListener listener)
+            throws IOException {
 
-        StringBuilder output = new StringBuilder();
-
-        if (inputStream != null) {
+        return ArticlesJsonDecoder.decodePage(inputStream, listener, BODY_LISTENER);
+    }
 
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+    private static boolean isCanceled(CancellationSignal cancellationSignal) {
 
-            BufferedReader reader = new BufferedReader(inputStreamReader);
+        return cancellationSignal != null && cancellationSignal.isCanceled();
+    }
 
-            String line = reader.readLine();
+    /**
+     * This method opens a pooled connection to the host of the URL ahead of the requests to it.
+     *
+     * @param url is a URL on the host to connect to
+     */
+    public static void preconnect(String url) {
 
-            while (line != null) {
+        try {
+            sTransport.preconnect(url);
 
-                output.append(line);
+        } catch (IOException e) {
 
-                line = reader.readLine();
-            }
+            Log.e(LOG_TAG, "Problem preconnecting to " + url, e);
         }
-        return output.toString();
     }
 
     /**
-     * Return a list of {@link Article} objects that has been built up from parsing the given JSON response.
+     * This method requests the body texts of a batch of articles in a single request made with the {@code ids}
+     * parameter, so that the feed can be loaded without the bodies and they are only fetched when they are needed.
+     *
+     * @param requestUrl is the batch request URL
+     * @return Map<String, String>: the body text of every article keyed by its id, or null if the request failed
      */
-    private static List<Article> extractFeatureFromJson(String articlesJSON) {
+    public static Map<String, String> fetchArticleBodies(String requestUrl) {
 
-        // If the JSON string is empty, then return early.
-        if (TextUtils.isEmpty(articlesJSON)) {
+        URL url = createUrl(requestUrl);
+
+        if (url == null) {
             return null;
         }
 
-        // Create an empty ArrayList that we can start adding News Articles to
-        List<Article> articles = new ArrayList<>();
+        Map<String, String> bodies = null;
+
+        HttpResponse response = null;
+
+        InputStream inputStream = null;
 
-        // Try to parse the JSON response string. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
         try {
+            response = sTransport.execute(new HttpRequest(url.toString()).setHeader("Accept-Encoding", "gzip"));
 
-            // Create a JSONObject baseJsonResponse from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(articlesJSON);
+            if (response.getCode() == HttpURLConnection.HTTP_OK) {
 
-            // Extract the JSONArray associated with the key called "results", which represents a list of results or news articles.
-            JSONArray resultsArray = baseJsonResponse.getJSONObject("response").getJSONArray("results");
+                CountingInputStream wireStream = new CountingInputStream(response.getBody());
 
-            // For each news article in the resultsArray, create an {@link Article} object
-            for (int i = 0; i < resultsArray.length(); i++) {
+                inputStream = "gzip".equalsIgnoreCase(response.getHeader("Content-Encoding"))
+                        ? new GZIPInputStream(wireStream) : wireStream;
 
-                // Get a single Article at position i within the list of results/articles
-                JSONObject currentArticle = resultsArray.getJSONObject(i);
+                long decodeStartNanos = System.nanoTime();
 
-                //Extract the value for the key called "sectionName"
-                String sectionName = currentArticle.getString("sectionName");
+                bodies = ArticlesJsonDecoder.decodeBodies(inputStream);
 
-                //Extract the value for the key called "webPublicationDate"
-                String articleDate = currentArticle.getString("webPublicationDate");
+                ArticlesSearchIndex searchIndex = sSearchIndex;
 
-                //Extract the date section only from the articleDate without the time section
-                String[] datePartsArray = articleDate.split("T");
+                if (searchIndex != null && bodies != null) {
+                    searchIndex.addBodies(bodies);
+                }
 
-                String dateSection = datePartsArray[0];
+                drain(inputStream);
 
-                //Extract the value for the key called "webTitle"
-                String articleTitle = currentArticle.getString("webTitle");
+                sTransferStatistics.record(requestKindOf(requestUrl), wireStream.getCount(),
+                        System.nanoTime() - decodeStartNanos, bodies == null ? 0 : bodies.size());
 
-                //Extract the value for the key called "webUrl"
-                String articleUrl = currentArticle.getString("webUrl");
+            } else {
 
-                // Extract the JSONObject associated with the key called "fields"
-                JSONObject fields = currentArticle.getJSONObject("fields");
+                Log.e(LOG_TAG, "Error response code: " + response.getCode());
+            }
+        } catch (IOException e) {
 
-                //Extract the value for the key called "bodyText"
-                String articleDescription = fields.getString("bodyText");
+            Log.e(LOG_TAG, "Problem retrieving the article bodies.", e);
 
-                //Extract the value for the key called "thumbnail"
-                String articleImage = fields.getString("thumbnail");
+        } finally {
 
-                // Extract the JSONArray associated with the key called "tags"
-                JSONArray tagsArray = currentArticle.getJSONArray("tags");
+            // Closing the decompressed stream releases its inflater right away instead of in its finalizer
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem closing the article bodies.", e);
+                }
+            }
 
-                //Declare String variable to hold the article's author name
-                String authorName = null;
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem closing the response.", e);
+                }
+            }
+        }
 
-                //Extract the value for the key called "webTitle" representing the author name
-                if (tagsArray.length() != 0) {
+        return bodies;
+    }
 
-                    JSONObject tagsElement = tagsArray.getJSONObject(0);
+    /**
+     * This method returns the statistics of the bytes transferred and the parse time for every kind of request.
+     */
+    public static TransferStatistics getTransferStatistics() {
 
-                    authorName = tagsElement.getString("webTitle");
-                }
+        return sTransferStatistics;
+    }
 
-                // Create a new {@link Article} object with the title, description, section name, date of publishing, article's website Url,
-                //article's author name, and article's image thumbnail from the JSON response.
-                Article article = new Article(articleTitle, articleDescription, sectionName, dateSection, articleUrl, authorName, articleImage);
+    /**
+     * This method returns the kind of a request for the transfer statistics, which is the value of its
+     * {@code show-fields} parameter. The timings of a fetch are started before its URL is checked, so the URL may
+     * be null.
+     */
+    private static String requestKindOf(String requestUrl) {
 
-                // Add the new {@link Article} to the list of articles.
-                articles.add(article);
-            }
+        String marker = "show-fields=";
+
+        int start = requestUrl == null ? -1 : requestUrl.indexOf(marker);
+
+        if (start == -1) {
+            return "no-fields";
+        }
+
+        start += marker.length();
+
+        int end = requestUrl.indexOf('&', start);
+
+        String kind = end == -1 ? requestUrl.substring(start) : requestUrl.substring(start, end);
+
+        // The separators of the fields are percent encoded by Uri.Builder
+        return kind.replace("%2C", ",");
+    }
+
+    /**
+     * This method returns the value of the {@code page} parameter of a request, or 1 if the request has none, which
+     * is the page that the API answers then.
+     */
+    private static int pageOf(String requestUrl) {
+
+        String marker = "page=";
+
+        int start = requestUrl.indexOf("?" + marker);
 
-        } catch (JSONException e) {
-            // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e("QueryUtils", "Problem parsing the JSON results", e);
+        if (start == -1) {
+            start = requestUrl.indexOf("&" + marker);
         }
 
-        // Return the list of articles
-        return articles;
+        if (start == -1) {
+            return 1;
+        }
+
+        start += marker.length() + 1;
+
+        int end = requestUrl.indexOf('&', start);
+
+        try {
+            return Integer.parseInt(end == -1 ? requestUrl.substring(start) : requestUrl.substring(start, end));
+
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Read and discard the rest of the {@link InputStream}.
+     */
+    private static void drain(InputStream inputStream) throws IOException {
+
+        byte[] buffer = new byte[8192];
+
+        while (inputStream.read(buffer) != -1) {
+            // Keep reading until the end of the stream
+        }
     }
 }
@@ -0,0 +1,426 @@
+package com.example.android.covid19guide.viewmodels;
+
+import android.app.Application;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.RequestShaper;
+import com.example.android.covid19guide.repository.ArticlesRepository;
+import com.example.android.covid19guide.utils.FeedFanOutFetcher;
+import com.example.android.covid19guide.utils.GuardianApi;
+import com.example.android.covid19guide.utils.GuardianFeed;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the feed of the MainActivity across configuration changes. The feed is loaded through the
+ * {@link ArticlesRepository} once, a page that is being downloaded when the activity is recreated is delivered to the
+ * new activity, and the running loads are canceled when the activity is finished for good.
+ */
+public class ArticlesViewModel extends AndroidViewModel {
+
+    /**
+     * The time after which a failed page may be asked for again, which doubles with every failure in a row up to the
+     * maximum, so that the scroll events do not ask for it again and again
+     */
+    private static final long INITIAL_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final ArticlesRepository mRepository;
+
+    /**
+     * The feed stored on the device, and the feed loaded from the network (or a fresh stored feed) page by page
+     */
+    private final MutableLiveData<List<Article>> mStoredArticles = new MutableLiveData<>();
+
+    private final MutableLiveData<List<Article>> mNetworkArticles = new MutableLiveData<>();
+
+    /**
+     * The articles found by the current search, or null when the user is not searching
+     */
+    private final MutableLiveData<List<Article>> mSearchResults = new MutableLiveData<>();
+
+    /**
+     * The feed, or null until the feed is started
+     */
+    private GuardianFeed mFeed;
+
+    /**
+     * The feed asks for the small fields only, its bodies are fetched on demand
+     */
+    private boolean mIsLightFeed;
+
+    /**
+     * The number of articles of every page, and the number of the page that will be requested next
+     */
+    private int mPageSize;
+
+    private int mNextPage = 1;
+
+    /**
+     * None of the queries of the feed has a page after the last page that was loaded
+     */
+    private boolean mIsLastPage;
+
+    /**
+     * All the articles of the pages that have been loaded so far, or null
+     */
+    private List<Article> mArticles;
+
+    /**
+     * The articles of the pages loaded so far followed by the articles of the page being loaded that have been
+     * decoded, in the order in which they were decoded, or null while no article of the page has been decoded
+     */
+    private List<Article> mDecodedArticles;
+
+    /**
+     * The URLs of the decoded articles, so that an article that several queries return is displayed only once
+     */
+    private Set<String> mDecodedUrls;
+
+    /**
+     * The delay after the last failed page, 0 once a page was loaded, and the time before which the next page is not
+     * asked for, in the clock of {@link SystemClock#elapsedRealtime()}
+     */
+    private long mRetryDelayMillis;
+
+    private long mRetryAtMillis;
+
+    /**
+     * The running loads, which are canceled when the view model is cleared
+     */
+    private ArticlesRepository.Task mStoredTask;
+
+    private ArticlesRepository.Task mPageTask;
+
+    private ArticlesRepository.Task mSearchTask;
+
+    /**
+     * The text of the current search, or null when the user is not searching
+     */
+    private String mSearchText;
+
+    public ArticlesViewModel(@NonNull Application application) {
+        super(application);
+        mRepository = ArticlesRepository.getInstance(application);
+    }
+
+    /**
+     * This method returns the feed stored on the device, it is null if nothing is stored.
+     */
+    public LiveData<List<Article>> getStoredArticles() {
+        return mStoredArticles;
+    }
+
+    /**
+     * This method returns all the articles of the pages loaded so far, it is null if the first page failed.
+     */
+    public LiveData<List<Article>> getNetworkArticles() {
+        return mNetworkArticles;
+    }
+
+    /**
+     * This method returns the articles found by the current search, it is null when the user is not searching.
+     */
+    public LiveData<List<Article>> getSearchResults() {
+        return mSearchResults;
+    }
+
+    /**
+     * This method starts loading the feed. It does nothing when the feed is already started, for example when the
+     * activity is recreated after a configuration change, because the LiveData deliver the latest feed again.
+     *
+     * @param feedShape   is the page size and the fields of the feed for the current network
+     * @param isConnected is true if there is a network connection to refresh the feed with
+     */
+    public void start(RequestShaper.FeedShape feedShape, final boolean isConnected) {
+
+        if (mFeed != null) {
+            return;
+        }
+
+        mIsLightFeed = feedShape.isLightFeed();
+
+        mFeed = GuardianApi.buildFeed(mIsLightFeed);
+
+        mPageSize = feedShape.getPageSize();
+
+        mStoredTask = mRepository.loadStoredFeed(mFeed, new ArticlesRepository.Callback<ArticlesRepository.StoredFeed>() {
+            @Override
+            public void onResult(ArticlesRepository.StoredFeed storedFeed) {
+
+                mStoredTask = null;
+
+                List<Article> storedArticles = storedFeed.getArticles();
+
+                // A fresh stored feed, for example from a background sync, is used as the pages loaded so far
+                // without any request to the network, and the next pages follow it. The merged pages may have lost
+                // some duplicates, so the next page is rather asked for again, its duplicates are left out
+                if (storedFeed.isFresh()) {
+
+                    mNextPage = storedArticles.size() / mPageSize + 1;
+
+                    mArticles = storedArticles;
+
+                    mNetworkArticles.setValue(storedArticles);
+
+                    return;
+                }
+
+                mStoredArticles.setValue(storedArticles);
+
+                if (isConnected) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    /**
+     * This method starts loading the next page of the feed, unless the stored feed is still being read, a page is
+     * already being loaded, the last page has been loaded, or a page failed a short while ago.
+     */
+    public void loadNextPage() {
+
+        if (mFeed == null || mStoredTask != null || mPageTask != null || mIsLastPage
+                || SystemClock.elapsedRealtime() < mRetryAtMillis) {
+            return;
+        }
+
+        reshape(RequestShaper.getInstance(getApplication()).getFeedShape());
+
+        mPageTask = mRepository.loadPage(mFeed, mNextPage, mPageSize,
+                new ArticlesRepository.Callback<FeedFanOutFetcher.Page>() {
+            @Override
+            public void onResult(FeedFanOutFetcher.Page page) {
+
+                mPageTask = null;
+
+                List<Article> articles = mDecodedArticles;
+
+                Set<String> urls = mDecodedUrls;
+
+                mDecodedArticles = null;
+
+                mDecodedUrls = null;
+
+                // A failed page keeps the pages that were loaded before it, so that it can be requested again
+                if (page == null) {
+
+                    mRetryDelayMillis = mRetryDelayMillis == 0
+                            ? INITIAL_RETRY_DELAY_MILLIS : Math.min(2 * mRetryDelayMillis, MAX_RETRY_DELAY_MILLIS);
+
+                    mRetryAtMillis = SystemClock.elapsedRealtime() + mRetryDelayMillis;
+
+                    mNetworkArticles.setValue(mArticles);
+
+                    return;
+                }
+
+                mRetryDelayMillis = 0;
+
+                mRetryAtMillis = 0;
+
+                // The cards already displayed stay where they are. The page is appended to the feed without the
+                // articles that the feed already has: the articles displayed while it was downloaded keep their
+                // place, and the articles that were not decoded, such as those of a cached query, follow newest first
+                if (articles == null) {
+
+                    articles = copyOfFeed();
+
+                    urls = urlsOf(articles);
+                }
+
+                appendNewArticles(articles, urls, page.getArticles());
+
+                mIsLastPage = page.isLastPage();
+
+                mNextPage++;
+
+                mArticles = articles;
+
+                // Keep the whole feed on the device so that the next start of the app can display it right away
+                mRepository.saveFeed(mFeed, articles);
+
+                mNetworkArticles.setValue(articles);
+            }
+        }, new ArticlesRepository.Callback<List<Article>>() {
+            @Override
+            public void onResult(List<Article> decodedArticles) {
+
+                // The cards of the page are displayed while it is being downloaded, after the cards of the feed, in
+                // the order in which they were decoded, and they keep that order once the page is complete
+                if (mDecodedArticles == null) {
+
+                    mDecodedArticles = copyOfFeed();
+
+                    mDecodedUrls = urlsOf(mDecodedArticles);
+                }
+
+                appendNewArticles(mDecodedArticles, mDecodedUrls, decodedArticles);
+
+                mNetworkArticles.setValue(mDecodedArticles);
+            }
+        });
+    }
+
+    /**
+     * This method asks for the next page of the feed right away, also within the delay after a failed page, for
+     * example when the device has just connected to a network.
+     */
+    public void retryNextPage() {
+
+        mRetryAtMillis = 0;
+
+        loadNextPage();
+    }
+
+    /**
+     * This method returns a copy of the pages loaded so far, which the next page can be appended to.
+     */
+    private List<Article> copyOfFeed() {
+
+        return mArticles == null ? new ArrayList<Article>() : new ArrayList<>(mArticles);
+    }
+
+    /**
+     * This method returns the URLs of the articles.
+     */
+    private static Set<String> urlsOf(List<Article> articles) {
+
+        Set<String> urls = new HashSet<>();
+
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+
+        return urls;
+    }
+
+    /**
+     * This method appends the articles to the feed in their order, without the articles whose URL the feed already
+     * has, and adds their URLs to the URLs of the feed.
+     */
+    private static void appendNewArticles(List<Article> feed, Set<String> urls, List<Article> articles) {
+
+        for (Article article : articles) {
+
+            // The articles without a URL cannot be told apart, so they are all kept
+            if (article.getUrl() == null || urls.add(article.getUrl())) {
+                feed.add(article);
+            }
+        }
+    }
+
+    /**
+     * This method follows a change of the quality of the network with the next pages: the pages loaded so far are
+     * counted again in pages of the new size, and the articles that the next page repeats are left out.
+     */
+    private void reshape(RequestShaper.FeedShape feedShape) {
+
+        if (feedShape.getPageSize() != mPageSize) {
+
+            mNextPage = (mNextPage - 1) * mPageSize / feedShape.getPageSize() + 1;
+
+            mPageSize = feedShape.getPageSize();
+        }
+
+        // The light and the full feed have the same key in the store, so the saved feed is kept
+        if (feedShape.isLightFeed() != mIsLightFeed) {
+
+            mIsLightFeed = feedShape.isLightFeed();
+
+            mFeed = GuardianApi.buildFeed(mIsLightFeed);
+        }
+    }
+
+    /**
+     * This method searches the downloaded articles for the text, replacing the search of the previous text. The user
+     * stops searching when the text is empty or null.
+     *
+     * @param text  is the text typed by the user
+     * @param limit is the maximum number of articles found
+     */
+    public void search(String text, int limit) {
+
+        if (mSearchTask != null) {
+            mSearchTask.cancel();
+
+            mSearchTask = null;
+        }
+
+        mSearchText = text;
+
+        if (text == null || text.trim().isEmpty()) {
+
+            mSearchResults.setValue(null);
+
+            return;
+        }
+
+        mSearchTask = mRepository.search(text, limit, new ArticlesRepository.Callback<List<Article>>() {
+            @Override
+            public void onResult(List<Article> articles) {
+
+                mSearchTask = null;
+
+                mSearchResults.setValue(articles);
+            }
+        });
+    }
+
+    /**
+     * This method returns the text of the current search, or null when the user is not searching.
+     */
+    public String getSearchText() {
+        return mSearchText;
+    }
+
+    /**
+     * This method returns true if the feed asks for the small fields only, so that the bodies are fetched on demand.
+     */
+    public boolean isLightFeed() {
+        return mIsLightFeed;
+    }
+
+    /**
+     * This method returns true while a page of the feed is being loaded.
+     */
+    public boolean isLoadingPage() {
+        return mPageTask != null;
+    }
+
+    /**
+     * This method returns true once the last page of the feed has been loaded.
+     */
+    public boolean isLastPage() {
+        return mIsLastPage;
+    }
+
+    /**
+     * This is called when the activity is finished for good. The download and the parsing that are still running
+     * are canceled.
+     */
+    @Override
+    protected void onCleared() {
+
+        if (mStoredTask != null) {
+            mStoredTask.cancel();
+        }
+
+        if (mPageTask != null) {
+            mPageTask.cancel();
+        }
+
+        if (mSearchTask != null) {
+            mSearchTask.cancel();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.android.covid19guide.benchmarks;
+
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.utils.ArticlesJsonDecoder;
+import com.example.android.covid19guide.utils.PublicationDates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of the {@link Article}s of a page of 200 results out of values that were already parsed,
+ * which is the part of the decoding that trims the description and pools the section and author names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArticleBenchmark {
+
+    private static final int RESULT_COUNT = 200;
+
+    private List<Article> mArticles;
+
+    /**
+     * The full body texts of the articles, which the constructor trims to the description
+     */
+    private final Map<String, String> mBodies = new HashMap<>();
+
+    private String[] mPublicationDates;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        mArticles = ArticlesJsonDecoder.decode(new ByteArrayInputStream(
+                GuardianFixtures.searchResponse(GuardianFixtures.FEED_FULL, RESULT_COUNT)),
+                new ArticlesJsonDecoder.OnBodyDecodedListener() {
+                    @Override
+                    public void onBodyDecoded(String id, String body) {
+                        mBodies.put(id, body);
+                    }
+                });
+
+        mPublicationDates = new String[mArticles.size()];
+
+        for (int i = 0; i < mPublicationDates.length; i++) {
+            mPublicationDates[i] = mArticles.get(i).getDate() + "T10:15:30Z";
+        }
+    }
+
+    @Benchmark
+    public List<Article> constructArticles() {
+
+        List<Article> articles = new ArrayList<>(mArticles.size());
+
+        for (Article article : mArticles) {
+            articles.add(new Article(article.getId(), article.getTitle(), mBodies.get(article.getId()),
+                    article.getSection(), article.getPublishedAtMillis(), article.getUrl(), article.getAuthorName(),
+                    article.getArticleImageUrl()));
+        }
+
+        return articles;
+    }
+
+    @Benchmark
+    public long parsePublicationDates() {
+
+        long sum = 0;
+
+        for (String date : mPublicationDates) {
+            sum += PublicationDates.parse(date);
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.android.covid19guide.benchmarks;
+
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.network.CountingInputStream;
+import com.example.android.covid19guide.utils.ArticlesJsonDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Measures the streaming {@link ArticlesJsonDecoder} on pages of the full and the light feed, both on the plain
+ * response and on the gzip compressed response read through a {@link CountingInputStream}, like the app reads it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArticlesJsonDecoderBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int resultCount;
+
+    @Param({GuardianFixtures.FEED_FULL, GuardianFixtures.FEED_LIGHT})
+    public String feed;
+
+    private byte[] mResponse;
+
+    private byte[] mGzippedResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        mResponse = GuardianFixtures.searchResponse(feed, resultCount);
+
+        mGzippedResponse = GuardianFixtures.gzip(mResponse);
+    }
+
+    @Benchmark
+    public List<Article> decode() throws IOException {
+
+        return ArticlesJsonDecoder.decode(new ByteArrayInputStream(mResponse));
+    }
+
+    @Benchmark
+    public List<Article> decodeGzipped() throws IOException {
+
+        InputStream inputStream = new GZIPInputStream(new CountingInputStream(new ByteArrayInputStream(mGzippedResponse)));
+
+        try {
+            return ArticlesJsonDecoder.decode(inputStream);
+
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Only reads the gzip compressed response, which is the part of {@link #decodeGzipped()} that is not parsing.
+     */
+    @Benchmark
+    public long readGzipped() throws IOException {
+
+        CountingInputStream inputStream = new CountingInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(mGzippedResponse)));
+
+        byte[] buffer = new byte[8192];
+
+        try {
+            while (inputStream.read(buffer) != -1) {
+                // Keep reading until the end of the stream
+            }
+            return inputStream.getCount();
+
+        } finally {
+            inputStream.close();
+        }
+    }
+}
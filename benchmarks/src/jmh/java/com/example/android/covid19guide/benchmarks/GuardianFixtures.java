@@ -0,0 +1,95 @@
+package com.example.android.covid19guide.benchmarks;
+
+import com.example.android.covid19guide.utils.GuardianJsonParser;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Loads the Guardian search responses of the benchmarks. The fixtures hold 200 results of the full feed and of the
+ * light feed, the smaller pages are cut out of them so that every page size is made of the same articles.
+ */
+final class GuardianFixtures {
+
+    /**
+     * The feeds of the fixtures, with the fields that the full and the light feed ask for
+     */
+    static final String FEED_FULL = "full";
+
+    static final String FEED_LIGHT = "light";
+
+    private static final int FIXTURE_RESULT_COUNT = 200;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private GuardianFixtures() {
+    }
+
+    /**
+     * Returns the response of a feed with its first results only.
+     *
+     * @param feed        is FEED_FULL or FEED_LIGHT
+     * @param resultCount is the number of results of the page, at most 200
+     * @return byte[]: the response encoded in UTF-8
+     */
+    static byte[] searchResponse(String feed, int resultCount) throws IOException {
+
+        if (resultCount > FIXTURE_RESULT_COUNT) {
+            throw new IllegalArgumentException("The fixtures only have " + FIXTURE_RESULT_COUNT + " results");
+        }
+
+        String fixture = "/fixtures/guardian-search-" + feed + "-" + FIXTURE_RESULT_COUNT + ".json";
+
+        InputStream inputStream = GuardianFixtures.class.getResourceAsStream(fixture);
+
+        if (inputStream == null) {
+            throw new IOException("Missing fixture " + fixture);
+        }
+
+        try {
+            JSONObject json = new JSONObject(GuardianJsonParser.readFromStream(inputStream));
+
+            JSONObject response = json.getJSONObject("response");
+
+            JSONArray results = response.getJSONArray("results");
+
+            JSONArray page = new JSONArray();
+
+            for (int i = 0; i < resultCount; i++) {
+                page.put(results.get(i));
+            }
+
+            response.put("results", page);
+            response.put("pageSize", resultCount);
+
+            return json.toString().getBytes(UTF_8);
+
+        } catch (JSONException e) {
+            throw new IOException("Malformed fixture " + fixture, e);
+
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns the bytes compressed with gzip, as the Guardian API sends them.
+     */
+    static byte[] gzip(byte[] bytes) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        GZIPOutputStream gzip = new GZIPOutputStream(output);
+
+        gzip.write(bytes);
+
+        gzip.close();
+
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.android.covid19guide.benchmarks;
+
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.utils.GuardianJsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the String + JSONObject path of the {@link GuardianJsonParser} on pages of the full feed, the only feed it
+ * can read: reading the response into a String, parsing the String, and both together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GuardianJsonParserBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int resultCount;
+
+    private byte[] mResponse;
+
+    private String mResponseJson;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        mResponse = GuardianFixtures.searchResponse(GuardianFixtures.FEED_FULL, resultCount);
+
+        mResponseJson = GuardianJsonParser.readFromStream(new ByteArrayInputStream(mResponse));
+    }
+
+    @Benchmark
+    public String readFromStream() throws IOException {
+
+        return GuardianJsonParser.readFromStream(new ByteArrayInputStream(mResponse));
+    }
+
+    @Benchmark
+    public List<Article> extractFeatureFromJson() {
+
+        return GuardianJsonParser.extractFeatureFromJson(mResponseJson);
+    }
+
+    @Benchmark
+    public List<Article> readAndExtract() throws IOException {
+
+        return GuardianJsonParser.extractFeatureFromJson(
+                GuardianJsonParser.readFromStream(new ByteArrayInputStream(mResponse)));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.android.covid19guide.datamodels;
+
+import com.example.android.covid19guide.utils.PublicationDates;
+import com.example.android.covid19guide.utils.StringPool;
+
+/**
+ * An {@link Article} object contains information related to a Single News' Article.
+ * It is kept small because the feed holds thousands of them: only the beginning of the body text is kept, the full
+ * body is held by the ArticleBodyFetcher of the app and loaded when it is needed,
+ * the publication time is a primitive, and the section and author names are shared through a {@link StringPool}.
+ */
+public class Article {
+
+    /**
+     * The maximum number of characters of the body text that are kept in the description, which is more than the
+     * excerpt that the cards display
+     */
+    public static final int MAX_DESCRIPTION_LENGTH = 400;
+
+    /**
+     * Guardian content id of the News Article, used to request its body text later
+     */
+    private String id;
+
+    /**
+     * Title of the News Article
+     */
+    private String title;
+
+    /**
+     * Beginning of the Body Text of the News Article, or its Trail Text when the feed is loaded without the body texts
+     */
+    private String description;
+
+    /**
+     * Section of the News Article
+     */
+    private String section;
+
+    /**
+     * Publishing time of the News Article in milliseconds since the epoch, or PublicationDates.UNKNOWN
+     */
+    private long publishedAtMillis;
+
+    /**
+     * Website URL of the News Article
+     */
+    private String url;
+
+    /**
+     * Author of the News Article
+     */
+    private String authorName;
+
+    /**
+     * Thumbnail of the News Article
+     */
+    private String articleImageUrl;
+
+    /**
+     * Constructs a new {@link Article} object.
+     *
+     * @param id          is the Guardian content id of the News Article
+     * @param title       is the title of the News Article
+     * @param description is the content of the News Article, only its beginning is kept
+     * @param section     is the section of the News Article
+     * @param publishedAtMillis is the time at which the News Article was published in milliseconds since the epoch
+     * @param url         is the Website URL of the News Article
+     * @param authorName  is the name of the author of the News Article
+     * @param articleImageUrl is the url of the thumbnail of the News Article
+     */
+    public Article(String id, String title, String description, String section, long publishedAtMillis, String url, String authorName, String articleImageUrl) {
+        this.id = id;
+        this.title = title;
+        this.description = description.length() > MAX_DESCRIPTION_LENGTH
+                ? description.substring(0, MAX_DESCRIPTION_LENGTH) : description;
+        this.section = StringPool.articleValues().get(section);
+        this.publishedAtMillis = publishedAtMillis;
+        this.url = url;
+        this.authorName = StringPool.articleValues().get(authorName);
+        this.articleImageUrl = articleImageUrl;
+    }
+
+    /**
+     * This method returns the Guardian content id of the News Article
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * This method returns the title of the News Article
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * This method returns the beginning of the body text of the News Article
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * This method returns the section of the News Article
+     */
+    public String getSection() {
+        return section;
+    }
+
+    /**
+     * This method returns the time at which the News Article was published in milliseconds since the epoch
+     */
+    public long getPublishedAtMillis() {
+        return publishedAtMillis;
+    }
+
+    /**
+     * This method returns the date on which the News Article was published, formatted as yyyy-MM-dd
+     */
+    public String getDate() {
+        return PublicationDates.formatDate(publishedAtMillis);
+    }
+
+    /**
+     * This method returns the Website URL of the News Article
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * This method returns the name of the author of the News Article
+     */
+    public String getAuthorName() {
+        return authorName;
+    }
+
+    /**
+     * This method returns the article image thumbnail url of the News Article
+     */
+    public String getArticleImageUrl() {
+        return articleImageUrl;
+    }
+}
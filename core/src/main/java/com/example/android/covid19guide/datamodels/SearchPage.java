@@ -0,0 +1,80 @@
+package com.example.android.covid19guide.datamodels;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link SearchPage} object holds the {@link Article}s of a page of a Guardian search, read-only, together with the
+ * position of the page among the pages of the search as the Guardian API reports it in {@code currentPage} and
+ * {@code pages}. The number of articles does not tell the last page, because the results that the app cannot display
+ * are left out of the page.
+ */
+public final class SearchPage extends AbstractList<Article> implements RandomAccess {
+
+    /**
+     * The value of the page number and of the number of pages when the response does not tell them
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * The articles of the page
+     */
+    private final List<Article> articles;
+
+    /**
+     * The number of the page, starting at 1, and the number of pages of the search
+     */
+    private final int currentPage;
+
+    private final int pageCount;
+
+    /**
+     * Constructs a new {@link SearchPage} object.
+     *
+     * @param articles    are the articles of the page, which must not be modified afterwards
+     * @param currentPage is the number of the page, starting at 1, or UNKNOWN
+     * @param pageCount   is the number of pages of the search, or UNKNOWN
+     */
+    public SearchPage(List<Article> articles, int currentPage, int pageCount) {
+        this.articles = articles;
+        this.currentPage = currentPage;
+        this.pageCount = pageCount;
+    }
+
+    @Override
+    public Article get(int index) {
+        return articles.get(index);
+    }
+
+    @Override
+    public int size() {
+        return articles.size();
+    }
+
+    /**
+     * This method returns the number of the page, starting at 1, or UNKNOWN
+     */
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    /**
+     * This method returns the number of pages of the search, or UNKNOWN
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * This method returns true if the search has no page after this one. When the response does not tell the number
+     * of pages, only an empty page is the last one.
+     */
+    public boolean isLastPage() {
+
+        if (currentPage == UNKNOWN || pageCount == UNKNOWN) {
+            return articles.isEmpty();
+        }
+        return currentPage >= pageCount;
+    }
+}
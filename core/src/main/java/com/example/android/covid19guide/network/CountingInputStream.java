@@ -0,0 +1,105 @@
+package com.example.android.covid19guide.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that counts the bytes read through it, used to report how many bytes were transferred. It can
+ * also add up the time spent in the reads, which is the time spent waiting for the stream it wraps.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    /**
+     * The number of bytes read so far
+     */
+    private long mCount;
+
+    /**
+     * True if the time spent in the reads is added up
+     */
+    private final boolean mIsTimingReads;
+
+    /**
+     * The time spent in the reads so far
+     */
+    private long mReadNanos;
+
+    /**
+     * Constructs a new {@link CountingInputStream}.
+     *
+     * @param in is the stream whose bytes are counted
+     */
+    public CountingInputStream(InputStream in) {
+        this(in, false);
+    }
+
+    /**
+     * Constructs a new {@link CountingInputStream} which may also add up the time spent in the reads.
+     *
+     * @param in            is the stream whose bytes are counted
+     * @param isTimingReads is true to add up the time spent in the reads
+     */
+    public CountingInputStream(InputStream in, boolean isTimingReads) {
+        super(in);
+        mIsTimingReads = isTimingReads;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        long startNanos = mIsTimingReads ? System.nanoTime() : 0;
+
+        int result = super.read();
+
+        if (mIsTimingReads) {
+            mReadNanos += System.nanoTime() - startNanos;
+        }
+
+        if (result != -1) {
+            mCount++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+
+        long startNanos = mIsTimingReads ? System.nanoTime() : 0;
+
+        int result = super.read(buffer, offset, length);
+
+        if (mIsTimingReads) {
+            mReadNanos += System.nanoTime() - startNanos;
+        }
+
+        if (result != -1) {
+            mCount += result;
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+
+        long result = super.skip(n);
+
+        mCount += result;
+
+        return result;
+    }
+
+    /**
+     * This method returns the number of bytes read so far.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * This method returns the time spent in the reads so far, or 0 if the reads are not timed.
+     */
+    public long getReadNanos() {
+        return mReadNanos;
+    }
+}
@@ -0,0 +1,630 @@
+package com.example.android.covid19guide.utils;
+
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.SearchPage;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A streaming decoder for the Guardian's search response. It reads the {@code response.results} array straight off
+ * the {@link InputStream} with a {@link JsonReader}, skips every field that the app does not use and emits the
+ * {@link Article}s one at a time, so the body text of an article is only ever held once in memory. The articles only
+ * keep the beginning of their body, the full bodies are handed to an {@link OnBodyDecodedListener}.
+ * It decodes both the full feed, whose cards show the body text, and the light feed, whose cards show the trail text
+ * while the bodies are fetched later in batches with {@link #decodeBodies(InputStream)}.
+ */
+public final class ArticlesJsonDecoder {
+
+    /**
+     * Logger of the decoder, java.util.logging writes to logcat on Android and to the console on a plain JVM
+     */
+    private static final Logger LOGGER = Logger.getLogger(ArticlesJsonDecoder.class.getName());
+
+    /**
+     * Indexes of the values of the {@code fields} object of a result
+     */
+    private static final int FIELD_BODY_TEXT = 0;
+
+    private static final int FIELD_THUMBNAIL = 1;
+
+    private static final int FIELD_TRAIL_TEXT = 2;
+
+    private static final int FIELD_BYLINE = 3;
+
+    private static final int FIELD_COUNT = 4;
+
+    /**
+     * Indexes of the {@code currentPage} and {@code pages} values of the response
+     */
+    private static final int PAGING_CURRENT_PAGE = 0;
+
+    private static final int PAGING_PAGE_COUNT = 1;
+
+    /**
+     * Callback that receives every {@link Article} as soon as it has been decoded from the stream.
+     */
+    public interface OnArticleDecodedListener {
+
+        /**
+         * This method is called once for every valid result in the response, in the order of the response.
+         *
+         * @param article Article: the decoded News Article
+         */
+        void onArticleDecoded(Article article);
+    }
+
+    /**
+     * Callback that receives the full body text of every article of the full feed, which the {@link Article} itself
+     * does not keep.
+     */
+    public interface OnBodyDecodedListener {
+
+        /**
+         * This method is called before the article of the body is handed to the OnArticleDecodedListener.
+         *
+         * @param id   String: the Guardian content id of the article
+         * @param body String: the full body text of the article
+         */
+        void onBodyDecoded(String id, String body);
+    }
+
+    /**
+     * Reads a single result of the {@code results} array.
+     */
+    private interface ResultReader {
+
+        void readResult(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Create a private constructor because we don't want to create a {@link ArticlesJsonDecoder} object.
+     */
+    private ArticlesJsonDecoder() {
+    }
+
+    /**
+     * This method decodes the whole response and collects the {@link Article}s into a list.
+     *
+     * @param inputStream is the stream of the Guardian's JSON response
+     * @return List<Article> the decoded articles, or null if the stream is null or empty just like the String based parser
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static List<Article> decode(InputStream inputStream) throws IOException {
+
+        return decode(inputStream, (OnBodyDecodedListener) null);
+    }
+
+    /**
+     * This method decodes the whole response, collects the {@link Article}s into a list and hands their full bodies
+     * to the body listener.
+     *
+     * @param inputStream  is the stream of the Guardian's JSON response
+     * @param bodyListener is the listener that receives the full bodies, or null to drop them
+     * @return List<Article> the decoded articles, or null if the stream is null or empty just like the String based parser
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static List<Article> decode(InputStream inputStream, OnBodyDecodedListener bodyListener)
+            throws IOException {
+
+        return decodePage(inputStream, null, bodyListener);
+    }
+
+    /**
+     * This method decodes the whole response into a {@link SearchPage}, which also tells where the page stands among
+     * the pages of the search, and hands every article to the listener as soon as it is complete.
+     *
+     * @param inputStream  is the stream of the Guardian's JSON response
+     * @param listener     is the listener that receives the decoded articles, or null
+     * @param bodyListener is the listener that receives the full bodies, or null to drop them
+     * @return SearchPage: the decoded page, or null if the stream is null or empty
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static SearchPage decodePage(InputStream inputStream, final OnArticleDecodedListener listener,
+                                        final OnBodyDecodedListener bodyListener) throws IOException {
+
+        final List<Article> articles = new ArrayList<>();
+
+        int[] paging = {SearchPage.UNKNOWN, SearchPage.UNKNOWN};
+
+        boolean hasContent = readDocument(inputStream, new ResultReader() {
+            @Override
+            public void readResult(JsonReader reader) throws IOException {
+
+                Article article = ArticlesJsonDecoder.readResult(reader, bodyListener);
+
+                if (article != null) {
+
+                    articles.add(article);
+
+                    if (listener != null) {
+                        listener.onArticleDecoded(article);
+                    }
+                }
+            }
+        }, paging);
+
+        return hasContent ? new SearchPage(articles, paging[PAGING_CURRENT_PAGE], paging[PAGING_PAGE_COUNT]) : null;
+    }
+
+    /**
+     * This method decodes the response and hands every {@link Article} to the listener as soon as it is complete.
+     * A single malformed result is skipped without dropping the rest of the page, while a document that is cut short
+     * or broken is rejected as a whole, so that it is never taken for a shorter page. The articles emitted before the
+     * error have already been handed to the listener, which has to drop them when the exception is thrown.
+     *
+     * @param inputStream is the stream of the Guardian's JSON response
+     * @param listener    is the listener that receives the decoded articles
+     * @return boolean: false if there was nothing to decode (null or empty stream), true otherwise
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static boolean decode(InputStream inputStream, OnArticleDecodedListener listener) throws IOException {
+
+        return decode(inputStream, listener, null);
+    }
+
+    /**
+     * This method decodes the response like {@link #decode(InputStream, OnArticleDecodedListener)} and also hands
+     * the full body of every article to the body listener.
+     *
+     * @param inputStream  is the stream of the Guardian's JSON response
+     * @param listener     is the listener that receives the decoded articles
+     * @param bodyListener is the listener that receives the full bodies, or null to drop them
+     * @return boolean: false if there was nothing to decode (null or empty stream), true otherwise
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static boolean decode(InputStream inputStream, final OnArticleDecodedListener listener,
+                                 final OnBodyDecodedListener bodyListener) throws IOException {
+
+        return readDocument(inputStream, new ResultReader() {
+            @Override
+            public void readResult(JsonReader reader) throws IOException {
+
+                Article article = ArticlesJsonDecoder.readResult(reader, bodyListener);
+
+                if (article != null) {
+                    listener.onArticleDecoded(article);
+                }
+            }
+        }, null);
+    }
+
+    /**
+     * This method decodes the response of a batch request for the bodies of articles, made with the {@code ids}
+     * parameter and {@code show-fields=body-text}.
+     *
+     * @param inputStream is the stream of the Guardian's JSON response
+     * @return Map<String, String>: the body text of every article keyed by its id, or null if the stream is null or empty
+     * @throws IOException if the document is cut short or malformed
+     */
+    public static Map<String, String> decodeBodies(InputStream inputStream) throws IOException {
+
+        final Map<String, String> bodies = new HashMap<>();
+
+        boolean hasContent = readDocument(inputStream, new ResultReader() {
+            @Override
+            public void readResult(JsonReader reader) throws IOException {
+
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+
+                    reader.skipValue();
+
+                    return;
+                }
+
+                String id = null;
+
+                String[] fields = null;
+
+                reader.beginObject();
+
+                while (reader.hasNext()) {
+
+                    String name = reader.nextName();
+
+                    if ("id".equals(name)) {
+                        id = readString(reader);
+                    } else if ("fields".equals(name)) {
+                        fields = readFields(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+
+                reader.endObject();
+
+                if (id != null && fields != null && fields[FIELD_BODY_TEXT] != null) {
+                    bodies.put(id, fields[FIELD_BODY_TEXT]);
+                }
+            }
+        }, null);
+
+        return hasContent ? bodies : null;
+    }
+
+    /**
+     * This method reads the JSON document and hands every result of the {@code response.results} array to the
+     * result reader.
+     *
+     * @param paging receives the {@code currentPage} and {@code pages} values of the response, or is null
+     * @return boolean: false if there was nothing to decode (null or empty stream), true otherwise
+     * @throws IOException if the document ends before its root object is closed, or is not the expected JSON
+     */
+    private static boolean readDocument(InputStream inputStream, ResultReader resultReader, int[] paging)
+            throws IOException {
+
+        if (inputStream == null) {
+            return false;
+        }
+
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+
+        // An empty body is reported the same way the String based parser reports an empty response
+        if (isEmptyDocument(reader)) {
+            return false;
+        }
+
+        try {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+
+                if ("response".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+
+                    readResponse(reader, resultReader, paging);
+
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+
+        } catch (IllegalStateException e) {
+            // The reader reports an unexpected token in the structure of the document, which no result can skip
+            throw new IOException("Problem parsing the JSON results", e);
+        }
+
+        return true;
+    }
+
+    /**
+     * This method returns true if the document has no value at all. The reader reports an empty document as the end
+     * of the input, a malformed document is left to be reported while it is decoded.
+     */
+    private static boolean isEmptyDocument(JsonReader reader) {
+
+        try {
+            return reader.peek() == JsonToken.END_DOCUMENT;
+
+        } catch (EOFException e) {
+            return true;
+
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the {@code response} object and decodes the {@code results} array inside of it.
+     */
+    private static void readResponse(JsonReader reader, ResultReader resultReader, int[] paging) throws IOException {
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+
+            String name = reader.nextName();
+
+            if (paging != null && "currentPage".equals(name)) {
+                paging[PAGING_CURRENT_PAGE] = readPageNumber(reader);
+
+            } else if (paging != null && "pages".equals(name)) {
+                paging[PAGING_PAGE_COUNT] = readPageNumber(reader);
+
+            } else if ("results".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+
+                reader.beginArray();
+
+                while (reader.hasNext()) {
+
+                    resultReader.readResult(reader);
+                }
+
+                reader.endArray();
+
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+    }
+
+    /**
+     * Reads a page number of the response.
+     *
+     * @return int: the page number, or UNKNOWN if the value is not a positive whole number
+     */
+    private static int readPageNumber(JsonReader reader) throws IOException {
+
+        if (reader.peek() != JsonToken.NUMBER) {
+
+            reader.skipValue();
+
+            return SearchPage.UNKNOWN;
+        }
+
+        try {
+            return Math.max(reader.nextInt(), SearchPage.UNKNOWN);
+
+        } catch (NumberFormatException e) {
+            // The number does not fit in an int or has a fraction, and the reader has not consumed it
+            reader.skipValue();
+
+            return SearchPage.UNKNOWN;
+        }
+    }
+
+    /**
+     * Reads a single result of the {@code results} array.
+     *
+     * @return Article: the decoded article, or null if one of the fields that the app needs is missing or malformed
+     */
+    private static Article readResult(JsonReader reader, OnBodyDecodedListener bodyListener) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+
+            LOGGER.severe("Skipping a result which is not a JSON object");
+
+            reader.skipValue();
+
+            return null;
+        }
+
+        String id = null;
+
+        String sectionName = null;
+
+        String articleDate = null;
+
+        String articleTitle = null;
+
+        String articleUrl = null;
+
+        String[] fields = null;
+
+        // The tags array is required, but an empty array means that the article has no author
+        boolean hasTags = false;
+
+        String authorName = null;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+
+            switch (reader.nextName()) {
+
+                case "id":
+                    id = readString(reader);
+                    break;
+
+                case "sectionName":
+                    sectionName = readString(reader);
+                    break;
+
+                case "webPublicationDate":
+                    articleDate = readString(reader);
+                    break;
+
+                case "webTitle":
+                    articleTitle = readString(reader);
+                    break;
+
+                case "webUrl":
+                    articleUrl = readString(reader);
+                    break;
+
+                case "fields":
+                    fields = readFields(reader);
+                    break;
+
+                case "tags":
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        hasTags = true;
+                        authorName = readFirstTagTitle(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        // The card shows the body text of the full feed, or the trail text of the light feed
+        String description = null;
+
+        if (fields != null) {
+            description = fields[FIELD_BODY_TEXT] != null ? fields[FIELD_BODY_TEXT] : stripHtml(fields[FIELD_TRAIL_TEXT]);
+        }
+
+        // The full feed asks for the contributor tags, while the light feed has the byline instead
+        boolean hasAuthorSource = hasTags || fields == null || fields[FIELD_BODY_TEXT] == null;
+
+        if (sectionName == null || articleDate == null || articleTitle == null || articleUrl == null
+                || description == null || fields[FIELD_THUMBNAIL] == null || !hasAuthorSource) {
+
+            LOGGER.severe("Skipping a result with missing fields: " + articleUrl);
+
+            return null;
+        }
+
+        // Without a contributor tag, the byline of the light feed is the author name
+        if (authorName == null) {
+            authorName = fields[FIELD_BYLINE];
+        }
+
+        // The article only keeps the beginning of the body text, the full body goes to the body listener
+        if (bodyListener != null && id != null && fields[FIELD_BODY_TEXT] != null) {
+            bodyListener.onBodyDecoded(id, fields[FIELD_BODY_TEXT]);
+        }
+
+        return new Article(id, articleTitle, description, sectionName, PublicationDates.parse(articleDate), articleUrl,
+                authorName, fields[FIELD_THUMBNAIL]);
+    }
+
+    /**
+     * Reads the {@code fields} object of a result.
+     *
+     * @return String[]: the fields indexed by the FIELD constants, or null if fields is not an object
+     */
+    private static String[] readFields(JsonReader reader) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+
+            reader.skipValue();
+
+            return null;
+        }
+
+        String[] fields = new String[FIELD_COUNT];
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+
+            switch (reader.nextName()) {
+
+                case "bodyText":
+                    fields[FIELD_BODY_TEXT] = readString(reader);
+                    break;
+
+                case "thumbnail":
+                    fields[FIELD_THUMBNAIL] = readString(reader);
+                    break;
+
+                case "trailText":
+                    fields[FIELD_TRAIL_TEXT] = readString(reader);
+                    break;
+
+                case "byline":
+                    fields[FIELD_BYLINE] = readString(reader);
+                    break;
+
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        return fields;
+    }
+
+    /**
+     * Reads the {@code tags} array of a result and returns the webTitle of its first tag which is the author name.
+     */
+    private static String readFirstTagTitle(JsonReader reader) throws IOException {
+
+        String authorName = null;
+
+        boolean isFirstTag = true;
+
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+
+            if (isFirstTag && reader.peek() == JsonToken.BEGIN_OBJECT) {
+
+                reader.beginObject();
+
+                while (reader.hasNext()) {
+
+                    if ("webTitle".equals(reader.nextName())) {
+                        authorName = readString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+
+                reader.endObject();
+
+            } else {
+                reader.skipValue();
+            }
+
+            isFirstTag = false;
+        }
+
+        reader.endArray();
+
+        return authorName;
+    }
+
+    /**
+     * Reads a string or a number value, any other kind of value is skipped and reported as null.
+     */
+    private static String readString(JsonReader reader) throws IOException {
+
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+
+        reader.skipValue();
+
+        return null;
+    }
+
+    /**
+     * Removes the HTML tags from the trail text and decodes the few entities that it uses.
+     */
+    private static String stripHtml(String html) {
+
+        if (html == null) {
+            return null;
+        }
+
+        StringBuilder text = new StringBuilder(html.length());
+
+        boolean isInTag = false;
+
+        for (int i = 0; i < html.length(); i++) {
+
+            char c = html.charAt(i);
+
+            if (c == '<') {
+                isInTag = true;
+            } else if (c == '>') {
+                isInTag = false;
+            } else if (!isInTag) {
+                text.append(c);
+            }
+        }
+
+        return text.toString()
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&nbsp;", " ")
+                .replace("&amp;", "&")
+                .trim();
+    }
+}
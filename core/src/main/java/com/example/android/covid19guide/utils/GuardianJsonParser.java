@@ -0,0 +1,151 @@
+package com.example.android.covid19guide.utils;
+
+import com.example.android.covid19guide.datamodels.Article;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The first parser of the Guardian's search response, which reads the whole response into a String and walks it with
+ * {@link JSONObject}. The app decodes the stream with {@link ArticlesJsonDecoder} instead; this parser is kept as the
+ * reference implementation that the decoder is tested and benchmarked against.
+ * <p>
+ * The org.json classes are provided by the Android platform on a device, and by the org.json library on a plain JVM.
+ */
+public final class GuardianJsonParser {
+
+    /**
+     * Logger of the parser, java.util.logging writes to logcat on Android and to the console on a plain JVM
+     */
+    private static final Logger LOGGER = Logger.getLogger(GuardianJsonParser.class.getName());
+
+    /**
+     * Create a private constructor because we don't want to create a {@link GuardianJsonParser} object.
+     */
+    private GuardianJsonParser() {
+    }
+
+    /**
+     * Convert the {@link InputStream} into a String which contains the whole JSON response from the server.
+     */
+    public static String readFromStream(InputStream inputStream) throws IOException {
+
+        StringBuilder output = new StringBuilder();
+
+        if (inputStream != null) {
+
+            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+
+            BufferedReader reader = new BufferedReader(inputStreamReader);
+
+            String line = reader.readLine();
+
+            while (line != null) {
+
+                output.append(line);
+
+                line = reader.readLine();
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Return a list of {@link Article} objects that has been built up from parsing the given JSON response.
+     */
+    public static List<Article> extractFeatureFromJson(String articlesJSON) {
+
+        // If the JSON string is empty, then return early.
+        if (articlesJSON == null || articlesJSON.isEmpty()) {
+            return null;
+        }
+
+        // Create an empty ArrayList that we can start adding News Articles to
+        List<Article> articles = new ArrayList<>();
+
+        // Try to parse the JSON response string. If there's a problem with the way the JSON
+        // is formatted, a JSONException exception object will be thrown.
+        // Catch the exception so the app doesn't crash, and print the error message to the logs.
+        try {
+
+            // Create a JSONObject baseJsonResponse from the JSON response string
+            JSONObject baseJsonResponse = new JSONObject(articlesJSON);
+
+            // Extract the JSONArray associated with the key called "results", which represents a list of results or news articles.
+            JSONArray resultsArray = baseJsonResponse.getJSONObject("response").getJSONArray("results");
+
+            // For each news article in the resultsArray, create an {@link Article} object
+            for (int i = 0; i < resultsArray.length(); i++) {
+
+                // Get a single Article at position i within the list of results/articles
+                JSONObject currentArticle = resultsArray.getJSONObject(i);
+
+                //Extract the value for the key called "sectionName"
+                String sectionName = currentArticle.getString("sectionName");
+
+                //Extract the value for the key called "webPublicationDate"
+                String articleDate = currentArticle.getString("webPublicationDate");
+
+                //Convert the articleDate to the time in milliseconds since the epoch
+                long publishedAtMillis = PublicationDates.parse(articleDate);
+
+                //Extract the value for the key called "webTitle"
+                String articleTitle = currentArticle.getString("webTitle");
+
+                //Extract the value for the key called "webUrl"
+                String articleUrl = currentArticle.getString("webUrl");
+
+                // Extract the JSONObject associated with the key called "fields"
+                JSONObject fields = currentArticle.getJSONObject("fields");
+
+                //Extract the value for the key called "bodyText"
+                String articleDescription = fields.getString("bodyText");
+
+                //Extract the value for the key called "thumbnail"
+                String articleImage = fields.getString("thumbnail");
+
+                // Extract the JSONArray associated with the key called "tags"
+                JSONArray tagsArray = currentArticle.getJSONArray("tags");
+
+                //Declare String variable to hold the article's author name
+                String authorName = null;
+
+                //Extract the value for the key called "webTitle" representing the author name
+                if (tagsArray.length() != 0) {
+
+                    JSONObject tagsElement = tagsArray.getJSONObject(0);
+
+                    authorName = tagsElement.getString("webTitle");
+                }
+
+                //Extract the value for the key called "id" which is the Guardian content id
+                String articleId = currentArticle.optString("id", null);
+
+                // Create a new {@link Article} object with the id, title, description, section name, date of publishing, article's website Url,
+                //article's author name, and article's image thumbnail from the JSON response.
+                Article article = new Article(articleId, articleTitle, articleDescription, sectionName, publishedAtMillis, articleUrl, authorName, articleImage);
+
+                // Add the new {@link Article} to the list of articles.
+                articles.add(article);
+            }
+
+        } catch (JSONException e) {
+            // If an error is thrown when executing any of the above statements in the "try" block,
+            // catch the exception here, so the app doesn't crash. Print a log message
+            // with the message from the exception.
+            LOGGER.log(Level.SEVERE, "Problem parsing the JSON results", e);
+        }
+
+        // Return the list of articles
+        return articles;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.android.covid19guide.utils;
+
+/**
+ * Converts the Guardian's publication dates, such as {@code 2020-06-01T10:15:30Z}, to milliseconds since the epoch
+ * and back to the date that the cards display. The dates are read character by character, without a regular
+ * expression or a date format object, because every article of every page goes through here.
+ */
+public final class PublicationDates {
+
+    /**
+     * The value returned for a publication date that cannot be read
+     */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     * Create a private constructor because we don't want to create a {@link PublicationDates} object.
+     */
+    private PublicationDates() {
+    }
+
+    /**
+     * This method reads an ISO-8601 date and time in UTC. The time, its fraction of a second and the trailing 'Z'
+     * are optional.
+     *
+     * @param date is the webPublicationDate of the article
+     * @return long: the time in milliseconds since the epoch, or UNKNOWN if the date is malformed
+     */
+    public static long parse(String date) {
+
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return UNKNOWN;
+        }
+
+        int year = readNumber(date, 0, 4);
+
+        int month = readNumber(date, 5, 7);
+
+        int day = readNumber(date, 8, 10);
+
+        int hour = 0;
+
+        int minute = 0;
+
+        int second = 0;
+
+        if (date.length() >= 19 && date.charAt(10) == 'T' && date.charAt(13) == ':' && date.charAt(16) == ':') {
+
+            hour = readNumber(date, 11, 13);
+
+            minute = readNumber(date, 14, 16);
+
+            second = readNumber(date, 17, 19);
+
+        } else if (date.length() > 10 && date.charAt(10) != 'T') {
+            return UNKNOWN;
+        }
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return UNKNOWN;
+        }
+
+        long seconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+
+        return seconds * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * This method formats the UTC date of a time as {@code yyyy-MM-dd}, the same text as the date part of the
+     * webPublicationDate.
+     *
+     * @param timeMillis is the time in milliseconds since the epoch
+     * @return String: the date, or an empty String if the time is UNKNOWN
+     */
+    public static String formatDate(long timeMillis) {
+
+        if (timeMillis == UNKNOWN) {
+            return "";
+        }
+
+        long millisPerDay = MILLIS_PER_SECOND * SECONDS_PER_DAY;
+
+        // Round down for the times before the epoch too
+        long days = (timeMillis >= 0 ? timeMillis : timeMillis - millisPerDay + 1) / millisPerDay;
+
+        // The inverse of daysFromCivil, see http://howardhinnant.github.io/date_algorithms.html
+        long shifted = days + 719468;
+
+        long era = (shifted >= 0 ? shifted : shifted - 146096) / 146097;
+
+        long dayOfEra = shifted - era * 146097;
+
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] text = new char[10];
+
+        writeNumber(text, 0, 4, year);
+        text[4] = '-';
+        writeNumber(text, 5, 2, month);
+        text[7] = '-';
+        writeNumber(text, 8, 2, day);
+
+        return new String(text);
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and the given date of the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+
+        long y = month <= 2 ? year - 1 : year;
+
+        long era = (y >= 0 ? y : y - 399) / 400;
+
+        long yearOfEra = y - era * 400;
+
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Reads the decimal number between the two indexes, or returns -1 if one of the characters is not a digit.
+     */
+    private static int readNumber(String text, int start, int end) {
+
+        int number = 0;
+
+        for (int i = start; i < end; i++) {
+
+            char c = text.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            number = number * 10 + (c - '0');
+        }
+
+        return number;
+    }
+
+    /**
+     * Writes the number with the given number of digits, padded with zeros.
+     */
+    private static void writeNumber(char[] text, int start, int digits, int number) {
+
+        for (int i = start + digits - 1; i >= start; i--) {
+
+            text[i] = (char) ('0' + number % 10);
+
+            number /= 10;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.android.covid19guide.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary of the values that repeat across hundreds of articles, such as the section and author names, so that
+ * every distinct value is held once in memory however many articles share it.
+ */
+public final class StringPool {
+
+    /**
+     * Once the pool holds this many values, new values are no longer added and are returned as they are
+     */
+    private static final int MAX_SIZE = 4096;
+
+    /**
+     * The shared pool of the section names and author names of the articles
+     */
+    private static final StringPool ARTICLE_VALUES = new StringPool();
+
+    private final Map<String, String> mValues = new HashMap<>();
+
+    /**
+     * This method returns the pool that is shared by all the articles of the app.
+     */
+    public static StringPool articleValues() {
+        return ARTICLE_VALUES;
+    }
+
+    /**
+     * This method returns the pooled instance that is equal to the value, adding the value if it is not pooled yet.
+     *
+     * @param value is the String to look up, may be null
+     * @return String: the pooled instance, or null if the value is null
+     */
+    public synchronized String get(String value) {
+
+        if (value == null) {
+            return null;
+        }
+
+        String pooled = mValues.get(value);
+
+        if (pooled != null) {
+            return pooled;
+        }
+
+        if (mValues.size() < MAX_SIZE) {
+            mValues.put(value, value);
+        }
+
+        return value;
+    }
+
+    /**
+     * This method returns the number of distinct values in the pool.
+     */
+    public synchronized int size() {
+        return mValues.size();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.android.covid19guide.utils;
+
+import com.example.android.covid19guide.datamodels.Article;
+import com.example.android.covid19guide.datamodels.SearchPage;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks on a plain JVM that the streaming {@link ArticlesJsonDecoder} reads the same articles as the String based
+ * {@link GuardianJsonParser}, that a malformed result only skips itself, that a document cut short is rejected and
+ * that the page tells whether the search has more pages whatever the number of articles it kept.
+ */
+public class ArticlesJsonDecoderTest {
+
+    private static final String RESPONSE = "{\"response\":{\"status\":\"ok\",\"results\":["
+            + "{\"id\":\"world/1\",\"sectionName\":\"World news\",\"webPublicationDate\":\"2020-06-01T10:00:00Z\","
+            + "\"webTitle\":\"One\",\"webUrl\":\"https://www.theguardian.com/1\",\"isHosted\":false,"
+            + "\"fields\":{\"bodyText\":\"Cafés reopen \\\"slowly\\\"\",\"thumbnail\":\"t1\"},"
+            + "\"tags\":[{\"webTitle\":\"Author\",\"references\":[]}]},"
+            + "{\"id\":\"world/2\",\"sectionName\":\"World news\",\"webPublicationDate\":\"2020-06-02T10:00:00Z\","
+            + "\"webTitle\":\"Two\",\"webUrl\":\"https://www.theguardian.com/2\","
+            + "\"fields\":{\"bodyText\":\"Body\",\"thumbnail\":\"t2\"},\"tags\":[]}]}}";
+
+    @Test
+    public void decoderReadsTheSameArticlesAsTheStringParser() throws IOException {
+
+        List<Article> expected = GuardianJsonParser.extractFeatureFromJson(
+                GuardianJsonParser.readFromStream(new ByteArrayInputStream(bytesOf(RESPONSE))));
+
+        List<Article> actual = ArticlesJsonDecoder.decode(new ByteArrayInputStream(bytesOf(RESPONSE)));
+
+        assertNotNull(actual);
+        assertEquals(2, expected.size());
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            assertEquals(expected.get(i).getSection(), actual.get(i).getSection());
+            assertEquals(expected.get(i).getPublishedAtMillis(), actual.get(i).getPublishedAtMillis());
+            assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl());
+            assertEquals(expected.get(i).getAuthorName(), actual.get(i).getAuthorName());
+            assertEquals(expected.get(i).getArticleImageUrl(), actual.get(i).getArticleImageUrl());
+        }
+
+        assertEquals("Cafés reopen \"slowly\"", actual.get(0).getDescription());
+        assertNull(actual.get(1).getAuthorName());
+    }
+
+    @Test
+    public void decoderSkipsOnlyTheMalformedResult() throws IOException {
+
+        String response = "{\"response\":{\"results\":[{\"webTitle\":{\"unexpected\":true},\"fields\":[]},"
+                + RESPONSE.substring(RESPONSE.indexOf("{\"id\":\"world/2\""));
+
+        List<Article> articles = ArticlesJsonDecoder.decode(new ByteArrayInputStream(bytesOf(response)));
+
+        assertNotNull(articles);
+        assertEquals(1, articles.size());
+        assertEquals("Two", articles.get(0).getTitle());
+        assertNull(ArticlesJsonDecoder.decode(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void pageReadsThePagingOfTheSearch() throws IOException {
+
+        // The malformed result is dropped, which leaves fewer articles than were asked for on a page that is not last
+        String response = "{\"response\":{\"currentPage\":2,\"pages\":3,\"results\":[{\"webTitle\":[]},"
+                + RESPONSE.substring(RESPONSE.indexOf("{\"id\":\"world/2\""));
+
+        SearchPage page = ArticlesJsonDecoder.decodePage(new ByteArrayInputStream(bytesOf(response)), null, null);
+
+        assertNotNull(page);
+        assertEquals(1, page.size());
+        assertEquals(2, page.getCurrentPage());
+        assertEquals(3, page.getPageCount());
+        assertFalse(page.isLastPage());
+
+        SearchPage lastPage = ArticlesJsonDecoder.decodePage(new ByteArrayInputStream(bytesOf(
+                response.replace("\"currentPage\":2", "\"currentPage\":3"))), null, null);
+
+        assertNotNull(lastPage);
+        assertTrue(lastPage.isLastPage());
+
+        // Without the paging values only an empty page ends the search
+        SearchPage unknownPage = ArticlesJsonDecoder.decodePage(
+                new ByteArrayInputStream(bytesOf(RESPONSE)), null, null);
+
+        assertNotNull(unknownPage);
+        assertEquals(SearchPage.UNKNOWN, unknownPage.getPageCount());
+        assertFalse(unknownPage.isLastPage());
+    }
+
+    @Test
+    public void decoderRejectsATruncatedDocument() {
+
+        // Cut in the middle of the second result, and right after the first result as if the results had ended
+        assertRejected(RESPONSE.substring(0, RESPONSE.indexOf("\"webTitle\":\"Two\"")));
+        assertRejected(RESPONSE.substring(0, RESPONSE.indexOf(",{\"id\":\"world/2\"")));
+
+        // A document that is not the expected JSON is rejected too, rather than read as an empty page
+        assertRejected("[" + RESPONSE + "]");
+    }
+
+    @Test
+    public void bodiesDecoderRejectsATruncatedDocument() {
+
+        try {
+            ArticlesJsonDecoder.decodeBodies(new ByteArrayInputStream(bytesOf(RESPONSE.substring(0, 200))));
+
+            fail("A truncated document was decoded");
+
+        } catch (IOException expected) {
+            // The bodies of a cut document are not kept
+        }
+    }
+
+    private static void assertRejected(String response) {
+
+        final List<Article> emitted = new ArrayList<>();
+
+        try {
+            ArticlesJsonDecoder.decode(new ByteArrayInputStream(bytesOf(response)),
+                    new ArticlesJsonDecoder.OnArticleDecodedListener() {
+                        @Override
+                        public void onArticleDecoded(Article article) {
+                            emitted.add(article);
+                        }
+                    });
+
+            fail("A truncated document was decoded into " + emitted.size() + " articles");
+
+        } catch (IOException expected) {
+            // The articles emitted before the end of the stream are not a whole page
+        }
+    }
+
+    private static byte[] bytesOf(String json) {
+
+        return json.getBytes(Charset.forName("UTF-8"));
+    }
+}